@@ -299,8 +299,14 @@ const API = {
      * Booking APIs
      */
     bookings: {
-        async getAll() {
-            return API.request('/bookings');
+        async getPage(cursor, limit = 50) {
+            const params = new URLSearchParams({ limit });
+            if (cursor) params.set('cursor', cursor);
+            return API.request(`/bookings/page?${params}`);
+        },
+
+        async getStatusCounts() {
+            return API.request('/bookings/status-counts');
         },
 
         async getByUser(userId) {
@@ -747,31 +747,63 @@ const App = {
     // ===== Bookings Management =====
     allBookings: [],
     currentBookingFilter: 'all',
+    bookingsCursor: null,
 
     async loadBookings() {
         const tbody = document.getElementById('bookings-table');
         tbody.innerHTML = '<tr><td colspan="8" class="text-center text-muted"></td></tr>';
 
         try {
-            const res = await API.bookings.getAll();
-            this.allBookings = res.data || [];
+            // 第一頁（keyset 分頁），其餘由「載入更多」依 nextCursor 取得；統計數字由後端 GROUP BY 提供
+            const [res, countsRes] = await Promise.all([
+                API.bookings.getPage(null),
+                API.bookings.getStatusCounts()
+            ]);
+            const page = res.data || {};
+            this.allBookings = page.items || [];
+            this.bookingsCursor = page.nextCursor;
 
             // Update stats
-            const pending = this.allBookings.filter(b => b.status === 'PENDING').length;
-            const confirmed = this.allBookings.filter(b => b.status === 'CONFIRMED').length;
-            const completed = this.allBookings.filter(b => b.status === 'COMPLETED').length;
-
-            document.getElementById('stat-pending').textContent = pending;
-            document.getElementById('stat-confirmed').textContent = confirmed;
-            document.getElementById('stat-completed').textContent = completed;
+            const counts = countsRes.data || {};
+            document.getElementById('stat-pending').textContent = counts.PENDING || 0;
+            document.getElementById('stat-confirmed').textContent = counts.CONFIRMED || 0;
+            document.getElementById('stat-completed').textContent = counts.COMPLETED || 0;
 
             this.displayBookings(this.allBookings);
+            this.updateLoadMoreButton();
         } catch (error) {
             console.error('Bookings load error:', error);
             tbody.innerHTML = '<tr><td colspan="8" class="text-center text-muted">載入失敗</td></tr>';
         }
     },
 
+    async loadMoreBookings() {
+        if (!this.bookingsCursor) return;
+        const button = document.getElementById('bookings-load-more');
+        button.disabled = true;
+
+        try {
+            const res = await API.bookings.getPage(this.bookingsCursor);
+            const page = res.data || {};
+            this.allBookings = this.allBookings.concat(page.items || []);
+            this.bookingsCursor = page.nextCursor;
+            this.filterBookings(this.currentBookingFilter);
+        } catch (error) {
+            console.error('Load more bookings error:', error);
+            alert('載入失敗');
+        } finally {
+            button.disabled = false;
+            this.updateLoadMoreButton();
+        }
+    },
+
+    updateLoadMoreButton() {
+        const button = document.getElementById('bookings-load-more');
+        if (button) {
+            button.style.display = this.bookingsCursor ? '' : 'none';
+        }
+    },
+
     displayBookings(bookings) {
         const tbody = document.getElementById('bookings-table');
 
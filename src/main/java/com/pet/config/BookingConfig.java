@@ -0,0 +1,220 @@
+package com.pet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 預約相關設定
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking")
+@Getter
+@Setter
+public class BookingConfig {
+
+    /**
+     * 保母時段索引（記憶體內衝突檢查）
+     */
+    private SlotIndex slotIndex = new SlotIndex();
+
+    /**
+     * 保母預約准入鎖（序列化同一保母的建立 / 確認預約）
+     */
+    private AdmissionLock admissionLock = new AdmissionLock();
+
+    /**
+     * 預約副作用 Outbox（Log DB 同步、LINE 通知）
+     */
+    private Outbox outbox = new Outbox();
+
+    /**
+     * Outbox 投遞 Log DB 的非同步批次寫入
+     */
+    private LogWriter logWriter = new LogWriter();
+
+    /**
+     * PENDING 預約自動過期
+     */
+    private Expiry expiry = new Expiry();
+
+    /**
+     * 保母儀表板統計
+     */
+    private Statistics statistics = new Statistics();
+
+    @Getter
+    @Setter
+    public static class SlotIndex {
+
+        /**
+         * 是否啟用記憶體時段索引
+         */
+        private boolean enabled = true;
+
+        /**
+         * 從 DB 重建索引的間隔（毫秒），用來修正多節點部署時其他節點造成的差異
+         */
+        private long refreshIntervalMs = 300000;
+    }
+
+    @Getter
+    @Setter
+    public static class AdmissionLock {
+
+        /**
+         * 鎖分段數量（會進位到 2 的次方），不同保母落在不同分段時完全平行
+         */
+        private int stripes = 256;
+
+        /**
+         * 等待鎖的上限（毫秒），逾時視為保母忙碌
+         * 建立預約在交易外等待，不佔用連線；確認預約在交易中等待，應遠低於連線池的 connection-timeout
+         */
+        private long timeoutMs = 3000;
+
+        /**
+         * 多節點部署時啟用：額外以 DB 列鎖鎖定保母資料列，跨節點序列化
+         */
+        private boolean databaseLockEnabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+
+        /**
+         * Relay 輪詢間隔（毫秒）
+         */
+        private long pollIntervalMs = 1000;
+
+        /**
+         * 每次領取的事件數上限
+         */
+        private int batchSize = 100;
+
+        /**
+         * 領取租約（毫秒）：relay 在租約內未回報結果（例如 JVM 中止），事件會被重新投遞
+         */
+        private long leaseMs = 60000;
+
+        /**
+         * 重試上限，超過後標記為 FAILED
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * 第一次重試的等待時間（毫秒），之後每次加倍
+         */
+        private long retryBaseDelayMs = 5000;
+
+        /**
+         * 重試等待時間上限（毫秒）
+         */
+        private long retryMaxDelayMs = 600000;
+
+        /**
+         * 已投遞事件保留天數
+         */
+        private int retentionDays = 7;
+    }
+
+    @Getter
+    @Setter
+    public static class LogWriter {
+
+        /**
+         * 是否啟用非同步寫入；關閉時在 relay 執行緒上同步寫入 Log DB
+         */
+        private boolean enabled = true;
+
+        /**
+         * 佇列容量上限，滿了代表 Log DB 跟不上
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 累積到幾筆就寫入一次
+         */
+        private int flushSize = 100;
+
+        /**
+         * 第一筆進佇列後最多等待多久就寫入（毫秒），需遠小於 outbox.leaseMs
+         */
+        private long flushIntervalMs = 200;
+
+        /**
+         * 佇列已滿時等待空位的上限（毫秒），逾時改由呼叫端同步寫入
+         */
+        private long offerTimeoutMs = 50;
+
+        /**
+         * 關閉應用程式時等待佇列寫完的上限（毫秒）
+         */
+        private long shutdownTimeoutMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Expiry {
+
+        /**
+         * PENDING 超過幾小時未回應就過期
+         */
+        private int pendingTimeoutHours = 24;
+
+        /**
+         * 每個交易最多過期幾筆，控制單一交易的鎖定範圍與時間
+         */
+        private int chunkSize = 500;
+
+        /**
+         * 單次排程最多處理的批次數，剩餘的留給下一次排程
+         */
+        private int maxChunksPerRun = 200;
+
+        /**
+         * 是否啟用記憶體到期計時器（每筆 PENDING 預約在到期當下過期）
+         */
+        private boolean timerEnabled = true;
+
+        /**
+         * 補漏掃描間隔（毫秒），處理計時器漏掉的預約（重啟期間到期、其他節點建立）
+         */
+        private long sweepIntervalMs = 3600000;
+    }
+
+    @Getter
+    @Setter
+    public static class Statistics {
+
+        /**
+         * 是否讀取 sitter_daily_stats 彙總；false 時直接以 GROUP BY 彙總 booking / sitter_rating
+         * （彙總表仍持續維護，可用來比對或在彙總表有疑慮時暫時切換）
+         */
+        private boolean useRollup = true;
+
+        /**
+         * 儀表板回應快取的新鮮時間（毫秒）；0 表示停用快取
+         */
+        private long cacheTtlMs = 30000;
+
+        /**
+         * 過了新鮮時間（或因預約 / 評價變更而失效）後，仍可先回傳舊值、背景重新計算的時間（毫秒）；
+         * 超過此時間的項目改為同步重新計算
+         */
+        private long cacheStaleMs = 300000;
+
+        /**
+         * 快取的保母數上限
+         */
+        private int cacheMaxSize = 10000;
+
+        /**
+         * 背景重新計算的執行緒數與佇列容量；佇列滿時該次仍回傳舊值，下次請求再排入
+         */
+        private int refreshThreads = 2;
+        private int refreshQueueCapacity = 100;
+    }
+}
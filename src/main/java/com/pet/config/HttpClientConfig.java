@@ -1,15 +1,62 @@
 package com.pet.config;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 對外 HTTP client 設定
+ *
+ * LINE 身分驗證 API 使用專用的 client：連線逾時、HTTP/2、有界執行緒池處理非同步回應。
+ * 執行緒池的佇列滿了直接拒絕（登入失敗並提示重試），不讓 LINE 變慢時的登入尖峰無限堆積
+ */
 @Configuration
 public class HttpClientConfig {
 
+    /**
+     * 不註冊成 bean：Executor 型別的 bean 會取代 Spring Boot 自動設定的 applicationTaskExecutor
+     */
+    private ExecutorService lineLoginHttpExecutor;
+
     @Bean
-    public HttpClient httpClient() {
-        return HttpClient.newHttpClient();
+    public HttpClient httpClient(LineLoginConfig lineLoginConfig) {
+        lineLoginHttpExecutor = lineLoginHttpExecutor(lineLoginConfig.getHttp());
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(lineLoginConfig.getHttp().getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(lineLoginHttpExecutor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lineLoginHttpExecutor != null) {
+            lineLoginHttpExecutor.shutdown();
+        }
+    }
+
+    private static ExecutorService lineLoginHttpExecutor(LineLoginConfig.Http http) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                http.getExecutorThreads(), http.getExecutorThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(http.getExecutorQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "line-login-http-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 }
@@ -15,8 +15,62 @@ public class LineLoginConfig {
     private String callbackUrl;
     private String frontendCallbackUrl;
 
+    /**
+     * OAuth state 儲存位置：MEMORY 為單節點；JDBC 為多節點共用主資料庫的 oauth_state（回調可落在其他節點）
+     */
+    private StateStore stateStore = StateStore.MEMORY;
+
+    /**
+     * OAuth state 有效期 (毫秒)
+     */
+    private long stateTtlMs = 600000;
+
+    /**
+     * 記憶體 state 數量上限，超過時淘汰最舊的
+     */
+    private int stateMaxEntries = 10000;
+
+    /**
+     * 呼叫 LINE 身分驗證 API（token 交換、profile）的 HTTP client 設定
+     */
+    private Http http = new Http();
+
     public boolean isConfigured() {
         return channelId != null && !channelId.isEmpty()
                 && channelSecret != null && !channelSecret.isEmpty();
     }
+
+    public enum StateStore {
+        MEMORY, JDBC
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+
+        /**
+         * 建立連線逾時 (毫秒)
+         */
+        private long connectTimeoutMs = 2000;
+
+        /**
+         * 單一請求逾時 (毫秒)
+         */
+        private long requestTimeoutMs = 5000;
+
+        /**
+         * 整個 OAuth 回調流程（token 交換 + profile）的逾時 (毫秒)
+         */
+        private long callbackTimeoutMs = 8000;
+
+        /**
+         * 處理回應的執行緒數
+         */
+        private int executorThreads = 4;
+
+        /**
+         * 等待執行緒的工作上限，滿了直接失敗，不讓登入尖峰無限堆積
+         */
+        private int executorQueueCapacity = 200;
+    }
 }
@@ -18,6 +18,16 @@ public class LineMessagingConfig {
 
     private String baseUrl;
 
+    /**
+     * Push API 連線逾時（毫秒）
+     */
+    private int connectTimeoutMs = 3000;
+
+    /**
+     * Push API 讀取逾時（毫秒）
+     */
+    private int readTimeoutMs = 5000;
+
     public boolean hasBaseUrl() {
         return baseUrl != null && !baseUrl.isEmpty();
     }
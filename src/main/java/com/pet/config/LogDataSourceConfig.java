@@ -52,6 +52,9 @@ public class LogDataSourceConfig {
         Map<String, Object> properties = new HashMap<>();
         properties.put("hibernate.hbm2ddl.auto", "update");
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        // BookingOutboxRelay 以批次寫入，開啟 JDBC batch insert
+        properties.put("hibernate.jdbc.batch_size", 100);
+        properties.put("hibernate.order_inserts", true);
 
         return builder
                 .dataSource(dataSource)
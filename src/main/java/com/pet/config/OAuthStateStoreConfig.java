@@ -0,0 +1,28 @@
+package com.pet.config;
+
+import com.pet.security.InMemoryOAuthStateStore;
+import com.pet.security.JdbcOAuthStateStore;
+import com.pet.security.OAuthStateStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * OAuth state 儲存設定
+ *
+ * line.login.state-store=memory（預設）：單節點，記憶體內有上限
+ * line.login.state-store=jdbc：多節點共用主資料庫的 oauth_state，回調可落在任一節點
+ */
+@Configuration
+public class OAuthStateStoreConfig {
+
+    @Bean
+    public OAuthStateStore oauthStateStore(LineLoginConfig lineLoginConfig, DataSource dataSource) {
+        if (lineLoginConfig.getStateStore() == LineLoginConfig.StateStore.JDBC) {
+            return new JdbcOAuthStateStore(new JdbcTemplate(dataSource), lineLoginConfig.getStateTtlMs());
+        }
+        return new InMemoryOAuthStateStore(lineLoginConfig.getStateTtlMs(), lineLoginConfig.getStateMaxEntries());
+    }
+}
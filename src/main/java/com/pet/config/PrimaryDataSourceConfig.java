@@ -55,6 +55,10 @@ public class PrimaryDataSourceConfig {
         Map<String, Object> properties = new HashMap<>();
         properties.put("hibernate.hbm2ddl.auto", "create-drop");
         properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        // JDBC 批次寫入（批次建立預約時一次送出多筆 INSERT）
+        properties.put("hibernate.jdbc.batch_size", 50);
+        properties.put("hibernate.order_inserts", true);
+        properties.put("hibernate.order_updates", true);
 
         return builder
                 .dataSource(dataSource)
@@ -0,0 +1,61 @@
+package com.pet.config;
+
+import com.pet.security.InMemoryRateLimiter;
+import com.pet.security.JdbcTokenStore;
+import com.pet.security.LeasedRateLimiter;
+import com.pet.security.RateLimitProperties;
+import com.pet.security.RateLimitTokenStore;
+import com.pet.security.RateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * API 速率限制器設定
+ *
+ * rate-limit.store=memory（預設）：每個節點各自計算額度，適合單節點
+ * rate-limit.store=jdbc：多節點共用主資料庫的 bucket，各節點以本機租約減少 DB 存取
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "rate-limit", name = "store", havingValue = "jdbc")
+    public RateLimitTokenStore rateLimitTokenStore(DataSource dataSource) {
+        return new JdbcTokenStore(new JdbcTemplate(dataSource));
+    }
+
+    @Bean
+    public RateLimiter generalRateLimiter(RateLimitProperties properties,
+                                          ObjectProvider<RateLimitTokenStore> tokenStore) {
+        return createLimiter("general", properties.getGeneral(), properties, tokenStore);
+    }
+
+    @Bean
+    public RateLimiter bookingRateLimiter(RateLimitProperties properties,
+                                          ObjectProvider<RateLimitTokenStore> tokenStore) {
+        return createLimiter("booking", properties.getBooking(), properties, tokenStore);
+    }
+
+    @Bean
+    public RateLimiter batchBookingRateLimiter(RateLimitProperties properties,
+                                               ObjectProvider<RateLimitTokenStore> tokenStore) {
+        return createLimiter("batch-booking", properties.getBatchBooking(), properties, tokenStore);
+    }
+
+    private RateLimiter createLimiter(String name, RateLimitProperties.Limit limit,
+                                      RateLimitProperties properties,
+                                      ObjectProvider<RateLimitTokenStore> tokenStore) {
+        double refillPerSecond = limit.getRefillPerMinute() / 60.0;
+        RateLimitTokenStore store = tokenStore.getIfAvailable();
+        if (properties.getStore() == RateLimitProperties.Store.JDBC && store != null) {
+            return new LeasedRateLimiter(name, limit.getMaxTokens(), refillPerSecond,
+                    limit.getLeaseSize(), properties.getLeaseTtlMs(), store);
+        }
+        return new InMemoryRateLimiter(limit.getMaxTokens(), refillPerSecond);
+    }
+}
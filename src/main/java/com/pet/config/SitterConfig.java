@@ -0,0 +1,42 @@
+package com.pet.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 保母相關設定
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sitter")
+@Getter
+@Setter
+public class SitterConfig {
+
+    /**
+     * 保母排名索引（列表排序與分頁）
+     */
+    private Ranking ranking = new Ranking();
+
+    @Getter
+    @Setter
+    public static class Ranking {
+
+        /**
+         * 是否啟用記憶體排名索引；停用時列表改由 DB 查詢後排序
+         */
+        private boolean enabled = true;
+
+        /**
+         * 貝氏平均的先驗權重（相當於幾筆「全站平均分數」的虛擬評價），
+         * 評價數少的保母分數會往全站平均拉近，避免一筆 5 星就排在最前面
+         */
+        private double priorWeight = 5.0;
+
+        /**
+         * 從 DB 重建索引（並重新計算全站平均）的間隔（毫秒），用來修正多節點部署時其他節點造成的差異
+         */
+        private long refreshIntervalMs = 300000;
+    }
+}
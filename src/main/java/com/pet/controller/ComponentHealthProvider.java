@@ -0,0 +1,20 @@
+package com.pet.controller;
+
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+
+/**
+ * 可回報健康狀態 / 執行指標的元件
+ * 實作此介面的 Bean 會自動出現在 /api/health 的 components 中
+ */
+public interface ComponentHealthProvider {
+
+    /**
+     * 在 components 中顯示的名稱
+     */
+    String componentName();
+
+    /**
+     * 目前狀態；回傳 DOWN 會讓整體狀態變為 DOWN
+     */
+    ComponentHealth health();
+}
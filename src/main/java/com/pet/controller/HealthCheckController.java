@@ -14,6 +14,7 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,12 +31,14 @@ public class HealthCheckController {
     private static final Logger logger = LoggerFactory.getLogger(HealthCheckController.class);
 
     private final DataSource dataSource;
+    private final List<ComponentHealthProvider> componentHealthProviders;
 
     @Value("${app.version:1.0.0}")
     private String appVersion;
 
-    public HealthCheckController(DataSource dataSource) {
+    public HealthCheckController(DataSource dataSource, List<ComponentHealthProvider> componentHealthProviders) {
         this.dataSource = dataSource;
+        this.componentHealthProviders = componentHealthProviders;
     }
 
     /**
@@ -70,6 +73,15 @@ public class HealthCheckController {
         ComponentHealth memoryHealth = checkMemory();
         components.put("memory", memoryHealth);
 
+        // 其他元件（背景寫入器、快取等）的狀態與執行指標
+        for (ComponentHealthProvider provider : componentHealthProviders) {
+            ComponentHealth health = checkComponent(provider);
+            components.put(provider.componentName(), health);
+            if ("DOWN".equals(health.status())) {
+                allHealthy = false;
+            }
+        }
+
         String overallStatus = allHealthy ? "UP" : "DOWN";
 
         HealthCheckDto response = new HealthCheckDto(
@@ -107,6 +119,15 @@ public class HealthCheckController {
         }
     }
 
+    private ComponentHealth checkComponent(ComponentHealthProvider provider) {
+        try {
+            return provider.health();
+        } catch (Exception e) {
+            logger.error("Health check failed for component {}", provider.componentName(), e);
+            return ComponentHealth.down("Health check error: " + e.getMessage());
+        }
+    }
+
     private ComponentHealth checkMemory() {
         Runtime runtime = Runtime.getRuntime();
         long maxMemory = runtime.maxMemory();
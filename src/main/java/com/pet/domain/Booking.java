@@ -14,7 +14,8 @@ import java.util.UUID;
 @Table(name = "booking",
         indexes = {
                 @Index(name = "idx_booking_sitter_time", columnList = "sitter_id, start_time, end_time"),
-                @Index(name = "idx_booking_status", columnList = "status")
+                @Index(name = "idx_booking_status", columnList = "status"),
+                @Index(name = "idx_booking_created_at", columnList = "created_at, id")
         })
 public class Booking {
 
@@ -0,0 +1,98 @@
+package com.pet.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 預約副作用 Outbox 事件
+ * 與 Booking 在同一個主交易中寫入，由 BookingOutboxRelay 輪詢投遞（至少一次）
+ */
+@Entity
+@Data
+@Table(name = "booking_outbox",
+        indexes = {
+                @Index(name = "idx_booking_outbox_due", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_booking_outbox_claim", columnList = "claim_token")
+        })
+public class BookingOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "booking_id", nullable = false)
+    private UUID bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private EventType eventType;
+
+    /**
+     * 事件發生時的預約狀態（決定 LINE 通知內容）
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "booking_status", length = 20)
+    private Booking.BookingStatus bookingStatus;
+
+    /**
+     * 事件內容：BOOKING_LOG 為 BookingLog 快照 JSON、LINE_NOTIFICATION 為原因、
+     * LINE_BATCH_CREATED 為預約 ID 清單 JSON
+     */
+    @Column(length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * 下次可投遞的時間（重試退避 / 領取租約到期）
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 目前領取此事件的 relay 批次，避免多節點重複處理
+     */
+    @Column(name = "claim_token")
+    private UUID claimToken;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public enum EventType {
+        /** 同步到 Log DB */
+        BOOKING_LOG,
+        /** 狀態變更的 LINE 通知 */
+        LINE_NOTIFICATION,
+        /** 批次建立預約的合併 LINE 通知 */
+        LINE_BATCH_CREATED
+    }
+
+    public enum Status {
+        PENDING,
+        PROCESSED,
+        /** 超過重試上限，需人工處理 */
+        FAILED
+    }
+}
@@ -0,0 +1,35 @@
+package com.pet.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 多節點共用的 OAuth state（line.login.state-store=jdbc 時使用）
+ *
+ * 只透過 JdbcOAuthStateStore 存取；此實體用來讓 Hibernate 建立資料表
+ */
+@Entity
+@Table(name = "oauth_state", indexes = {
+    @Index(name = "idx_oauth_state_expires", columnList = "expires_at_millis")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OAuthState {
+
+    @Id
+    @Column(name = "state", length = 64)
+    private String state;
+
+    /**
+     * 到期時間（epoch 毫秒）
+     */
+    @Column(name = "expires_at_millis", nullable = false)
+    private long expiresAtMillis;
+}
@@ -0,0 +1,35 @@
+package com.pet.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 多節點共用的 API 速率限制 bucket（rate-limit.store=jdbc 時使用）
+ *
+ * 只透過 JdbcTokenStore 以條件式 UPDATE 存取；此實體用來讓 Hibernate 建立資料表
+ */
+@Entity
+@Table(name = "rate_limit_bucket")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RateLimitBucket {
+
+    /**
+     * 限制器名稱 + key 類型 + key，例如 booking:USER:alice
+     */
+    @Id
+    @Column(name = "bucket_key", length = 200)
+    private String bucketKey;
+
+    /**
+     * GCRA 理論抵達時間（epoch 毫秒），不晚於現在代表 bucket 已補滿
+     */
+    @Column(name = "tat_millis", nullable = false)
+    private long tatMillis;
+}
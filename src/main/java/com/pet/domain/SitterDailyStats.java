@@ -0,0 +1,131 @@
+package com.pet.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 保母每日統計彙總（依預約建立日期）
+ *
+ * 由 SitterDailyStatsService 在預約建立、狀態轉換、過期與評價建立時於同一交易中增量更新，
+ * 儀表板只需讀取一個月內的少量資料列，不必掃描 booking / sitter_rating
+ */
+@Entity
+@Table(name = "sitter_daily_stats")
+@IdClass(SitterDailyStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class SitterDailyStats {
+
+    @Id
+    @Column(name = "sitter_id")
+    private UUID sitterId;
+
+    /**
+     * 預約建立日期
+     */
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "total_bookings", nullable = false)
+    private int totalBookings;
+
+    @Column(name = "pending_count", nullable = false)
+    private int pendingCount;
+
+    @Column(name = "confirmed_count", nullable = false)
+    private int confirmedCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private int completedCount;
+
+    @Column(name = "rejected_count", nullable = false)
+    private int rejectedCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private int cancelledCount;
+
+    @Column(name = "expired_count", nullable = false)
+    private int expiredCount;
+
+    /**
+     * 已完成預約的收入
+     */
+    @Column(name = "completed_revenue", nullable = false)
+    private double completedRevenue;
+
+    /**
+     * 評價星級分布（評價歸入被評預約的建立日期）
+     */
+    @Column(name = "rating1_count", nullable = false)
+    private int rating1Count;
+
+    @Column(name = "rating2_count", nullable = false)
+    private int rating2Count;
+
+    @Column(name = "rating3_count", nullable = false)
+    private int rating3Count;
+
+    @Column(name = "rating4_count", nullable = false)
+    private int rating4Count;
+
+    @Column(name = "rating5_count", nullable = false)
+    private int rating5Count;
+
+    public SitterDailyStats(UUID sitterId, LocalDate statDate) {
+        this.sitterId = sitterId;
+        this.statDate = statDate;
+    }
+
+    /**
+     * 手動添加 Getter 以解決 Kotlin 訪問 Lombok 私有欄位的問題
+     */
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public int getTotalBookings() {
+        return totalBookings;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public int getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public double getCompletedRevenue() {
+        return completedRevenue;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID sitterId;
+        private LocalDate statDate;
+    }
+}
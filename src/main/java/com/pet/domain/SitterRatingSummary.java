@@ -0,0 +1,175 @@
+package com.pet.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * 保母評價彙總（每位保母一列）
+ *
+ * 保存各評分項目的累計總和與筆數、加權分數總和與 1-5 星分布，
+ * 由 SitterRatingSummaryService 在評價建立時於同一交易中以增量 UPDATE 維護（O(1)），
+ * 平均評分與評價統計只需讀取這一列，不必對 sitter_rating 做 AVG / COUNT；
+ * 定期對帳修正與 sitter_rating 之間的差異
+ */
+@Entity
+@Table(name = "sitter_rating_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SitterRatingSummary {
+
+    @Id
+    @Column(name = "sitter_id")
+    private UUID sitterId;
+
+    @Column(name = "rating_count", nullable = false)
+    private int ratingCount;
+
+    @Column(name = "overall_sum", nullable = false)
+    private long overallSum;
+
+    /**
+     * 細項評分可不填，平均以有填的筆數計算（與 AVG 忽略 null 相同）
+     */
+    @Column(name = "professionalism_sum", nullable = false)
+    private long professionalismSum;
+
+    @Column(name = "professionalism_count", nullable = false)
+    private int professionalismCount;
+
+    @Column(name = "communication_sum", nullable = false)
+    private long communicationSum;
+
+    @Column(name = "communication_count", nullable = false)
+    private int communicationCount;
+
+    @Column(name = "punctuality_sum", nullable = false)
+    private long punctualitySum;
+
+    @Column(name = "punctuality_count", nullable = false)
+    private int punctualityCount;
+
+    /**
+     * 加權分數總和（未四捨五入，細項未填時以總體評分代替）
+     */
+    @Column(name = "weighted_sum", nullable = false)
+    private double weightedSum;
+
+    @Column(name = "rating1_count", nullable = false)
+    private int rating1Count;
+
+    @Column(name = "rating2_count", nullable = false)
+    private int rating2Count;
+
+    @Column(name = "rating3_count", nullable = false)
+    private int rating3Count;
+
+    @Column(name = "rating4_count", nullable = false)
+    private int rating4Count;
+
+    @Column(name = "rating5_count", nullable = false)
+    private int rating5Count;
+
+    public SitterRatingSummary(UUID sitterId) {
+        this.sitterId = sitterId;
+    }
+
+    /**
+     * 單筆評價的加權分數（與 SitterRating.getWeightedScore 相同權重，不四捨五入）
+     */
+    public static double weightedScore(SitterRating rating) {
+        int overall = rating.getOverallRating();
+        return overall * 0.4
+                + (rating.getProfessionalismRating() != null ? rating.getProfessionalismRating() : overall) * 0.25
+                + (rating.getCommunicationRating() != null ? rating.getCommunicationRating() : overall) * 0.20
+                + (rating.getPunctualityRating() != null ? rating.getPunctualityRating() : overall) * 0.15;
+    }
+
+    /**
+     * 加權平均評分（四捨五入到小數第二位）；沒有評價時為 null
+     */
+    public Double weightedAverage() {
+        return ratingCount == 0 ? null : Math.round(weightedSum / ratingCount * 100.0) / 100.0;
+    }
+
+    public Double overallAverage() {
+        return average(overallSum, ratingCount);
+    }
+
+    public Double professionalismAverage() {
+        return average(professionalismSum, professionalismCount);
+    }
+
+    public Double communicationAverage() {
+        return average(communicationSum, communicationCount);
+    }
+
+    public Double punctualityAverage() {
+        return average(punctualitySum, punctualityCount);
+    }
+
+    /**
+     * 星級數量（1-5）
+     */
+    public int starCount(int stars) {
+        return switch (stars) {
+            case 1 -> rating1Count;
+            case 2 -> rating2Count;
+            case 3 -> rating3Count;
+            case 4 -> rating4Count;
+            case 5 -> rating5Count;
+            default -> 0;
+        };
+    }
+
+    /**
+     * 與另一份彙總的計數與總和是否相同（對帳用）
+     */
+    public boolean sameTotals(SitterRatingSummary other) {
+        return ratingCount == other.ratingCount
+                && overallSum == other.overallSum
+                && professionalismSum == other.professionalismSum
+                && professionalismCount == other.professionalismCount
+                && communicationSum == other.communicationSum
+                && communicationCount == other.communicationCount
+                && punctualitySum == other.punctualitySum
+                && punctualityCount == other.punctualityCount
+                && Math.abs(weightedSum - other.weightedSum) < 1e-6
+                && rating1Count == other.rating1Count
+                && rating2Count == other.rating2Count
+                && rating3Count == other.rating3Count
+                && rating4Count == other.rating4Count
+                && rating5Count == other.rating5Count;
+    }
+
+    /**
+     * 以另一份彙總覆寫計數與總和（對帳修正用）
+     */
+    public void copyTotals(SitterRatingSummary other) {
+        ratingCount = other.ratingCount;
+        overallSum = other.overallSum;
+        professionalismSum = other.professionalismSum;
+        professionalismCount = other.professionalismCount;
+        communicationSum = other.communicationSum;
+        communicationCount = other.communicationCount;
+        punctualitySum = other.punctualitySum;
+        punctualityCount = other.punctualityCount;
+        weightedSum = other.weightedSum;
+        rating1Count = other.rating1Count;
+        rating2Count = other.rating2Count;
+        rating3Count = other.rating3Count;
+        rating4Count = other.rating4Count;
+        rating5Count = other.rating5Count;
+    }
+
+    private static Double average(long sum, int count) {
+        return count == 0 ? null : (double) sum / count;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pet.dto;
+
+import java.util.List;
+
+/**
+ * 預約分頁結果（keyset / cursor 分頁）
+ *
+ * @param items      本頁預約，依 createdAt、id 由新到舊排序
+ * @param nextCursor 下一頁游標；null 表示已是最後一頁
+ */
+public record BookingPageDto(
+        List<BookingDto> items,
+        String nextCursor
+) {
+}
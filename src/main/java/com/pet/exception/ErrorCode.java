@@ -45,6 +45,11 @@ public enum ErrorCode {
     BOOKING_INVALID_STATUS_TRANSITION("BOOKING_INVALID_STATUS_TRANSITION", "無法進行此狀態變更"),
     BOOKING_ALREADY_PROCESSED("BOOKING_ALREADY_PROCESSED", "預約已被處理"),
     SITTER_NOT_AVAILABLE("SITTER_NOT_AVAILABLE", "保母在該時段不可用"),
+    BOOKING_SITTER_BUSY("BOOKING_SITTER_BUSY", "目前預約該保母的人數過多，請稍後再試"),
+
+    // 冪等性相關錯誤
+    IDEMPOTENCY_KEY_REUSED("IDEMPOTENCY_KEY_REUSED", "Idempotency-Key 已用於不同的請求"),
+    IDEMPOTENCY_REQUEST_IN_PROGRESS("IDEMPOTENCY_REQUEST_IN_PROGRESS", "相同的請求正在處理中，請稍後再試"),
 
     // 評價相關錯誤
     RATING_NOT_FOUND("RATING_NOT_FOUND", "找不到指定的評價"),
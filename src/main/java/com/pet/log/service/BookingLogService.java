@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Booking Log 同步服務
@@ -44,10 +45,20 @@ public class BookingLogService {
         }
     }
 
+    /**
+     * 批次寫入已轉換好的 Log 記錄（單一交易、saveAll 搭配 JDBC batch insert）
+     * 由 BookingOutboxRelay 投遞 outbox 事件時呼叫
+     */
+    @Transactional("logTransactionManager")
+    public void saveLogs(List<BookingLog> logs) {
+        bookingLogRepository.saveAll(logs);
+    }
+
     /**
      * 將 Booking Entity 轉換為 BookingLog Entity（扁平化）
+     * 需在 Booking 關聯仍可延遲載入時呼叫（主交易中寫入 outbox 快照）
      */
-    private BookingLog convertToBookingLog(Booking booking) {
+    public BookingLog convertToBookingLog(Booking booking) {
         BookingLog log = new BookingLog();
 
         log.setBookingId(booking.getId());
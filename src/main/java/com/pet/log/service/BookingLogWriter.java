@@ -0,0 +1,297 @@
+package com.pet.log.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.log.domain.BookingLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Booking Log 非同步批次寫入器（BookingOutboxRelay 投遞 Log DB 的出口）
+ *
+ * 問題場景：relay 領取到 BOOKING_LOG 事件後直接在輪詢執行緒上寫 Log DB，
+ * Log DB 變慢時 LINE 通知與下一輪領取也跟著等待
+ *
+ * 解法：
+ * 1. relay 只負責把事件的 BookingLog 快照放進有界佇列
+ * 2. 背景執行緒累積到 flushSize 筆或等待 flushInterval 後，以單一交易 saveAll（JDBC batch insert）；
+ *    整批失敗時改為逐筆寫入，只讓失敗的事件進入重試
+ * 3. 寫入結果透過 {@link Completion} 回報，由呼叫端標記 outbox 事件已投遞或安排重試
+ * 4. 佇列滿時等待 offerTimeout，仍放不進去則由呼叫端同步寫入（背壓，不遺失資料）
+ * 5. 應用程式關閉時停止收件並把佇列寫完
+ *
+ * 事件在佇列中停留的時間（flushInterval 等級）遠短於 outbox 領取租約；
+ * JVM 中止時佇列中尚未寫入的事件仍維持領取狀態，租約到期後由 relay 重新投遞
+ */
+@Component
+public class BookingLogWriter implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingLogWriter.class);
+
+    /**
+     * 背景執行緒單次等待的上限，用來及時察覺關閉
+     */
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BookingLogService bookingLogService;
+    private final BookingConfig.LogWriter config;
+    private final BlockingQueue<Pending> queue;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder callerWrites = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public BookingLogWriter(BookingLogService bookingLogService, BookingConfig bookingConfig) {
+        this.bookingLogService = bookingLogService;
+        this.config = bookingConfig.getLogWriter();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            logger.info("BookingLogWriter disabled, booking logs will be written on the relay thread");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "booking-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 停止收件，等待背景執行緒把佇列剩餘的 Log 寫完
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(config.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 背景執行緒結束後才排入（或等待逾時）的剩餘資料，直接在關閉執行緒上寫完
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.warn("BookingLogWriter draining {} booking logs on shutdown thread", remaining.size());
+            write(remaining);
+        }
+    }
+
+    /**
+     * 排入多筆 outbox 事件的 Log，寫入結果以 completion 回報（可能在背景執行緒或呼叫端執行緒上）
+     */
+    public void submitAll(List<Entry> entries, Completion completion) {
+        List<Pending> overflow = new ArrayList<>();
+        for (Entry entry : entries) {
+            Pending pending = new Pending(entry.eventId(), entry.log(), completion);
+            if (!offer(pending)) {
+                overflow.add(pending);
+            }
+        }
+        // 停用、關閉中或佇列已滿：退回同步寫入
+        if (!overflow.isEmpty()) {
+            callerWrites.add(overflow.size());
+            write(overflow);
+        }
+    }
+
+    private boolean offer(Pending pending) {
+        if (!running) {
+            return false;
+        }
+        try {
+            if (queue.offer(pending, config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+                maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+                return true;
+            }
+            logger.warn("BookingLog queue full ({}), writing outbox event {} on caller thread",
+                    queue.size(), pending.eventId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void runLoop() {
+        int flushSize = Math.max(1, config.getFlushSize());
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+        List<Pending> batch = new ArrayList<>(flushSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_SLICE_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 從第一筆開始計時，湊滿 flushSize 或到期就寫入；
+                // 每次最多等待 POLL_SLICE，關閉時不必等完整個 flushInterval
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Pending next = queue.poll(Math.min(remaining, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 不因中斷放棄已取出的資料，交由 running 旗標決定是否結束
+                logger.debug("BookingLogWriter interrupted while waiting for logs");
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batches.increment();
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 整批以單一 Log DB 交易寫入；整批失敗時改為逐筆寫入，避免一筆壞資料拖累其他事件
+     */
+    private void write(List<Pending> batch) {
+        try {
+            bookingLogService.saveLogs(batch.stream().map(Pending::log).toList());
+            written.add(batch.size());
+            completeWritten(batch);
+            return;
+        } catch (Exception e) {
+            logger.warn("批次寫入 {} 筆 booking log 失敗，改為逐筆寫入: {}", batch.size(), e.getMessage());
+        }
+
+        List<Pending> succeeded = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                bookingLogService.saveLogs(List.of(pending.log()));
+                written.increment();
+                succeeded.add(pending);
+            } catch (Exception e) {
+                failed.increment();
+                try {
+                    pending.completion().failed(pending.eventId(), e);
+                } catch (Exception callbackError) {
+                    logger.error("Booking log 失敗回報異常（事件 {}）: {}", pending.eventId(), callbackError.getMessage());
+                }
+            }
+        }
+        completeWritten(succeeded);
+    }
+
+    /**
+     * 依呼叫端分組回報已寫入的事件，每組一次
+     * 回報失敗（例如標記 outbox 時主資料庫異常）時事件維持領取狀態，租約到期後重新投遞
+     */
+    private void completeWritten(List<Pending> succeeded) {
+        Map<Completion, List<UUID>> byCompletion = new IdentityHashMap<>();
+        for (Pending pending : succeeded) {
+            byCompletion.computeIfAbsent(pending.completion(), c -> new ArrayList<>()).add(pending.eventId());
+        }
+        byCompletion.forEach((completion, eventIds) -> {
+            try {
+                completion.written(eventIds);
+            } catch (Exception e) {
+                logger.error("Booking log 寫入回報異常（{} 筆事件）: {}", eventIds.size(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 目前的執行指標
+     */
+    public Metrics metrics() {
+        return new Metrics(queue.size(), queue.remainingCapacity(), maxQueueDepth.get(),
+                enqueued.sum(), written.sum(), failed.sum(), batches.sum(), callerWrites.sum());
+    }
+
+    @Override
+    public String componentName() {
+        return "bookingLogWriter";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        Metrics m = metrics();
+        String message = String.format(
+                "queue=%d/%d (max %d), enqueued=%d, written=%d, failed=%d, batches=%d, callerWrites=%d",
+                m.queueDepth(), m.queueDepth() + m.remainingCapacity(), m.maxQueueDepth(),
+                m.enqueued(), m.written(), m.failed(), m.batches(), m.callerWrites());
+        if (config.isEnabled() && !running) {
+            return ComponentHealth.down("Writer stopped, " + message);
+        }
+        return ComponentHealth.up(message);
+    }
+
+    /**
+     * 一筆待寫入的 Log 與其 outbox 事件 ID
+     */
+    public record Entry(UUID eventId, BookingLog log) {
+    }
+
+    /**
+     * 寫入結果回報
+     */
+    public interface Completion {
+
+        /**
+         * 已寫入 Log DB 的事件
+         */
+        void written(List<UUID> eventIds);
+
+        /**
+         * 逐筆重試仍寫入失敗的事件
+         */
+        void failed(UUID eventId, Exception error);
+    }
+
+    private record Pending(UUID eventId, BookingLog log, Completion completion) {
+    }
+
+    /**
+     * 執行指標快照
+     *
+     * @param queueDepth        佇列目前筆數
+     * @param remainingCapacity 佇列剩餘空間
+     * @param maxQueueDepth     啟動以來佇列最高水位
+     * @param enqueued          成功排入佇列的筆數
+     * @param written           成功寫入 Log DB 的筆數
+     * @param failed            寫入失敗的筆數
+     * @param batches           背景執行緒寫入的批次數
+     * @param callerWrites      佇列滿或停用時由呼叫端同步寫入的筆數（背壓）
+     */
+    public record Metrics(int queueDepth, int remainingCapacity, int maxQueueDepth,
+                          long enqueued, long written, long failed, long batches, long callerWrites) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.pet.repository;
+
+import com.pet.domain.BookingOutboxEvent;
+import com.pet.domain.BookingOutboxEvent.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BookingOutboxRepository extends JpaRepository<BookingOutboxEvent, UUID> {
+
+    /**
+     * 查詢已到期可投遞的事件 ID（依建立時間先進先出）
+     */
+    @Query("SELECT e.id FROM BookingOutboxEvent e " +
+           "WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now " +
+           "ORDER BY e.createdAt")
+    List<UUID> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 領取事件：只有仍到期的事件會被寫入 claimToken，並把 nextAttemptAt 推到租約結束
+     * 多節點同時領取時，條件式 UPDATE 保證每筆事件只會被一個批次領到
+     */
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e " +
+           "SET e.claimToken = :token, e.nextAttemptAt = :leaseUntil " +
+           "WHERE e.id IN :ids AND e.status = 'PENDING' AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<UUID> ids,
+              @Param("token") UUID token,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<BookingOutboxEvent> findByClaimToken(UUID claimToken);
+
+    /**
+     * 批次標記為已投遞
+     * 只更新仍由同一 claimToken 持有的事件；租約已到期並被其他 relay 重新領取的事件不動
+     */
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e " +
+           "SET e.status = 'PROCESSED', e.processedAt = :now, e.claimToken = null " +
+           "WHERE e.id IN :ids AND e.claimToken = :token")
+    int markProcessed(@Param("ids") Collection<UUID> ids,
+                      @Param("token") UUID token,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * 記錄投遞失敗並釋放領取
+     * 條件式 UPDATE 只在事件仍由同一 claimToken 持有時生效，
+     * 不會把其他 relay 已標記為 PROCESSED 的事件改回 PENDING
+     */
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e " +
+           "SET e.attempts = :attempts, e.status = :status, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError, e.claimToken = null " +
+           "WHERE e.id = :id AND e.claimToken = :token")
+    int markFailed(@Param("id") UUID id,
+                   @Param("token") UUID token,
+                   @Param("attempts") int attempts,
+                   @Param("status") Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    long countByStatus(Status status);
+
+    /**
+     * 清除保留期限以前已投遞的事件
+     */
+    @Modifying
+    @Query("DELETE FROM BookingOutboxEvent e " +
+           "WHERE e.status = 'PROCESSED' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
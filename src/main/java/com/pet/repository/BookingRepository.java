@@ -2,17 +2,27 @@ package com.pet.repository;
 
 import com.pet.domain.Booking;
 import com.pet.domain.Booking.BookingStatus;
+import com.pet.dto.BookingDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
@@ -25,26 +35,44 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     Optional<Booking> findByIdWithLock(@Param("id") UUID id);
 
     /**
-     * 查詢使用者的所有預約（使用 JOIN FETCH 預加載關聯實體）
+     * 依 ID 批次查詢預約（使用 JOIN FETCH 預加載關聯實體，用於 outbox 投遞 LINE 通知）
      */
     @Query("SELECT b FROM Booking b " +
            "JOIN FETCH b.user " +
            "JOIN FETCH b.pet " +
            "JOIN FETCH b.sitter " +
-           "WHERE b.user.id = :userId " +
+           "WHERE b.id IN :ids")
+    List<Booking> findAllWithRelationsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * BookingDto 投影查詢共用的 SELECT 子句
+     * 只選取 BookingDto 需要的欄位，不載入 Booking / Users / Pet / Sitter 實體
+     * （不觸發 Cat/Dog 子表 JOIN，也不進入 persistence context 做 dirty checking）
+     */
+    String BOOKING_DTO_SELECT = "SELECT new com.pet.dto.BookingDto(" +
+            "b.id, p.id, p.name, s.id, s.name, u.id, u.username, " +
+            "b.startTime, b.endTime, b.status, b.notes, b.sitterResponse, b.totalPrice, " +
+            "b.createdAt, b.updatedAt) " +
+            "FROM Booking b " +
+            "JOIN b.pet p " +
+            "JOIN b.sitter s " +
+            "JOIN b.user u ";
+
+    /**
+     * 查詢使用者的所有預約（DTO 投影）
+     */
+    @Query(BOOKING_DTO_SELECT +
+           "WHERE u.id = :userId " +
            "ORDER BY b.createdAt DESC")
-    List<Booking> findByUserIdOrderByCreatedAtDesc(@Param("userId") UUID userId);
+    List<BookingDto> findDtosByUserId(@Param("userId") UUID userId);
 
     /**
-     * 查詢保母的所有預約（使用 JOIN FETCH 預加載關聯實體）
+     * 查詢保母的所有預約（DTO 投影）
      */
-    @Query("SELECT b FROM Booking b " +
-           "JOIN FETCH b.user " +
-           "JOIN FETCH b.pet " +
-           "JOIN FETCH b.sitter " +
-           "WHERE b.sitter.id = :sitterId " +
+    @Query(BOOKING_DTO_SELECT +
+           "WHERE s.id = :sitterId " +
            "ORDER BY b.startTime DESC")
-    List<Booking> findBySitterIdOrderByStartTimeDesc(@Param("sitterId") UUID sitterId);
+    List<BookingDto> findDtosBySitterId(@Param("sitterId") UUID sitterId);
 
     /**
      * 查詢保母待處理的預約（使用 JOIN FETCH 預加載關聯實體）
@@ -58,15 +86,12 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     List<Booking> findBySitterIdAndStatus(@Param("sitterId") UUID sitterId, @Param("status") BookingStatus status);
 
     /**
-     * 查詢寵物的預約歷史（使用 JOIN FETCH 預加載關聯實體）
+     * 查詢寵物的預約歷史（DTO 投影）
      */
-    @Query("SELECT b FROM Booking b " +
-           "JOIN FETCH b.user " +
-           "JOIN FETCH b.pet " +
-           "JOIN FETCH b.sitter " +
-           "WHERE b.pet.id = :petId " +
+    @Query(BOOKING_DTO_SELECT +
+           "WHERE p.id = :petId " +
            "ORDER BY b.createdAt DESC")
-    List<Booking> findByPetIdOrderByCreatedAtDesc(@Param("petId") UUID petId);
+    List<BookingDto> findDtosByPetId(@Param("petId") UUID petId);
 
     /**
      * 檢查時段是否有衝突（防止雙重預約）
@@ -94,6 +119,28 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             @Param("endTime") LocalDateTime endTime,
             @Param("excludeId") UUID excludeId);
 
+    /**
+     * 查詢所有仍佔用時段的預約（用於預熱記憶體時段索引）
+     * 只取 id / sitterId / 起訖時間，不載入實體
+     */
+    @Query("SELECT b.id, b.sitter.id, b.startTime, b.endTime FROM Booking b " +
+           "WHERE b.status IN ('PENDING', 'CONFIRMED') " +
+           "AND b.endTime > :now")
+    List<Object[]> findActiveSlots(@Param("now") LocalDateTime now);
+
+    /**
+     * 一次查詢多位保母在指定區間內仍佔用時段的預約（用於批次建立預約的衝突檢查）
+     */
+    @Query("SELECT b.sitter.id, b.startTime, b.endTime FROM Booking b " +
+           "WHERE b.sitter.id IN :sitterIds " +
+           "AND b.status IN ('PENDING', 'CONFIRMED') " +
+           "AND b.startTime < :rangeEnd " +
+           "AND b.endTime > :rangeStart")
+    List<Object[]> findActiveSlotsInRange(
+            @Param("sitterIds") Collection<UUID> sitterIds,
+            @Param("rangeStart") LocalDateTime rangeStart,
+            @Param("rangeEnd") LocalDateTime rangeEnd);
+
     /**
      * 統計保母完成的訂單數
      */
@@ -127,76 +174,115 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 查詢指定狀態且建立時間早於指定時間的預約（用於自動過期）
+     * 查詢所有 PENDING 預約的建立時間（用於啟動時重建到期計時器）
+     * 只取 id / createdAt，不載入實體
      */
-    @Query("SELECT b FROM Booking b " +
-           "JOIN FETCH b.user " +
-           "JOIN FETCH b.pet " +
-           "JOIN FETCH b.sitter " +
-           "WHERE b.status = :status " +
+    @Query("SELECT b.id, b.createdAt FROM Booking b WHERE b.status = 'PENDING'")
+    List<Object[]> findPendingCreatedTimes();
+
+    /**
+     * 查詢一批逾時未回應的 PENDING 預約 ID（用於分批自動過期，最舊的先處理）
+     */
+    @Query("SELECT b.id FROM Booking b " +
+           "WHERE b.status = 'PENDING' " +
+           "AND b.createdAt < :cutoffTime " +
+           "ORDER BY b.createdAt")
+    List<UUID> findOverduePendingIds(@Param("cutoffTime") LocalDateTime cutoffTime, Pageable pageable);
+
+    /**
+     * 批次將逾時的 PENDING 預約設為 EXPIRED（單一 UPDATE，不載入實體）
+     * 再次檢查 status / createdAt，期間已被確認或取消的預約不受影響；
+     * updatedAt 設為本批次的時間戳，用來辨識這次 UPDATE 實際更新的資料列
+     */
+    @Modifying
+    @Query("UPDATE Booking b " +
+           "SET b.status = 'EXPIRED', b.updatedAt = :now, b.version = b.version + 1 " +
+           "WHERE b.id IN :ids " +
+           "AND b.status = 'PENDING' " +
            "AND b.createdAt < :cutoffTime")
-    List<Booking> findByStatusAndCreatedAtBefore(
-            @Param("status") BookingStatus status,
-            @Param("cutoffTime") LocalDateTime cutoffTime);
+    int expirePendingBookings(
+            @Param("ids") Collection<UUID> ids,
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("now") LocalDateTime now);
 
     // ============================================
     // 統計相關查詢方法
     // ============================================
 
     /**
-     * 查詢保母在指定時間範圍內的所有預約（用於統計）
+     * 依狀態彙總保母在指定時間範圍內建立的預約數（每個狀態一列：status, count）
      */
-    @Query("SELECT b FROM Booking b WHERE b.sitter.id = :sitterId AND b.createdAt BETWEEN :startTime AND :endTime")
-    List<Booking> findBySitterIdAndCreatedAtBetween(
+    @Query("SELECT b.status, COUNT(b) FROM Booking b " +
+           "WHERE b.sitter.id = :sitterId AND b.createdAt BETWEEN :startTime AND :endTime " +
+           "GROUP BY b.status")
+    List<Object[]> summarizeBySitterAndStatus(
             @Param("sitterId") UUID sitterId,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 統計保母在指定時間範圍內特定狀態的預約數量
+     * 依建立日期彙總保母已完成的預約（每天一列：date, count, revenue）
      */
-    @Query("SELECT COUNT(b) FROM Booking b WHERE b.sitter.id = :sitterId AND b.status = :status AND b.createdAt BETWEEN :startTime AND :endTime")
-    long countBySitterIdAndStatusAndCreatedAtBetween(
+    @Query("SELECT cast(b.createdAt as LocalDate), COUNT(b), COALESCE(SUM(b.totalPrice), 0) FROM Booking b " +
+           "WHERE b.sitter.id = :sitterId AND b.status = :status AND b.createdAt BETWEEN :startTime AND :endTime " +
+           "GROUP BY cast(b.createdAt as LocalDate)")
+    List<Object[]> summarizeBySitterAndDate(
             @Param("sitterId") UUID sitterId,
             @Param("status") BookingStatus status,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 統計保母在指定時間範圍內多個狀態的預約數量（例如 REJECTED + CANCELLED）
+     * 依保母、建立日期、狀態彙總預約數與金額（重建 sitter_daily_stats 用）
      */
-    @Query("SELECT COUNT(b) FROM Booking b WHERE b.sitter.id = :sitterId AND b.status IN :statuses AND b.createdAt BETWEEN :startTime AND :endTime")
-    long countBySitterIdAndStatusInAndCreatedAtBetween(
-            @Param("sitterId") UUID sitterId,
-            @Param("statuses") List<BookingStatus> statuses,
-            @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT b.sitter.id, cast(b.createdAt as LocalDate), b.status, COUNT(b), COALESCE(SUM(b.totalPrice), 0) " +
+           "FROM Booking b GROUP BY b.sitter.id, cast(b.createdAt as LocalDate), b.status")
+    List<Object[]> summarizeBySitterDateAndStatus();
 
     /**
-     * 計算保母在指定時間範圍內已完成訂單的總收入
-     * 使用 COALESCE 避免 null 值
+     * 取得所有預約（管理員用，DTO 投影）
+     * 保留給既有呼叫端；資料量大時改用 findDtoPage / streamAllDtos
      */
-    @Query("SELECT COALESCE(SUM(b.totalPrice), 0) FROM Booking b WHERE b.sitter.id = :sitterId AND b.status = 'COMPLETED' AND b.createdAt BETWEEN :startTime AND :endTime")
-    Double sumRevenueByCompletedBookings(
-            @Param("sitterId") UUID sitterId,
-            @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime);
+    @Query(BOOKING_DTO_SELECT +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDto> findAllDtos();
 
     /**
-     * 查詢保母在某一天的所有已完成預約（用於每日收入趨勢）
+     * 各狀態的預約數（管理員列表統計）
      */
-    @Query("SELECT b FROM Booking b WHERE b.sitter.id = :sitterId AND b.status = 'COMPLETED' AND DATE(b.createdAt) = :date")
-    List<Booking> findCompletedBookingsByDate(
-            @Param("sitterId") UUID sitterId,
-            @Param("date") java.time.LocalDate date);
+    @Query("SELECT b.status, COUNT(b) FROM Booking b GROUP BY b.status")
+    List<Object[]> countGroupByStatus();
 
     /**
-     * 取得所有預約（管理員用，使用 JOIN FETCH 預加載關聯實體）
+     * 取得所有預約的第一頁（管理員用，keyset 分頁）
+     * 排序鍵 (createdAt, id) 由新到舊，筆數由 Pageable 限制
      */
-    @Query("SELECT b FROM Booking b " +
-           "JOIN FETCH b.user " +
-           "JOIN FETCH b.pet " +
-           "JOIN FETCH b.sitter " +
-           "ORDER BY b.createdAt DESC")
-    List<Booking> findAllWithRelations();
+    @Query(BOOKING_DTO_SELECT +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDto> findDtoPage(Pageable pageable);
+
+    /**
+     * 取得游標 (createdAt, id) 之後的下一頁（管理員用，keyset 分頁）
+     * 以 WHERE 條件跳過已讀資料，不使用 OFFSET，翻到多深都只掃描一頁的索引範圍
+     */
+    @Query(BOOKING_DTO_SELECT +
+           "WHERE b.createdAt < :createdAt " +
+           "OR (b.createdAt = :createdAt AND b.id < :id) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDto> findDtoPageAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * 串流所有預約（匯出用）
+     * 以 JDBC fetch size 分批從資料庫取回，呼叫端必須在唯讀交易中消費並關閉 Stream
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(BOOKING_DTO_SELECT +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    Stream<BookingDto> streamAllDtos();
 }
@@ -2,6 +2,7 @@ package com.pet.repository;
 
 import com.pet.domain.RefreshToken;
 import com.pet.domain.Users;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -45,6 +47,43 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
         @Param("now") LocalDateTime now
     );
 
+    /**
+     * 查找用戶目前有效 Token 的 Hash（撤銷前先取得，用於更新記憶體撤銷索引）
+     */
+    @Query("SELECT rt.tokenHash FROM RefreshToken rt WHERE rt.user.id = :userId " +
+           "AND rt.revoked = false AND rt.expiryDate > :now")
+    List<String> findActiveTokenHashesByUser(
+        @Param("userId") UUID userId,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * 查找用戶特定設備目前有效 Token 的 Hash
+     */
+    @Query("SELECT rt.tokenHash FROM RefreshToken rt WHERE rt.user.id = :userId " +
+           "AND rt.deviceType = :deviceType AND rt.revoked = false AND rt.expiryDate > :now")
+    List<String> findActiveTokenHashesByUserAndDevice(
+        @Param("userId") UUID userId,
+        @Param("deviceType") String deviceType,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * 查找已撤銷但尚未過期的 Token Hash（重建記憶體撤銷索引用）
+     */
+    @Query("SELECT rt.tokenHash FROM RefreshToken rt WHERE rt.revoked = true AND rt.expiryDate > :now")
+    List<String> findRevokedTokenHashes(@Param("now") LocalDateTime now);
+
+    /**
+     * 批次更新最後使用時間（合併一段時間內的使用紀錄後一次寫入）
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.lastUsedAt = :usedAt WHERE rt.tokenHash IN :tokenHashes")
+    int updateLastUsed(
+        @Param("tokenHashes") Collection<String> tokenHashes,
+        @Param("usedAt") LocalDateTime usedAt
+    );
+
     /**
      * 撤銷用戶的所有 Token
      */
@@ -68,21 +107,17 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     );
 
     /**
-     * 刪除過期的 Token (定期清理任務用)
+     * 取出一批過期 Token 的 ID（分批清理用，依到期時間由舊到新）
      */
-    @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now")
-    int deleteExpiredTokens(@Param("now") LocalDateTime now);
+    @Query("SELECT rt.id FROM RefreshToken rt WHERE rt.expiryDate < :now ORDER BY rt.expiryDate")
+    List<UUID> findExpiredTokenIds(@Param("now") LocalDateTime now, Pageable pageable);
 
     /**
-     * 刪除已撤銷且過期的 Token (定期清理任務用)
+     * 依 ID 刪除 Token（分批清理用，每批一個短交易）
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.revoked = :revoked AND rt.expiryDate < :now")
-    int deleteRevokedExpiredTokens(
-        @Param("revoked") boolean revoked,
-        @Param("now") LocalDateTime now
-    );
+    @Query("DELETE FROM RefreshToken rt WHERE rt.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
 
     /**
      * 刪除用戶的所有 Token
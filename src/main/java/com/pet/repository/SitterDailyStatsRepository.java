@@ -0,0 +1,98 @@
+package com.pet.repository;
+
+import com.pet.domain.SitterDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SitterDailyStatsRepository extends JpaRepository<SitterDailyStats, SitterDailyStats.Key> {
+
+    /**
+     * 查詢保母在日期區間內的每日統計（依日期排序）
+     */
+    @Query("SELECT s FROM SitterDailyStats s WHERE s.sitterId = :sitterId " +
+           "AND s.statDate BETWEEN :from AND :to ORDER BY s.statDate")
+    List<SitterDailyStats> findBySitterIdAndStatDateBetween(
+            @Param("sitterId") UUID sitterId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    /**
+     * 保母所有評價的星級分布：[1 星, 2 星, 3 星, 4 星, 5 星]
+     */
+    @Query("SELECT COALESCE(SUM(s.rating1Count), 0), COALESCE(SUM(s.rating2Count), 0), " +
+           "COALESCE(SUM(s.rating3Count), 0), COALESCE(SUM(s.rating4Count), 0), " +
+           "COALESCE(SUM(s.rating5Count), 0) " +
+           "FROM SitterDailyStats s WHERE s.sitterId = :sitterId")
+    List<Object[]> sumRatingHistogram(@Param("sitterId") UUID sitterId);
+
+    /**
+     * 資料列不存在時新增一列全為 0 的統計（H2 等一般資料庫）
+     * 同時新增同一列的兩個交易，後者會在前者 commit 後因主鍵衝突失敗；開發環境單節點時不會發生
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO sitter_daily_stats (sitter_id, stat_date, total_bookings, pending_count, " +
+           "confirmed_count, completed_count, rejected_count, cancelled_count, expired_count, completed_revenue, " +
+           "rating1_count, rating2_count, rating3_count, rating4_count, rating5_count) " +
+           "SELECT :sitterId, :statDate, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 " +
+           "WHERE NOT EXISTS (SELECT 1 FROM sitter_daily_stats " +
+           "WHERE sitter_id = :sitterId AND stat_date = :statDate)", nativeQuery = true)
+    int insertIfAbsent(@Param("sitterId") UUID sitterId, @Param("statDate") LocalDate statDate);
+
+    /**
+     * 資料列不存在時新增一列全為 0 的統計（SQL Server）
+     * HOLDLOCK 在檢查期間鎖住索引範圍，多節點同時新增同一列時會互相等待而不是主鍵衝突
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "MERGE sitter_daily_stats WITH (HOLDLOCK) AS t " +
+           "USING (SELECT :sitterId AS sitter_id, :statDate AS stat_date) AS s " +
+           "ON t.sitter_id = s.sitter_id AND t.stat_date = s.stat_date " +
+           "WHEN NOT MATCHED THEN INSERT (sitter_id, stat_date, total_bookings, pending_count, " +
+           "confirmed_count, completed_count, rejected_count, cancelled_count, expired_count, completed_revenue, " +
+           "rating1_count, rating2_count, rating3_count, rating4_count, rating5_count) " +
+           "VALUES (s.sitter_id, s.stat_date, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);", nativeQuery = true)
+    int insertIfAbsentSqlServer(@Param("sitterId") UUID sitterId, @Param("statDate") LocalDate statDate);
+
+    /**
+     * 以增量更新一列統計（資料列不存在時回傳 0，由呼叫端新增）
+     * 使用原生 SQL：JPQL 版本在 H2Dialect 下會把 double 參數轉成 cast(? as float($p)) 而語法錯誤
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE sitter_daily_stats SET " +
+           "total_bookings = total_bookings + :total, " +
+           "pending_count = pending_count + :pending, " +
+           "confirmed_count = confirmed_count + :confirmed, " +
+           "completed_count = completed_count + :completed, " +
+           "rejected_count = rejected_count + :rejected, " +
+           "cancelled_count = cancelled_count + :cancelled, " +
+           "expired_count = expired_count + :expired, " +
+           "completed_revenue = completed_revenue + :revenue, " +
+           "rating1_count = rating1_count + :rating1, " +
+           "rating2_count = rating2_count + :rating2, " +
+           "rating3_count = rating3_count + :rating3, " +
+           "rating4_count = rating4_count + :rating4, " +
+           "rating5_count = rating5_count + :rating5 " +
+           "WHERE sitter_id = :sitterId AND stat_date = :statDate", nativeQuery = true)
+    int addDelta(@Param("sitterId") UUID sitterId,
+                 @Param("statDate") LocalDate statDate,
+                 @Param("total") int total,
+                 @Param("pending") int pending,
+                 @Param("confirmed") int confirmed,
+                 @Param("completed") int completed,
+                 @Param("rejected") int rejected,
+                 @Param("cancelled") int cancelled,
+                 @Param("expired") int expired,
+                 @Param("revenue") double revenue,
+                 @Param("rating1") int rating1,
+                 @Param("rating2") int rating2,
+                 @Param("rating3") int rating3,
+                 @Param("rating4") int rating4,
+                 @Param("rating5") int rating5);
+}
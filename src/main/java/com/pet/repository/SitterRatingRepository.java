@@ -15,6 +15,25 @@ import java.util.UUID;
 @Repository
 public interface SitterRatingRepository extends JpaRepository<SitterRating, UUID> {
 
+    /**
+     * 依保母彙總評價（sitter_rating_summary 對帳用），每位保母一列：
+     * [sitterId, 筆數, 總體總和, 專業總和, 專業筆數, 溝通總和, 溝通筆數, 準時總和, 準時筆數, 加權總和, 1-5 星數量]
+     */
+    String SUMMARY_SELECT = "SELECT r.sitter.id, COUNT(r), SUM(r.overallRating), " +
+           "COALESCE(SUM(r.professionalismRating), 0), COUNT(r.professionalismRating), " +
+           "COALESCE(SUM(r.communicationRating), 0), COUNT(r.communicationRating), " +
+           "COALESCE(SUM(r.punctualityRating), 0), COUNT(r.punctualityRating), " +
+           "SUM(r.overallRating * 0.4 + " +
+           "  COALESCE(r.professionalismRating, r.overallRating) * 0.25 + " +
+           "  COALESCE(r.communicationRating, r.overallRating) * 0.20 + " +
+           "  COALESCE(r.punctualityRating, r.overallRating) * 0.15), " +
+           "SUM(CASE WHEN r.overallRating = 1 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.overallRating = 2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.overallRating = 3 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.overallRating = 4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.overallRating = 5 THEN 1 ELSE 0 END) " +
+           "FROM SitterRating r ";
+
     /**
      * 檢查預約是否已經評價過（防止重複評價）
      */
@@ -40,6 +59,23 @@ public interface SitterRatingRepository extends JpaRepository<SitterRating, UUID
            "ORDER BY r.createdAt DESC")
     List<SitterRating> findBySitterIdOrderByCreatedAtDesc(@Param("sitterId") UUID sitterId);
 
+    /**
+     * 查詢保母最新的評價（只取前幾筆，預加載評價者）
+     */
+    @Query("SELECT r FROM SitterRating r " +
+           "JOIN FETCH r.user " +
+           "WHERE r.sitter.id = :sitterId " +
+           "ORDER BY r.createdAt DESC")
+    List<SitterRating> findLatestBySitterId(@Param("sitterId") UUID sitterId, Pageable pageable);
+
+    /**
+     * 依保母、被評預約的建立日期、星級彙總評價數（重建 sitter_daily_stats 用）
+     */
+    @Query("SELECT r.sitter.id, cast(r.booking.createdAt as LocalDate), r.overallRating, COUNT(r) " +
+           "FROM SitterRating r " +
+           "GROUP BY r.sitter.id, cast(r.booking.createdAt as LocalDate), r.overallRating")
+    List<Object[]> summarizeBySitterDateAndStars();
+
     /**
      * 計算保母的平均評分
      */
@@ -47,15 +83,16 @@ public interface SitterRatingRepository extends JpaRepository<SitterRating, UUID
     Double calculateAverageRating(@Param("sitterId") UUID sitterId);
 
     /**
-     * 計算保母的加權平均評分
+     * 所有保母的評價彙總
      */
-    @Query("SELECT AVG(" +
-           "  r.overallRating * 0.4 + " +
-           "  COALESCE(r.professionalismRating, r.overallRating) * 0.25 + " +
-           "  COALESCE(r.communicationRating, r.overallRating) * 0.20 + " +
-           "  COALESCE(r.punctualityRating, r.overallRating) * 0.15" +
-           ") FROM SitterRating r WHERE r.sitter.id = :sitterId")
-    Double calculateWeightedAverageRating(@Param("sitterId") UUID sitterId);
+    @Query(SUMMARY_SELECT + "GROUP BY r.sitter.id")
+    List<Object[]> summarizeBySitter();
+
+    /**
+     * 單一保母的評價彙總（沒有評價時回傳空列表）
+     */
+    @Query(SUMMARY_SELECT + "WHERE r.sitter.id = :sitterId GROUP BY r.sitter.id")
+    List<Object[]> summarizeForSitter(@Param("sitterId") UUID sitterId);
 
     /**
      * 統計保母的評價數量
@@ -70,17 +107,6 @@ public interface SitterRatingRepository extends JpaRepository<SitterRating, UUID
            "GROUP BY r.overallRating")
     List<Object[]> countRatingsByStars(@Param("sitterId") UUID sitterId);
 
-    /**
-     * 計算各項細項的平均評分
-     */
-    @Query("SELECT " +
-           "  AVG(r.overallRating), " +
-           "  AVG(r.professionalismRating), " +
-           "  AVG(r.communicationRating), " +
-           "  AVG(r.punctualityRating) " +
-           "FROM SitterRating r WHERE r.sitter.id = :sitterId")
-    Object[] calculateDetailedAverages(@Param("sitterId") UUID sitterId);
-
     /**
      * 查詢使用者給出的所有評價（使用 JOIN FETCH 預加載關聯實體）
      */
@@ -0,0 +1,71 @@
+package com.pet.repository;
+
+import com.pet.domain.SitterRatingSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SitterRatingSummaryRepository extends JpaRepository<SitterRatingSummary, UUID> {
+
+    /**
+     * 保母與其評價彙總（一個查詢）：[Sitter, SitterRatingSummary 或 null]
+     */
+    @Query("SELECT s, r FROM Sitter s LEFT JOIN SitterRatingSummary r ON r.sitterId = s.id WHERE s.id = :sitterId")
+    List<Object[]> findSitterWithSummary(@Param("sitterId") UUID sitterId);
+
+    /**
+     * 鎖定彙總列（對帳時阻擋並行的增量更新）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000")})
+    @Query("SELECT r FROM SitterRatingSummary r WHERE r.sitterId = :sitterId")
+    Optional<SitterRatingSummary> findByIdForUpdate(@Param("sitterId") UUID sitterId);
+
+    /**
+     * 累加一筆評價（資料列不存在時回傳 0，由呼叫端新增）
+     * 細項未填時傳入 0 分、0 筆
+     * 使用原生 SQL：JPQL 版本在 H2Dialect 下會把參數轉成 cast(? as float($p)) 而語法錯誤
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE sitter_rating_summary SET " +
+           "rating_count = rating_count + 1, " +
+           "overall_sum = overall_sum + :overall, " +
+           "professionalism_sum = professionalism_sum + :professionalism, " +
+           "professionalism_count = professionalism_count + :professionalismCount, " +
+           "communication_sum = communication_sum + :communication, " +
+           "communication_count = communication_count + :communicationCount, " +
+           "punctuality_sum = punctuality_sum + :punctuality, " +
+           "punctuality_count = punctuality_count + :punctualityCount, " +
+           "weighted_sum = weighted_sum + :weighted, " +
+           "rating1_count = rating1_count + :rating1, " +
+           "rating2_count = rating2_count + :rating2, " +
+           "rating3_count = rating3_count + :rating3, " +
+           "rating4_count = rating4_count + :rating4, " +
+           "rating5_count = rating5_count + :rating5 " +
+           "WHERE sitter_id = :sitterId", nativeQuery = true)
+    int addRating(@Param("sitterId") UUID sitterId,
+                  @Param("overall") long overall,
+                  @Param("professionalism") long professionalism,
+                  @Param("professionalismCount") int professionalismCount,
+                  @Param("communication") long communication,
+                  @Param("communicationCount") int communicationCount,
+                  @Param("punctuality") long punctuality,
+                  @Param("punctualityCount") int punctualityCount,
+                  @Param("weighted") double weighted,
+                  @Param("rating1") int rating1,
+                  @Param("rating2") int rating2,
+                  @Param("rating3") int rating3,
+                  @Param("rating4") int rating4,
+                  @Param("rating5") int rating5);
+}
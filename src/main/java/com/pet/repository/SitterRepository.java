@@ -23,6 +23,14 @@ public interface SitterRepository extends JpaRepository<Sitter, UUID> {
     @Query("SELECT s FROM Sitter s JOIN FETCH s.user ORDER BY s.name ASC")
     List<Sitter> findAllWithUser();
 
+    /**
+     * 排名索引重建用：只取排序與列表顯示需要的欄位，不載入實體
+     * 與 findAllWithUser 相同只含已綁定帳號的保母
+     */
+    @Query("SELECT s.id, s.name, s.experience, s.averageRating, s.ratingCount, s.completedBookings, " +
+           "s.hourlyRate, s.experienceLevel FROM Sitter s JOIN s.user u")
+    List<Object[]> findRankingRows();
+
     /**
      * 使用悲觀鎖查詢保母（MSSQL 相容版本）
      * 用於建立預約時防止時段衝突的 race condition
@@ -13,6 +13,20 @@ public interface UserRepository extends JpaRepository<Users, UUID> {
 
     Optional<Users> findByLineUserId(String lineUserId);
 
+    /**
+     * 只查詢驗證 JWT 所需的欄位（無狀態認證的使用者狀態檢查）
+     */
+    Optional<AuthView> findAuthViewById(UUID id);
+
     @org.springframework.data.jpa.repository.Query("SELECT u FROM Users u LEFT JOIN FETCH u.customer WHERE u.role = :role")
     java.util.List<Users> findByRole(@org.springframework.data.repository.query.Param("role") com.pet.domain.UserRole role);
-}
\ No newline at end of file
+
+    /**
+     * 使用者認證狀態投影
+     */
+    interface AuthView {
+        String getUsername();
+
+        com.pet.domain.UserRole getRole();
+    }
+}
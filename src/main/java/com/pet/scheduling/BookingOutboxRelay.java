@@ -0,0 +1,244 @@
+package com.pet.scheduling;
+
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.BookingOutboxEvent;
+import com.pet.domain.BookingOutboxEvent.EventType;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.log.service.BookingLogWriter;
+import com.pet.repository.BookingRepository;
+import com.pet.service.BookingOutboxService;
+import com.pet.service.LineMessagingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 預約 Outbox 投遞排程
+ * 定期領取到期的 outbox 事件，Log 交給 BookingLogWriter 批次寫入 Log DB、LINE 通知逐筆發送；
+ * 成功才標記 PROCESSED，失敗交由 BookingOutboxService 安排重試（至少一次投遞）；
+ * 兩種結果都以領取時的 claimToken 條件式更新，租約到期後被其他 relay 接手的事件不會被覆寫
+ *
+ * LINE 推播在排程執行緒上同步呼叫（有連線 / 讀取逾時），排程執行緒池見 spring.task.scheduling.pool.size，
+ * LINE 變慢時只佔住 relay 自己的執行緒，不影響其他 @Scheduled 工作
+ */
+@Component
+public class BookingOutboxRelay implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingOutboxRelay.class);
+
+    /**
+     * 單次輪詢最多連續處理的批次數，積壓時不必等下一輪
+     */
+    private static final int MAX_BATCHES_PER_POLL = 10;
+
+    private final BookingOutboxService bookingOutboxService;
+    private final BookingLogWriter bookingLogWriter;
+    private final LineMessagingService lineMessagingService;
+    private final BookingRepository bookingRepository;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    /**
+     * 已交給 BookingLogWriter、尚未回報結果的 Log 事件
+     */
+    private final Map<UUID, BookingOutboxEvent> pendingLogs = new ConcurrentHashMap<>();
+
+    private final BookingLogWriter.Completion logCompletion = new BookingLogWriter.Completion() {
+        @Override
+        public void written(List<UUID> eventIds) {
+            List<BookingOutboxEvent> written = eventIds.stream()
+                    .map(pendingLogs::remove)
+                    .filter(Objects::nonNull)
+                    .toList();
+            delivered.add(bookingOutboxService.markProcessed(written));
+        }
+
+        @Override
+        public void failed(UUID eventId, Exception error) {
+            BookingOutboxEvent event = pendingLogs.remove(eventId);
+            if (event != null) {
+                fail(event, error.getMessage());
+            }
+        }
+    };
+
+    public BookingOutboxRelay(BookingOutboxService bookingOutboxService,
+                              BookingLogWriter bookingLogWriter,
+                              LineMessagingService lineMessagingService,
+                              BookingRepository bookingRepository) {
+        this.bookingOutboxService = bookingOutboxService;
+        this.bookingLogWriter = bookingLogWriter;
+        this.lineMessagingService = lineMessagingService;
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * 輪詢並投遞到期事件
+     */
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            List<BookingOutboxEvent> events = bookingOutboxService.claimDueEvents();
+            if (events.isEmpty()) {
+                return;
+            }
+            deliver(events);
+        }
+    }
+
+    /**
+     * 每天清除保留期限以前已投遞的事件
+     */
+    @Scheduled(cron = "${booking.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeProcessed() {
+        int deleted = bookingOutboxService.purgeProcessed();
+        if (deleted > 0) {
+            logger.info("已清除 {} 筆已投遞的 outbox 事件", deleted);
+        }
+    }
+
+    void deliver(List<BookingOutboxEvent> events) {
+        List<BookingOutboxEvent> processed = new ArrayList<>(events.size());
+        Map<Boolean, List<BookingOutboxEvent>> byKind = events.stream()
+                .collect(Collectors.partitioningBy(e -> e.getEventType() == EventType.BOOKING_LOG));
+
+        if (!byKind.get(true).isEmpty()) {
+            deliverLogs(byKind.get(true));
+        }
+        if (!byKind.get(false).isEmpty()) {
+            deliverLineNotifications(byKind.get(false), processed);
+        }
+
+        if (!processed.isEmpty()) {
+            delivered.add(bookingOutboxService.markProcessed(processed));
+        }
+    }
+
+    /**
+     * 交給 BookingLogWriter 批次寫入，結果由 logCompletion 標記；
+     * 寫入器佇列滿或停用時會在目前執行緒同步寫完再回傳
+     */
+    private void deliverLogs(List<BookingOutboxEvent> events) {
+        List<BookingLogWriter.Entry> entries = new ArrayList<>(events.size());
+        for (BookingOutboxEvent event : events) {
+            try {
+                entries.add(new BookingLogWriter.Entry(event.getId(), bookingOutboxService.readBookingLog(event)));
+                pendingLogs.put(event.getId(), event);
+            } catch (Exception e) {
+                fail(event, e.getMessage());
+            }
+        }
+        bookingLogWriter.submitAll(entries, logCompletion);
+    }
+
+    private void deliverLineNotifications(List<BookingOutboxEvent> events, List<BookingOutboxEvent> processed) {
+        // 一次載入所有事件涉及的預約（含飼主 / 寵物 / 保母）
+        Map<UUID, List<UUID>> targetIds = new LinkedHashMap<>();
+        Set<UUID> allIds = new HashSet<>();
+        List<BookingOutboxEvent> readable = new ArrayList<>(events.size());
+        for (BookingOutboxEvent event : events) {
+            try {
+                List<UUID> ids = event.getEventType() == EventType.LINE_BATCH_CREATED
+                        ? bookingOutboxService.readBookingIds(event)
+                        : List.of(event.getBookingId());
+                targetIds.put(event.getId(), ids);
+                allIds.addAll(ids);
+                readable.add(event);
+            } catch (Exception e) {
+                fail(event, e.getMessage());
+            }
+        }
+        Map<UUID, Booking> bookings = allIds.isEmpty() ? Map.of()
+                : bookingRepository.findAllWithRelationsByIdIn(allIds).stream()
+                        .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        for (BookingOutboxEvent event : readable) {
+            List<Booking> targets = targetIds.get(event.getId()).stream()
+                    .map(bookings::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (targets.isEmpty()) {
+                // 預約已被刪除，沒有對象可通知
+                logger.warn("Outbox 事件 {} 的預約 {} 不存在，略過通知", event.getId(), event.getBookingId());
+                processed.add(event);
+                continue;
+            }
+
+            boolean sent;
+            try {
+                sent = event.getEventType() == EventType.LINE_BATCH_CREATED
+                        ? lineMessagingService.sendBookingBatchCreatedNotification(targets)
+                        : sendStatusNotification(targets.get(0), event.getBookingStatus(), event.getPayload());
+            } catch (Exception e) {
+                logger.error("Outbox 事件 {} 發送 LINE 通知異常: {}", event.getId(), e.getMessage());
+                sent = false;
+            }
+
+            if (sent) {
+                processed.add(event);
+            } else {
+                fail(event, "LINE push failed");
+            }
+        }
+    }
+
+    /**
+     * 依事件發生時的狀態發送對應通知（不使用預約目前的狀態，避免之後的變更覆蓋通知內容）
+     */
+    private boolean sendStatusNotification(Booking booking, BookingStatus status, String reason) {
+        if (status == null) {
+            return true;
+        }
+        return switch (status) {
+            case CONFIRMED -> lineMessagingService.sendBookingConfirmedNotification(booking);
+            case CANCELLED -> lineMessagingService.sendBookingCancelledNotification(booking, reason);
+            case REJECTED -> lineMessagingService.sendBookingRejectedNotification(booking, reason);
+            case COMPLETED -> lineMessagingService.sendBookingCompletedNotification(booking);
+            case EXPIRED -> lineMessagingService.sendBookingExpiredNotification(booking);
+            // PENDING 狀態不發通知
+            default -> true;
+        };
+    }
+
+    private void fail(BookingOutboxEvent event, String error) {
+        if (bookingOutboxService.markFailed(event, error)) {
+            deadLettered.increment();
+            logger.error("Outbox 事件 {}（{}，預約 {}）重試 {} 次仍失敗，已標記為 FAILED: {}",
+                    event.getId(), event.getEventType(), event.getBookingId(), event.getAttempts() + 1, error);
+        } else {
+            retried.increment();
+        }
+    }
+
+    @Override
+    public String componentName() {
+        return "bookingOutbox";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        long pending = bookingOutboxService.countByStatus(BookingOutboxEvent.Status.PENDING);
+        long failed = bookingOutboxService.countByStatus(BookingOutboxEvent.Status.FAILED);
+        return ComponentHealth.up(String.format(
+                "pending=%d, failed=%d, inFlightLogs=%d, delivered=%d, retried=%d, deadLettered=%d",
+                pending, failed, pendingLogs.size(), delivered.sum(), retried.sum(), deadLettered.sum()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.pet.security;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 單節點的 OAuth state 儲存
+ *
+ * 原本每次產生授權 URL 都完整掃描 state map 清除過期項目（O(n)），且 map 沒有上限，
+ * 機器人大量請求授權 URL 即可耗盡記憶體。改為：
+ *
+ * 1. 所有 state 的有效期相同，登記順序即到期順序；另以 FIFO 佇列記錄登記順序
+ * 2. 登記時只從佇列頭移除已過期的項目，攤銷 O(1)
+ * 3. 超過上限時從最舊的開始淘汰（被淘汰的使用者需重新點一次登入）
+ */
+public class InMemoryOAuthStateStore implements OAuthStateStore {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    /**
+     * state -> 到期時間（epoch 毫秒）
+     */
+    private final Map<String, Long> states = new ConcurrentHashMap<>();
+
+    /**
+     * 依登記（= 到期）順序排列；已被使用的 state 仍留在佇列中，輪到時略過
+     */
+    private final Queue<Entry> expiryOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock evictLock = new ReentrantLock();
+
+    public InMemoryOAuthStateStore(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public void issue(String state) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        states.put(state, expiresAt);
+        expiryOrder.offer(new Entry(state, expiresAt));
+        queued.incrementAndGet();
+        evict(now);
+    }
+
+    @Override
+    public boolean consume(String state) {
+        if (state == null) {
+            return false;
+        }
+        Long expiresAt = states.remove(state);
+        return expiresAt != null && System.currentTimeMillis() < expiresAt;
+    }
+
+    @Override
+    public int purgeExpired() {
+        return evict(System.currentTimeMillis());
+    }
+
+    /**
+     * 從佇列頭移除已過期的項目；佇列超過上限時連同未過期的最舊項目一起淘汰
+     *
+     * 只有一個執行緒負責淘汰（peek 與 poll 之間佇列頭不會被換掉），其他執行緒直接略過
+     */
+    private int evict(long now) {
+        if (!evictLock.tryLock()) {
+            return 0;
+        }
+        try {
+            int removed = 0;
+            while (true) {
+                Entry head = expiryOrder.peek();
+                if (head == null || (head.expiresAt() > now && queued.get() <= maxEntries)) {
+                    return removed;
+                }
+                expiryOrder.poll();
+                queued.decrementAndGet();
+                if (states.remove(head.state(), head.expiresAt())) {
+                    removed++;
+                }
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private record Entry(String state, long expiresAt) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.pet.security;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 以主資料庫 oauth_state 表實作的 {@link OAuthStateStore}（多節點共用）
+ *
+ * 回調以單一條件式 DELETE 取出 state（WHERE 同時檢查未過期），
+ * 影響 1 列即為有效，同一個 state 被重送也只有一個請求會成功
+ */
+public class JdbcOAuthStateStore implements OAuthStateStore {
+
+    private static final String INSERT_SQL = "INSERT INTO oauth_state (state, expires_at_millis) VALUES (?, ?)";
+    private static final String CONSUME_SQL = "DELETE FROM oauth_state WHERE state = ? AND expires_at_millis > ?";
+    private static final String PURGE_SQL = "DELETE FROM oauth_state WHERE expires_at_millis <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+
+    public JdbcOAuthStateStore(JdbcTemplate jdbcTemplate, long ttlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public void issue(String state) {
+        jdbcTemplate.update(INSERT_SQL, state, System.currentTimeMillis() + ttlMillis);
+    }
+
+    @Override
+    public boolean consume(String state) {
+        if (state == null) {
+            return false;
+        }
+        return jdbcTemplate.update(CONSUME_SQL, state, System.currentTimeMillis()) == 1;
+    }
+
+    @Override
+    public int purgeExpired() {
+        return jdbcTemplate.update(PURGE_SQL, System.currentTimeMillis());
+    }
+}
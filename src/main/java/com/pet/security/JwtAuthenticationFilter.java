@@ -23,6 +23,9 @@ import java.io.IOException;
  * 1. 從 HTTP Header 中提取 JWT Token
  * 2. 驗證 Token 有效性
  * 3. 將用戶信息設置到 Spring Security Context
+ *
+ * 無狀態模式（jwt.stateless=true）下 principal 直接由 Access Token claims 建立（JwtPrincipal），
+ * 不查詢使用者；已刪除或帳號 / 角色變更的使用者由 UserStatusCache 以 TTL 快取擋下
  */
 @Component
 @RequiredArgsConstructor
@@ -31,6 +34,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final JwtProperties jwtProperties;
+    private final UserStatusCache userStatusCache;
 
     @Override
     protected void doFilterInternal(
@@ -51,33 +56,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 2. 提取 JWT Token
             final String jwt = authHeader.substring(7);
 
-            // 3. 提取用戶名
-            final String username = jwtService.extractUsername(jwt);
+            // 3. 解析並驗證 Token（簽章與有效期只驗證一次，後續步驟共用結果）
+            final VerifiedToken token = jwtService.parseOnce(jwt);
+            final String username = token.subject();
 
             // 4. 如果用戶名存在且尚未認證
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // 5. 加載用戶詳情
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // 5. 建立 principal：無狀態模式直接使用 claims，否則加載用戶詳情
+                Object principal = resolvePrincipal(token);
 
-                // 6. 驗證 Token
-                if (jwtService.validateToken(jwt)) {
-
-                    // 7. 創建認證對象
+                if (principal != null) {
+                    // 6. 創建認證對象
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        jwtService.extractAuthorities(jwt)
+                        token.authorities()
                     );
 
-                    // 8. 設置請求詳情
+                    // 7. 設置請求詳情
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // 9. 將認證對象設置到 Security Context
+                    // 8. 將認證對象設置到 Security Context
                     SecurityContextHolder.getContext().setAuthentication(authToken);
 
-                    log.debug("Authenticated user: {} with role: {}",
-                        username, jwtService.extractRole(jwt));
+                    log.debug("Authenticated user: {} with role: {}", username, token.role());
                 }
             }
         } catch (Exception e) {
@@ -86,4 +89,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * @return principal；Token 不可用於認證（非 Access Token 或已撤銷）時回傳 null
+     */
+    private Object resolvePrincipal(VerifiedToken token) {
+        if (!jwtProperties.isStateless()) {
+            return this.userDetailsService.loadUserByUsername(token.subject());
+        }
+
+        if (!token.isAccessToken() || token.userId() == null || token.role() == null) {
+            log.debug("Token type {} cannot be used for authentication", token.type());
+            return null;
+        }
+        JwtPrincipal principal = JwtPrincipal.from(token);
+        if (!userStatusCache.isCurrent(principal)) {
+            log.debug("Token of user {} has been revoked", principal.username());
+            return null;
+        }
+        return principal;
+    }
 }
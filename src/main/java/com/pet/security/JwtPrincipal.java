@@ -0,0 +1,25 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * 無狀態認證的 principal，完全由已驗證的 Access Token claims 建立
+ *
+ * @param userId   用戶 ID
+ * @param username 用戶名（Authentication.getName() 回傳此值）
+ * @param role     角色
+ */
+public record JwtPrincipal(UUID userId, String username, UserRole role) implements Principal {
+
+    public static JwtPrincipal from(VerifiedToken token) {
+        return new JwtPrincipal(token.userId(), token.subject(), token.role());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
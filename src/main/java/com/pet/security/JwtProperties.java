@@ -30,4 +30,93 @@ public class JwtProperties {
      * Token 發行者
      */
     private String issuer = "pet-care-system";
-}
\ No newline at end of file
+
+    /**
+     * 無狀態認證：直接以 Access Token 的 claims 建立 principal，不在每個請求查詢使用者
+     * 關閉時沿用 UserDetailsService 逐次載入使用者
+     */
+    private boolean stateless = true;
+
+    /**
+     * 無狀態認證下使用者狀態（是否已刪除、帳號 / 角色是否變更）的快取時間 (毫秒)，0 表示不檢查
+     */
+    private long userStatusCacheTtl = 60000;
+
+    /**
+     * 使用者狀態快取的筆數上限
+     */
+    private int userStatusCacheMaxSize = 10000;
+
+    /**
+     * 已驗證 Token 快取的筆數上限，0 表示停用
+     */
+    private int tokenCacheMaxSize = 10000;
+
+    /**
+     * 已驗證 Token 快取的分段數（會進位到 2 的次方）
+     */
+    private int tokenCacheStripes = 16;
+
+    /**
+     * 是否啟用 Refresh Token 快速路徑（已知有效的 Token 刷新時不查詢 refresh_tokens）
+     */
+    private boolean refreshTokenIndexEnabled = true;
+
+    /**
+     * Refresh Token 撤銷索引從 DB 重建的間隔 (毫秒)
+     * 其他節點撤銷的 Token 最晚在此時間後於本節點失效
+     */
+    private long refreshTokenIndexSyncMs = 30000;
+
+    /**
+     * 快速路徑可記住的有效 Refresh Token 數量上限
+     */
+    private int refreshTokenIndexMaxSize = 100000;
+
+    /**
+     * Refresh Token 最後使用時間批次寫入的間隔 (毫秒)
+     */
+    private long refreshTokenLastUsedFlushMs = 10000;
+
+    /**
+     * 過期 Refresh Token 定期清理
+     */
+    private Cleanup cleanup = new Cleanup();
+
+    @Getter
+    @Setter
+    public static class Cleanup {
+
+        /**
+         * 是否啟用定期清理
+         */
+        private boolean enabled = true;
+
+        /**
+         * 排程間隔 (毫秒)；只有落在清理時段內的排程會實際刪除
+         */
+        private long intervalMs = 3600000;
+
+        /**
+         * 每個交易最多刪除幾筆，避免 MSSQL 鎖升級成表鎖阻塞登入
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * 單次排程最多處理的批次數，剩餘的留給下一次排程
+         */
+        private int maxChunksPerRun = 500;
+
+        /**
+         * 批次之間的暫停時間 (毫秒)，讓其他交易取得鎖；也是清理排程 tick 的 fixedDelay，必須大於 0
+         */
+        private long pauseMs = 200;
+
+        /**
+         * 清理時段 (HH:mm，伺服器時區)，可跨午夜；任一留空表示不限時段
+         */
+        private String windowStart = "02:00";
+
+        private String windowEnd = "06:00";
+    }
+}
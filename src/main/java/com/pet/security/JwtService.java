@@ -3,9 +3,9 @@ package com.pet.security;
 import com.pet.domain.UserRole;
 import com.pet.domain.Users;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,13 +17,27 @@ import java.util.*;
 
 /**
  * JWT 服務類 - 負責生成和驗證 JWT Token
+ *
+ * 簽名密鑰與 JJWT parser 在建構時建立一次（兩者皆為 thread-safe），
+ * 不在每次簽發 / 驗證時重新產生；parseOnce 的結果另由 VerifiedTokenCache 快取
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class JwtService {
 
     private final JwtProperties jwtProperties;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JwtService(JwtProperties jwtProperties, VerifiedTokenCache verifiedTokenCache) {
+        this.jwtProperties = jwtProperties;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.signingKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
 
     /**
      * 生成 Access Token
@@ -86,10 +100,38 @@ public class JwtService {
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .issuer(jwtProperties.getIssuer())
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * 解析並驗證 Token（簽章與有效期）一次，回傳不可變的內容
+     * 同一個請求需要多個欄位時應使用此方法，而不是分別呼叫 extractXxx（每次都會重新驗證簽章）
+     * 同一個 Token 在有效期內重複送來時直接回傳快取結果
+     *
+     * @throws io.jsonwebtoken.JwtException Token 無效或已過期
+     * @throws IllegalArgumentException Token 為空或欄位格式錯誤
+     */
+    public VerifiedToken parseOnce(String token) {
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = extractClaims(token);
+        String userId = claims.get("userId", String.class);
+        String role = claims.get("role", String.class);
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                userId != null ? UUID.fromString(userId) : null,
+                role != null ? UserRole.valueOf(role) : null,
+                claims.get("type", String.class),
+                claims.getExpiration().toInstant()
+        );
+        verifiedTokenCache.put(token, verified);
+        return verified;
+    }
+
     /**
      * 從 Token 中提取用戶名
      */
@@ -126,38 +168,20 @@ public class JwtService {
      */
     public boolean validateToken(String token) {
         try {
+            // parser 驗證簽章時已一併檢查有效期，過期會拋出 ExpiredJwtException
             extractClaims(token);
-            return !isTokenExpired(token);
+            return true;
         } catch (Exception e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             return false;
         }
     }
 
-    /**
-     * 檢查 Token 是否過期
-     */
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
-    }
-
     /**
      * 從 Token 中提取所有聲明
      */
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    /**
-     * 獲取簽名密鑰
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -0,0 +1,29 @@
+package com.pet.security;
+
+/**
+ * OAuth state 參數儲存（防 CSRF）
+ *
+ * 產生授權 URL 時登記 state，回調時取出並刪除（只能使用一次）；
+ * 多節點部署時回調可能落在另一個節點，需使用共享儲存（line.login.state-store=jdbc）
+ */
+public interface OAuthStateStore {
+
+    /**
+     * 登記新的 state，有效期由實作的設定決定
+     */
+    void issue(String state);
+
+    /**
+     * 取出並刪除 state
+     *
+     * @return state 存在且未過期
+     */
+    boolean consume(String state);
+
+    /**
+     * 移除已過期的 state
+     *
+     * @return 移除數量
+     */
+    int purgeExpired();
+}
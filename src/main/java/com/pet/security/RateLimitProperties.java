@@ -0,0 +1,71 @@
+package com.pet.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    /**
+     * Bucket 儲存位置：MEMORY 為各節點各自計算；JDBC 為多節點共用主資料庫的 rate_limit_bucket
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * 本機租約有效期 (毫秒) - 租到的 token 超過此時間未用完即作廢
+     */
+    private long leaseTtlMs = 1000;
+
+    /**
+     * 一般 API：60 次/分鐘
+     */
+    private Limit general = new Limit(60, 60, 6);
+
+    /**
+     * POST /api/bookings：10 次/分鐘（防搶約，每次都向共享 bucket 取 token）
+     */
+    private Limit booking = new Limit(10, 10, 1);
+
+    /**
+     * POST /api/bookings/batch：一次最多建立 50 筆預約，另設更嚴格的 bucket（連續 2 次，之後 1 次/分鐘）
+     */
+    private Limit batchBooking = new Limit(2, 1, 1);
+
+    public enum Store {
+        MEMORY, JDBC
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /**
+         * Bucket 容量
+         */
+        private int maxTokens;
+
+        /**
+         * 每分鐘補充的 token 數
+         */
+        private double refillPerMinute;
+
+        /**
+         * 多節點模式下每次向共享 bucket 租用的 token 數
+         */
+        private int leaseSize;
+
+        public Limit() {
+        }
+
+        public Limit(int maxTokens, double refillPerMinute, int leaseSize) {
+            this.maxTokens = maxTokens;
+            this.refillPerMinute = refillPerMinute;
+            this.leaseSize = leaseSize;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.pet.security;
+
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refresh Token 撤銷索引（記憶體內）
+ *
+ * 每次刷新 Access Token 原本都要查 refresh_tokens 並寫回 last_used_at。
+ * 絕大多數刷新使用的都是有效 Token，因此在記憶體保存兩份資料：
+ *
+ * 1. 已撤銷 Token 的 Hash（取 SHA-256 前 64 bit，排序後的 long[] 以二分搜尋查詢），定期從 DB 重建
+ * 2. 本節點已確認有效的 Token（建立或查過 DB 後記住擁有者與到期時間）
+ *
+ * 「已知有效且不在撤銷集合中」的 Token 可跳過 DB 讀取；其餘（包括撤銷集合的雜湊碰撞）一律回到 DB 判斷，
+ * 所以撤銷集合只會造成多查一次，不會誤拒。
+ *
+ * 本節點的撤銷在 commit 後立即生效；其他節點的撤銷最晚在下一次重建（refreshTokenIndexSyncMs）後生效
+ */
+@Component
+public class RefreshTokenRevocationIndex implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenRevocationIndex.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final boolean enabled;
+    private final int maxSize;
+
+    /**
+     * 上次重建時 DB 中已撤銷 Token 的雜湊（已排序）
+     */
+    private volatile long[] revokedSnapshot = new long[0];
+
+    /**
+     * 重建後本節點新增的撤銷；下次重建時併入快照
+     */
+    private final Set<Long> recentlyRevoked = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已確認有效的 Token：tokenHash -> 擁有者與到期時間
+     */
+    private final Map<String, KnownToken> knownValid = new ConcurrentHashMap<>();
+
+    private final LongAdder fastPathHits = new LongAdder();
+    private final LongAdder fastPathMisses = new LongAdder();
+
+    public RefreshTokenRevocationIndex(RefreshTokenRepository refreshTokenRepository,
+                                       JwtProperties jwtProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.enabled = jwtProperties.isRefreshTokenIndexEnabled();
+        this.maxSize = jwtProperties.getRefreshTokenIndexMaxSize();
+    }
+
+    /**
+     * 快速路徑：Token 已知有效、未撤銷且未過期時回傳擁有者 ID，否則回傳 null（需查詢 DB）
+     */
+    public UUID knownOwner(String tokenHash) {
+        if (!enabled) {
+            return null;
+        }
+        KnownToken known = knownValid.get(tokenHash);
+        if (known == null || isRevoked(tokenHash)) {
+            fastPathMisses.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= known.expiresAtMillis()) {
+            knownValid.remove(tokenHash, known);
+            fastPathMisses.increment();
+            return null;
+        }
+        fastPathHits.increment();
+        return known.userId();
+    }
+
+    /**
+     * 記住已確認有效的 Token（建立後或查過 DB 後呼叫）
+     */
+    public void remember(String tokenHash, UUID userId, LocalDateTime expiryDate) {
+        if (!enabled || knownValid.size() >= maxSize) {
+            return;
+        }
+        long expiresAtMillis = expiryDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        knownValid.put(tokenHash, new KnownToken(userId, expiresAtMillis));
+    }
+
+    /**
+     * 記錄本節點撤銷的 Token（應在撤銷交易 commit 後呼叫）
+     */
+    public void revoked(Collection<String> tokenHashes) {
+        for (String tokenHash : tokenHashes) {
+            knownValid.remove(tokenHash);
+            if (enabled) {
+                recentlyRevoked.add(prefix(tokenHash));
+            }
+        }
+    }
+
+    /**
+     * 從 DB 重建撤銷集合，並移除其他節點已撤銷或已過期的已知有效 Token
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.refresh-token-index-sync-ms:30000}",
+               initialDelayString = "${jwt.refresh-token-index-sync-ms:30000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        // 先取本節點撤銷的副本再查 DB：副本中的撤銷都已 commit，必定出現在查詢結果中
+        Set<Long> merged = Set.copyOf(recentlyRevoked);
+        List<String> hashes;
+        try {
+            hashes = refreshTokenRepository.findRevokedTokenHashes(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild refresh token revocation index: {}", e.getMessage());
+            return;
+        }
+
+        long[] snapshot = new long[hashes.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = prefix(hashes.get(i));
+        }
+        Arrays.sort(snapshot);
+        revokedSnapshot = snapshot;
+        recentlyRevoked.removeAll(merged);
+
+        long now = System.currentTimeMillis();
+        knownValid.entrySet().removeIf(entry ->
+                now >= entry.getValue().expiresAtMillis() || isRevoked(entry.getKey()));
+
+        logger.debug("Rebuilt refresh token revocation index: revoked={}, knownValid={}",
+                snapshot.length, knownValid.size());
+    }
+
+    boolean isRevoked(String tokenHash) {
+        long prefix = prefix(tokenHash);
+        return recentlyRevoked.contains(prefix) || Arrays.binarySearch(revokedSnapshot, prefix) >= 0;
+    }
+
+    /**
+     * SHA-256 十六進位字串的前 64 bit
+     */
+    private static long prefix(String tokenHash) {
+        return HexFormat.fromHexDigitsToLong(tokenHash, 0, 16);
+    }
+
+    int knownValidCount() {
+        return knownValid.size();
+    }
+
+    @Override
+    public String componentName() {
+        return "refreshTokenIndex";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (!enabled) {
+            return ComponentHealth.up("disabled");
+        }
+        return ComponentHealth.up(String.format(Locale.ROOT, "knownValid=%d, revoked=%d, fastPathHits=%d, fastPathMisses=%d",
+                knownValid.size(), revokedSnapshot.length + recentlyRevoked.size(),
+                fastPathHits.sum(), fastPathMisses.sum()));
+    }
+
+    private record KnownToken(UUID userId, long expiresAtMillis) {
+    }
+}
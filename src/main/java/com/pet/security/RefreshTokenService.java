@@ -5,18 +5,28 @@ import com.pet.domain.Users;
 import com.pet.exception.BusinessException;
 import com.pet.exception.ErrorCode;
 import com.pet.repository.RefreshTokenRepository;
+import com.pet.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Refresh Token 管理服務
@@ -24,6 +34,9 @@ import java.util.UUID;
  * 1. Token Hash 計算 (SHA-256)
  * 2. Token 的創建、驗證、撤銷
  * 3. 設備管理
+ *
+ * 刷新時先查 RefreshTokenRevocationIndex，已知有效的 Token 不讀 refresh_tokens；
+ * 最後使用時間先記在記憶體，定期以一句 bulk UPDATE 批次寫入
  */
 @Service
 @RequiredArgsConstructor
@@ -32,6 +45,15 @@ public class RefreshTokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtProperties jwtProperties;
+    private final UserRepository userRepository;
+    private final RefreshTokenRevocationIndex revocationIndex;
+
+    /**
+     * 尚未寫入 DB 的最後使用紀錄（tokenHash）；同一 Token 在一個寫入間隔內只寫一次
+     */
+    private final Set<String> pendingLastUsed = ConcurrentHashMap.newKeySet();
+
+    private static final int LAST_USED_FLUSH_BATCH_SIZE = 500;
 
     /**
      * 創建並保存 Refresh Token
@@ -54,7 +76,12 @@ public class RefreshTokenService {
         String tokenHash = hashToken(token);
 
         // 撤銷該用戶在該設備上的舊 Token (同一設備只保留最新的 Token)
-        refreshTokenRepository.revokeUserDeviceTokens(user.getId(), deviceType, true);
+        // 先查出有效的舊 Token，沒有時省略 bulk UPDATE（首次登入或舊 Token 已過期）
+        List<String> previous = refreshTokenRepository.findActiveTokenHashesByUserAndDevice(
+            user.getId(), deviceType, LocalDateTime.now());
+        if (!previous.isEmpty()) {
+            refreshTokenRepository.revokeUserDeviceTokens(user.getId(), deviceType, true);
+        }
 
         // 創建新 Token
         RefreshToken refreshToken = new RefreshToken();
@@ -68,6 +95,10 @@ public class RefreshTokenService {
         );
 
         RefreshToken saved = refreshTokenRepository.save(refreshToken);
+        afterCommit(() -> {
+            revocationIndex.revoked(previous);
+            revocationIndex.remember(tokenHash, user.getId(), saved.getExpiryDate());
+        });
         log.info("Created refresh token for user: {}, device: {}", user.getUsername(), deviceType);
 
         return saved;
@@ -76,14 +107,24 @@ public class RefreshTokenService {
     /**
      * 驗證 Refresh Token
      *
+     * 已知有效且未撤銷的 Token 直接以擁有者 ID 載入用戶，不讀取 refresh_tokens
+     *
      * @param token 原始 JWT Token
-     * @return RefreshToken 實體
+     * @return Token 擁有者
      * @throws BusinessException 如果 Token 無效
      */
-    @Transactional
-    public RefreshToken validateRefreshToken(String token) {
+    @Transactional(readOnly = true)
+    public Users validateRefreshToken(String token) {
         String tokenHash = hashToken(token);
 
+        UUID ownerId = revocationIndex.knownOwner(tokenHash);
+        if (ownerId != null) {
+            Users owner = userRepository.findById(ownerId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_REFRESH_TOKEN, "Refresh Token 不存在"));
+            pendingLastUsed.add(tokenHash);
+            return owner;
+        }
+
         RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(tokenHash)
             .orElseThrow(() -> new BusinessException(ErrorCode.INVALID_REFRESH_TOKEN, "Refresh Token 不存在"));
 
@@ -101,11 +142,34 @@ public class RefreshTokenService {
             throw new BusinessException(ErrorCode.INVALID_REFRESH_TOKEN, "Refresh Token 已過期");
         }
 
-        // 更新最後使用時間
-        refreshToken.updateLastUsed();
-        refreshTokenRepository.save(refreshToken);
+        Users owner = refreshToken.getUser();
+        revocationIndex.remember(tokenHash, owner.getId(), refreshToken.getExpiryDate());
+        pendingLastUsed.add(tokenHash);
 
-        return refreshToken;
+        return owner;
+    }
+
+    /**
+     * 批次寫入最後使用時間
+     *
+     * 以寫入當下的時間為準，精確度為一個寫入間隔（refreshTokenLastUsedFlushMs）
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token-last-used-flush-ms:10000}")
+    @Transactional
+    public void flushLastUsed() {
+        if (pendingLastUsed.isEmpty()) {
+            return;
+        }
+        List<String> hashes = new ArrayList<>(pendingLastUsed);
+        pendingLastUsed.removeAll(hashes);
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (int from = 0; from < hashes.size(); from += LAST_USED_FLUSH_BATCH_SIZE) {
+            List<String> batch = hashes.subList(from, Math.min(from + LAST_USED_FLUSH_BATCH_SIZE, hashes.size()));
+            updated += refreshTokenRepository.updateLastUsed(batch, now);
+        }
+        log.debug("Flushed last used time for {} refresh tokens", updated);
     }
 
     /**
@@ -118,6 +182,7 @@ public class RefreshTokenService {
         refreshTokenRepository.findByTokenHash(tokenHash).ifPresent(refreshToken -> {
             refreshToken.setRevoked(true);
             refreshTokenRepository.save(refreshToken);
+            afterCommit(() -> revocationIndex.revoked(List.of(tokenHash)));
             log.info("Revoked refresh token for user: {}", refreshToken.getUser().getUsername());
         });
     }
@@ -127,7 +192,9 @@ public class RefreshTokenService {
      */
     @Transactional
     public void revokeAllUserTokens(UUID userId) {
+        List<String> revoked = refreshTokenRepository.findActiveTokenHashesByUser(userId, LocalDateTime.now());
         refreshTokenRepository.revokeAllUserTokens(userId, true);
+        afterCommit(() -> revocationIndex.revoked(revoked));
         log.info("Revoked all refresh tokens for user: {}", userId);
     }
 
@@ -136,7 +203,10 @@ public class RefreshTokenService {
      */
     @Transactional
     public void revokeUserDeviceTokens(UUID userId, String deviceType) {
+        List<String> revoked = refreshTokenRepository.findActiveTokenHashesByUserAndDevice(
+            userId, deviceType, LocalDateTime.now());
         refreshTokenRepository.revokeUserDeviceTokens(userId, deviceType, true);
+        afterCommit(() -> revocationIndex.revoked(revoked));
         log.info("Revoked {} refresh tokens for user: {}", deviceType, userId);
     }
 
@@ -148,21 +218,51 @@ public class RefreshTokenService {
     }
 
     /**
-     * 清理過期的 Token (定期任務調用)
+     * 刪除一批過期的 Token（由 RefreshTokenCleanupScheduler 分批呼叫，每批一個短交易）
+     *
+     * 已撤銷且過期的 Token 也包含在內；撤銷但未過期的保留，供撤銷索引判斷
+     *
+     * @return 本批刪除的筆數，小於 cleanupChunkSize 表示已清理完畢
      */
     @Transactional
-    public void cleanupExpiredTokens() {
-        int deleted = refreshTokenRepository.deleteExpiredTokens(LocalDateTime.now());
-        log.info("Cleaned up {} expired refresh tokens", deleted);
+    public int deleteExpiredChunk(LocalDateTime now) {
+        List<UUID> ids = refreshTokenRepository.findExpiredTokenIds(
+            now, PageRequest.of(0, jwtProperties.getCleanup().getChunkSize()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return refreshTokenRepository.deleteByIdIn(ids);
+    }
+
+    public int cleanupChunkSize() {
+        return jwtProperties.getCleanup().getChunkSize();
+    }
+
+    public int cleanupMaxChunksPerRun() {
+        return jwtProperties.getCleanup().getMaxChunksPerRun();
+    }
+
+    public boolean isCleanupEnabled() {
+        return jwtProperties.getCleanup().isEnabled();
     }
 
     /**
-     * 清理已撤銷且過期的 Token
+     * 是否位於清理時段內（時段可跨午夜，例如 22:00 - 04:00）
      */
-    @Transactional
-    public void cleanupRevokedExpiredTokens() {
-        int deleted = refreshTokenRepository.deleteRevokedExpiredTokens(true, LocalDateTime.now());
-        log.info("Cleaned up {} revoked and expired refresh tokens", deleted);
+    public boolean isWithinCleanupWindow(LocalTime time) {
+        JwtProperties.Cleanup cleanup = jwtProperties.getCleanup();
+        if (!StringUtils.hasText(cleanup.getWindowStart()) || !StringUtils.hasText(cleanup.getWindowEnd())) {
+            return true;
+        }
+        LocalTime start = LocalTime.parse(cleanup.getWindowStart());
+        LocalTime end = LocalTime.parse(cleanup.getWindowEnd());
+        if (start.equals(end)) {
+            return true;
+        }
+        if (start.isBefore(end)) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+        return !time.isBefore(start) || time.isBefore(end);
     }
 
     /**
@@ -172,6 +272,22 @@ public class RefreshTokenService {
         return refreshTokenRepository.countActiveDevicesByUser(userId, false, LocalDateTime.now());
     }
 
+    /**
+     * 交易 commit 後才更新記憶體索引；rollback 時索引維持原狀
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * 計算 Token 的 SHA-256 Hash
      */
@@ -0,0 +1,100 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+import com.pet.repository.UserRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 使用者認證狀態快取（無狀態 JWT 認證用）
+ *
+ * 無狀態認證不再逐次查詢使用者，已刪除或帳號 / 角色已變更的使用者在 Token 到期前仍可通過驗證。
+ * 此快取以 TTL 記住每位使用者目前的 username / role（不存在也會快取），
+ * Token 的 claims 與之不符即視為已撤銷；每位使用者在 TTL 內最多查詢一次 DB。
+ *
+ * 筆數達上限時先清除過期項目，仍然滿載則不再快取新的使用者（直接查 DB），記憶體用量有上限
+ */
+@Component
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMs;
+    private final int maxSize;
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    public UserStatusCache(UserRepository userRepository, JwtProperties jwtProperties) {
+        this.userRepository = userRepository;
+        this.ttlMs = jwtProperties.getUserStatusCacheTtl();
+        this.maxSize = jwtProperties.getUserStatusCacheMaxSize();
+    }
+
+    /**
+     * Token 的 claims 是否仍與使用者目前狀態一致（使用者存在，且 username / role 未變更）
+     */
+    public boolean isCurrent(JwtPrincipal principal) {
+        if (ttlMs <= 0) {
+            return true;
+        }
+        Entry entry = lookup(principal.userId());
+        return entry.exists()
+                && Objects.equals(entry.username(), principal.username())
+                && entry.role() == principal.role();
+    }
+
+    /**
+     * 使用者被修改或刪除時呼叫，下次請求重新查詢
+     */
+    public void evict(UUID userId) {
+        entries.remove(userId);
+    }
+
+    /**
+     * 目前交易 commit 後才清除（沒有交易時立即清除），rollback 時不動；
+     * 在 commit 前清除的話，其他請求會在 commit 前重新載入舊狀態並快取整個 TTL
+     */
+    public void evictAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    private Entry lookup(UUID userId) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(userId);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached;
+        }
+
+        Entry fresh = userRepository.findAuthViewById(userId)
+                .map(view -> new Entry(true, view.getUsername(), view.getRole(), now + ttlMs))
+                .orElseGet(() -> new Entry(false, null, null, now + ttlMs));
+
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> now >= e.expiresAt());
+        }
+        if (cached != null || entries.size() < maxSize) {
+            entries.put(userId, fresh);
+        }
+        return fresh;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(boolean exists, String username, UserRole role, long expiresAt) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 已驗證簽章與有效期的 JWT 內容（不可變）
+ * 由 JwtService.parseOnce 產生，同一個請求內重複使用，不需要再次解析 Token
+ *
+ * @param subject   Token subject（用戶名）
+ * @param userId    用戶 ID，註冊 Token 沒有此欄位時為 null
+ * @param role      角色，只有 Access Token 有此欄位，其他為 null
+ * @param type      Token 類型：ACCESS / REFRESH / LINE_REGISTRATION
+ * @param expiresAt 到期時間
+ */
+public record VerifiedToken(
+        String subject,
+        UUID userId,
+        UserRole role,
+        String type,
+        Instant expiresAt
+) {
+
+    public boolean isAccessToken() {
+        return "ACCESS".equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return "REFRESH".equals(type);
+    }
+
+    /**
+     * Spring Security 權限；沒有角色時為空
+     */
+    public List<GrantedAuthority> authorities() {
+        if (role == null) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
@@ -0,0 +1,167 @@
+package com.pet.security;
+
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已驗證 JWT 的 LRU 快取（分段鎖）
+ *
+ * 行動端在 Access Token 15 分鐘的有效期內會重送同一個 Token 數百次，
+ * 每次都重新做 HMAC 驗證與 JSON 解析。此快取以 Token 的 64-bit 雜湊為 key，
+ * 保存 JwtService.parseOnce 的結果：
+ *
+ * 1. 依雜湊分段，每段一個 access-order LinkedHashMap + ReentrantLock，不同段互不阻塞
+ * 2. 每段容量固定，超過時淘汰最久未使用的項目
+ * 3. 命中時比對完整 Token 字串（雜湊碰撞不會取得他人的 claims），並檢查 exp，過期即移除
+ *
+ * 只快取「簽章與有效期已驗證」的結果；使用者撤銷由 UserStatusCache 另外檢查
+ */
+@Component
+public class VerifiedTokenCache implements ComponentHealthProvider {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final boolean enabled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public VerifiedTokenCache(JwtProperties jwtProperties) {
+        int maxSize = jwtProperties.getTokenCacheMaxSize();
+        int stripeCount = Integer.highestOneBit(Math.max(1, jwtProperties.getTokenCacheStripes() * 2 - 1));
+        this.enabled = maxSize > 0;
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, maxSize / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * @return 已驗證且尚未過期的 Token 內容；未命中回傳 null
+     */
+    public VerifiedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        long digest = digest(token);
+        Stripe stripe = stripeFor(digest);
+        long now = System.currentTimeMillis();
+
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.map.get(digest);
+            if (entry == null || !entry.token().equals(token)) {
+                misses.increment();
+                return null;
+            }
+            if (now >= entry.expiresAtMillis()) {
+                stripe.map.remove(digest);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.verified();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (!enabled) {
+            return;
+        }
+        long digest = digest(token);
+        Stripe stripe = stripeFor(digest);
+        Entry entry = new Entry(token, verified, verified.expiresAt().toEpochMilli());
+
+        stripe.lock.lock();
+        try {
+            stripe.map.put(digest, entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * FNV-1a 64-bit，只需一次走訪字元，不配置物件
+     */
+    static long digest(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private Stripe stripeFor(long digest) {
+        return stripes[(int) (digest ^ (digest >>> 32)) & mask];
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String componentName() {
+        return "jwtTokenCache";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (!enabled) {
+            return ComponentHealth.up("disabled");
+        }
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        double hitRatio = total == 0 ? 0.0 : (double) hitCount / total;
+        return ComponentHealth.up(String.format(Locale.ROOT, "size=%d, hitRatio=%.3f, hits=%d, misses=%d, evictions=%d, expirations=%d",
+                size(), hitRatio, hitCount, total - hitCount, evictions.sum(), expirations.sum()));
+    }
+
+    private record Entry(String token, VerifiedToken verified, long expiresAtMillis) {
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Long, Entry> map;
+
+        private Stripe(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -52,7 +52,9 @@ public class WebAccessControlInterceptor implements HandlerInterceptor {
 
         // 3. 如果是 Web 端請求,檢查角色
         if ("WEB".equals(deviceType)) {
-            UserRole userRole = extractUserRole(request);
+            UserRole userRole = authentication.getPrincipal() instanceof JwtPrincipal principal
+                    ? principal.role()
+                    : extractUserRole(request);
 
             if (userRole != null && userRole != UserRole.ADMIN) {
                 // Web 端非 ADMIN 用戶,返回 403
@@ -101,7 +101,7 @@ public class AuthenticationService {
         String refreshTokenValue = request.getRefreshToken();
 
         // 1. 驗證 Refresh Token (從資料庫)
-        RefreshToken refreshToken = refreshTokenService.validateRefreshToken(refreshTokenValue);
+        Users user = refreshTokenService.validateRefreshToken(refreshTokenValue);
 
         // 2. 驗證 JWT 本身
         if (!jwtService.validateToken(refreshTokenValue)) {
@@ -112,15 +112,12 @@ public class AuthenticationService {
             throw new BusinessException(ErrorCode.INVALID_REFRESH_TOKEN, "不是有效的 Refresh Token");
         }
 
-        // 3. 獲取用戶
-        Users user = refreshToken.getUser();
-
-        // 4. 生成新的 Access Token
+        // 3. 生成新的 Access Token
         String newAccessToken = jwtService.generateAccessToken(user);
 
         log.info("Refresh token used for user: {}", user.getUsername());
 
-        // 5. 構建響應 (不返回新的 Refresh Token,沿用舊的)
+        // 4. 構建響應 (不返回新的 Refresh Token,沿用舊的)
         return buildAuthResponse(user, newAccessToken, refreshTokenValue);
     }
 
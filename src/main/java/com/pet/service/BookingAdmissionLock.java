@@ -0,0 +1,154 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.exception.BusinessException;
+import com.pet.exception.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 保母預約准入鎖（分段鎖）
+ *
+ * 問題場景：熱門保母同時被多位飼主搶約，check-then-insert 之間沒有鎖，
+ * 造成雙重預約或大量 ObjectOptimisticLockingFailureException 重試
+ *
+ * 解法：
+ * 1. 依 sitterId 雜湊到固定數量的 ReentrantLock，只序列化同一保母（分段）的准入
+ * 2. 建立預約在交易開始前上鎖（{@link #executeWithLocks}），等待鎖時不佔用 JDBC 連線；
+ *    交易 commit 後才釋放，確保衝突檢查與 commit 之間不會被插隊
+ * 3. 確認預約要先載入預約才知道保母，在交易中上鎖並持有到交易結束（afterCompletion 釋放）
+ * 4. 多節點部署時另外透過 SitterRepository.findByIdWithLock 取得 DB 列鎖
+ */
+@Component
+public class BookingAdmissionLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingAdmissionLock.class);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMs;
+    private final boolean databaseLockEnabled;
+
+    public BookingAdmissionLock(BookingConfig bookingConfig) {
+        BookingConfig.AdmissionLock config = bookingConfig.getAdmissionLock();
+        int size = Integer.highestOneBit(Math.max(1, config.getStripes() * 2 - 1));
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.timeoutMs = config.getTimeoutMs();
+        this.databaseLockEnabled = config.isDatabaseLockEnabled();
+    }
+
+    /**
+     * 取得保母的准入鎖後執行 action（由 action 自行開啟並完成交易），結束後釋放
+     *
+     * 必須在交易外呼叫才能避免等待鎖時佔用連線；action 回傳時交易已 commit、afterCommit callback 已執行。
+     * 呼叫端已在交易中（例如外層服務組合呼叫）時，改為持有到外層交易結束，避免 commit 前就釋放
+     *
+     * @throws BusinessException 等待逾時（保母忙碌）
+     */
+    public <T> T executeWithLocks(Collection<UUID> sitterIds, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            lockAllUntilTransactionEnds(sitterIds);
+            return action.get();
+        }
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            byStripe(sitterIds).forEach((index, sitterId) -> held.add(acquire(index, sitterId)));
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * 取得保母的准入鎖，並在目前交易結束（commit 或 rollback）時自動釋放
+     * 必須在交易中呼叫；若沒有交易同步（例如單元測試），則不上鎖
+     *
+     * @throws BusinessException 等待逾時（保母忙碌）
+     */
+    public void lockUntilTransactionEnds(UUID sitterId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        lockStripe(stripeIndex(sitterId), sitterId);
+    }
+
+    /**
+     * 一次取得多位保母的准入鎖，並在目前交易結束時釋放
+     * 依分段編號遞增順序上鎖、同一分段只鎖一次，避免兩個批次交叉等待造成死結
+     */
+    public void lockAllUntilTransactionEnds(Collection<UUID> sitterIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        byStripe(sitterIds).forEach(this::lockStripe);
+    }
+
+    /**
+     * 依分段編號遞增排序，同一分段只保留一位保母
+     */
+    private TreeMap<Integer, UUID> byStripe(Collection<UUID> sitterIds) {
+        TreeMap<Integer, UUID> byStripe = new TreeMap<>();
+        for (UUID sitterId : sitterIds) {
+            byStripe.putIfAbsent(stripeIndex(sitterId), sitterId);
+        }
+        return byStripe;
+    }
+
+    private void lockStripe(int index, UUID sitterId) {
+        ReentrantLock lock = acquire(index, sitterId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock acquire(int index, UUID sitterId) {
+        ReentrantLock lock = stripes[index];
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("Booking admission lock timeout for sitter {}", sitterId);
+                throw new BusinessException(ErrorCode.BOOKING_SITTER_BUSY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.BOOKING_SITTER_BUSY);
+        }
+        return lock;
+    }
+
+    /**
+     * 是否需要額外取得 DB 列鎖（多節點部署）
+     */
+    public boolean isDatabaseLockEnabled() {
+        return databaseLockEnabled;
+    }
+
+    int stripeIndex(UUID sitterId) {
+        int h = sitterId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+}
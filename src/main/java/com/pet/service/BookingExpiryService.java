@@ -0,0 +1,117 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.repository.BookingRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * PENDING 預約分批過期
+ *
+ * 每次呼叫 expireChunk 是一個獨立的短交易：
+ * 1. 取出最舊的一批逾時 PENDING 預約 ID
+ * 2. 以單一 bulk UPDATE 設為 EXPIRED（WHERE 再次檢查 status，不覆蓋期間被確認的預約）
+ * 3. 取回實際被更新的預約，在同一交易寫入 outbox（Log DB 同步與 LINE 通知改由 relay 非同步投遞）
+ *    並更新保母每日統計
+ *
+ * 觸發來源：BookingExpiryTimer 在每筆預約到期時呼叫 expireBookings；
+ * BookingExpiryScheduler 低頻呼叫 expireChunk 補上計時器漏掉的預約（重啟、其他節點建立的預約）
+ */
+@Service
+public class BookingExpiryService {
+
+    private final BookingRepository bookingRepository;
+    private final BookingOutboxService bookingOutboxService;
+    private final SitterDailyStatsService sitterDailyStatsService;
+    private final BookingConfig.Expiry config;
+
+    public BookingExpiryService(BookingRepository bookingRepository,
+                                BookingOutboxService bookingOutboxService,
+                                SitterDailyStatsService sitterDailyStatsService,
+                                BookingConfig bookingConfig) {
+        this.bookingRepository = bookingRepository;
+        this.bookingOutboxService = bookingOutboxService;
+        this.sitterDailyStatsService = sitterDailyStatsService;
+        this.config = bookingConfig.getExpiry();
+    }
+
+    /**
+     * 本次排程的過期截止時間：建立時間早於此時間的 PENDING 預約會被過期
+     */
+    public LocalDateTime cutoffTime() {
+        return LocalDateTime.now().minusHours(config.getPendingTimeoutHours());
+    }
+
+    /**
+     * PENDING 預約的回應期限
+     */
+    public Duration pendingTimeout() {
+        return Duration.ofHours(config.getPendingTimeoutHours());
+    }
+
+    public int chunkSize() {
+        return config.getChunkSize();
+    }
+
+    public int maxChunksPerRun() {
+        return config.getMaxChunksPerRun();
+    }
+
+    /**
+     * 過期一批預約
+     *
+     * @return candidates 為本批取出的候選筆數（小於 chunkSize 表示已處理完），expired 為實際過期的預約
+     */
+    @Transactional
+    public ChunkResult expireChunk(LocalDateTime cutoffTime) {
+        List<UUID> ids = bookingRepository.findOverduePendingIds(cutoffTime, PageRequest.of(0, config.getChunkSize()));
+        if (ids.isEmpty()) {
+            return new ChunkResult(0, List.of());
+        }
+        return expire(ids, cutoffTime);
+    }
+
+    /**
+     * 過期指定的預約（到期計時器觸發），仍以目前的截止時間再次檢查，未到期或已非 PENDING 的不受影響
+     */
+    @Transactional
+    public ChunkResult expireBookings(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new ChunkResult(0, List.of());
+        }
+        return expire(ids, cutoffTime());
+    }
+
+    private ChunkResult expire(Collection<UUID> ids, LocalDateTime cutoffTime) {
+        // 截到毫秒，避免 DB 時間精度不同造成比對不到
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        int updated = bookingRepository.expirePendingBookings(ids, cutoffTime, now);
+        if (updated == 0) {
+            return new ChunkResult(ids.size(), List.of());
+        }
+
+        // 只保留這次 UPDATE 實際更新的資料列（狀態為 EXPIRED 且 updatedAt 為本批時間戳）
+        List<Booking> expired = bookingRepository.findAllWithRelationsByIdIn(ids).stream()
+                .filter(b -> b.getStatus() == BookingStatus.EXPIRED && now.equals(b.getUpdatedAt()))
+                .toList();
+        bookingOutboxService.recordExpired(expired);
+        sitterDailyStatsService.bookingsExpired(expired);
+        return new ChunkResult(ids.size(), expired);
+    }
+
+    /**
+     * 單一批次的處理結果
+     */
+    public record ChunkResult(int candidates, List<Booking> expired) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PENDING 預約到期計時器（記憶體內）
+ *
+ * 原本只靠每小時一次的掃描，預約最多會多活一個排程間隔，且每次都要掃描預約表。
+ * 改為以 DelayQueue 依到期時間排序所有 PENDING 預約，由單一背景執行緒在到期當下過期：
+ *
+ * 1. 啟動時從 BookingRepository 重建
+ * 2. 預約 commit 後由 BookingService 的 afterCommit callback 加入（PENDING）或取消（其他狀態）
+ * 3. 同時到期的預約合併成一批，交給 BookingExpiryService 以 bulk UPDATE 過期
+ *
+ * 注意：計時器只保證「準時」，不保證「不漏」（例如其他節點建立的預約），
+ * 由 BookingExpiryScheduler 的低頻掃描補漏
+ */
+@Component
+public class BookingExpiryTimer implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExpiryTimer.class);
+
+    private final BookingExpiryService bookingExpiryService;
+    private final BookingRepository bookingRepository;
+    private final BookingSlotIndex bookingSlotIndex;
+    private final BookingConfig.Expiry config;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
+    /**
+     * 每筆預約目前有效的到期項目；取消或重新排程後，佇列中的舊項目觸發時會被略過
+     */
+    private final Map<UUID, Deadline> tracked = new ConcurrentHashMap<>();
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile Thread worker;
+
+    public BookingExpiryTimer(BookingExpiryService bookingExpiryService,
+                              BookingRepository bookingRepository,
+                              BookingSlotIndex bookingSlotIndex,
+                              BookingConfig bookingConfig) {
+        this.bookingExpiryService = bookingExpiryService;
+        this.bookingRepository = bookingRepository;
+        this.bookingSlotIndex = bookingSlotIndex;
+        this.config = bookingConfig.getExpiry();
+    }
+
+    /**
+     * 啟動時從 DB 載入所有 PENDING 預約並啟動背景執行緒
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isTimerEnabled()) {
+            return;
+        }
+        try {
+            List<Object[]> rows = bookingRepository.findPendingCreatedTimes();
+            for (Object[] row : rows) {
+                schedule((UUID) row[0], dueAtMillis((LocalDateTime) row[1]));
+            }
+            logger.info("Booking expiry timer loaded {} pending bookings", rows.size());
+        } catch (Exception e) {
+            logger.error("Failed to load pending bookings for expiry timer: {}", e.getMessage());
+        }
+
+        Thread thread = new Thread(this::run, "booking-expiry-timer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 依預約目前狀態更新計時器：PENDING 加入，其他狀態取消
+     */
+    public void track(Booking booking) {
+        if (!config.isTimerEnabled() || booking.getId() == null) {
+            return;
+        }
+        if (booking.getStatus() == BookingStatus.PENDING) {
+            LocalDateTime createdAt = booking.getCreatedAt() != null ? booking.getCreatedAt() : LocalDateTime.now();
+            schedule(booking.getId(), dueAtMillis(createdAt));
+        } else {
+            tracked.remove(booking.getId());
+        }
+    }
+
+    void schedule(UUID bookingId, long dueAtMillis) {
+        Deadline deadline = new Deadline(bookingId, dueAtMillis);
+        tracked.put(bookingId, deadline);
+        queue.add(deadline);
+    }
+
+    /**
+     * 到期時間 = 建立時間 + 回應期限；多 1 毫秒讓 BookingExpiryService 的 createdAt < cutoff 條件成立
+     */
+    private long dueAtMillis(LocalDateTime createdAt) {
+        return createdAt.plus(bookingExpiryService.pendingTimeout())
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            try {
+                List<Deadline> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due, Math.max(0, bookingExpiryService.chunkSize() - 1));
+                expireDue(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 過期一批已到期的項目，略過已取消或已重新排程的
+     */
+    void expireDue(List<Deadline> due) {
+        List<UUID> ids = new ArrayList<>(due.size());
+        for (Deadline deadline : due) {
+            if (tracked.remove(deadline.bookingId(), deadline)) {
+                ids.add(deadline.bookingId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Booking> result = bookingExpiryService.expireBookings(ids).expired();
+            // 交易已 commit，過期即釋放時段
+            result.forEach(bookingSlotIndex::record);
+            expired.add(result.size());
+            if (!result.isEmpty()) {
+                logger.info("預約到期自動過期 {} 筆", result.size());
+            }
+        } catch (Exception e) {
+            // 失敗的預約不再重排，交給定期掃描補漏
+            failures.increment();
+            logger.error("預約到期過期失敗（{} 筆），留待定期掃描處理: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    int trackedCount() {
+        return tracked.size();
+    }
+
+    @Override
+    public String componentName() {
+        return "bookingExpiryTimer";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (!config.isTimerEnabled()) {
+            return ComponentHealth.up("disabled");
+        }
+        return ComponentHealth.up(String.format("tracked=%d, expired=%d, failures=%d",
+                tracked.size(), expired.sum(), failures.sum()));
+    }
+
+    /**
+     * 單筆預約的到期項目
+     */
+    record Deadline(UUID bookingId, long dueAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Deadline) other).dueAtMillis);
+        }
+    }
+}
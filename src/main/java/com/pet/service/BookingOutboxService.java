@@ -0,0 +1,252 @@
+package com.pet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.BookingOutboxEvent;
+import com.pet.domain.BookingOutboxEvent.EventType;
+import com.pet.domain.BookingOutboxEvent.Status;
+import com.pet.log.domain.BookingLog;
+import com.pet.log.service.BookingLogService;
+import com.pet.repository.BookingOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 預約副作用 Outbox
+ *
+ * 問題場景：Log DB 同步與 LINE 通知放在 afterCommit callback，
+ * commit 之後、callback 執行之前 JVM 中止，這些副作用就永久遺失
+ *
+ * 解法：
+ * 1. record* 方法必須在建立 / 更新預約的同一個主交易中呼叫，事件與預約一起 commit 或 rollback
+ * 2. BookingOutboxRelay 在背景領取到期事件並投遞，成功才標記 PROCESSED（至少一次）
+ * 3. 投遞失敗以指數退避重試，超過上限標記 FAILED
+ */
+@Service
+public class BookingOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingOutboxService.class);
+
+    private static final TypeReference<List<UUID>> UUID_LIST = new TypeReference<>() {
+    };
+
+    private final BookingOutboxRepository bookingOutboxRepository;
+    private final BookingLogService bookingLogService;
+    private final ObjectMapper objectMapper;
+    private final BookingConfig.Outbox config;
+
+    public BookingOutboxService(BookingOutboxRepository bookingOutboxRepository,
+                                BookingLogService bookingLogService,
+                                ObjectMapper objectMapper,
+                                BookingConfig bookingConfig) {
+        this.bookingOutboxRepository = bookingOutboxRepository;
+        this.bookingLogService = bookingLogService;
+        this.objectMapper = objectMapper;
+        this.config = bookingConfig.getOutbox();
+    }
+
+    // ============================================
+    // 寫入事件（呼叫端的主交易中）
+    // ============================================
+
+    /**
+     * 新建立的預約：同步到 Log DB
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Booking booking) {
+        bookingOutboxRepository.save(logEvent(booking));
+    }
+
+    /**
+     * 預約狀態變更：同步到 Log DB，並發送對應的 LINE 通知
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanged(Booking booking, String reason) {
+        BookingOutboxEvent notification = newEvent(booking.getId(), EventType.LINE_NOTIFICATION);
+        notification.setBookingStatus(booking.getStatus());
+        notification.setPayload(reason);
+        bookingOutboxRepository.saveAll(List.of(logEvent(booking), notification));
+    }
+
+    /**
+     * 批次過期的預約：逐筆同步到 Log DB，並各自發送過期通知
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordExpired(List<Booking> bookings) {
+        List<BookingOutboxEvent> events = new ArrayList<>(bookings.size() * 2);
+        for (Booking booking : bookings) {
+            events.add(logEvent(booking));
+            BookingOutboxEvent notification = newEvent(booking.getId(), EventType.LINE_NOTIFICATION);
+            notification.setBookingStatus(Booking.BookingStatus.EXPIRED);
+            events.add(notification);
+        }
+        bookingOutboxRepository.saveAll(events);
+    }
+
+    /**
+     * 批次建立的預約：逐筆同步到 Log DB，發送一則合併的 LINE 通知
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBatchCreated(List<Booking> bookings) {
+        List<BookingOutboxEvent> events = new ArrayList<>(bookings.size() + 1);
+        bookings.forEach(booking -> events.add(logEvent(booking)));
+
+        BookingOutboxEvent notification = newEvent(bookings.get(0).getId(), EventType.LINE_BATCH_CREATED);
+        notification.setBookingStatus(Booking.BookingStatus.PENDING);
+        notification.setPayload(toJson(bookings.stream().map(Booking::getId).toList()));
+        events.add(notification);
+
+        bookingOutboxRepository.saveAll(events);
+    }
+
+    private BookingOutboxEvent logEvent(Booking booking) {
+        BookingOutboxEvent event = newEvent(booking.getId(), EventType.BOOKING_LOG);
+        event.setBookingStatus(booking.getStatus());
+        // 在主交易中取快照，之後預約再變動也不影響這筆 Log 的內容
+        event.setPayload(toJson(bookingLogService.convertToBookingLog(booking)));
+        return event;
+    }
+
+    private static BookingOutboxEvent newEvent(UUID bookingId, EventType type) {
+        BookingOutboxEvent event = new BookingOutboxEvent();
+        event.setBookingId(bookingId);
+        event.setEventType(type);
+        return event;
+    }
+
+    // ============================================
+    // Relay 使用（各自獨立的短交易）
+    // ============================================
+
+    /**
+     * 領取一批到期事件，並以租約鎖定，避免其他 relay 重複領取
+     */
+    @Transactional
+    public List<BookingOutboxEvent> claimDueEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> dueIds = bookingOutboxRepository.findDueIds(now, PageRequest.of(0, config.getBatchSize()));
+        if (dueIds.isEmpty()) {
+            return List.of();
+        }
+        UUID token = UUID.randomUUID();
+        int claimed = bookingOutboxRepository.claim(dueIds, token, now, now.plus(config.getLeaseMs(), ChronoUnit.MILLIS));
+        if (claimed == 0) {
+            return List.of();
+        }
+        return bookingOutboxRepository.findByClaimToken(token);
+    }
+
+    /**
+     * 標記已投遞，依領取批次（claimToken）各以一次條件式 UPDATE 更新
+     * 租約已到期、被其他 relay 重新領取的事件不會被更新（更新 0 筆時略過）
+     *
+     * @return 實際標記的筆數
+     */
+    @Transactional
+    public int markProcessed(Collection<BookingOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, List<UUID>> idsByToken = events.stream()
+                .filter(event -> event.getClaimToken() != null)
+                .collect(Collectors.groupingBy(BookingOutboxEvent::getClaimToken,
+                        Collectors.mapping(BookingOutboxEvent::getId, Collectors.toList())));
+        int updated = 0;
+        for (Map.Entry<UUID, List<UUID>> entry : idsByToken.entrySet()) {
+            updated += bookingOutboxRepository.markProcessed(entry.getValue(), entry.getKey(), now);
+        }
+        if (updated < events.size()) {
+            logger.info("{} 筆 outbox 事件的領取已失效，略過標記已投遞", events.size() - updated);
+        }
+        return updated;
+    }
+
+    /**
+     * 記錄投遞失敗：以指數退避安排下次重試，超過上限標記為 FAILED
+     * 以 id + claimToken 條件式 UPDATE 寫入，不合併整個實體；
+     * 領取已失效（租約到期後被其他 relay 接手）時不做任何變更
+     *
+     * @return 是否已放棄重試（領取已失效時回傳 false）
+     */
+    @Transactional
+    public boolean markFailed(BookingOutboxEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        boolean giveUp = attempts >= config.getMaxAttempts();
+        LocalDateTime nextAttemptAt = giveUp
+                ? event.getNextAttemptAt()
+                : LocalDateTime.now().plus(retryDelayMs(attempts), ChronoUnit.MILLIS);
+        String lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+
+        int updated = event.getClaimToken() == null ? 0 : bookingOutboxRepository.markFailed(event.getId(),
+                event.getClaimToken(), attempts, giveUp ? Status.FAILED : Status.PENDING, nextAttemptAt, lastError);
+        if (updated == 0) {
+            logger.info("Outbox 事件 {} 的領取已失效，略過失敗記錄", event.getId());
+            return false;
+        }
+        return giveUp;
+    }
+
+    long retryDelayMs(int attempts) {
+        int shift = Math.min(attempts - 1, 20);
+        return Math.min(config.getRetryBaseDelayMs() << shift, config.getRetryMaxDelayMs());
+    }
+
+    @Transactional
+    public int purgeProcessed() {
+        return bookingOutboxRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(config.getRetentionDays()));
+    }
+
+    @Transactional(readOnly = true)
+    public long countByStatus(Status status) {
+        return bookingOutboxRepository.countByStatus(status);
+    }
+
+    // ============================================
+    // Payload 轉換
+    // ============================================
+
+    public BookingLog readBookingLog(BookingOutboxEvent event) {
+        return fromJson(event.getPayload(), BookingLog.class);
+    }
+
+    public List<UUID> readBookingIds(BookingOutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), UUID_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid outbox payload for event " + event.getId(), e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox payload", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid outbox payload", e);
+        }
+    }
+}
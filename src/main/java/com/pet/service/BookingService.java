@@ -3,11 +3,11 @@ package com.pet.service;
 import com.pet.domain.*;
 import com.pet.domain.Booking.BookingStatus;
 import com.pet.dto.BookingDto;
+import com.pet.dto.BookingPageDto;
 import com.pet.dto.BookingStatusUpdateDto;
 import com.pet.exception.BusinessException;
 import com.pet.exception.ErrorCode;
 import com.pet.exception.ResourceNotFoundException;
-import com.pet.log.service.BookingLogService;
 import com.pet.pricing.PricingStrategyFactory;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.PetRepository;
@@ -15,17 +15,33 @@ import com.pet.repository.SitterRepository;
 import com.pet.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 預約服務
@@ -33,6 +49,8 @@ import java.util.stream.Collectors;
  * 2. 狀態機設計：限制合法的狀態轉換
  * 3. 時間衝突檢查：防止雙重預約
  * 4. 事務管理：確保資料一致性
+ * 5. Outbox：Log DB 同步與 LINE 通知與預約在同一交易寫入，由 BookingOutboxRelay 投遞
+ * 6. 統計彙總：sitter_daily_stats 與預約在同一交易增量更新（SitterDailyStatsService）
  */
 @Service
 @Transactional
@@ -40,25 +58,45 @@ public class BookingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
 
+    /**
+     * 管理員預約列表單頁上限
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final BookingRepository bookingRepository;
     private final PetRepository petRepository;
     private final SitterRepository sitterRepository;
     private final UserRepository userRepository;
-    private final BookingLogService bookingLogService;
-    private final LineMessagingService lineMessagingService;
+    private final BookingOutboxService bookingOutboxService;
+    private final BookingSlotIndex bookingSlotIndex;
+    private final BookingAdmissionLock bookingAdmissionLock;
+    private final BookingExpiryTimer bookingExpiryTimer;
+    private final SitterDailyStatsService sitterDailyStatsService;
+    private final SitterRankingIndex sitterRankingIndex;
+    private final TransactionTemplate transactionTemplate;
 
     public BookingService(BookingRepository bookingRepository,
                           PetRepository petRepository,
                           SitterRepository sitterRepository,
                           UserRepository userRepository,
-                          BookingLogService bookingLogService,
-                          LineMessagingService lineMessagingService) {
+                          BookingOutboxService bookingOutboxService,
+                          BookingSlotIndex bookingSlotIndex,
+                          BookingAdmissionLock bookingAdmissionLock,
+                          BookingExpiryTimer bookingExpiryTimer,
+                          SitterDailyStatsService sitterDailyStatsService,
+                          SitterRankingIndex sitterRankingIndex,
+                          PlatformTransactionManager transactionManager) {
         this.bookingRepository = bookingRepository;
         this.petRepository = petRepository;
         this.sitterRepository = sitterRepository;
         this.userRepository = userRepository;
-        this.bookingLogService = bookingLogService;
-        this.lineMessagingService = lineMessagingService;
+        this.bookingOutboxService = bookingOutboxService;
+        this.bookingSlotIndex = bookingSlotIndex;
+        this.bookingAdmissionLock = bookingAdmissionLock;
+        this.bookingExpiryTimer = bookingExpiryTimer;
+        this.sitterDailyStatsService = sitterDailyStatsService;
+        this.sitterRankingIndex = sitterRankingIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -68,35 +106,45 @@ public class BookingService {
      * 問題場景：兩個飼主同時對同一保母的同一時段建立預約
      *
      * 解法：
-     * 1. 先檢查時段衝突（countConflictingBookings）
-     * 2. 依賴 Booking 的 @Version 樂觀鎖處理併發
-     * 3. 極端情況下（兩個 transaction 同時通過檢查），後提交的會因衝突檢查失敗
+     * 1. 交易開始前取得保母的准入鎖（分段鎖，commit 後才釋放），同一保母的建立預約依序進行；
+     *    等待鎖時不佔用 DB 連線，熱門保母被搶約時不會耗盡連線池
+     * 2. 檢查時段衝突（單節點時段索引命中直接拒絕，否則以 countConflictingBookings 為準）
+     * 3. 多節點部署可啟用 DB 列鎖（findByIdWithLock）跨節點序列化
      *
-     * 注意：MSSQL 不支援 SELECT FOR UPDATE 語法，故不使用悲觀鎖
+     * 注意：MSSQL 不支援 SELECT FOR UPDATE 語法，DB 列鎖預設關閉
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookingDto createBooking(BookingDto dto, UUID userId) {
         // 1. 驗證時間
         validateBookingTime(dto.startTime(), dto.endTime());
 
-        // 2. 取得保母（不使用悲觀鎖，MSSQL 相容）
-        Sitter sitter = sitterRepository.findById(dto.sitterId())
-                .orElseThrow(() -> new ResourceNotFoundException("保母", "id", dto.sitterId()));
+        // 2. 取得保母准入鎖後才開啟交易
+        return bookingAdmissionLock.executeWithLocks(List.of(dto.sitterId()),
+                () -> transactionTemplate.execute(status -> admitBooking(dto, userId)));
+    }
+
+    /**
+     * 建立預約（已持有保母准入鎖，在交易中執行）
+     */
+    private BookingDto admitBooking(BookingDto dto, UUID userId) {
+        // 3. 取得保母（DB 列鎖僅在多節點部署時啟用）
+        Sitter sitter = findSitterForAdmission(dto.sitterId());
 
-        // 3. 檢查時段是否已被預約
-        if (bookingRepository.countConflictingBookings(dto.sitterId(), dto.startTime(), dto.endTime()) > 0) {
+        // 4. 檢查時段是否已被預約（單節點索引命中直接拒絕，未命中由 DB 確認）
+        if (hasConflict(dto.sitterId(), dto.startTime(), dto.endTime(), null)) {
             throw new BusinessException(ErrorCode.BOOKING_CONFLICT);
         }
 
-        // 4. 取得其他關聯實體
+        // 5. 取得其他關聯實體
         Pet pet = petRepository.findById(dto.petId())
                 .orElseThrow(() -> new ResourceNotFoundException("寵物", "id", dto.petId()));
         Users user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("使用者", "id", userId));
 
-        // 5. 計算費用（後端計算，不依賴前端傳入）
+        // 6. 計算費用（後端計算，不依賴前端傳入）
         double totalPrice = calculateBookingPrice(sitter, dto.startTime(), dto.endTime());
 
-        // 6. 建立預約
+        // 7. 建立預約
         Booking booking = new Booking();
         booking.setPet(pet);
         booking.setSitter(sitter);
@@ -109,8 +157,10 @@ public class BookingService {
 
         Booking saved = bookingRepository.save(booking);
 
-        // 註冊 afterCommit callback，在主交易 commit 後才同步到 Log DB
-        registerAfterCommitSync(saved);
+        // Log DB 同步寫入 outbox（與預約同交易），commit 後才更新時段索引與到期計時器
+        bookingOutboxService.recordCreated(saved);
+        sitterDailyStatsService.bookingsCreated(List.of(saved));
+        registerAfterCommitIndexes(List.of(saved));
 
         // TODO: 發送通知給保母（Domain Event）
         // eventPublisher.publishEvent(new BookingCreatedEvent(saved));
@@ -118,6 +168,98 @@ public class BookingService {
         return convertToDto(saved);
     }
 
+    /**
+     * 批次建立預約（多隻寵物 / 每週固定時段）
+     *
+     * 與逐筆呼叫 createBooking 相比：
+     * 1. 整批共用一個交易，保母 / 寵物 / 使用者各只查詢一次
+     * 2. 批次內時段先互相比對，再以一次區間查詢（findActiveSlotsInRange）比對 DB
+     * 3. saveAll 搭配 hibernate.jdbc.batch_size 以 JDBC 批次寫入
+     * 4. Log DB 同步與一則合併的 LINE 通知寫入 outbox，由 BookingOutboxRelay 批次投遞
+     *
+     * 任何一筆驗證失敗即整批不建立；准入鎖與 createBooking 相同，在交易開始前取得
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BookingDto> createBookings(List<BookingDto> dtos, UUID userId) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new BusinessException(ErrorCode.VALIDATION_FAILED, "預約清單不能為空");
+        }
+
+        // 1. 驗證時間，並檢查批次內同一保母的時段是否互相重疊
+        dtos.forEach(dto -> validateBookingTime(dto.startTime(), dto.endTime()));
+        Map<UUID, List<BookingDto>> bySitter = dtos.stream()
+                .collect(Collectors.groupingBy(BookingDto::sitterId));
+        bySitter.values().forEach(this::validateNoOverlapWithinBatch);
+
+        // 2. 依固定順序取得所有保母的准入鎖後才開啟交易
+        return bookingAdmissionLock.executeWithLocks(bySitter.keySet(),
+                () -> transactionTemplate.execute(status -> admitBookings(dtos, bySitter.keySet(), userId)));
+    }
+
+    /**
+     * 批次建立預約（已持有所有保母的准入鎖，在交易中執行）
+     */
+    private List<BookingDto> admitBookings(List<BookingDto> dtos, Set<UUID> sitterIds, UUID userId) {
+        // 3. 一次載入保母
+        Map<UUID, Sitter> sitters = findSittersForAdmission(sitterIds);
+
+        // 4. 單節點時段索引命中直接拒絕，否則以單次區間查詢比對 DB
+        rejectOnTrustedSlotIndexHit(dtos);
+        LocalDateTime rangeStart = dtos.stream().map(BookingDto::startTime).min(LocalDateTime::compareTo).get();
+        LocalDateTime rangeEnd = dtos.stream().map(BookingDto::endTime).max(LocalDateTime::compareTo).get();
+        List<Object[]> occupied = bookingRepository.findActiveSlotsInRange(sitterIds, rangeStart, rangeEnd);
+        for (BookingDto dto : dtos) {
+            for (Object[] slot : occupied) {
+                if (dto.sitterId().equals(slot[0])
+                        && ((LocalDateTime) slot[1]).isBefore(dto.endTime())
+                        && ((LocalDateTime) slot[2]).isAfter(dto.startTime())) {
+                    throw new BusinessException(ErrorCode.BOOKING_CONFLICT);
+                }
+            }
+        }
+        evictStaleSlotIndex(dtos);
+
+        // 5. 取得寵物與使用者（各一次查詢）
+        Set<UUID> petIds = dtos.stream().map(BookingDto::petId).collect(Collectors.toSet());
+        Map<UUID, Pet> pets = petRepository.findAllById(petIds).stream()
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        for (UUID petId : petIds) {
+            if (!pets.containsKey(petId)) {
+                throw new ResourceNotFoundException("寵物", "id", petId);
+            }
+        }
+        Users user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("使用者", "id", userId));
+
+        // 6. 建立預約並批次寫入
+        List<Booking> bookings = new ArrayList<>(dtos.size());
+        for (BookingDto dto : dtos) {
+            Sitter sitter = sitters.get(dto.sitterId());
+            Booking booking = new Booking();
+            booking.setPet(pets.get(dto.petId()));
+            booking.setSitter(sitter);
+            booking.setUser(user);
+            booking.setStartTime(dto.startTime());
+            booking.setEndTime(dto.endTime());
+            booking.setNotes(dto.notes());
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setTotalPrice(calculateBookingPrice(sitter, dto.startTime(), dto.endTime()));
+            bookings.add(booking);
+        }
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+
+        // Log DB 同步與合併通知寫入 outbox，commit 後才更新時段索引與到期計時器
+        bookingOutboxService.recordBatchCreated(saved);
+        sitterDailyStatsService.bookingsCreated(saved);
+        registerAfterCommitIndexes(saved);
+
+        logger.info("批次建立 {} 筆預約（使用者 {}）", saved.size(), userId);
+
+        return saved.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 更新預約狀態（使用樂觀鎖，MSSQL 相容）
      */
@@ -132,19 +274,17 @@ public class BookingService {
                         String.format("無法從 %s 轉換到 %s", booking.getStatus(), updateDto.targetStatus()));
             }
 
-            // 如果是確認預約，檢查時段衝突（不使用悲觀鎖，MSSQL 相容）
+            // 如果是確認預約，取得保母准入鎖後檢查時段衝突
             if (updateDto.targetStatus() == BookingStatus.CONFIRMED) {
+                bookingAdmissionLock.lockUntilTransactionEnds(booking.getSitter().getId());
                 // 檢查是否有其他已確認的預約佔用同一時段
-                if (bookingRepository.countConflictingBookingsExcluding(
-                        booking.getSitter().getId(),
-                        booking.getStartTime(),
-                        booking.getEndTime(),
-                        bookingId) > 0) {
+                if (hasConflictExcluding(booking)) {
                     throw new BusinessException(ErrorCode.BOOKING_CONFLICT);
                 }
             }
 
             // 更新狀態
+            BookingStatus previousStatus = booking.getStatus();
             booking.setStatus(updateDto.targetStatus());
             if (updateDto.reason() != null) {
                 booking.setSitterResponse(updateDto.reason());
@@ -155,16 +295,18 @@ public class BookingService {
                 Sitter sitter = booking.getSitter();
                 sitter.setCompletedBookings(sitter.getCompletedBookings() + 1);
                 sitterRepository.save(sitter);
+                sitterRankingIndex.updateAfterCommit(sitter);
             }
 
             Booking updated = bookingRepository.save(booking);
-            String reason = updateDto.reason();
 
-            // 註冊 afterCommit callback，在主交易 commit 後才同步到 Log DB
-            registerAfterCommitSync(updated);
+            // 先 flush 讓 updatedAt / version 寫入，outbox 的 Log 快照才與 DB 一致
+            bookingRepository.flush();
 
-            // 註冊 afterCommit callback，確保 transaction 成功後才發送 LINE 通知
-            registerAfterCommitLineNotification(updated, reason);
+            // Log DB 同步與 LINE 通知寫入 outbox（與預約同交易），commit 後才更新時段索引與到期計時器
+            bookingOutboxService.recordStatusChanged(updated, updateDto.reason());
+            sitterDailyStatsService.statusChanged(updated, previousStatus);
+            registerAfterCommitIndexes(List.of(updated));
 
             return convertToDto(updated);
 
@@ -199,18 +341,16 @@ public class BookingService {
                     String.format("無法從 %s 轉換到 %s", booking.getStatus(), updateDto.targetStatus()));
         }
 
-        // 如果是確認預約，檢查時段衝突
+        // 如果是確認預約，取得保母准入鎖後檢查時段衝突
         if (updateDto.targetStatus() == BookingStatus.CONFIRMED) {
-            if (bookingRepository.countConflictingBookingsExcluding(
-                    booking.getSitter().getId(),
-                    booking.getStartTime(),
-                    booking.getEndTime(),
-                    bookingId) > 0) {
+            bookingAdmissionLock.lockUntilTransactionEnds(booking.getSitter().getId());
+            if (hasConflictExcluding(booking)) {
                 throw new BusinessException(ErrorCode.BOOKING_CONFLICT);
             }
         }
 
         // 更新狀態
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(updateDto.targetStatus());
         if (updateDto.reason() != null) {
             booking.setSitterResponse(updateDto.reason());
@@ -221,16 +361,16 @@ public class BookingService {
             Sitter sitter = booking.getSitter();
             sitter.setCompletedBookings(sitter.getCompletedBookings() + 1);
             sitterRepository.save(sitter);
+            sitterRankingIndex.updateAfterCommit(sitter);
         }
 
         Booking updated = bookingRepository.save(booking);
-        String reason = updateDto.reason();
-
-        // 註冊 afterCommit callback，在主交易 commit 後才同步到 Log DB
-        registerAfterCommitSync(updated);
+        bookingRepository.flush();
 
-        // 註冊 afterCommit callback，確保 transaction 成功後才發送 LINE 通知
-        registerAfterCommitLineNotification(updated, reason);
+        // Log DB 同步與 LINE 通知寫入 outbox（與預約同交易），commit 後才更新時段索引與到期計時器
+        bookingOutboxService.recordStatusChanged(updated, updateDto.reason());
+        sitterDailyStatsService.statusChanged(updated, previousStatus);
+        registerAfterCommitIndexes(List.of(updated));
 
         logger.info("預約 {} 狀態已更新為 {}", bookingId, updateDto.targetStatus());
 
@@ -248,36 +388,106 @@ public class BookingService {
     }
 
     /**
-     * 取得所有預約（管理員用，使用 FETCH JOIN 避免 N+1 問題）
+     * 取得所有預約的一頁（管理員用，keyset 分頁）
+     * 多取一筆判斷是否還有下一頁，游標為最後一筆的 (createdAt, id)
+     *
+     * @param cursor 上一頁回傳的 nextCursor；null 或空字串表示第一頁
+     * @param limit  每頁筆數，限制在 1 ~ MAX_PAGE_SIZE
+     */
+    @Transactional(readOnly = true)
+    public BookingPageDto getBookingsPage(String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, size + 1);
+
+        List<BookingDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = bookingRepository.findDtoPage(pageable);
+        } else {
+            BookingCursor position = BookingCursor.decode(cursor);
+            rows = bookingRepository.findDtoPageAfter(position.createdAt(), position.id(), pageable);
+        }
+
+        if (rows.size() <= size) {
+            return new BookingPageDto(rows, null);
+        }
+        List<BookingDto> items = rows.subList(0, size);
+        BookingDto last = items.get(size - 1);
+        return new BookingPageDto(new ArrayList<>(items), BookingCursor.encode(last.createdAt(), last.id()));
+    }
+
+    /**
+     * 取得所有預約（管理員用，DTO 投影：單一查詢且不載入實體）
+     * 回傳完整列表，保留給既有呼叫端；管理頁面改用 getBookingsPage 分頁載入
      */
     @Transactional(readOnly = true)
     public List<BookingDto> getAllBookings() {
-        return bookingRepository.findAllWithRelations()
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return bookingRepository.findAllDtos();
     }
 
     /**
-     * 取得使用者的所有預約
+     * 各狀態的預約數（GROUP BY，沒有預約的狀態為 0）
+     * 管理頁面分頁載入後不再持有全部預約，統計數字改由此查詢提供
+     */
+    @Transactional(readOnly = true)
+    public Map<BookingStatus, Long> getStatusCounts() {
+        Map<BookingStatus, Long> counts = new EnumMap<>(BookingStatus.class);
+        for (BookingStatus status : BookingStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : bookingRepository.countGroupByStatus()) {
+            counts.put((BookingStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * 串流所有預約（匯出用）
+     * 在唯讀交易中逐筆交給 consumer，資料庫以 fetch size 分批取回，記憶體用量與資料表大小無關
+     */
+    @Transactional(readOnly = true)
+    public void streamAllBookings(Consumer<BookingDto> consumer) {
+        try (Stream<BookingDto> stream = bookingRepository.streamAllDtos()) {
+            stream.forEach(consumer);
+        }
+    }
+
+    /**
+     * 分頁游標：(createdAt, id) 編碼成 URL-safe Base64，對呼叫端而言是不透明字串
+     */
+    record BookingCursor(LocalDateTime createdAt, UUID id) {
+
+        static String encode(LocalDateTime createdAt, UUID id) {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static BookingCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new BookingCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BusinessException(ErrorCode.INVALID_INPUT, "分頁游標格式不正確");
+            }
+        }
+    }
+
+    /**
+     * 取得使用者的所有預約（DTO 投影）
      */
     @Transactional(readOnly = true)
     public List<BookingDto> getBookingsByUser(UUID userId) {
-        return bookingRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return bookingRepository.findDtosByUserId(userId);
     }
 
     /**
-     * 取得保母的所有預約
+     * 取得保母的所有預約（DTO 投影）
      */
     @Transactional(readOnly = true)
     public List<BookingDto> getBookingsBySitter(UUID sitterId) {
-        return bookingRepository.findBySitterIdOrderByStartTimeDesc(sitterId)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return bookingRepository.findDtosBySitterId(sitterId);
     }
 
     /**
@@ -292,14 +502,11 @@ public class BookingService {
     }
 
     /**
-     * 取得寵物的預約歷史
+     * 取得寵物的預約歷史（DTO 投影）
      */
     @Transactional(readOnly = true)
     public List<BookingDto> getBookingsByPet(UUID petId) {
-        return bookingRepository.findByPetIdOrderByCreatedAtDesc(petId)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return bookingRepository.findDtosByPetId(petId);
     }
 
     /**
@@ -337,69 +544,138 @@ public class BookingService {
     // ============ Private Methods ============
 
     /**
-     * 註冊 afterCommit callback 發送 LINE 通知
-     * 確保只在 transaction 成功 commit 後才發送通知
-     * 避免 rollback 時用戶收到錯誤的通知
+     * 取得要建立預約的保母
+     * 多節點部署時以 DB 列鎖跨節點序列化，單節點由 BookingAdmissionLock 處理即可
      */
-    private void registerAfterCommitLineNotification(Booking booking, String reason) {
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                sendLineNotification(booking, reason);
+    private Sitter findSitterForAdmission(UUID sitterId) {
+        if (bookingAdmissionLock.isDatabaseLockEnabled()) {
+            return sitterRepository.findByIdWithLock(sitterId)
+                    .orElseThrow(() -> new ResourceNotFoundException("保母", "id", sitterId));
+        }
+        return sitterRepository.findById(sitterId)
+                .orElseThrow(() -> new ResourceNotFoundException("保母", "id", sitterId));
+    }
+
+    /**
+     * 批次建立預約時載入所有保母
+     * 多節點部署時逐一取得 DB 列鎖（依 ID 排序避免死結），否則一次 findAllById
+     */
+    private Map<UUID, Sitter> findSittersForAdmission(Set<UUID> sitterIds) {
+        Map<UUID, Sitter> sitters = new HashMap<>();
+        if (bookingAdmissionLock.isDatabaseLockEnabled()) {
+            sitterIds.stream().sorted().forEach(id -> sitters.put(id, findSitterForAdmission(id)));
+            return sitters;
+        }
+        sitterRepository.findAllById(sitterIds).forEach(sitter -> sitters.put(sitter.getId(), sitter));
+        for (UUID sitterId : sitterIds) {
+            if (!sitters.containsKey(sitterId)) {
+                throw new ResourceNotFoundException("保母", "id", sitterId);
             }
-        });
+        }
+        return sitters;
     }
 
     /**
-     * 根據預約狀態發送 LINE 通知
+     * 檢查批次內同一保母的時段是否互相重疊
      */
-    private void sendLineNotification(Booking booking, String reason) {
-        try {
-            switch (booking.getStatus()) {
-                case CONFIRMED:
-                    lineMessagingService.sendBookingConfirmedNotification(booking);
-                    break;
-                case CANCELLED:
-                    lineMessagingService.sendBookingCancelledNotification(booking, reason);
-                    break;
-                case REJECTED:
-                    lineMessagingService.sendBookingRejectedNotification(booking, reason);
-                    break;
-                case COMPLETED:
-                    lineMessagingService.sendBookingCompletedNotification(booking);
-                    break;
-                case EXPIRED:
-                    lineMessagingService.sendBookingExpiredNotification(booking);
-                    break;
-                default:
-                    // PENDING 狀態不發通知
-                    break;
+    private void validateNoOverlapWithinBatch(List<BookingDto> sameSitter) {
+        List<BookingDto> sorted = sameSitter.stream()
+                .sorted(Comparator.comparing(BookingDto::startTime))
+                .toList();
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).startTime().isBefore(sorted.get(i - 1).endTime())) {
+                throw new BusinessException(ErrorCode.BOOKING_CONFLICT, "批次中同一保母的預約時段互相重疊");
+            }
+        }
+    }
+
+    /**
+     * 檢查確認預約時是否與其他預約衝突（排除自己）
+     * 單節點部署時索引命中直接視為衝突，否則由 DB 做最終確認
+     */
+    private boolean hasConflictExcluding(Booking booking) {
+        return hasConflict(booking.getSitter().getId(), booking.getStartTime(), booking.getEndTime(), booking.getId());
+    }
+
+    /**
+     * 時段索引是否涵蓋所有預約異動
+     *
+     * 單節點部署（未啟用 DB 列鎖）時，所有建立 / 狀態變更 / 過期都經過本節點並在 commit 後同步索引，
+     * 索引命中即代表時段已被佔用，可以省下 DB 查詢直接拒絕；
+     * 多節點部署時其他節點的取消 / 拒絕 / 過期要等下次重建才會移除，索引命中只能當作提示
+     */
+    private boolean isSlotIndexTrusted() {
+        return !bookingAdmissionLock.isDatabaseLockEnabled();
+    }
+
+    /**
+     * 批次建立預約：單節點部署時任一筆命中時段索引即拒絕整批，不必查詢 DB
+     */
+    private void rejectOnTrustedSlotIndexHit(List<BookingDto> dtos) {
+        if (!isSlotIndexTrusted()) {
+            return;
+        }
+        for (BookingDto dto : dtos) {
+            if (bookingSlotIndex.hasConflict(dto.sitterId(), dto.startTime(), dto.endTime(), null)) {
+                throw new BusinessException(ErrorCode.BOOKING_CONFLICT);
             }
-        } catch (Exception e) {
-            // LINE 通知失敗不影響主流程
-            logger.error("LINE 通知發送失敗: {}", e.getMessage());
         }
     }
 
     /**
-     * 註冊 afterCommit callback
-     * 確保只在主交易成功 commit 後才同步到 Log DB
-     * 這樣可以避免：
-     * 1. 主 DB rollback 但 log 已寫入的不一致問題
-     * 2. log 寫入拖長主交易時間的效能問題
+     * 多節點部署時 DB 判定批次沒有衝突，但時段索引命中的保母：索引已過期，丟棄該保母的索引資料
      */
-    private void registerAfterCommitSync(Booking booking) {
+    private void evictStaleSlotIndex(List<BookingDto> dtos) {
+        if (isSlotIndexTrusted()) {
+            return;
+        }
+        for (BookingDto dto : dtos) {
+            if (bookingSlotIndex.hasConflict(dto.sitterId(), dto.startTime(), dto.endTime(), null)) {
+                logger.info("時段索引與 DB 不一致，丟棄保母 {} 的索引資料", dto.sitterId());
+                bookingSlotIndex.evictSitter(dto.sitterId());
+            }
+        }
+    }
+
+    /**
+     * 時段衝突檢查
+     *
+     * 1. 單節點部署：索引命中直接判定衝突（不打 DB）；未命中時仍以 DB 查詢做最終確認，
+     *    涵蓋索引尚未預熱或停用的情況
+     * 2. 多節點部署：以 DB 查詢為準；索引命中但 DB 沒有衝突時不拒絕，
+     *    並丟棄該保母的索引資料，避免後續請求繼續誤判
+     *
+     * @param excludeId 要排除的預約 ID（確認預約時排除自己），可為 null
+     */
+    private boolean hasConflict(UUID sitterId, LocalDateTime startTime, LocalDateTime endTime, UUID excludeId) {
+        boolean indexHit = bookingSlotIndex.hasConflict(sitterId, startTime, endTime, excludeId);
+        if (indexHit && isSlotIndexTrusted()) {
+            return true;
+        }
+        long conflicts = excludeId == null
+                ? bookingRepository.countConflictingBookings(sitterId, startTime, endTime)
+                : bookingRepository.countConflictingBookingsExcluding(sitterId, startTime, endTime, excludeId);
+        if (conflicts == 0 && indexHit) {
+            logger.info("時段索引與 DB 不一致，丟棄保母 {} 的索引資料", sitterId);
+            bookingSlotIndex.evictSitter(sitterId);
+        }
+        return conflicts > 0;
+    }
+
+    /**
+     * 註冊 afterCommit callback，主交易成功 commit 後才更新時段索引與到期計時器
+     * 避免 rollback 的預約殘留在時段索引造成誤判衝突
+     *
+     * Log DB 同步與 LINE 通知已改由 outbox 在同一交易中記錄，不在此處理
+     */
+    private void registerAfterCommitIndexes(List<Booking> bookings) {
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                try {
-                    logger.info("Main transaction committed, syncing booking {} to log DB", booking.getId());
-                    bookingLogService.syncBookingToLog(booking);
-                } catch (Exception e) {
-                    // Log DB 寫入失敗不影響主流程（主交易已經 commit）
-                    logger.error("Failed to sync booking {} to log DB after commit: {}",
-                            booking.getId(), e.getMessage());
-                }
+                bookings.forEach(booking -> {
+                    bookingSlotIndex.record(booking);
+                    bookingExpiryTimer.track(booking);
+                });
             }
         });
     }
@@ -0,0 +1,250 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 保母時段索引（記憶體內）
+ *
+ * 以保母為單位，依開始時間排序保存 PENDING / CONFIRMED 預約的時段，
+ * 讓建立 / 確認預約時的衝突檢查不需要每次都打 DB COUNT。
+ *
+ * 1. 啟動時從 BookingRepository 預熱
+ * 2. 預約 commit 後由 BookingService 的 afterCommit callback 同步
+ * 3. 定期從 DB 重建，修正多節點部署下其他節點造成的差異
+ *
+ * 索引只反映本節點 commit 的異動：
+ * - 單節點部署時所有異動都經過本節點，BookingService 在索引命中時直接拒絕，省下 DB COUNT；
+ *   未命中（或索引尚未預熱）時仍由 DB 查詢做最終確認
+ * - 多節點部署時其他節點的取消 / 拒絕 / 過期要等下次重建才會移除，衝突判定以 DB 查詢為準；
+ *   索引命中但 DB 沒有衝突時由 BookingService 呼叫 {@link #evictSitter} 丟棄該保母的索引資料
+ *   （之後由本節點的異動與下次重建補回）
+ */
+@Component
+public class BookingSlotIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSlotIndex.class);
+
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final BookingRepository bookingRepository;
+    private final BookingConfig bookingConfig;
+
+    /**
+     * 目前使用中的索引，null 表示尚未預熱完成（此時一律交給 DB 判斷）
+     */
+    private volatile Index index;
+
+    /**
+     * 重建期間發生的異動，重建完成後重播，避免被舊快照覆蓋
+     */
+    private volatile Queue<Slot> replayLog;
+
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public BookingSlotIndex(BookingRepository bookingRepository, BookingConfig bookingConfig) {
+        this.bookingRepository = bookingRepository;
+        this.bookingConfig = bookingConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 定期從 DB 重建索引
+     */
+    @Scheduled(fixedDelayString = "${booking.slot-index.refresh-interval-ms:300000}",
+            initialDelayString = "${booking.slot-index.refresh-interval-ms:300000}")
+    public void rebuild() {
+        if (!bookingConfig.getSlotIndex().isEnabled()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Queue<Slot> log = new ConcurrentLinkedQueue<>();
+        replayLog = log;
+        try {
+            Index fresh = new Index();
+            for (Object[] row : bookingRepository.findActiveSlots(LocalDateTime.now())) {
+                fresh.apply(new Slot((UUID) row[0], (UUID) row[1],
+                        (LocalDateTime) row[2], (LocalDateTime) row[3], true));
+            }
+
+            swapLock.writeLock().lock();
+            try {
+                Slot pending;
+                while ((pending = log.poll()) != null) {
+                    fresh.apply(pending);
+                }
+                index = fresh;
+                replayLog = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            logger.info("Booking slot index rebuilt: {} slots, took {} ms",
+                    fresh.size(), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        } catch (Exception e) {
+            replayLog = null;
+            logger.error("Failed to rebuild booking slot index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 檢查保母在指定時段是否已有 PENDING / CONFIRMED 預約
+     *
+     * @param excludeId 要排除的預約 ID（確認預約時排除自己），可為 null
+     * @return true 表示索引中有衝突（多節點部署時可能已過期）；false 表示索引中沒有衝突
+     */
+    public boolean hasConflict(UUID sitterId, LocalDateTime startTime, LocalDateTime endTime, UUID excludeId) {
+        Index current = index;
+        if (current == null) {
+            return false;
+        }
+        SitterSlots slots = current.bySitter.get(sitterId);
+        return slots != null && slots.overlaps(startTime, endTime, excludeId);
+    }
+
+    /**
+     * 依預約目前狀態更新索引：PENDING / CONFIRMED 加入，其他狀態移除
+     */
+    public void record(Booking booking) {
+        if (booking.getId() == null || booking.getSitter() == null) {
+            return;
+        }
+        boolean active = booking.getStatus() == BookingStatus.PENDING
+                || booking.getStatus() == BookingStatus.CONFIRMED;
+        apply(new Slot(booking.getId(), booking.getSitter().getId(),
+                booking.getStartTime(), booking.getEndTime(), active));
+    }
+
+    /**
+     * 丟棄保母的索引資料（索引與 DB 不一致時）
+     */
+    public void evictSitter(UUID sitterId) {
+        Index current = index;
+        if (current != null) {
+            current.evictSitter(sitterId);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    private void apply(Slot slot) {
+        swapLock.readLock().lock();
+        try {
+            Queue<Slot> log = replayLog;
+            if (log != null) {
+                log.add(slot);
+            }
+            Index current = index;
+            if (current != null) {
+                current.apply(slot);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // ============ Internal Structures ============
+
+    /**
+     * 時段；active = false 代表移除
+     */
+    private record Slot(UUID bookingId, UUID sitterId, LocalDateTime start, LocalDateTime end, boolean active) {
+    }
+
+    private static final Comparator<Slot> BY_START =
+            Comparator.comparing(Slot::start).thenComparing(Slot::bookingId);
+
+    private static final class Index {
+        private final Map<UUID, SitterSlots> bySitter = new ConcurrentHashMap<>();
+        private final Map<UUID, Slot> byBooking = new ConcurrentHashMap<>();
+
+        void apply(Slot slot) {
+            Slot previous = slot.active() ? byBooking.put(slot.bookingId(), slot) : byBooking.remove(slot.bookingId());
+            if (previous != null) {
+                SitterSlots old = bySitter.get(previous.sitterId());
+                if (old != null) {
+                    old.remove(previous);
+                }
+            }
+            if (slot.active()) {
+                bySitter.computeIfAbsent(slot.sitterId(), id -> new SitterSlots()).add(slot);
+            }
+        }
+
+        void evictSitter(UUID sitterId) {
+            SitterSlots removed = bySitter.remove(sitterId);
+            if (removed != null) {
+                removed.snapshot().forEach(slot -> byBooking.remove(slot.bookingId(), slot));
+            }
+        }
+
+        int size() {
+            return byBooking.size();
+        }
+    }
+
+    /**
+     * 單一保母的時段集合，依開始時間排序
+     * 記錄最長時段長度，查詢時只需往前掃描到 (startTime - 最長時段) 即可，O(log n + k)
+     */
+    private static final class SitterSlots {
+        private final TreeSet<Slot> slots = new TreeSet<>(BY_START);
+        private long maxDurationSeconds;
+
+        synchronized void add(Slot slot) {
+            slots.add(slot);
+            maxDurationSeconds = Math.max(maxDurationSeconds,
+                    Duration.between(slot.start(), slot.end()).getSeconds());
+        }
+
+        synchronized void remove(Slot slot) {
+            slots.remove(slot);
+        }
+
+        synchronized List<Slot> snapshot() {
+            return List.copyOf(slots);
+        }
+
+        synchronized boolean overlaps(LocalDateTime startTime, LocalDateTime endTime, UUID excludeId) {
+            Slot from = probe(startTime.minusSeconds(maxDurationSeconds));
+            Slot to = probe(endTime);
+            for (Slot slot : slots.subSet(from, true, to, false)) {
+                if (slot.end().isAfter(startTime) && !slot.bookingId().equals(excludeId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Slot probe(LocalDateTime time) {
+            return new Slot(MIN_UUID, null, time, time, true);
+        }
+    }
+}
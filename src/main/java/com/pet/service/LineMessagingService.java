@@ -2,10 +2,11 @@ package com.pet.service;
 
 import com.pet.config.LineMessagingConfig;
 import com.pet.domain.Booking;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.format.DateTimeFormatter;
@@ -14,7 +15,6 @@ import java.util.List;
 import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class LineMessagingService {
 
@@ -22,7 +22,23 @@ public class LineMessagingService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
 
     private final LineMessagingConfig config;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    public LineMessagingService(LineMessagingConfig config) {
+        this.config = config;
+        this.restTemplate = new RestTemplate(requestFactory(config));
+    }
+
+    /**
+     * 推播在 outbox relay 的排程執行緒上同步呼叫，必須有連線 / 讀取逾時，
+     * 避免 LINE API 卡住時 relay 永遠停在同一筆通知
+     */
+    private static SimpleClientHttpRequestFactory requestFactory(LineMessagingConfig config) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(config.getConnectTimeoutMs());
+        factory.setReadTimeout(config.getReadTimeoutMs());
+        return factory;
+    }
 
     /**
      * 取得預約飼主的 LINE userId，若無則回退到 demo user
@@ -39,7 +55,7 @@ public class LineMessagingService {
     /**
      * 發送預約確認通知
      */
-    public void sendBookingConfirmedNotification(Booking booking) {
+    public boolean sendBookingConfirmedNotification(Booking booking) {
         StringBuilder message = new StringBuilder();
         message.append(String.format(
             "✅ 您的預約已確認！\n\n" +
@@ -62,13 +78,13 @@ public class LineMessagingService {
         }
 
         message.append("\n感謝您使用寵物保母系統！");
-        sendNotification(resolveRecipient(booking), message.toString());
+        return sendNotification(resolveRecipient(booking), message.toString());
     }
 
     /**
      * 發送預約取消通知
      */
-    public void sendBookingCancelledNotification(Booking booking, String reason) {
+    public boolean sendBookingCancelledNotification(Booking booking, String reason) {
         String message = String.format(
             "⚠️ 預約已取消\n\n" +
             "🐾 寵物：%s\n" +
@@ -81,13 +97,13 @@ public class LineMessagingService {
             booking.getStartTime().format(DATE_FORMATTER),
             booking.getEndTime().format(DATE_FORMATTER)
         );
-        sendNotification(resolveRecipient(booking), message);
+        return sendNotification(resolveRecipient(booking), message);
     }
 
     /**
      * 發送預約被拒絕通知
      */
-    public void sendBookingRejectedNotification(Booking booking, String reason) {
+    public boolean sendBookingRejectedNotification(Booking booking, String reason) {
         String message = String.format(
             "❌ 您的預約被婉拒\n\n" +
             "🐾 寵物：%s\n" +
@@ -100,13 +116,13 @@ public class LineMessagingService {
             booking.getStartTime().format(DATE_FORMATTER),
             booking.getEndTime().format(DATE_FORMATTER)
         );
-        sendNotification(resolveRecipient(booking), message);
+        return sendNotification(resolveRecipient(booking), message);
     }
 
     /**
      * 發送預約完成通知
      */
-    public void sendBookingCompletedNotification(Booking booking) {
+    public boolean sendBookingCompletedNotification(Booking booking) {
         String message = String.format(
             "🎉 服務已完成！\n\n" +
             "🐾 寵物：%s\n" +
@@ -120,13 +136,13 @@ public class LineMessagingService {
             booking.getEndTime().format(DATE_FORMATTER),
             booking.getTotalPrice()
         );
-        sendNotification(resolveRecipient(booking), message);
+        return sendNotification(resolveRecipient(booking), message);
     }
 
     /**
      * 發送預約過期通知
      */
-    public void sendBookingExpiredNotification(Booking booking) {
+    public boolean sendBookingExpiredNotification(Booking booking) {
         String message = String.format(
             "⏰ 您的預約已過期\n\n" +
             "🐾 寵物：%s\n" +
@@ -139,22 +155,47 @@ public class LineMessagingService {
             booking.getStartTime().format(DATE_FORMATTER),
             booking.getEndTime().format(DATE_FORMATTER)
         );
-        sendNotification(resolveRecipient(booking), message);
+        return sendNotification(resolveRecipient(booking), message);
+    }
+
+    /**
+     * 發送批次預約建立通知（多筆預約合併成一則訊息）
+     */
+    public boolean sendBookingBatchCreatedNotification(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return true;
+        }
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("📝 已送出 %d 筆預約申請\n\n", bookings.size()));
+        for (Booking booking : bookings) {
+            message.append(String.format(
+                "🐾 %s / 👤 %s\n📅 %s ~ %s\n\n",
+                booking.getPet().getName(),
+                booking.getSitter().getName(),
+                booking.getStartTime().format(DATE_FORMATTER),
+                booking.getEndTime().format(DATE_FORMATTER)
+            ));
+        }
+        message.append("保母確認後將另行通知您。");
+        return sendNotification(resolveRecipient(bookings.get(0)), message.toString());
     }
 
     /**
      * 發送通知到 LINE
      * 優先發給飼主的 LINE userId，若無則回退到 demo user
+     *
+     * @return false 表示暫時性失敗（網路異常、5xx、429），呼叫端可稍後重試；
+     *         成功、停用或重試也無法成功的錯誤（其他 4xx）回傳 true
      */
-    private void sendNotification(String recipientId, String message) {
+    private boolean sendNotification(String recipientId, String message) {
         if (!config.isEnabled()) {
             log.info("LINE 通知已停用，跳過發送");
-            return;
+            return true;
         }
 
         if (!config.isConfigured()) {
             log.warn("LINE 設定不完整，無法發送通知。請檢查 .env 檔案");
-            return;
+            return true;
         }
 
         try {
@@ -171,11 +212,20 @@ public class LineMessagingService {
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.info("LINE 通知發送成功");
-            } else {
-                log.error("LINE 通知發送失敗: {}", response.getBody());
+                return true;
             }
+            log.error("LINE 通知發送失敗: {}", response.getBody());
+            return !isRetryable(response.getStatusCode());
+        } catch (HttpStatusCodeException e) {
+            log.error("LINE 通知發送失敗: {} {}", e.getStatusCode(), e.getResponseBodyAsString());
+            return !isRetryable(e.getStatusCode());
         } catch (Exception e) {
             log.error("LINE 通知發送異常: {}", e.getMessage());
+            return false;
         }
     }
+
+    private static boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
 }
@@ -1,5 +1,6 @@
 package com.pet.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pet.config.LineLoginConfig;
@@ -10,8 +11,10 @@ import com.pet.repository.CustomerRepository;
 import com.pet.repository.SitterRepository;
 import com.pet.repository.UserRepository;
 import com.pet.security.JwtService;
+import com.pet.security.OAuthStateStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,10 +25,11 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -45,17 +49,15 @@ public class LineOAuth2Service {
     private static final String LINE_PROFILE_URL = "https://api.line.me/v2/profile";
 
     private final HttpClient httpClient;
-
-    // state -> CSRF protection (production should use Redis)
-    private final Map<String, Long> stateStore = new ConcurrentHashMap<>();
+    private final UpstreamCallMetrics upstreamCallMetrics;
+    private final OAuthStateStore oauthStateStore;
 
     /**
      * 產生 LINE 授權 URL
      */
     public String buildAuthorizationUrl() {
         String state = UUID.randomUUID().toString();
-        stateStore.put(state, System.currentTimeMillis());
-        cleanExpiredStates();
+        oauthStateStore.issue(state);
 
         return LINE_AUTH_URL
                 + "?response_type=code"
@@ -69,20 +71,38 @@ public class LineOAuth2Service {
      * 驗證 state 參數（防 CSRF）
      */
     public boolean validateState(String state) {
-        if (state == null) {
-            return false;
-        }
-        Long timestamp = stateStore.remove(state);
-        if (timestamp == null) {
-            return false;
+        return oauthStateStore.consume(state);
+    }
+
+    /**
+     * 定期移除過期的 state（記憶體儲存在登記時也會順便移除）
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpiredStates() {
+        try {
+            int purged = oauthStateStore.purgeExpired();
+            if (purged > 0) {
+                log.debug("Purged {} expired OAuth states", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired OAuth states: {}", e.getMessage());
         }
-        return (System.currentTimeMillis() - timestamp) < 600_000;
+    }
+
+    /**
+     * 取得 LINE 用戶資料：token 交換與 profile 查詢以 sendAsync 串接，
+     * 整個流程受 callbackTimeoutMs 限制，呼叫端不需佔住執行緒等待
+     */
+    public CompletableFuture<LineUserProfile> fetchUserProfile(String code) {
+        return exchangeCodeForAccessToken(code)
+                .thenCompose(this::getUserProfile)
+                .orTimeout(lineLoginConfig.getHttp().getCallbackTimeoutMs(), TimeUnit.MILLISECONDS);
     }
 
     /**
      * 用 authorization code 換取 access token
      */
-    public String exchangeCodeForAccessToken(String code) throws Exception {
+    public CompletableFuture<String> exchangeCodeForAccessToken(String code) {
         String body = "grant_type=authorization_code"
                 + "&code=" + URLEncoder.encode(code, StandardCharsets.UTF_8)
                 + "&redirect_uri=" + URLEncoder.encode(lineLoginConfig.getCallbackUrl(), StandardCharsets.UTF_8)
@@ -91,49 +111,64 @@ public class LineOAuth2Service {
 
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(LINE_TOKEN_URL))
+                .timeout(requestTimeout())
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            log.error("LINE token exchange failed: {}", response.body());
-            throw new RuntimeException("LINE 授權失敗，請重試");
-        }
-
-        JsonNode json = objectMapper.readTree(response.body());
-        return json.get("access_token").asText();
+        return upstreamCallMetrics.time("line.token",
+                () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        log.error("LINE token exchange failed: {}", response.body());
+                        throw new IllegalStateException("LINE 授權失敗，請重試");
+                    }
+                    return readTree(response.body()).get("access_token").asText();
+                });
     }
 
     /**
      * 用 access token 取得 LINE 用戶資料
      */
-    public LineUserProfile getUserProfile(String accessToken) throws Exception {
+    public CompletableFuture<LineUserProfile> getUserProfile(String accessToken) {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(LINE_PROFILE_URL))
+                .timeout(requestTimeout())
                 .header("Authorization", "Bearer " + accessToken)
                 .GET()
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            log.error("LINE profile fetch failed: {}", response.body());
-            throw new RuntimeException("無法取得 LINE 用戶資料");
-        }
-
-        JsonNode json = objectMapper.readTree(response.body());
-        LineUserProfile profile = new LineUserProfile(
-                json.get("userId").asText(),
-                json.has("displayName") ? json.get("displayName").asText() : null,
-                json.has("pictureUrl") ? json.get("pictureUrl").asText() : null,
-                json.has("email") ? json.get("email").asText() : null
-        );
+        return upstreamCallMetrics.time("line.profile",
+                () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        log.error("LINE profile fetch failed: {}", response.body());
+                        throw new IllegalStateException("無法取得 LINE 用戶資料");
+                    }
+
+                    JsonNode json = readTree(response.body());
+                    LineUserProfile profile = new LineUserProfile(
+                            json.get("userId").asText(),
+                            json.has("displayName") ? json.get("displayName").asText() : null,
+                            json.has("pictureUrl") ? json.get("pictureUrl").asText() : null,
+                            json.has("email") ? json.get("email").asText() : null
+                    );
+
+                    log.info("[LINE Profile] 成功取得用戶資料: userId={}, displayName={}", profile.userId(), profile.displayName());
+                    return profile;
+                });
+    }
 
-        log.info("[LINE Profile] 成功取得用戶資料: userId={}, displayName={}", profile.userId(), profile.displayName());
-        return profile;
+    private Duration requestTimeout() {
+        return Duration.ofMillis(lineLoginConfig.getHttp().getRequestTimeoutMs());
+    }
 
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("LINE 回應格式錯誤", e);
+        }
     }
 
     /**
@@ -208,9 +243,4 @@ public class LineOAuth2Service {
         log.info("LINE OAuth 註冊成功: username={}, role={}, lineUserId={}", username, userRole, lineUserId);
         return savedUser;
     }
-
-    private void cleanExpiredStates() {
-        long now = System.currentTimeMillis();
-        stateStore.entrySet().removeIf(e -> (now - e.getValue()) > 600_000);
-    }
 }
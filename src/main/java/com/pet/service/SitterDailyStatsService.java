@@ -0,0 +1,279 @@
+package com.pet.service;
+
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.SitterDailyStats;
+import com.pet.domain.SitterRating;
+import com.pet.repository.BookingRepository;
+import com.pet.repository.SitterDailyStatsRepository;
+import com.pet.repository.SitterRatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 保母每日統計彙總（sitter_daily_stats）維護
+ *
+ * 預約建立、狀態轉換、過期與評價建立時，在同一交易中以增量 UPDATE 更新對應的資料列
+ * （預約建立日期為 key），交易 rollback 時彙總也一併 rollback。
+ * 同一批次中相同保母與日期的變化先合併，每個資料列只更新一次。
+ *
+ * 資料列不存在時先以「不存在才新增」的單一語句補上全為 0 的資料列，再套用同一個增量 UPDATE。
+ * 准入鎖只在單一 JVM 內序列化，多節點時兩個交易可能同時補同一列：SQL Server 以 MERGE WITH (HOLDLOCK)
+ * 讓後到的交易等待並看到已存在的資料列，不會因主鍵衝突讓預約交易 rollback。
+ * 有變化的保母在 commit 後使儀表板快取（SitterStatisticsCache）失效
+ */
+@Service
+@Transactional
+public class SitterDailyStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitterDailyStatsService.class);
+
+    private final SitterDailyStatsRepository statsRepository;
+    private final BookingRepository bookingRepository;
+    private final SitterRatingRepository ratingRepository;
+    private final SitterStatisticsCache statisticsCache;
+    private final boolean sqlServer;
+
+    public SitterDailyStatsService(SitterDailyStatsRepository statsRepository,
+                                   BookingRepository bookingRepository,
+                                   SitterRatingRepository ratingRepository,
+                                   SitterStatisticsCache statisticsCache,
+                                   DataSource dataSource) {
+        this.statsRepository = statsRepository;
+        this.bookingRepository = bookingRepository;
+        this.ratingRepository = ratingRepository;
+        this.statisticsCache = statisticsCache;
+        this.sqlServer = isSqlServer(dataSource);
+    }
+
+    private static boolean isSqlServer(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("sql server");
+        } catch (Exception e) {
+            logger.warn("無法取得資料庫類型，保母每日統計使用一般 INSERT: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 新建立的預約（PENDING）
+     */
+    public void bookingsCreated(Collection<Booking> bookings) {
+        Map<SitterDailyStats.Key, Delta> deltas = new LinkedHashMap<>();
+        for (Booking booking : bookings) {
+            Delta delta = deltas.computeIfAbsent(keyOf(booking), key -> new Delta());
+            delta.total++;
+            delta.add(booking.getStatus(), 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * 預約狀態轉換；轉為 COMPLETED 時累加收入
+     */
+    public void statusChanged(Booking booking, BookingStatus from) {
+        if (from == booking.getStatus()) {
+            return;
+        }
+        Delta delta = new Delta();
+        delta.transition(from, booking);
+        apply(Map.of(keyOf(booking), delta));
+    }
+
+    /**
+     * 批次過期的預約（PENDING → EXPIRED）
+     */
+    public void bookingsExpired(Collection<Booking> bookings) {
+        Map<SitterDailyStats.Key, Delta> deltas = new LinkedHashMap<>();
+        for (Booking booking : bookings) {
+            deltas.computeIfAbsent(keyOf(booking), key -> new Delta()).transition(BookingStatus.PENDING, booking);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * 新建立的評價（歸入被評預約的建立日期）
+     */
+    public void ratingCreated(SitterRating rating) {
+        Delta delta = new Delta();
+        delta.addRating(rating.getOverallRating(), 1);
+        apply(Map.of(keyOf(rating.getBooking()), delta));
+    }
+
+    /**
+     * 查詢保母在日期區間內的每日統計（沒有預約的日期不會有資料列）
+     */
+    @Transactional(readOnly = true)
+    public List<SitterDailyStats> findRange(UUID sitterId, LocalDate from, LocalDate to) {
+        return statsRepository.findBySitterIdAndStatDateBetween(sitterId, from, to);
+    }
+
+    /**
+     * 保母所有評價的星級分布，索引 1 到 5 為各星級的數量（索引 0 不使用）
+     */
+    @Transactional(readOnly = true)
+    public long[] ratingHistogram(UUID sitterId) {
+        long[] histogram = new long[6];
+        List<Object[]> rows = statsRepository.sumRatingHistogram(sitterId);
+        if (!rows.isEmpty() && rows.get(0) != null) {
+            Object[] row = rows.get(0);
+            for (int star = 1; star <= 5; star++) {
+                histogram[star] = row[star - 1] == null ? 0 : ((Number) row[star - 1]).longValue();
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 彙總表為空但已有預約時（首次部署）從 booking / sitter_rating 重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (statsRepository.count() == 0 && bookingRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 以 GROUP BY 從原始資料重建整張彙總表
+     */
+    public void rebuild() {
+        Map<SitterDailyStats.Key, SitterDailyStats> rows = new LinkedHashMap<>();
+        for (Object[] row : bookingRepository.summarizeBySitterDateAndStatus()) {
+            SitterDailyStats stats = rows.computeIfAbsent(
+                    new SitterDailyStats.Key((UUID) row[0], (LocalDate) row[1]),
+                    key -> new SitterDailyStats(key.getSitterId(), key.getStatDate()));
+            BookingStatus status = (BookingStatus) row[2];
+            int count = ((Number) row[3]).intValue();
+            Delta delta = new Delta();
+            delta.total = count;
+            delta.add(status, count);
+            if (status == BookingStatus.COMPLETED) {
+                delta.revenue = ((Number) row[4]).doubleValue();
+            }
+            delta.applyTo(stats);
+        }
+        for (Object[] row : ratingRepository.summarizeBySitterDateAndStars()) {
+            SitterDailyStats stats = rows.computeIfAbsent(
+                    new SitterDailyStats.Key((UUID) row[0], (LocalDate) row[1]),
+                    key -> new SitterDailyStats(key.getSitterId(), key.getStatDate()));
+            Delta delta = new Delta();
+            delta.addRating((Integer) row[2], ((Number) row[3]).intValue());
+            delta.applyTo(stats);
+        }
+
+        statsRepository.deleteAllInBatch();
+        statsRepository.saveAll(rows.values());
+        statisticsCache.clear();
+        logger.info("重建保母每日統計 {} 筆", rows.size());
+    }
+
+    private void apply(Map<SitterDailyStats.Key, Delta> deltas) {
+        Set<UUID> sitterIds = new HashSet<>();
+        deltas.forEach((key, delta) -> {
+            if (sitterIds.add(key.getSitterId())) {
+                statisticsCache.invalidate(key.getSitterId());
+            }
+            if (addDelta(key, delta) == 0) {
+                insertIfAbsent(key);
+                if (addDelta(key, delta) == 0) {
+                    throw new IllegalStateException("保母每日統計資料列新增後仍不存在: " + key.getSitterId()
+                            + " " + key.getStatDate());
+                }
+            }
+        });
+    }
+
+    private int addDelta(SitterDailyStats.Key key, Delta delta) {
+        return statsRepository.addDelta(key.getSitterId(), key.getStatDate(),
+                delta.total, delta.pending, delta.confirmed, delta.completed,
+                delta.rejected, delta.cancelled, delta.expired, delta.revenue,
+                delta.ratings[1], delta.ratings[2], delta.ratings[3], delta.ratings[4], delta.ratings[5]);
+    }
+
+    private void insertIfAbsent(SitterDailyStats.Key key) {
+        if (sqlServer) {
+            statsRepository.insertIfAbsentSqlServer(key.getSitterId(), key.getStatDate());
+        } else {
+            statsRepository.insertIfAbsent(key.getSitterId(), key.getStatDate());
+        }
+    }
+
+    private static SitterDailyStats.Key keyOf(Booking booking) {
+        LocalDate date = booking.getCreatedAt() != null ? booking.getCreatedAt().toLocalDate() : LocalDate.now();
+        return new SitterDailyStats.Key(booking.getSitter().getId(), date);
+    }
+
+    /**
+     * 單一資料列的增量
+     */
+    private static final class Delta {
+        private int total;
+        private int pending;
+        private int confirmed;
+        private int completed;
+        private int rejected;
+        private int cancelled;
+        private int expired;
+        private double revenue;
+        private final int[] ratings = new int[6];
+
+        private void transition(BookingStatus from, Booking booking) {
+            add(from, -1);
+            add(booking.getStatus(), 1);
+            if (booking.getStatus() == BookingStatus.COMPLETED && booking.getTotalPrice() != null) {
+                revenue += booking.getTotalPrice();
+            }
+        }
+
+        private void add(BookingStatus status, int count) {
+            switch (status) {
+                case PENDING -> pending += count;
+                case CONFIRMED -> confirmed += count;
+                case COMPLETED -> completed += count;
+                case REJECTED -> rejected += count;
+                case CANCELLED -> cancelled += count;
+                case EXPIRED -> expired += count;
+            }
+        }
+
+        private void addRating(Integer stars, int count) {
+            if (stars != null && stars >= 1 && stars <= 5) {
+                ratings[stars] += count;
+            }
+        }
+
+        private void applyTo(SitterDailyStats stats) {
+            stats.setTotalBookings(stats.getTotalBookings() + total);
+            stats.setPendingCount(stats.getPendingCount() + pending);
+            stats.setConfirmedCount(stats.getConfirmedCount() + confirmed);
+            stats.setCompletedCount(stats.getCompletedCount() + completed);
+            stats.setRejectedCount(stats.getRejectedCount() + rejected);
+            stats.setCancelledCount(stats.getCancelledCount() + cancelled);
+            stats.setExpiredCount(stats.getExpiredCount() + expired);
+            stats.setCompletedRevenue(stats.getCompletedRevenue() + revenue);
+            stats.setRating1Count(stats.getRating1Count() + ratings[1]);
+            stats.setRating2Count(stats.getRating2Count() + ratings[2]);
+            stats.setRating3Count(stats.getRating3Count() + ratings[3]);
+            stats.setRating4Count(stats.getRating4Count() + ratings[4]);
+            stats.setRating5Count(stats.getRating5Count() + ratings[5]);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.pet.service;
+
+import com.pet.config.SitterConfig;
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.domain.ExperienceLevel;
+import com.pet.domain.Sitter;
+import com.pet.dto.AvailableSitterDto;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.repository.SitterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 保母排名索引（記憶體內）
+ *
+ * 每種排序方式各保存一份已排序的保母陣列，保母列表的排序與分頁不需要每次查 DB 再排序：
+ * 取第 offset 起的 k 筆直接以陣列位置讀取，O(k)、不加鎖。
+ * 單一保母異動時以二分搜尋定位舊位置與新位置，複製出新的陣列後替換（讀多寫少，讀取端永遠看到完整的快照）。
+ *
+ * 評分排序使用貝氏平均：(C × m + n × avg) / (C + n)
+ * m 為全站平均評分（依評價數加權），C 為先驗權重，n 為保母的評價數；
+ * 評價數少的保母分數往全站平均靠攏，不會因為一筆 5 星就排在累積上百筆評價的保母前面。
+ *
+ * 1. 啟動時從 SitterRepository 預熱
+ * 2. 評價建立、預約完成與保母資料異動在 commit 後同步單一保母
+ * 3. 定期從 DB 重建並重新計算 m，修正多節點部署下其他節點造成的差異（兩次重建之間 m 不變）
+ *
+ * 與 findAllWithUser 相同，只列出已綁定帳號的保母
+ */
+@Component
+public class SitterRankingIndex implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitterRankingIndex.class);
+
+    /**
+     * 全站尚無評價時的先驗平均（1-5 分的中間值）
+     */
+    static final double DEFAULT_PRIOR_MEAN = 3.0;
+
+    /**
+     * 排序方式；同分時依序以貝氏平均評分、保母 ID 決定先後，排序結果固定
+     */
+    public enum Sort {
+        /**
+         * 貝氏平均評分由高到低（同分時評價數多、完成訂單多的優先）
+         */
+        RATING,
+        /**
+         * 時薪由低到高
+         */
+        PRICE_ASC,
+        /**
+         * 時薪由高到低
+         */
+        PRICE_DESC,
+        /**
+         * 完成訂單數由多到少
+         */
+        COMPLETED_BOOKINGS,
+        /**
+         * 經驗等級由高到低
+         */
+        EXPERIENCE
+    }
+
+    private static final Comparator<RankedSitter> BY_SCORE =
+            Comparator.comparingDouble(RankedSitter::score).reversed();
+
+    private static final Comparator<RankedSitter> BY_ID = Comparator.comparing(RankedSitter::id);
+
+    /**
+     * 依 Sort.ordinal() 排列的比較器
+     */
+    private static final List<Comparator<RankedSitter>> ORDERINGS =
+            Arrays.stream(Sort.values()).map(SitterRankingIndex::ordering).toList();
+
+    private final SitterRepository sitterRepository;
+    private final SitterConfig.Ranking config;
+
+    /**
+     * 目前使用中的排名快照，null 表示尚未預熱完成（此時由呼叫端改查 DB）
+     */
+    private volatile Ranking ranking;
+
+    /**
+     * 重建期間發生的異動，重建完成後重播，避免被舊快照覆蓋
+     */
+    private volatile Queue<Change> replayLog;
+
+    private final Object writeLock = new Object();
+
+    private final LongAdder updates = new LongAdder();
+    private volatile long lastRebuildMs = -1;
+
+    public SitterRankingIndex(SitterRepository sitterRepository, SitterConfig sitterConfig) {
+        this.sitterRepository = sitterRepository;
+        this.config = sitterConfig.getRanking();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 定期從 DB 重建索引
+     */
+    @Scheduled(fixedDelayString = "${sitter.ranking.refresh-interval-ms:300000}",
+            initialDelayString = "${sitter.ranking.refresh-interval-ms:300000}")
+    public void rebuild() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Queue<Change> log = new ConcurrentLinkedQueue<>();
+        replayLog = log;
+        try {
+            List<RankedSitter> sitters = sitterRepository.findRankingRows().stream()
+                    .map(SitterRankingIndex::fromRow)
+                    .toList();
+            Ranking fresh = Ranking.build(sitters, priorMean(sitters), config.getPriorWeight());
+
+            synchronized (writeLock) {
+                Change pending;
+                while ((pending = log.poll()) != null) {
+                    fresh = fresh.apply(pending);
+                }
+                ranking = fresh;
+                replayLog = null;
+            }
+
+            lastRebuildMs = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            logger.info("Sitter ranking index rebuilt: {} sitters, priorMean={}, took {} ms",
+                    fresh.size(), String.format(Locale.ROOT, "%.3f", fresh.priorMean), lastRebuildMs);
+        } catch (Exception e) {
+            replayLog = null;
+            logger.error("Failed to rebuild sitter ranking index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 依排序方式取第 offset 筆起最多 limit 筆
+     *
+     * @return 索引尚未預熱完成（或已停用）時回傳 null，由呼叫端改查 DB
+     */
+    public List<AvailableSitterDto> page(Sort sort, int offset, int limit) {
+        Ranking current = ranking;
+        if (current == null) {
+            return null;
+        }
+        RankedSitter[] order = current.orders.get(sort.ordinal());
+        int from = Math.min(Math.max(offset, 0), order.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), order.length);
+        List<AvailableSitterDto> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(order[i].toDto());
+        }
+        return result;
+    }
+
+    /**
+     * 以與索引相同的規則排序一組已篩選的保母（例如指定日期的可用保母），
+     * 貝氏平均以目前快照的全站平均計算
+     */
+    public List<AvailableSitterDto> sort(Collection<Sitter> sitters, Sort sort) {
+        Ranking current = ranking;
+        double priorMean = current != null ? current.priorMean : DEFAULT_PRIOR_MEAN;
+        double priorWeight = config.getPriorWeight();
+        return sitters.stream()
+                .map(sitter -> RankedSitter.of(sitter).scored(priorMean, priorWeight))
+                .sorted(ORDERINGS.get(sort.ordinal()))
+                .map(RankedSitter::toDto)
+                .toList();
+    }
+
+    /**
+     * 保母的評分、完成訂單數或基本資料已變更：目前交易 commit 後更新索引（沒有交易時立即更新），rollback 時不動
+     * 以呼叫當下的欄位值為準
+     */
+    public void updateAfterCommit(Sitter sitter) {
+        if (!config.isEnabled() || sitter.getId() == null) {
+            return;
+        }
+        afterCommit(sitter.getUser() == null
+                ? new Change(sitter.getId(), null)
+                : new Change(sitter.getId(), RankedSitter.of(sitter)));
+    }
+
+    /**
+     * 保母已刪除：目前交易 commit 後自索引移除
+     */
+    public void removeAfterCommit(UUID sitterId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        afterCommit(new Change(sitterId, null));
+    }
+
+    public boolean isReady() {
+        return ranking != null;
+    }
+
+    public int size() {
+        Ranking current = ranking;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * 貝氏平均：沒有評價時等於先驗平均
+     */
+    static double bayesianScore(Double averageRating, int ratingCount, double priorMean, double priorWeight) {
+        if (averageRating == null || ratingCount <= 0) {
+            return priorMean;
+        }
+        double weight = Math.max(priorWeight, 0.0);
+        return (weight * priorMean + ratingCount * averageRating) / (weight + ratingCount);
+    }
+
+    @Override
+    public String componentName() {
+        return "sitterRanking";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (!config.isEnabled()) {
+            return ComponentHealth.up("disabled");
+        }
+        Ranking current = ranking;
+        if (current == null) {
+            return ComponentHealth.up("warming up");
+        }
+        return ComponentHealth.up(String.format(Locale.ROOT,
+                "size=%d, priorMean=%.3f, priorWeight=%.1f, updates=%d, lastRebuildMs=%d",
+                current.size(), current.priorMean, current.priorWeight, updates.sum(), lastRebuildMs));
+    }
+
+    private void afterCommit(Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private void apply(Change change) {
+        synchronized (writeLock) {
+            Queue<Change> log = replayLog;
+            if (log != null) {
+                log.add(change);
+            }
+            Ranking current = ranking;
+            if (current != null) {
+                ranking = current.apply(change);
+            }
+        }
+        updates.increment();
+    }
+
+    /**
+     * 全站平均評分（依評價數加權）
+     */
+    private static double priorMean(List<RankedSitter> sitters) {
+        double ratingSum = 0;
+        long ratingCount = 0;
+        for (RankedSitter sitter : sitters) {
+            if (sitter.averageRating() != null && sitter.ratingCount() > 0) {
+                ratingSum += sitter.averageRating() * sitter.ratingCount();
+                ratingCount += sitter.ratingCount();
+            }
+        }
+        return ratingCount == 0 ? DEFAULT_PRIOR_MEAN : ratingSum / ratingCount;
+    }
+
+    /**
+     * SitterRepository.findRankingRows 的一列
+     */
+    private static RankedSitter fromRow(Object[] row) {
+        return new RankedSitter((UUID) row[0], (String) row[1], (String) row[2], (Double) row[3],
+                intValue(row[4]), intValue(row[5]), (Double) row[6], (ExperienceLevel) row[7], Double.NaN);
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static Comparator<RankedSitter> ordering(Sort sort) {
+        Comparator<RankedSitter> primary = switch (sort) {
+            case RATING -> BY_SCORE
+                    .thenComparing(Comparator.comparingInt(RankedSitter::ratingCount).reversed())
+                    .thenComparing(Comparator.comparingInt(RankedSitter::completedBookings).reversed());
+            case PRICE_ASC -> Comparator.comparing(RankedSitter::hourlyRate,
+                    Comparator.nullsLast(Comparator.<Double>naturalOrder())).thenComparing(BY_SCORE);
+            case PRICE_DESC -> Comparator.comparing(RankedSitter::hourlyRate,
+                    Comparator.nullsLast(Comparator.<Double>reverseOrder())).thenComparing(BY_SCORE);
+            case COMPLETED_BOOKINGS -> Comparator.comparingInt(RankedSitter::completedBookings).reversed()
+                    .thenComparing(BY_SCORE);
+            case EXPERIENCE -> Comparator.comparing(RankedSitter::experienceLevel,
+                    Comparator.nullsLast(Comparator.<ExperienceLevel>reverseOrder())).thenComparing(BY_SCORE);
+        };
+        return primary.thenComparing(BY_ID);
+    }
+
+    // ============ Internal Structures ============
+
+    /**
+     * 單一保母的排序欄位；score 為貝氏平均（尚未計算時為 NaN）
+     */
+    private record RankedSitter(UUID id, String name, String experience, Double averageRating, int ratingCount,
+                                int completedBookings, Double hourlyRate, ExperienceLevel experienceLevel,
+                                double score) {
+
+        static RankedSitter of(Sitter sitter) {
+            return new RankedSitter(sitter.getId(), sitter.getName(), sitter.getExperience(),
+                    sitter.getAverageRating(), intValue(sitter.getRatingCount()),
+                    intValue(sitter.getCompletedBookings()), sitter.getHourlyRate(), sitter.getExperienceLevel(),
+                    Double.NaN);
+        }
+
+        RankedSitter scored(double priorMean, double priorWeight) {
+            return new RankedSitter(id, name, experience, averageRating, ratingCount, completedBookings,
+                    hourlyRate, experienceLevel, bayesianScore(averageRating, ratingCount, priorMean, priorWeight));
+        }
+
+        AvailableSitterDto toDto() {
+            return new AvailableSitterDto(id, name, experience, averageRating, ratingCount, completedBookings,
+                    hourlyRate, experienceLevel);
+        }
+    }
+
+    /**
+     * 單一保母的異動；sitter = null 代表移除
+     */
+    private record Change(UUID sitterId, RankedSitter sitter) {
+    }
+
+    /**
+     * 不可變的排名快照，異動時產生新的快照
+     */
+    private static final class Ranking {
+        private final Map<UUID, RankedSitter> byId;
+        private final List<RankedSitter[]> orders;
+        private final double priorMean;
+        private final double priorWeight;
+
+        private Ranking(Map<UUID, RankedSitter> byId, List<RankedSitter[]> orders,
+                        double priorMean, double priorWeight) {
+            this.byId = byId;
+            this.orders = orders;
+            this.priorMean = priorMean;
+            this.priorWeight = priorWeight;
+        }
+
+        static Ranking build(List<RankedSitter> sitters, double priorMean, double priorWeight) {
+            Map<UUID, RankedSitter> byId = new HashMap<>();
+            for (RankedSitter sitter : sitters) {
+                byId.put(sitter.id(), sitter.scored(priorMean, priorWeight));
+            }
+            RankedSitter[] all = byId.values().toArray(new RankedSitter[0]);
+            List<RankedSitter[]> orders = new ArrayList<>(ORDERINGS.size());
+            for (Comparator<RankedSitter> ordering : ORDERINGS) {
+                RankedSitter[] order = all.clone();
+                Arrays.sort(order, ordering);
+                orders.add(order);
+            }
+            return new Ranking(byId, orders, priorMean, priorWeight);
+        }
+
+        Ranking apply(Change change) {
+            RankedSitter previous = byId.get(change.sitterId());
+            RankedSitter next = change.sitter() == null ? null : change.sitter().scored(priorMean, priorWeight);
+            if (previous == null && next == null) {
+                return this;
+            }
+
+            Map<UUID, RankedSitter> nextById = new HashMap<>(byId);
+            if (next == null) {
+                nextById.remove(change.sitterId());
+            } else {
+                nextById.put(next.id(), next);
+            }
+            List<RankedSitter[]> nextOrders = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                nextOrders.add(replace(orders.get(i), previous, next, ORDERINGS.get(i)));
+            }
+            return new Ranking(nextById, nextOrders, priorMean, priorWeight);
+        }
+
+        int size() {
+            return byId.size();
+        }
+
+        /**
+         * 複製排序陣列：移除 previous、插入 next（位置皆以二分搜尋取得）
+         */
+        private static RankedSitter[] replace(RankedSitter[] order, RankedSitter previous, RankedSitter next,
+                                              Comparator<RankedSitter> ordering) {
+            RankedSitter[] result = order;
+            int removeAt = previous == null ? -1 : Arrays.binarySearch(order, previous, ordering);
+            if (removeAt >= 0) {
+                result = new RankedSitter[order.length - 1];
+                System.arraycopy(order, 0, result, 0, removeAt);
+                System.arraycopy(order, removeAt + 1, result, removeAt, order.length - removeAt - 1);
+            }
+            if (next == null) {
+                return result;
+            }
+
+            int insertAt = Arrays.binarySearch(result, next, ordering);
+            if (insertAt < 0) {
+                insertAt = -insertAt - 1;
+            }
+            RankedSitter[] inserted = new RankedSitter[result.length + 1];
+            System.arraycopy(result, 0, inserted, 0, insertAt);
+            inserted[insertAt] = next;
+            System.arraycopy(result, insertAt, inserted, insertAt + 1, result.length - insertAt);
+            return inserted;
+        }
+    }
+}
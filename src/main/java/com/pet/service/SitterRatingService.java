@@ -9,15 +9,13 @@ import com.pet.exception.ErrorCode;
 import com.pet.exception.ResourceNotFoundException;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.SitterRatingRepository;
-import com.pet.repository.SitterRepository;
+import com.pet.repository.SitterRatingSummaryRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,14 +28,20 @@ public class SitterRatingService {
 
     private final SitterRatingRepository ratingRepository;
     private final BookingRepository bookingRepository;
-    private final SitterRepository sitterRepository;
+    private final SitterRatingSummaryRepository ratingSummaryRepository;
+    private final SitterDailyStatsService sitterDailyStatsService;
+    private final SitterRatingSummaryService ratingSummaryService;
 
     public SitterRatingService(SitterRatingRepository ratingRepository,
                                BookingRepository bookingRepository,
-                               SitterRepository sitterRepository) {
+                               SitterRatingSummaryRepository ratingSummaryRepository,
+                               SitterDailyStatsService sitterDailyStatsService,
+                               SitterRatingSummaryService ratingSummaryService) {
         this.ratingRepository = ratingRepository;
         this.bookingRepository = bookingRepository;
-        this.sitterRepository = sitterRepository;
+        this.ratingSummaryRepository = ratingSummaryRepository;
+        this.sitterDailyStatsService = sitterDailyStatsService;
+        this.ratingSummaryService = ratingSummaryService;
     }
 
     /**
@@ -45,7 +49,7 @@ public class SitterRatingService {
      * 1. 驗證訂單狀態（只有 COMPLETED 可評價）
      * 2. 驗證評價者身份（只有訂單的飼主可評價）
      * 3. 防止重複評價
-     * 4. 更新保母的平均評分（反正規化）
+     * 4. 累加保母的評價彙總（同時更新反正規化的平均評分）與每日統計
      */
     public SitterRatingDto createRating(SitterRatingDto dto, UUID userId) {
         // 1. 取得並驗證預約
@@ -81,8 +85,9 @@ public class SitterRatingService {
 
         SitterRating saved = ratingRepository.save(rating);
 
-        // 6. 更新保母的平均評分（反正規化）
-        updateSitterAverageRating(booking.getSitter().getId());
+        // 6. 累加評價彙總、更新保母的平均評分（反正規化）與每日統計的星級分布
+        ratingSummaryService.ratingAdded(saved);
+        sitterDailyStatsService.ratingCreated(saved);
 
         return convertToDto(saved);
     }
@@ -114,40 +119,21 @@ public class SitterRatingService {
     }
 
     /**
-     * 取得保母的評價統計
+     * 取得保母的評價統計（讀取保母與評價彙總各一列，一個查詢）
      */
     @Transactional(readOnly = true)
     public SitterRatingStatsDto getSitterRatingStats(UUID sitterId) {
-        Sitter sitter = sitterRepository.findById(sitterId)
-                .orElseThrow(() -> new ResourceNotFoundException("保母", "id", sitterId));
-
-        // 計算各項平均分（可能為 null，需容錯）
-        Object[] averages = ratingRepository.calculateDetailedAverages(sitterId);
-        if (averages == null || averages.length < 4) {
-            averages = new Object[] { null, null, null, null };
-        }
-        Double avgOverall = averages[0] instanceof Number ? ((Number) averages[0]).doubleValue() : null;
-        Double avgProfessionalism = averages[1] instanceof Number ? ((Number) averages[1]).doubleValue() : null;
-        Double avgCommunication = averages[2] instanceof Number ? ((Number) averages[2]).doubleValue() : null;
-        Double avgPunctuality = averages[3] instanceof Number ? ((Number) averages[3]).doubleValue() : null;
-
-        // 計算評分分佈（沒有評價時回傳 0）
-        Map<Integer, Long> distribution = new HashMap<>();
-        for (int i = 1; i <= 5; i++) {
-            distribution.put(i, 0L);
-        }
-        List<Object[]> ratingCounts = ratingRepository.countRatingsByStars(sitterId);
-        for (Object[] row : ratingCounts) {
-            Integer stars = (row[0] instanceof Number) ? ((Number) row[0]).intValue() : null;
-            Long count = (row[1] instanceof Number) ? ((Number) row[1]).longValue() : 0L;
-            if (stars != null && stars >= 1 && stars <= 5) {
-                distribution.put(stars, count);
-            }
+        List<Object[]> rows = ratingSummaryRepository.findSitterWithSummary(sitterId);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("保母", "id", sitterId);
         }
-
-        long totalRatings = ratingRepository.countBySitter_Id(sitterId);
+        Sitter sitter = (Sitter) rows.get(0)[0];
+        SitterRatingSummary summary = rows.get(0)[1] != null
+                ? (SitterRatingSummary) rows.get(0)[1]
+                : new SitterRatingSummary(sitterId);
 
         // 對可能為 null 的欄位給預設值
+        Double avgOverall = summary.overallAverage();
         Double averageRating = sitter.getAverageRating() != null
                 ? sitter.getAverageRating()
                 : (avgOverall != null ? Math.round(avgOverall * 100.0) / 100.0 : 0.0);
@@ -157,16 +143,16 @@ public class SitterRatingService {
                 sitterId,
                 sitter.getName(),
                 averageRating,
-                avgProfessionalism != null ? avgProfessionalism : 0.0,
-                avgCommunication != null ? avgCommunication : 0.0,
-                avgPunctuality != null ? avgPunctuality : 0.0,
-                (int) totalRatings,
+                summary.professionalismAverage() != null ? summary.professionalismAverage() : 0.0,
+                summary.communicationAverage() != null ? summary.communicationAverage() : 0.0,
+                summary.punctualityAverage() != null ? summary.punctualityAverage() : 0.0,
+                summary.getRatingCount(),
                 completedBookings,
-                distribution.getOrDefault(5, 0L).intValue(),
-                distribution.getOrDefault(4, 0L).intValue(),
-                distribution.getOrDefault(3, 0L).intValue(),
-                distribution.getOrDefault(2, 0L).intValue(),
-                distribution.getOrDefault(1, 0L).intValue()
+                summary.starCount(5),
+                summary.starCount(4),
+                summary.starCount(3),
+                summary.starCount(2),
+                summary.starCount(1)
         );
     }
 
@@ -203,21 +189,6 @@ public class SitterRatingService {
 
     // ============ Private Methods ============
 
-    /**
-     * 更新保母的平均評分（反正規化）
-     */
-    private void updateSitterAverageRating(UUID sitterId) {
-        Double weightedAvg = ratingRepository.calculateWeightedAverageRating(sitterId);
-        long count = ratingRepository.countBySitter_Id(sitterId);
-
-        Sitter sitter = sitterRepository.findById(sitterId)
-                .orElseThrow(() -> new ResourceNotFoundException("保母", "id", sitterId));
-
-        sitter.setAverageRating(weightedAvg != null ? Math.round(weightedAvg * 100.0) / 100.0 : null);
-        sitter.setRatingCount((int) count);
-        sitterRepository.save(sitter);
-    }
-
     private SitterRatingDto convertToDto(SitterRating rating) {
         String userName = rating.getIsAnonymous() ? "匿名用戶" : rating.getUser().getUsername();
 
@@ -0,0 +1,182 @@
+package com.pet.service;
+
+import com.pet.domain.Sitter;
+import com.pet.domain.SitterRating;
+import com.pet.domain.SitterRatingSummary;
+import com.pet.repository.SitterRatingRepository;
+import com.pet.repository.SitterRatingSummaryRepository;
+import com.pet.repository.SitterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 保母評價彙總（sitter_rating_summary）維護
+ *
+ * 1. 評價建立時以一個增量 UPDATE 累加總和、筆數與星級分布，再由彙總算出 Sitter 的平均評分與評價數，
+ *    不再對保母所有評價做 AVG / COUNT
+ * 2. 保母第一筆評價時彙總列不存在：先以 DB 列鎖鎖定保母再重試，仍不存在才由 sitter_rating 彙總新增，
+ *    並行的第一筆評價不會重複新增
+ * 3. 對帳：比對 sitter_rating 的 GROUP BY 結果，有差異的保母在各自的交易中鎖定彙總列後重新計算
+ * 4. 平均評分變更後於 commit 時同步保母排名索引
+ */
+@Service
+@Transactional
+public class SitterRatingSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitterRatingSummaryService.class);
+
+    private final SitterRatingSummaryRepository summaryRepository;
+    private final SitterRatingRepository ratingRepository;
+    private final SitterRepository sitterRepository;
+    private final SitterRankingIndex sitterRankingIndex;
+
+    public SitterRatingSummaryService(SitterRatingSummaryRepository summaryRepository,
+                                      SitterRatingRepository ratingRepository,
+                                      SitterRepository sitterRepository,
+                                      SitterRankingIndex sitterRankingIndex) {
+        this.summaryRepository = summaryRepository;
+        this.ratingRepository = ratingRepository;
+        this.sitterRepository = sitterRepository;
+        this.sitterRankingIndex = sitterRankingIndex;
+    }
+
+    /**
+     * 累加一筆新評價，並更新保母的平均評分與評價數（反正規化）
+     */
+    public SitterRatingSummary ratingAdded(SitterRating rating) {
+        UUID sitterId = rating.getSitter().getId();
+        SitterRatingSummary summary;
+        if (addRating(sitterId, rating) == 1) {
+            summary = summaryRepository.findById(sitterId).orElseThrow();
+        } else {
+            sitterRepository.findByIdWithLock(sitterId);
+            if (addRating(sitterId, rating) == 1) {
+                summary = summaryRepository.findById(sitterId).orElseThrow();
+            } else {
+                // 已包含剛建立的評價（查詢前自動 flush）
+                summary = summaryRepository.save(computeFromRatings(sitterId));
+            }
+        }
+        applyToSitter(rating.getSitter(), summary);
+        return summary;
+    }
+
+    /**
+     * 彙總表為空但已有評價（首次部署）
+     */
+    @Transactional(readOnly = true)
+    public boolean needsBackfill() {
+        return summaryRepository.count() == 0 && ratingRepository.count() > 0;
+    }
+
+    /**
+     * 彙總與 sitter_rating 不一致的保母（含有評價但沒有彙總列、有彙總列但評價已刪除）
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findDriftedSitterIds() {
+        Map<UUID, SitterRatingSummary> expected = new HashMap<>();
+        for (Object[] row : ratingRepository.summarizeBySitter()) {
+            SitterRatingSummary summary = fromRow(row);
+            expected.put(summary.getSitterId(), summary);
+        }
+
+        List<UUID> drifted = new ArrayList<>();
+        for (SitterRatingSummary stored : summaryRepository.findAll()) {
+            SitterRatingSummary actual = expected.remove(stored.getSitterId());
+            if (actual == null ? stored.getRatingCount() != 0 : !stored.sameTotals(actual)) {
+                drifted.add(stored.getSitterId());
+            }
+        }
+        drifted.addAll(expected.keySet());
+        return drifted;
+    }
+
+    /**
+     * 鎖定後重新計算單一保母的彙總
+     *
+     * @return 是否有修正
+     */
+    public boolean reconcile(UUID sitterId) {
+        Optional<SitterRatingSummary> locked = summaryRepository.findByIdForUpdate(sitterId);
+        if (locked.isEmpty()) {
+            sitterRepository.findByIdWithLock(sitterId);
+            locked = summaryRepository.findById(sitterId);
+        }
+
+        SitterRatingSummary actual = computeFromRatings(sitterId);
+        SitterRatingSummary summary = locked.orElseGet(() -> new SitterRatingSummary(sitterId));
+        if (locked.isPresent() && summary.sameTotals(actual)) {
+            return false;
+        }
+        logger.warn("修正保母評價彙總: sitterId={}, ratingCount {} -> {}",
+                sitterId, summary.getRatingCount(), actual.getRatingCount());
+        summary.copyTotals(actual);
+        summaryRepository.save(summary);
+        sitterRepository.findById(sitterId).ifPresent(sitter -> applyToSitter(sitter, summary));
+        return true;
+    }
+
+    private int addRating(UUID sitterId, SitterRating rating) {
+        int stars = rating.getOverallRating();
+        Integer professionalism = rating.getProfessionalismRating();
+        Integer communication = rating.getCommunicationRating();
+        Integer punctuality = rating.getPunctualityRating();
+        return summaryRepository.addRating(sitterId, stars,
+                professionalism != null ? professionalism : 0, professionalism != null ? 1 : 0,
+                communication != null ? communication : 0, communication != null ? 1 : 0,
+                punctuality != null ? punctuality : 0, punctuality != null ? 1 : 0,
+                SitterRatingSummary.weightedScore(rating),
+                stars == 1 ? 1 : 0, stars == 2 ? 1 : 0, stars == 3 ? 1 : 0, stars == 4 ? 1 : 0, stars == 5 ? 1 : 0);
+    }
+
+    private SitterRatingSummary computeFromRatings(UUID sitterId) {
+        List<Object[]> rows = ratingRepository.summarizeForSitter(sitterId);
+        return rows.isEmpty() ? new SitterRatingSummary(sitterId) : fromRow(rows.get(0));
+    }
+
+    private void applyToSitter(Sitter sitter, SitterRatingSummary summary) {
+        sitter.setAverageRating(summary.weightedAverage());
+        sitter.setRatingCount(summary.getRatingCount());
+        sitterRepository.save(sitter);
+        sitterRankingIndex.updateAfterCommit(sitter);
+    }
+
+    /**
+     * SitterRatingRepository.SUMMARY_SELECT 的一列
+     */
+    private static SitterRatingSummary fromRow(Object[] row) {
+        SitterRatingSummary summary = new SitterRatingSummary((UUID) row[0]);
+        summary.setRatingCount(intValue(row[1]));
+        summary.setOverallSum(longValue(row[2]));
+        summary.setProfessionalismSum(longValue(row[3]));
+        summary.setProfessionalismCount(intValue(row[4]));
+        summary.setCommunicationSum(longValue(row[5]));
+        summary.setCommunicationCount(intValue(row[6]));
+        summary.setPunctualitySum(longValue(row[7]));
+        summary.setPunctualityCount(intValue(row[8]));
+        summary.setWeightedSum(row[9] == null ? 0.0 : ((Number) row[9]).doubleValue());
+        summary.setRating1Count(intValue(row[10]));
+        summary.setRating2Count(intValue(row[11]));
+        summary.setRating3Count(intValue(row[12]));
+        summary.setRating4Count(intValue(row[13]));
+        summary.setRating5Count(intValue(row[14]));
+        return summary;
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static long longValue(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
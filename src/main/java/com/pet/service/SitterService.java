@@ -7,6 +7,7 @@ import com.pet.exception.ResourceNotFoundException;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.SitterAvailabilityRepository;
 import com.pet.repository.SitterRepository;
+import com.pet.service.SitterRankingIndex.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,16 +21,24 @@ import java.util.stream.Collectors;
 @Transactional
 public class SitterService {
 
+    /**
+     * 保母列表單頁上限
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final SitterRepository sitterRepository;
     private final SitterAvailabilityRepository availabilityRepository;
     private final BookingRepository bookingRepository;
+    private final SitterRankingIndex sitterRankingIndex;
 
     public SitterService(SitterRepository sitterRepository,
                          SitterAvailabilityRepository availabilityRepository,
-                         BookingRepository bookingRepository) {
+                         BookingRepository bookingRepository,
+                         SitterRankingIndex sitterRankingIndex) {
         this.sitterRepository = sitterRepository;
         this.availabilityRepository = availabilityRepository;
         this.bookingRepository = bookingRepository;
+        this.sitterRankingIndex = sitterRankingIndex;
     }
 
     public List<SitterDto> getAllSitters() {
@@ -47,6 +56,7 @@ public class SitterService {
     public SitterDto createSitter(SitterDto sitterDto) {
         Sitter sitter = convertToEntity(sitterDto);
         Sitter savedSitter = sitterRepository.save(sitter);
+        sitterRankingIndex.updateAfterCommit(savedSitter);
         return convertToDto(savedSitter);
     }
 
@@ -57,6 +67,7 @@ public class SitterService {
         Sitter sitter = convertToEntity(sitterDto);
         sitter.setId(id);
         Sitter updatedSitter = sitterRepository.save(sitter);
+        sitterRankingIndex.updateAfterCommit(updatedSitter);
         return convertToDto(updatedSitter);
     }
 
@@ -65,6 +76,7 @@ public class SitterService {
             throw new ResourceNotFoundException("保母", "id", id);
         }
         sitterRepository.deleteById(id);
+        sitterRankingIndex.removeAfterCommit(id);
     }
 
     public SitterDto getSitterByUserId(UUID userId) {
@@ -79,16 +91,28 @@ public class SitterService {
                 .orElseThrow(() -> new ResourceNotFoundException("保母", "id", id));
     }
 
+    /**
+     * 取得指定日期可用的保母列表（依貝氏平均評分排序）
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSitterDto> getAvailableSitters(LocalDate date,
+                                                         java.time.LocalDateTime startTime,
+                                                         java.time.LocalDateTime endTime) {
+        return getAvailableSitters(date, startTime, endTime, Sort.RATING);
+    }
+
     /**
      * 取得指定日期可用的保母列表
      * @param date 預約日期
      * @param startTime 可選：開始時間，如果提供則會排除在該時段已有預約的保母
      * @param endTime 可選：結束時間，如果提供則會排除在該時段已有預約的保母
+     * @param sort 排序方式（與排名索引相同的規則）
      */
     @Transactional(readOnly = true)
     public List<AvailableSitterDto> getAvailableSitters(LocalDate date,
                                                          java.time.LocalDateTime startTime,
-                                                         java.time.LocalDateTime endTime) {
+                                                         java.time.LocalDateTime endTime,
+                                                         Sort sort) {
         DayOfWeek dayOfWeek = date.getDayOfWeek();
         List<Sitter> sitters = availabilityRepository.findAvailableSittersByDayOfWeek(dayOfWeek, true);
 
@@ -99,9 +123,7 @@ public class SitterService {
                     .toList();
         }
 
-        return sitters.stream()
-                .map(this::convertToAvailableDto)
-                .collect(Collectors.toList());
+        return sitterRankingIndex.sort(sitters, sort);
     }
 
     /**
@@ -113,26 +135,35 @@ public class SitterService {
     }
 
     /**
-     * 取得所有保母（含評分資訊，使用 FETCH JOIN 避免 N+1 問題）
+     * 取得所有保母（含評分資訊），依貝氏平均評分排序
      */
     @Transactional(readOnly = true)
     public List<AvailableSitterDto> getAllSittersWithRating() {
-        return sitterRepository.findAllWithUser().stream()
-                .map(this::convertToAvailableDto)
-                .collect(Collectors.toList());
+        return getAllSittersWithRating(Sort.RATING, 0, null);
     }
 
-    private AvailableSitterDto convertToAvailableDto(Sitter sitter) {
-        return new AvailableSitterDto(
-                sitter.getId(),
-                sitter.getName(),
-                sitter.getExperience(),
-                sitter.getAverageRating(),
-                sitter.getRatingCount(),
-                sitter.getCompletedBookings(),
-                sitter.getHourlyRate(),
-                sitter.getExperienceLevel()
-        );
+    /**
+     * 取得保母列表（含評分資訊），依 sort 排序後取第 offset 筆起最多 limit 筆
+     *
+     * 由記憶體排名索引直接讀取；索引尚未預熱完成（或已停用）時才查 DB（FETCH JOIN 避免 N+1）後排序
+     *
+     * @param offset 略過的筆數，負數視為 0
+     * @param limit  每頁筆數，限制在 1 ~ MAX_PAGE_SIZE；null 表示全部
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSitterDto> getAllSittersWithRating(Sort sort, int offset, Integer limit) {
+        int from = Math.max(offset, 0);
+        int size = limit == null ? Integer.MAX_VALUE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<AvailableSitterDto> page = sitterRankingIndex.page(sort, from, size);
+        if (page != null) {
+            return page;
+        }
+
+        List<AvailableSitterDto> sorted = sitterRankingIndex.sort(sitterRepository.findAllWithUser(), sort);
+        int start = Math.min(from, sorted.size());
+        int end = (int) Math.min((long) start + size, sorted.size());
+        return sorted.subList(start, end);
     }
 
     private SitterDto convertToDto(Sitter sitter) {
@@ -0,0 +1,239 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import com.pet.dto.response.BookingStatisticsResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 保母儀表板統計（BookingStatisticsResponse）快取
+ *
+ * 保母會不停重新整理儀表板，每次都重新計算整份統計。此快取以保母 ID 為 key：
+ *
+ * 1. 新鮮時間（cacheTtlMs）內直接回傳
+ * 2. 過期或失效後的 cacheStaleMs 內先回傳舊值，並排入背景重新計算（同一保母同時只排一次），儀表板不等 DB
+ * 3. 沒有可用的值時才同步計算
+ *
+ * 預約建立、狀態轉換、過期與評價建立由 SitterDailyStatsService 呼叫 {@link #invalidate}，
+ * 在交易 commit 後才標記失效，避免並行的重新計算讀到 commit 前的資料又寫回快取。
+ * 每次失效都會遞增項目的版本，版本已變更的計算結果不寫回快取。
+ *
+ * 筆數達上限時先清除超過 stale 時間的項目，仍然滿載則不再快取新的保母（直接計算）
+ */
+@Component
+public class SitterStatisticsCache implements ComponentHealthProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitterStatisticsCache.class);
+
+    private final long ttlMs;
+    private final long staleMs;
+    private final int maxSize;
+    private final Executor refreshExecutor;
+    private final ExecutorService ownedExecutor;
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<UUID> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    @Autowired
+    public SitterStatisticsCache(BookingConfig bookingConfig) {
+        this(bookingConfig.getStatistics(), refreshExecutor(bookingConfig.getStatistics()));
+    }
+
+    SitterStatisticsCache(BookingConfig.Statistics config, Executor refreshExecutor) {
+        this.ttlMs = config.getCacheTtlMs();
+        this.staleMs = Math.max(0, config.getCacheStaleMs());
+        this.maxSize = config.getCacheMaxSize();
+        this.refreshExecutor = refreshExecutor;
+        this.ownedExecutor = refreshExecutor instanceof ExecutorService executorService ? executorService : null;
+    }
+
+    /**
+     * 取得保母的統計；未命中時以 loader 計算
+     */
+    public BookingStatisticsResponse get(UUID sitterId, Supplier<BookingStatisticsResponse> loader) {
+        if (ttlMs <= 0) {
+            return loader.get();
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(sitterId);
+        if (entry != null && entry.value() != null) {
+            if (now < entry.freshUntil()) {
+                hits.increment();
+                return entry.value();
+            }
+            if (now < entry.staleUntil()) {
+                staleHits.increment();
+                scheduleRefresh(sitterId, entry.version(), loader);
+                return entry.value();
+            }
+        }
+
+        misses.increment();
+        long version = entry == null ? 0 : entry.version();
+        BookingStatisticsResponse value = loader.get();
+        store(sitterId, version, value);
+        return value;
+    }
+
+    /**
+     * 保母的統計已變更：目前交易 commit 後標記失效（沒有交易時立即失效），rollback 時不動
+     */
+    public void invalidate(UUID sitterId) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markStale(sitterId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markStale(sitterId);
+            }
+        });
+    }
+
+    /**
+     * 清除所有項目（例如彙總表重建後）
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 保留舊值供 stale-while-revalidate 使用，但不再視為新鮮；沒有項目時留下空項目記錄版本，
+     * 讓進行中的計算不會寫回 commit 前的結果
+     */
+    private void markStale(UUID sitterId) {
+        invalidations.increment();
+        long now = System.currentTimeMillis();
+        entries.compute(sitterId, (id, current) -> current == null
+                ? new Entry(null, 1, 0, now + ttlMs)
+                : new Entry(current.value(), current.version() + 1, 0, current.staleUntil()));
+    }
+
+    private void store(UUID sitterId, long version, BookingStatisticsResponse value) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> now >= e.staleUntil());
+        }
+        Entry fresh = new Entry(value, version, now + ttlMs, now + ttlMs + staleMs);
+        entries.compute(sitterId, (id, current) -> {
+            long currentVersion = current == null ? 0 : current.version();
+            if (currentVersion != version) {
+                // 計算期間已失效，保留失效的項目
+                return current;
+            }
+            if (current == null && entries.size() >= maxSize) {
+                return null;
+            }
+            return fresh;
+        });
+    }
+
+    private void scheduleRefresh(UUID sitterId, long version, Supplier<BookingStatisticsResponse> loader) {
+        if (!refreshing.add(sitterId)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    store(sitterId, version, loader.get());
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    logger.warn("重新計算保母統計失敗: sitterId={}, {}", sitterId, e.getMessage());
+                } finally {
+                    refreshing.remove(sitterId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 佇列已滿：這次仍回傳舊值，下次請求再排入
+            refreshing.remove(sitterId);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String componentName() {
+        return "sitterStatisticsCache";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (ttlMs <= 0) {
+            return ComponentHealth.up("disabled");
+        }
+        long hitCount = hits.sum();
+        long staleCount = staleHits.sum();
+        long total = hitCount + staleCount + misses.sum();
+        double hitRatio = total == 0 ? 0.0 : (double) (hitCount + staleCount) / total;
+        return ComponentHealth.up(String.format(Locale.ROOT,
+                "size=%d, hitRatio=%.3f, hits=%d, staleHits=%d, misses=%d, invalidations=%d, refreshFailures=%d",
+                size(), hitRatio, hitCount, staleCount, misses.sum(), invalidations.sum(), refreshFailures.sum()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 不註冊成 bean：Executor 型別的 bean 會取代 Spring Boot 自動設定的 applicationTaskExecutor
+     */
+    private static ExecutorService refreshExecutor(BookingConfig.Statistics config) {
+        AtomicInteger sequence = new AtomicInteger();
+        int threads = Math.max(1, config.getRefreshThreads());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getRefreshQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sitter-stats-refresh-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param value     統計結果；只記錄失效版本的空項目為 null
+     * @param version   失效次數，計算開始與寫回時不同代表期間已失效
+     */
+    private record Entry(BookingStatisticsResponse value, long version, long freshUntil, long staleUntil) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.pet.service;
+
+import com.pet.controller.ComponentHealthProvider;
+import com.pet.dto.HealthCheckDto.ComponentHealth;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 對外呼叫（LINE token 交換、profile 等）的延遲直方圖
+ *
+ * 每個呼叫名稱一個固定邊界的直方圖（LongAdder 計數，不鎖），
+ * 於 /api/health 回報次數、失敗、逾時與 p50 / p95 / p99（以所在區間的上界估計）
+ */
+@Component
+public class UpstreamCallMetrics implements ComponentHealthProvider {
+
+    /**
+     * 區間上界 (毫秒)，最後一個區間為「超過 10 秒」
+     */
+    private static final long[] BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    /**
+     * 計時一次非同步呼叫，完成（成功或失敗）時記錄
+     */
+    public <T> CompletableFuture<T> time(String call, Supplier<CompletableFuture<T>> action) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException e) {
+            record(call, System.nanoTime() - start, e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> record(call, System.nanoTime() - start, error));
+    }
+
+    void record(String call, long elapsedNanos, Throwable error) {
+        Histogram histogram = histograms.computeIfAbsent(call, key -> new Histogram());
+        histogram.record(elapsedNanos / 1_000_000);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+                histogram.timeouts.increment();
+            } else {
+                histogram.failures.increment();
+            }
+        }
+    }
+
+    long count(String call) {
+        Histogram histogram = histograms.get(call);
+        return histogram == null ? 0 : histogram.total.sum();
+    }
+
+    long percentileMillis(String call, double quantile) {
+        Histogram histogram = histograms.get(call);
+        return histogram == null ? 0 : histogram.percentile(quantile);
+    }
+
+    @Override
+    public String componentName() {
+        return "upstreamCalls";
+    }
+
+    @Override
+    public ComponentHealth health() {
+        if (histograms.isEmpty()) {
+            return ComponentHealth.up("no calls");
+        }
+        return ComponentHealth.up(histograms.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue().summary())
+                .collect(Collectors.joining("; ")));
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        private final LongAdder total = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAccumulator maxMs = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long elapsedMs) {
+            int index = 0;
+            while (index < BOUNDS_MS.length && elapsedMs > BOUNDS_MS[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            total.increment();
+            maxMs.accumulate(elapsedMs);
+        }
+
+        private long percentile(double quantile) {
+            long count = total.sum();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_MS.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return Math.min(BOUNDS_MS[i], maxMs.get());
+                }
+            }
+            return maxMs.get();
+        }
+
+        private String summary() {
+            return String.format(Locale.ROOT, "count=%d, failures=%d, timeouts=%d, p50=%dms, p95=%dms, p99=%dms, max=%dms",
+                    total.sum(), failures.sum(), timeouts.sum(),
+                    percentile(0.50), percentile(0.95), percentile(0.99), maxMs.get());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.pet.domain.Users;
 import com.pet.dto.UserDto;
 import com.pet.exception.ResourceNotFoundException;
 import com.pet.repository.UserRepository;
+import com.pet.security.UserStatusCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,10 +19,13 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatusCache userStatusCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       UserStatusCache userStatusCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userStatusCache = userStatusCache;
     }
 
     public List<UserDto> getAllUsers() {
@@ -53,6 +57,8 @@ public class UserService {
         existingUsers.setRole(com.pet.domain.UserRole.valueOf(userDto.role()));
 
         Users updatedUsers = userRepository.save(existingUsers);
+        // 帳號 / 角色變更 commit 後，舊 Access Token 立即失效（本節點）
+        userStatusCache.evictAfterCommit(id);
         return convertToDto(updatedUsers);
     }
 
@@ -61,6 +67,7 @@ public class UserService {
             throw new ResourceNotFoundException("用戶", "id", id);
         }
         userRepository.deleteById(id);
+        userStatusCache.evictAfterCommit(id);
     }
 
     private UserDto convertToDto(Users users) {
@@ -15,17 +15,22 @@ import com.pet.service.AuthenticationService;
 import com.pet.service.LineOAuth2Service;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.pet.security.JwtProperties;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URLEncoder;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 認證控制器
@@ -36,7 +41,6 @@ import java.nio.charset.StandardCharsets;
  */
 @RestController
 @RequestMapping("/api/auth")
-@RequiredArgsConstructor
 @Slf4j
 public class AuthController {
 
@@ -45,6 +49,24 @@ public class AuthController {
     private final LineOAuth2Service lineOAuth2Service;
     private final LineLoginConfig lineLoginConfig;
 
+    /**
+     * LINE 回應後查詢 / 寫入 DB 的工作改在 Spring MVC 的 applicationTaskExecutor 上執行，
+     * 不佔用有界的 line-login-http 執行緒池（該池滿了會直接拒絕）
+     */
+    private final Executor applicationTaskExecutor;
+
+    public AuthController(AuthenticationService authenticationService,
+                          JwtProperties jwtProperties,
+                          LineOAuth2Service lineOAuth2Service,
+                          LineLoginConfig lineLoginConfig,
+                          @Qualifier("applicationTaskExecutor") Executor applicationTaskExecutor) {
+        this.authenticationService = authenticationService;
+        this.jwtProperties = jwtProperties;
+        this.lineOAuth2Service = lineOAuth2Service;
+        this.lineLoginConfig = lineLoginConfig;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
     /**
      * JWT 登入端點
      * 特點:
@@ -152,17 +174,20 @@ public class AuthController {
      * 使用 HttpOnly 防止 XSS 攻擊
      */
     private void setRefreshTokenCookie(HttpServletResponse response, String refreshToken) {
-        ResponseCookie cookie = ResponseCookie.from("refreshToken", refreshToken)
+        response.addHeader(HttpHeaders.SET_COOKIE, refreshTokenCookie(refreshToken).toString());
+
+        log.debug("Set refresh token cookie - maxAge: {} seconds",
+                jwtProperties.getRefreshTokenExpiration() / 1000);
+    }
+
+    private ResponseCookie refreshTokenCookie(String refreshToken) {
+        return ResponseCookie.from("refreshToken", refreshToken)
                 .httpOnly(true)        // JavaScript 無法讀取
                 .secure(false)         // HTTP 環境（面試展示用）
                 .path("/")             // 所有路徑都可用
                 .maxAge(jwtProperties.getRefreshTokenExpiration() / 1000)  // 7 天
                 .sameSite("Lax")       // 允許同站點請求
                 .build();
-        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
-
-        log.debug("Set refresh token cookie - maxAge: {} seconds",
-                jwtProperties.getRefreshTokenExpiration() / 1000);
     }
 
     /**
@@ -217,48 +242,59 @@ public class AuthController {
      * 處理完成後 redirect 到前端 line-callback.html
      */
     @GetMapping("/oauth2/callback/line")
-    public ResponseEntity<Void> lineOAuthCallback(
+    public CompletableFuture<ResponseEntity<Void>> lineOAuthCallback(
             @RequestParam(required = false) String code,
             @RequestParam(required = false) String state,
-            @RequestParam(required = false) String error,
-            HttpServletResponse httpResponse) {
+            @RequestParam(required = false) String error) {
         String frontendUrl = lineLoginConfig.getFrontendCallbackUrl();
-        try {
-            if (error != null) {
-                return redirectTo(frontendUrl + "?error="
-                        + encode("您已取消 LINE 授權"));
-            }
-            if (state == null || !lineOAuth2Service.validateState(state)) {
-                return redirectTo(frontendUrl + "?error="
-                        + encode("授權已過期，請重新登入"));
-            }
+        if (error != null) {
+            return CompletableFuture.completedFuture(redirectTo(frontendUrl + "?error="
+                    + encode("您已取消 LINE 授權")));
+        }
+        if (state == null || !lineOAuth2Service.validateState(state)) {
+            return CompletableFuture.completedFuture(redirectTo(frontendUrl + "?error="
+                    + encode("授權已過期，請重新登入")));
+        }
 
-            String accessToken = lineOAuth2Service.exchangeCodeForAccessToken(code);
-            LineUserProfile profile = lineOAuth2Service.getUserProfile(accessToken);
-            var existingUser = lineOAuth2Service.findExistingUser(profile.userId());
-
-            if (existingUser.isPresent()) {
-                JwtAuthenticationResponse authResponse =
-                        lineOAuth2Service.loginExistingUser(existingUser.get());
-                issueTokens(authResponse, httpResponse, null);
-                String dn = profile.displayName() != null
-                        ? profile.displayName() : "LINE 用戶";
-                return redirectTo(frontendUrl + "?token=" + authResponse.getAccessToken()
-                        + "&display_name=" + encode(dn));
-            } else {
-                String regToken =
-                        lineOAuth2Service.generatePendingRegistrationToken(profile);
-                String displayName = profile.displayName() != null
-                        ? profile.displayName() : "LINE 用戶";
-                return redirectTo(frontendUrl
-                        + "?registration_token=" + regToken
-                        + "&display_name=" + encode(displayName));
-            }
+        // 等待 LINE 回應期間不佔住 Tomcat 執行緒（Spring MVC 非同步回應）；
+        // 回應在其他執行緒上完成，Cookie 一律放在回傳的 ResponseEntity，不直接改動 HttpServletResponse
+        CompletableFuture<LineUserProfile> profileFuture;
+        try {
+            profileFuture = lineOAuth2Service.fetchUserProfile(code);
         } catch (Exception e) {
-            log.error("LINE OAuth 回調失敗", e);
-            return redirectTo(frontendUrl + "?error="
-                    + encode("LINE 登入失敗：" + e.getMessage()));
+            profileFuture = CompletableFuture.failedFuture(e);
+        }
+        return profileFuture
+                .thenApplyAsync(profile -> lineOAuthRedirect(profile, frontendUrl), applicationTaskExecutor)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error("LINE OAuth 回調失敗", cause);
+                    String message = cause instanceof TimeoutException || cause instanceof HttpTimeoutException
+                            ? "LINE 回應逾時，請重試" : cause.getMessage();
+                    return redirectTo(frontendUrl + "?error="
+                            + encode("LINE 登入失敗：" + message));
+                });
+    }
+
+    private ResponseEntity<Void> lineOAuthRedirect(LineUserProfile profile, String frontendUrl) {
+        var existingUser = lineOAuth2Service.findExistingUser(profile.userId());
+        String displayName = profile.displayName() != null
+                ? profile.displayName() : "LINE 用戶";
+
+        if (existingUser.isPresent()) {
+            JwtAuthenticationResponse authResponse =
+                    lineOAuth2Service.loginExistingUser(existingUser.get());
+            return ResponseEntity.status(302)
+                    .header("Location", frontendUrl + "?token=" + authResponse.getAccessToken()
+                            + "&display_name=" + encode(displayName))
+                    .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(authResponse.getRefreshToken()).toString())
+                    .build();
         }
+        String regToken =
+                lineOAuth2Service.generatePendingRegistrationToken(profile);
+        return redirectTo(frontendUrl
+                + "?registration_token=" + regToken
+                + "&display_name=" + encode(displayName));
     }
 
     /**
@@ -1,22 +1,28 @@
 package com.pet.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pet.domain.IdempotencyKey;
+import com.pet.domain.Booking.BookingStatus;
 import com.pet.dto.BookingDto;
+import com.pet.dto.BookingPageDto;
 import com.pet.dto.BookingStatusUpdateDto;
+import com.pet.dto.request.BatchBookingRequest;
 import com.pet.dto.response.ApiResponse;
 import com.pet.service.BookingService;
 import com.pet.service.CalendarService;
-import com.pet.service.IdempotencyService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -26,22 +32,24 @@ import java.util.UUID;
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final BookingService bookingService;
     private final CalendarService calendarService;
-    private final IdempotencyService idempotencyService;
     private final ObjectMapper objectMapper;
 
     public BookingController(BookingService bookingService, CalendarService calendarService,
-                             IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+                             ObjectMapper objectMapper) {
         this.bookingService = bookingService;
         this.calendarService = calendarService;
-        this.idempotencyService = idempotencyService;
         this.objectMapper = objectMapper;
     }
 
     /**
      * 取得所有預約（管理員用）
      * GET /api/bookings
+     *
+     * 維持原本的完整列表回應格式供既有呼叫端使用；資料量大時請改用 /page 分頁或 /export 匯出
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<BookingDto>>> getAllBookings() {
@@ -49,46 +57,92 @@ public class BookingController {
         return ResponseEntity.ok(ApiResponse.success(bookings));
     }
 
+    /**
+     * 取得所有預約的一頁（管理員用，keyset 分頁）
+     * GET /api/bookings/page?limit={limit}&cursor={nextCursor}
+     *
+     * 依建立時間由新到舊排序；回傳的 nextCursor 帶入下一次請求即可取得下一頁，
+     * nextCursor 為 null 表示已是最後一頁
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<BookingPageDto>> getBookingsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        BookingPageDto page = bookingService.getBookingsPage(cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 各狀態的預約數（管理員用）
+     * GET /api/bookings/status-counts
+     */
+    @GetMapping("/status-counts")
+    public ResponseEntity<ApiResponse<Map<BookingStatus, Long>>> getStatusCounts() {
+        return ResponseEntity.ok(ApiResponse.success(bookingService.getStatusCounts()));
+    }
+
+    /**
+     * 匯出所有預約（管理員用，NDJSON 串流）
+     * GET /api/bookings/export
+     *
+     * 每行一筆 BookingDto JSON，邊查詢邊輸出，不會把整張表載入記憶體
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        StreamingResponseBody body = out -> {
+            try {
+                bookingService.streamAllBookings(booking -> writeLine(out, booking));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings.ndjson\"")
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, BookingDto booking) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(booking));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 建立預約
      * POST /api/bookings?userId={userId}
+     *
+     * 支援 Idempotency-Key（見 IdempotencyFilter）
      */
+    @Idempotent
     @PostMapping
     public ResponseEntity<ApiResponse<BookingDto>> createBooking(
             @Valid @RequestBody BookingDto bookingDto,
-            @RequestParam UUID userId,
-            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
-
-        // 冪等性檢查：若相同 key 已處理過，直接回傳快取結果
-        if (idempotencyKey != null) {
-            IdempotencyKey existing = idempotencyService.checkExisting(idempotencyKey);
-            if (existing != null) {
-                try {
-                    ApiResponse<BookingDto> cachedResponse = objectMapper.readValue(
-                            existing.getResponseBody(),
-                            objectMapper.getTypeFactory().constructParametricType(
-                                    ApiResponse.class, BookingDto.class));
-                    return ResponseEntity.status(existing.getHttpStatus()).body(cachedResponse);
-                } catch (Exception e) {
-                    // 反序列化失敗則重新建立
-                }
-            }
-        }
-
+            @RequestParam UUID userId) {
         BookingDto created = bookingService.createBooking(bookingDto, userId);
-        ApiResponse<BookingDto> response = ApiResponse.success("預約建立成功，等待保母確認", created);
-
-        // 儲存冪等性 key
-        if (idempotencyKey != null) {
-            try {
-                String responseBody = objectMapper.writeValueAsString(response);
-                idempotencyService.save(idempotencyKey, responseBody, HttpStatus.CREATED.value());
-            } catch (Exception e) {
-                // 儲存失敗不影響主流程
-            }
-        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("預約建立成功，等待保母確認", created));
+    }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    /**
+     * 批次建立預約（多隻寵物 / 每週固定時段）
+     * POST /api/bookings/batch?userId={userId}
+     *
+     * 整批在同一交易中驗證與寫入，任何一筆衝突則整批不建立
+     */
+    @Idempotent
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BookingDto>>> createBookings(
+            @Valid @RequestBody BatchBookingRequest request,
+            @RequestParam UUID userId) {
+        List<BookingDto> created = bookingService.createBookings(request.getBookings(), userId);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(
+                        String.format("已建立 %d 筆預約，等待保母確認", created.size()), created));
     }
 
     /**
@@ -210,6 +264,7 @@ public class BookingController {
      * 保母確認預約
      * POST /api/bookings/{id}/confirm
      */
+    @Idempotent
     @PostMapping("/{id}/confirm")
     public ResponseEntity<ApiResponse<BookingDto>> confirmBooking(
             @PathVariable UUID id,
@@ -222,6 +277,7 @@ public class BookingController {
      * 保母拒絕預約
      * POST /api/bookings/{id}/reject
      */
+    @Idempotent
     @PostMapping("/{id}/reject")
     public ResponseEntity<ApiResponse<BookingDto>> rejectBooking(
             @PathVariable UUID id,
@@ -234,6 +290,7 @@ public class BookingController {
      * 取消預約
      * POST /api/bookings/{id}/cancel
      */
+    @Idempotent
     @PostMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<BookingDto>> cancelBooking(
             @PathVariable UUID id,
@@ -246,6 +303,7 @@ public class BookingController {
      * 完成預約
      * POST /api/bookings/{id}/complete
      */
+    @Idempotent
     @PostMapping("/{id}/complete")
     public ResponseEntity<ApiResponse<BookingDto>> completeBooking(@PathVariable UUID id) {
         BookingDto completed = bookingService.completeBooking(id);
@@ -3,6 +3,7 @@ package com.pet.web;
 import com.pet.dto.AvailableSitterDto;
 import com.pet.dto.SitterDto;
 import com.pet.dto.response.ApiResponse;
+import com.pet.service.SitterRankingIndex.Sort;
 import com.pet.service.SitterService;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -65,25 +66,31 @@ public class SitterController {
 
     /**
      * 取得指定日期可用的保母列表
-     * GET /api/sitters/available?date=2026-01-22&startTime=2026-01-22T09:00&endTime=2026-01-22T17:00
+     * GET /api/sitters/available?date=2026-01-22&startTime=2026-01-22T09:00&endTime=2026-01-22T17:00&sort=PRICE_ASC
      * startTime 和 endTime 為可選參數，如果提供則會排除在該時段已有預約的保母
+     * sort 預設為 RATING（貝氏平均評分），另有 PRICE_ASC / PRICE_DESC / COMPLETED_BOOKINGS / EXPERIENCE
      */
     @GetMapping("/available")
     public ResponseEntity<ApiResponse<List<AvailableSitterDto>>> getAvailableSitters(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime startTime,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime endTime) {
-        List<AvailableSitterDto> sitters = sitterService.getAvailableSitters(date, startTime, endTime);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime endTime,
+            @RequestParam(defaultValue = "RATING") Sort sort) {
+        List<AvailableSitterDto> sitters = sitterService.getAvailableSitters(date, startTime, endTime, sort);
         return ResponseEntity.ok(ApiResponse.success(sitters));
     }
 
     /**
-     * 取得所有保母（含評分資訊）
-     * GET /api/sitters/with-rating
+     * 取得所有保母（含評分資訊），依 sort 排序
+     * GET /api/sitters/with-rating?sort=RATING&offset=0&limit=20
+     * 未帶 limit 時回傳全部；offset / limit 可用來分頁（依排序位置，單頁上限 SitterService.MAX_PAGE_SIZE）
      */
     @GetMapping("/with-rating")
-    public ResponseEntity<ApiResponse<List<AvailableSitterDto>>> getAllSittersWithRating() {
-        List<AvailableSitterDto> sitters = sitterService.getAllSittersWithRating();
+    public ResponseEntity<ApiResponse<List<AvailableSitterDto>>> getAllSittersWithRating(
+            @RequestParam(defaultValue = "RATING") Sort sort,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<AvailableSitterDto> sitters = sitterService.getAllSittersWithRating(sort, offset, limit);
         return ResponseEntity.ok(ApiResponse.success(sitters));
     }
 }
@@ -1,8 +1,15 @@
 package com.pet.domain
 
 import jakarta.persistence.*
+import org.springframework.data.domain.Persistable
 import java.time.LocalDateTime
 
+/**
+ * 冪等性 key
+ *
+ * 請求開始時以 IN_PROGRESS 保留（主鍵衝突代表其他請求已保留），完成後寫入原始回應位元組並改為 COMPLETED；
+ * 重送的請求直接回放位元組，不經 Jackson
+ */
 @Entity
 @Table(name = "idempotency_keys")
 class IdempotencyKey(
@@ -10,15 +17,50 @@ class IdempotencyKey(
     @Column(name = "idempotency_key", length = 64)
     val key: String,
 
-    @Column(name = "response_body", columnDefinition = "TEXT")
-    var responseBody: String? = null,
+    /**
+     * 請求指紋（方法 + 路徑 + 內容的 SHA-256），同一個 key 搭配不同請求時拒絕
+     */
+    @Column(name = "request_hash", length = 64)
+    var requestHash: String? = null,
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    var status: Status = Status.IN_PROGRESS,
+
+    @Lob
+    @Column(name = "response_body")
+    var responseBody: ByteArray? = null,
+
+    @Column(name = "content_type", length = 100)
+    var contentType: String? = null,
 
     @Column(name = "http_status")
     var httpStatus: Int = 200,
 
     @Column(name = "created_at")
-    val createdAt: LocalDateTime = LocalDateTime.now(),
+    var createdAt: LocalDateTime = LocalDateTime.now(),
 
     @Column(name = "expires_at")
     val expiresAt: LocalDateTime = LocalDateTime.now().plusHours(24)
-)
+) : Persistable<String> {
+
+    enum class Status {
+        IN_PROGRESS, COMPLETED
+    }
+
+    /**
+     * key 由呼叫端指定，標記新物件讓 save 走 persist（INSERT），主鍵衝突時才會拋出例外，而不是 merge 成 UPDATE
+     */
+    @Transient
+    private var newEntity = true
+
+    override fun getId(): String = key
+
+    override fun isNew(): Boolean = newEntity
+
+    @PostLoad
+    @PostPersist
+    fun markPersisted() {
+        newEntity = false
+    }
+}
@@ -0,0 +1,16 @@
+package com.pet.dto.request
+
+import com.pet.dto.BookingDto
+import jakarta.validation.Valid
+import jakarta.validation.constraints.NotEmpty
+import jakarta.validation.constraints.Size
+
+/**
+ * 批次建立預約請求 DTO（多隻寵物或每週固定時段）
+ */
+data class BatchBookingRequest(
+    @field:NotEmpty(message = "預約清單不能為空")
+    @field:Size(max = 50, message = "單次最多建立 50 筆預約")
+    @field:Valid
+    val bookings: List<BookingDto> = emptyList()
+)
@@ -1,9 +1,57 @@
 package com.pet.repository
 
 import com.pet.domain.IdempotencyKey
+import com.pet.domain.IdempotencyKey.Status
 import org.springframework.data.jpa.repository.JpaRepository
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
 import java.time.LocalDateTime
 
 interface IdempotencyKeyRepository : JpaRepository<IdempotencyKey, String> {
     fun deleteByExpiresAtBefore(time: LocalDateTime): Long
+
+    /**
+     * 寫入回應並標記完成
+     */
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE IdempotencyKey k SET k.status = :status, " +
+            "k.responseBody = :body, k.contentType = :contentType, k.httpStatus = :httpStatus " +
+            "WHERE k.key = :key"
+    )
+    fun complete(
+        @Param("key") key: String,
+        @Param("body") body: ByteArray,
+        @Param("contentType") contentType: String?,
+        @Param("httpStatus") httpStatus: Int,
+        @Param("status") status: Status
+    ): Int
+
+    /**
+     * 接手逾時未完成的保留（保留的節點可能已當機）；只有一個請求能更新成功
+     */
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE IdempotencyKey k SET k.createdAt = :now, k.requestHash = :requestHash " +
+            "WHERE k.key = :key AND k.status = :status AND k.createdAt < :staleBefore"
+    )
+    fun takeOverStale(
+        @Param("key") key: String,
+        @Param("requestHash") requestHash: String,
+        @Param("status") status: Status,
+        @Param("now") now: LocalDateTime,
+        @Param("staleBefore") staleBefore: LocalDateTime
+    ): Int
+
+    /**
+     * 刪除指定狀態的 key（釋放失敗請求的保留、移除已過期的紀錄）
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND k.status = :status")
+    fun deleteByKeyAndStatus(@Param("key") key: String, @Param("status") status: Status): Int
 }
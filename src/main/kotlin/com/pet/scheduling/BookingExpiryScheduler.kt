@@ -1,58 +1,108 @@
 package com.pet.scheduling
 
-import com.pet.domain.Booking.BookingStatus
-import com.pet.repository.BookingRepository
-import com.pet.service.LineMessagingService
+import com.pet.controller.ComponentHealthProvider
+import com.pet.dto.HealthCheckDto.ComponentHealth
+import com.pet.service.BookingExpiryService
+import com.pet.service.BookingSlotIndex
 import org.slf4j.LoggerFactory
 import org.springframework.scheduling.annotation.Scheduled
 import org.springframework.stereotype.Component
-import org.springframework.transaction.annotation.Transactional
-import java.time.LocalDateTime
+import java.util.concurrent.atomic.AtomicLong
 
 /**
- * 預約自動過期排程任務
- * 每小時檢查一次，將超過24小時未回應的 PENDING 預約自動設為 EXPIRED
+ * 預約自動過期補漏掃描
+ * 每筆 PENDING 預約平時由 BookingExpiryTimer 在到期當下過期；
+ * 此排程低頻（預設每小時）掃描，處理計時器漏掉的預約（重啟期間到期、其他節點建立、計時器失敗）
+ *
+ * 以批次處理：每批一個短交易、一個 bulk UPDATE（見 BookingExpiryService），
+ * 避免一次載入所有逾時預約並在單一長交易中逐筆 save；
+ * Log DB 同步與 LINE 通知在同一交易寫入 outbox，由 BookingOutboxRelay 非同步投遞
  */
 @Component
 class BookingExpiryScheduler(
-    private val bookingRepository: BookingRepository,
-    private val lineMessagingService: LineMessagingService
-) {
+    private val bookingExpiryService: BookingExpiryService,
+    private val bookingSlotIndex: BookingSlotIndex
+) : ComponentHealthProvider {
     private val logger = LoggerFactory.getLogger(BookingExpiryScheduler::class.java)
 
+    private val totalExpired = AtomicLong()
+    private val totalChunks = AtomicLong()
+
+    @Volatile
+    private var lastRun: RunStats? = null
+
     /**
-     * 每小時執行一次，檢查並過期超時的預約
+     * 定期執行，分批過期超時的預約
      */
-    @Scheduled(fixedRate = 3600000)
-    @Transactional
+    @Scheduled(fixedDelayString = "\${booking.expiry.sweep-interval-ms:3600000}")
     fun expireOverdueBookings() {
-        val cutoffTime = LocalDateTime.now().minusHours(24)
+        val cutoffTime = bookingExpiryService.cutoffTime()
+        val chunkSize = bookingExpiryService.chunkSize()
+        val maxChunks = bookingExpiryService.maxChunksPerRun()
         logger.info("開始檢查過期預約，截止時間: {}", cutoffTime)
 
-        val overdueBookings = bookingRepository.findByStatusAndCreatedAtBefore(
-            BookingStatus.PENDING, cutoffTime
-        )
+        val runStart = System.nanoTime()
+        var chunks = 0
+        var expired = 0
+        var maxChunkMs = 0L
 
-        if (overdueBookings.isEmpty()) {
-            logger.info("沒有需要過期的預約")
-            return
+        while (chunks < maxChunks) {
+            val chunkStart = System.nanoTime()
+            val result = try {
+                bookingExpiryService.expireChunk(cutoffTime)
+            } catch (e: Exception) {
+                logger.error("過期預約批次處理失敗，剩餘預約留待下次排程: {}", e.message)
+                break
+            }
+            if (result.candidates() == 0) {
+                break
+            }
+            val chunkMs = (System.nanoTime() - chunkStart) / 1_000_000
+            chunks++
+            expired += result.expired().size
+            maxChunkMs = maxOf(maxChunkMs, chunkMs)
+
+            // 交易已 commit，過期即釋放時段
+            result.expired().forEach { bookingSlotIndex.record(it) }
+            logger.debug("過期批次 #{}：候選 {} 筆，過期 {} 筆，耗時 {} ms",
+                chunks, result.candidates(), result.expired().size, chunkMs)
+
+            if (result.candidates() < chunkSize) {
+                break
+            }
         }
 
-        logger.info("找到 {} 筆需要過期的預約", overdueBookings.size)
+        if (chunks >= maxChunks) {
+            logger.warn("已達單次排程批次上限 {}，剩餘的過期預約留待下次排程", maxChunks)
+        }
 
-        for (booking in overdueBookings) {
-            try {
-                booking.status = BookingStatus.EXPIRED
-                bookingRepository.save(booking)
-                logger.info("預約 {} 已自動過期（建立時間: {}）", booking.id, booking.createdAt)
+        val totalMs = (System.nanoTime() - runStart) / 1_000_000
+        totalExpired.addAndGet(expired.toLong())
+        totalChunks.addAndGet(chunks.toLong())
+        lastRun = RunStats(chunks, expired, totalMs, maxChunkMs)
 
-                // 發送 LINE 通知給飼主
-                lineMessagingService.sendBookingExpiredNotification(booking)
-            } catch (e: Exception) {
-                logger.error("處理預約 {} 過期時發生錯誤: {}", booking.id, e.message)
-            }
+        if (expired == 0) {
+            logger.info("沒有需要過期的預約")
+        } else {
+            logger.info("過期預約處理完成，共 {} 批、{} 筆，耗時 {} ms（單批最長 {} ms）",
+                chunks, expired, totalMs, maxChunkMs)
         }
+    }
 
-        logger.info("過期預約處理完成，共處理 {} 筆", overdueBookings.size)
+    override fun componentName(): String = "bookingExpiry"
+
+    override fun health(): ComponentHealth {
+        val run = lastRun ?: return ComponentHealth.up(
+            "lastRun=never, totalExpired=${totalExpired.get()}, totalChunks=${totalChunks.get()}")
+        val avgChunkMs = if (run.chunks == 0) 0 else run.totalMs / run.chunks
+        return ComponentHealth.up(
+            "lastRun: chunks=${run.chunks}, expired=${run.expired}, totalMs=${run.totalMs}, " +
+                "maxChunkMs=${run.maxChunkMs}, avgChunkMs=$avgChunkMs; " +
+                "totalExpired=${totalExpired.get()}, totalChunks=${totalChunks.get()}")
     }
+
+    /**
+     * 最近一次排程的批次統計
+     */
+    private data class RunStats(val chunks: Int, val expired: Int, val totalMs: Long, val maxChunkMs: Long)
 }
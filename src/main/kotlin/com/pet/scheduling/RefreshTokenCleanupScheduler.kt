@@ -0,0 +1,135 @@
+package com.pet.scheduling
+
+import com.pet.controller.ComponentHealthProvider
+import com.pet.dto.HealthCheckDto.ComponentHealth
+import com.pet.security.RefreshTokenService
+import org.slf4j.LoggerFactory
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * 過期 Refresh Token 定期清理
+ *
+ * 單一無上限的 DELETE 在 MSSQL 會升級成表鎖並阻塞登入，因此：
+ * - 只在設定的離峰時段執行（jwt.cleanup.window-start / window-end）
+ * - 每批最多刪除 chunkSize 筆，一批一個短交易（見 RefreshTokenService.deleteExpiredChunk）
+ * - 每隔 interval-ms 開始一輪清理，之後每個 pause-ms 的排程 tick 只處理一批；
+ *   批次之間的暫停由 fixedDelay 提供，不在排程執行緒上 sleep，其他 @Scheduled 工作不受影響
+ * - 離開時段或達到批次上限即結束本輪，剩餘的留給下一輪
+ */
+@Component
+class RefreshTokenCleanupScheduler(
+    private val refreshTokenService: RefreshTokenService
+) : ComponentHealthProvider {
+    private val logger = LoggerFactory.getLogger(RefreshTokenCleanupScheduler::class.java)
+
+    private val totalDeleted = AtomicLong()
+    private val totalChunks = AtomicLong()
+
+    /**
+     * 進行中的一輪清理；只由 processChunk 推進（同一個 @Scheduled 方法不會重疊執行）
+     */
+    private val activeRun = AtomicReference<ActiveRun?>()
+
+    @Volatile
+    private var lastRun: RunStats? = null
+
+    /**
+     * 在清理時段內開始一輪分批刪除過期的 Refresh Token（含已撤銷且過期的）
+     */
+    @Scheduled(
+        fixedDelayString = "\${jwt.cleanup.interval-ms:3600000}",
+        initialDelayString = "\${jwt.cleanup.interval-ms:3600000}"
+    )
+    fun cleanupExpiredTokens() {
+        if (!refreshTokenService.isCleanupEnabled || !refreshTokenService.isWithinCleanupWindow(LocalTime.now())) {
+            return
+        }
+        if (!activeRun.compareAndSet(null, ActiveRun(LocalDateTime.now(), System.nanoTime()))) {
+            logger.info("上一輪 Refresh Token 清理尚未結束，略過本次排程")
+        }
+    }
+
+    /**
+     * 處理進行中那一輪的下一批；沒有進行中的清理時直接返回
+     */
+    @Scheduled(fixedDelayString = "\${jwt.cleanup.pause-ms:200}")
+    fun processChunk() {
+        val run = activeRun.get() ?: return
+        val chunkSize = refreshTokenService.cleanupChunkSize()
+        val maxChunks = refreshTokenService.cleanupMaxChunksPerRun()
+
+        val chunkStart = System.nanoTime()
+        val count = try {
+            refreshTokenService.deleteExpiredChunk(run.cutoff)
+        } catch (e: Exception) {
+            logger.error("Refresh Token 清理批次失敗，剩餘的留待下次排程: {}", e.message)
+            finish(run)
+            return
+        }
+        if (count == 0) {
+            finish(run)
+            return
+        }
+        val chunkMs = (System.nanoTime() - chunkStart) / 1_000_000
+        run.chunks++
+        run.deleted += count
+        run.maxChunkMs = maxOf(run.maxChunkMs, chunkMs)
+        logger.info("Refresh Token 清理批次 #{}：刪除 {} 筆，耗時 {} ms", run.chunks, count, chunkMs)
+
+        when {
+            count < chunkSize -> finish(run)
+            run.chunks >= maxChunks -> {
+                logger.warn("已達單次排程批次上限 {}，剩餘的過期 Refresh Token 留待下次排程", maxChunks)
+                finish(run)
+            }
+            !refreshTokenService.isWithinCleanupWindow(LocalTime.now()) -> {
+                logger.info("已離開清理時段，剩餘的過期 Refresh Token 留待下次排程")
+                finish(run)
+            }
+        }
+    }
+
+    private fun finish(run: ActiveRun) {
+        activeRun.set(null)
+        val totalMs = (System.nanoTime() - run.startNanos) / 1_000_000
+        totalDeleted.addAndGet(run.deleted.toLong())
+        totalChunks.addAndGet(run.chunks.toLong())
+        lastRun = RunStats(run.chunks, run.deleted, totalMs, run.maxChunkMs)
+
+        if (run.deleted > 0) {
+            logger.info("Refresh Token 清理完成，共 {} 批、{} 筆，耗時 {} ms（單批最長 {} ms）",
+                run.chunks, run.deleted, totalMs, run.maxChunkMs)
+        }
+    }
+
+    override fun componentName(): String = "refreshTokenCleanup"
+
+    override fun health(): ComponentHealth {
+        val run = lastRun ?: return ComponentHealth.up(
+            "lastRun=never, totalDeleted=${totalDeleted.get()}, totalChunks=${totalChunks.get()}")
+        val avgChunkMs = if (run.chunks == 0) 0 else run.totalMs / run.chunks
+        return ComponentHealth.up(
+            "lastRun: chunks=${run.chunks}, deleted=${run.deleted}, totalMs=${run.totalMs}, " +
+                "maxChunkMs=${run.maxChunkMs}, avgChunkMs=$avgChunkMs; " +
+                "totalDeleted=${totalDeleted.get()}, totalChunks=${totalChunks.get()}")
+    }
+
+    /**
+     * 進行中一輪的狀態，cutoff 在開始時固定，整輪使用同一個時間點
+     */
+    private class ActiveRun(val cutoff: LocalDateTime, val startNanos: Long) {
+        var chunks = 0
+        var deleted = 0
+        var maxChunkMs = 0L
+    }
+
+    /**
+     * 最近一次排程的批次統計
+     */
+    private data class RunStats(val chunks: Int, val deleted: Int, val totalMs: Long, val maxChunkMs: Long)
+}
@@ -0,0 +1,82 @@
+package com.pet.scheduling
+
+import com.pet.controller.ComponentHealthProvider
+import com.pet.dto.HealthCheckDto.ComponentHealth
+import com.pet.service.SitterRatingSummaryService
+import org.slf4j.LoggerFactory
+import org.springframework.boot.context.event.ApplicationReadyEvent
+import org.springframework.context.event.EventListener
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 保母評價彙總對帳
+ * sitter_rating_summary 在評價建立時增量維護；此排程低頻（預設每天凌晨）以 GROUP BY 比對 sitter_rating，
+ * 修正直接改資料庫、刪除評價或部署前既有評價造成的差異
+ *
+ * 比對只讀取兩個查詢；有差異的保母各自一個短交易（鎖定彙總列後重新計算）
+ */
+@Component
+class SitterRatingReconcileScheduler(
+    private val sitterRatingSummaryService: SitterRatingSummaryService
+) : ComponentHealthProvider {
+    private val logger = LoggerFactory.getLogger(SitterRatingReconcileScheduler::class.java)
+
+    private val totalFixed = AtomicLong()
+
+    @Volatile
+    private var lastRun: RunStats? = null
+
+    /**
+     * 首次部署時彙總表為空：立即以對帳補齊既有評價
+     */
+    @EventListener(ApplicationReadyEvent::class)
+    fun backfillIfEmpty() {
+        if (sitterRatingSummaryService.needsBackfill()) {
+            reconcile()
+        }
+    }
+
+    @Scheduled(cron = "\${rating.summary.reconcile-cron:0 30 4 * * *}")
+    fun reconcile() {
+        val start = System.nanoTime()
+        val drifted = sitterRatingSummaryService.findDriftedSitterIds()
+        var fixed = 0
+        var failures = 0
+        drifted.forEach { sitterId ->
+            try {
+                if (sitterRatingSummaryService.reconcile(sitterId)) {
+                    fixed++
+                }
+            } catch (e: Exception) {
+                failures++
+                logger.error("保母評價彙總對帳失敗: sitterId={}, {}", sitterId, e.message)
+            }
+        }
+
+        val totalMs = (System.nanoTime() - start) / 1_000_000
+        totalFixed.addAndGet(fixed.toLong())
+        lastRun = RunStats(drifted.size, fixed, failures, totalMs)
+        if (drifted.isEmpty()) {
+            logger.info("保母評價彙總對帳完成，沒有差異，耗時 {} ms", totalMs)
+        } else {
+            logger.warn("保母評價彙總對帳完成，差異 {} 位、修正 {} 位、失敗 {} 位，耗時 {} ms",
+                drifted.size, fixed, failures, totalMs)
+        }
+    }
+
+    override fun componentName(): String = "ratingSummaryReconcile"
+
+    override fun health(): ComponentHealth {
+        val run = lastRun ?: return ComponentHealth.up("lastRun=never, totalFixed=${totalFixed.get()}")
+        return ComponentHealth.up(
+            "lastRun: drifted=${run.drifted}, fixed=${run.fixed}, failures=${run.failures}, totalMs=${run.totalMs}; " +
+                "totalFixed=${totalFixed.get()}")
+    }
+
+    /**
+     * 最近一次對帳的統計
+     */
+    private data class RunStats(val drifted: Int, val fixed: Int, val failures: Int, val totalMs: Long)
+}
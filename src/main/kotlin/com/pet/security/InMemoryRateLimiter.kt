@@ -0,0 +1,73 @@
+package com.pet.security
+
+import com.pet.security.RateLimiter.KeyType
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 單節點 Token Bucket 速率限制器（記憶體內）
+ *
+ * 以 GCRA（Generic Cell Rate Algorithm）實作：每個 key 只保存一個 long —
+ * 「理論抵達時間」TAT（System.nanoTime 基準）。TAT 與現在的差距即為已用掉的 token，
+ * 因此 token 數與時間戳合併在同一個 long，以 AtomicLong CAS 更新，lock-free 且 thread-safe。
+ *
+ * - 每次請求不建立任何物件（bucket 只在 key 第一次出現時建立）
+ * - 使用者與 IP 分開存放，呼叫端不需要組合 "user:..." / "ip:..." 字串
+ * - TAT 不晚於現在代表 bucket 已補滿，與新建立的 bucket 等價，可直接移除；
+ *   由 evictIdle 在背景定期清除，不在請求執行緒上掃描
+ */
+class InMemoryRateLimiter(
+    override val maxTokens: Int = 60,
+    refillRate: Double = 1.0
+) : RateLimiter {
+
+    /**
+     * 補充一個 token 所需的時間（奈秒）
+     */
+    private val intervalNanos: Long = (1_000_000_000.0 / refillRate).toLong().coerceAtLeast(1)
+
+    /**
+     * bucket 全滿時 TAT 與現在的最大差距（奈秒）
+     */
+    private val capacityNanos: Long = intervalNanos * maxTokens
+
+    private val buckets = Array(KeyType.entries.size) { ConcurrentHashMap<String, AtomicLong>() }
+
+    override fun tryConsume(type: KeyType, key: String): Int {
+        val map = buckets[type.ordinal]
+        val bucket = map[key] ?: map.computeIfAbsent(key) { AtomicLong(System.nanoTime()) }
+
+        while (true) {
+            val tat = bucket.get()
+            val now = System.nanoTime()
+            val newTat = (if (tat - now > 0) tat else now) + intervalNanos
+            val used = newTat - now
+            if (used > capacityNanos) {
+                return RateLimiter.REJECTED
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return ((capacityNanos - used) / intervalNanos).toInt()
+            }
+        }
+    }
+
+    /**
+     * 移除已補滿的 bucket（重新建立的 bucket 狀態相同，不影響限流結果）
+     */
+    override fun evictIdle(): Int {
+        val now = System.nanoTime()
+        var removed = 0
+        for (map in buckets) {
+            val it = map.values.iterator()
+            while (it.hasNext()) {
+                if (now - it.next().get() >= 0) {
+                    it.remove()
+                    removed++
+                }
+            }
+        }
+        return removed
+    }
+
+    fun size(): Int = buckets.sumOf { it.size }
+}
@@ -0,0 +1,40 @@
+package com.pet.security
+
+import com.pet.security.RateLimitTokenStore.Companion.EXHAUSTED
+import com.pet.security.RateLimitTokenStore.Companion.advance
+import com.pet.security.RateLimitTokenStore.Companion.available
+import com.pet.security.RateLimitTokenStore.TokenGrant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 記憶體內的 [RateLimitTokenStore]，語意與 Redis 之類的共享儲存相同（單一 key 原子更新），
+ * 供單機環境或測試模擬多節點共用同一個 store
+ */
+class InMemoryTokenStore : RateLimitTokenStore {
+
+    private val buckets = ConcurrentHashMap<String, AtomicLong>()
+
+    override fun acquire(key: String, permits: Int, intervalMillis: Long, capacityMillis: Long): TokenGrant {
+        val bucket = buckets.computeIfAbsent(key) { AtomicLong(System.currentTimeMillis()) }
+        while (true) {
+            val tat = bucket.get()
+            val now = System.currentTimeMillis()
+            val available = available(tat, now, intervalMillis, capacityMillis)
+            if (available <= 0) {
+                return EXHAUSTED
+            }
+            val granted = minOf(permits, available)
+            if (bucket.compareAndSet(tat, advance(tat, now, intervalMillis, granted))) {
+                return TokenGrant(granted, available - granted)
+            }
+        }
+    }
+
+    override fun evictIdle(): Int {
+        val now = System.currentTimeMillis()
+        val sizeBefore = buckets.size
+        buckets.values.removeIf { it.get() <= now }
+        return sizeBefore - buckets.size
+    }
+}
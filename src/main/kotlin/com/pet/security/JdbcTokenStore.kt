@@ -0,0 +1,58 @@
+package com.pet.security
+
+import com.pet.security.RateLimitTokenStore.Companion.EXHAUSTED
+import com.pet.security.RateLimitTokenStore.Companion.advance
+import com.pet.security.RateLimitTokenStore.Companion.available
+import com.pet.security.RateLimitTokenStore.TokenGrant
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.jdbc.core.JdbcTemplate
+
+/**
+ * 以主資料庫 rate_limit_bucket 表實作的 [RateLimitTokenStore]
+ *
+ * 每個 bucket 一列（bucket_key, tat_millis），以條件式 UPDATE（WHERE tat_millis = 讀到的值）做 CAS，
+ * 不需要資料列鎖，也不需要交易；第一次出現的 key 以 INSERT 建立，主鍵衝突時重試
+ */
+class JdbcTokenStore(private val jdbcTemplate: JdbcTemplate) : RateLimitTokenStore {
+
+    override fun acquire(key: String, permits: Int, intervalMillis: Long, capacityMillis: Long): TokenGrant {
+        repeat(MAX_ATTEMPTS) {
+            val now = System.currentTimeMillis()
+            val tat = jdbcTemplate.query(SELECT_SQL, { rs, _ -> rs.getLong(1) }, key).firstOrNull()
+            val current = tat ?: now
+            val available = available(current, now, intervalMillis, capacityMillis)
+            if (available <= 0) {
+                return EXHAUSTED
+            }
+            val granted = minOf(permits, available)
+            val newTat = advance(current, now, intervalMillis, granted)
+
+            val stored = if (tat == null) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, key, newTat) == 1
+                } catch (e: DuplicateKeyException) {
+                    false
+                }
+            } else {
+                jdbcTemplate.update(UPDATE_SQL, newTat, key, tat) == 1
+            }
+            if (stored) {
+                return TokenGrant(granted, available - granted)
+            }
+        }
+        // 同一個 key 競爭激烈（多節點同時補租約），視為用盡，由呼叫端稍後重試
+        return EXHAUSTED
+    }
+
+    override fun evictIdle(): Int =
+        jdbcTemplate.update(DELETE_IDLE_SQL, System.currentTimeMillis())
+
+    companion object {
+        private const val MAX_ATTEMPTS = 5
+        private const val SELECT_SQL = "SELECT tat_millis FROM rate_limit_bucket WHERE bucket_key = ?"
+        private const val INSERT_SQL = "INSERT INTO rate_limit_bucket (bucket_key, tat_millis) VALUES (?, ?)"
+        private const val UPDATE_SQL =
+            "UPDATE rate_limit_bucket SET tat_millis = ? WHERE bucket_key = ? AND tat_millis = ?"
+        private const val DELETE_IDLE_SQL = "DELETE FROM rate_limit_bucket WHERE tat_millis <= ?"
+    }
+}
@@ -0,0 +1,133 @@
+package com.pet.security
+
+import com.pet.security.RateLimiter.KeyType
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 多節點共用額度的速率限制器
+ *
+ * bucket 保存在共享儲存（[RateLimitTokenStore]），各節點一次向共享 bucket 租用 leaseSize 個 token，
+ * 在本機以 CAS 消耗，用完或租約到期才再存取共享儲存：
+ *
+ * - 各節點合計不會超過共享 bucket 的額度（最多多出「尚未用完的租約」）
+ * - leaseSize = 1 時每次請求都存取共享儲存，適合額度很小、需要精準的限制（例如預約防搶）
+ * - 共享 bucket 用盡後，在補充下一個 token 之前直接在本機拒絕，被拒絕的請求不會打到共享儲存
+ * - 共享儲存故障時改用本機 [InMemoryRateLimiter]（fail-open 到單節點額度），不讓限流拖垮 API
+ */
+class LeasedRateLimiter(
+    private val name: String,
+    override val maxTokens: Int,
+    refillRate: Double,
+    private val leaseSize: Int,
+    private val leaseTtlMillis: Long,
+    private val store: RateLimitTokenStore
+) : RateLimiter {
+
+    private val log = LoggerFactory.getLogger(LeasedRateLimiter::class.java)
+
+    private val intervalMillis: Long = (1000.0 / refillRate).toLong().coerceAtLeast(1)
+    private val capacityMillis: Long = intervalMillis * maxTokens
+
+    private val leases = Array(KeyType.entries.size) { ConcurrentHashMap<String, Lease>() }
+
+    private val fallback = InMemoryRateLimiter(maxTokens, refillRate)
+
+    /**
+     * 本機持有的租約
+     */
+    private class Lease {
+        val tokens = AtomicInteger()
+
+        @Volatile
+        var expiresAt = 0L
+
+        /**
+         * 租用當下共享 bucket 剩餘的 token 數（僅用於回報剩餘額度）
+         */
+        @Volatile
+        var sharedRemaining = 0
+
+        /**
+         * 共享 bucket 用盡時，在這個時間之前直接拒絕
+         */
+        @Volatile
+        var rejectUntil = 0L
+    }
+
+    override fun tryConsume(type: KeyType, key: String): Int {
+        val map = leases[type.ordinal]
+        val lease = map[key] ?: map.computeIfAbsent(key) { Lease() }
+
+        val local = takeLocal(lease)
+        if (local >= 0) {
+            return local
+        }
+        if (System.currentTimeMillis() < lease.rejectUntil) {
+            return RateLimiter.REJECTED
+        }
+
+        synchronized(lease) {
+            // 其他執行緒可能已經補好租約
+            val renewed = takeLocal(lease)
+            if (renewed >= 0) {
+                return renewed
+            }
+
+            val grant = try {
+                store.acquire("$name:${type.name}:$key", leaseSize, intervalMillis, capacityMillis)
+            } catch (e: Exception) {
+                log.warn("Rate limit store unavailable, falling back to local limiter: {}", e.message)
+                return fallback.tryConsume(type, key)
+            }
+
+            val now = System.currentTimeMillis()
+            if (grant.granted == 0) {
+                lease.rejectUntil = now + intervalMillis
+                return RateLimiter.REJECTED
+            }
+            lease.sharedRemaining = grant.remaining
+            lease.tokens.set(grant.granted - 1)
+            lease.expiresAt = now + leaseTtlMillis
+            return grant.remaining + grant.granted - 1
+        }
+    }
+
+    private fun takeLocal(lease: Lease): Int {
+        if (System.currentTimeMillis() >= lease.expiresAt) {
+            return RateLimiter.REJECTED
+        }
+        while (true) {
+            val tokens = lease.tokens.get()
+            if (tokens <= 0) {
+                return RateLimiter.REJECTED
+            }
+            if (lease.tokens.compareAndSet(tokens, tokens - 1)) {
+                return lease.sharedRemaining + tokens - 1
+            }
+        }
+    }
+
+    override fun evictIdle(): Int {
+        val now = System.currentTimeMillis()
+        var removed = 0
+        for (map in leases) {
+            val it = map.values.iterator()
+            while (it.hasNext()) {
+                val lease = it.next()
+                if (now >= lease.expiresAt && now >= lease.rejectUntil) {
+                    it.remove()
+                    removed++
+                }
+            }
+        }
+        removed += fallback.evictIdle()
+        try {
+            store.evictIdle()
+        } catch (e: Exception) {
+            log.warn("Failed to evict idle rate limit buckets from store: {}", e.message)
+        }
+        return removed
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.servlet.FilterChain
 import jakarta.servlet.http.HttpServletRequest
 import jakarta.servlet.http.HttpServletResponse
 import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.http.MediaType
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.security.core.Authentication
 import org.springframework.security.core.context.SecurityContextHolder
 import org.springframework.stereotype.Component
 import org.springframework.web.filter.OncePerRequestFilter
@@ -14,30 +17,37 @@ import org.springframework.web.filter.OncePerRequestFilter
  * - 已認證用戶：以 userId 為 key
  * - 未認證用戶：以 IP 為 key
  * - POST /api/bookings：10 次/分鐘（防搶約）
+ * - POST /api/bookings/batch：一次最多 50 筆預約，使用獨立且更嚴格的 bucket（連續 2 次，之後 1 次/分鐘）
  * - 其他 API：60 次/分鐘
+ * - 額度與儲存位置（單節點記憶體 / 多節點共用）見 RateLimitProperties、RateLimitConfig
  */
 @Component
-class RateLimitFilter : OncePerRequestFilter() {
+class RateLimitFilter(
+    @Qualifier("generalRateLimiter") private val generalLimiter: RateLimiter,
+    @Qualifier("bookingRateLimiter") private val bookingLimiter: RateLimiter,
+    @Qualifier("batchBookingRateLimiter") private val batchBookingLimiter: RateLimiter
+) : OncePerRequestFilter() {
 
     private val log = LoggerFactory.getLogger(RateLimitFilter::class.java)
 
-    private val generalLimiter = RateLimiter(maxTokens = 60, refillRate = 1.0)
-    private val bookingLimiter = RateLimiter(maxTokens = 10, refillRate = 10.0 / 60.0)
-
     override fun doFilterInternal(
         request: HttpServletRequest,
         response: HttpServletResponse,
         filterChain: FilterChain
     ) {
-        val key = resolveKey(request)
         val limiter = selectLimiter(request)
-        val (allowed, remaining) = limiter.tryConsume(key)
+        val auth = SecurityContextHolder.getContext().authentication
+        val remaining = if (auth != null && auth.isAuthenticated && auth.principal != "anonymousUser") {
+            limiter.tryConsume(RateLimiter.KeyType.USER, auth.name)
+        } else {
+            limiter.tryConsume(RateLimiter.KeyType.IP, getClientIp(request))
+        }
 
         response.setHeader("X-RateLimit-Limit", limiter.maxTokens.toString())
-        response.setHeader("X-RateLimit-Remaining", remaining.toInt().toString())
+        response.setHeader("X-RateLimit-Remaining", remaining.coerceAtLeast(0).toString())
 
-        if (!allowed) {
-            log.warn("Rate limit exceeded for key: {}, path: {}", key, request.requestURI)
+        if (remaining == RateLimiter.REJECTED) {
+            log.warn("Rate limit exceeded for key: {}, path: {}", resolveKey(auth, request), request.requestURI)
             response.status = 429
             response.contentType = MediaType.APPLICATION_JSON_VALUE
             response.characterEncoding = "UTF-8"
@@ -49,8 +59,21 @@ class RateLimitFilter : OncePerRequestFilter() {
         filterChain.doFilter(request, response)
     }
 
-    private fun resolveKey(request: HttpServletRequest): String {
-        val auth = SecurityContextHolder.getContext().authentication
+    /**
+     * 每 10 分鐘在背景移除已補滿的 bucket，避免在請求執行緒上掃描整個 map
+     */
+    @Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+    fun evictIdleBuckets() {
+        val removed = generalLimiter.evictIdle() + bookingLimiter.evictIdle() + batchBookingLimiter.evictIdle()
+        if (removed > 0) {
+            log.debug("Evicted {} idle rate limit buckets", removed)
+        }
+    }
+
+    /**
+     * 只在被拒絕時組合，用於記錄日誌
+     */
+    private fun resolveKey(auth: Authentication?, request: HttpServletRequest): String {
         if (auth != null && auth.isAuthenticated && auth.principal != "anonymousUser") {
             return "user:${auth.name}"
         }
@@ -59,16 +82,29 @@ class RateLimitFilter : OncePerRequestFilter() {
 
     private fun getClientIp(request: HttpServletRequest): String {
         val xff = request.getHeader("X-Forwarded-For")
-        if (!xff.isNullOrBlank()) return xff.split(",")[0].trim()
+        if (!xff.isNullOrBlank()) {
+            val comma = xff.indexOf(',')
+            return (if (comma < 0) xff else xff.substring(0, comma)).trim()
+        }
         val xri = request.getHeader("X-Real-IP")
         if (!xri.isNullOrBlank()) return xri.trim()
         return request.remoteAddr
     }
 
     private fun selectLimiter(request: HttpServletRequest): RateLimiter {
-        if (request.method == "POST" && request.requestURI.matches(Regex("^/api/bookings/?$"))) {
-            return bookingLimiter
+        if (request.method == "POST") {
+            if (BOOKING_POST_PATH.matches(request.requestURI)) {
+                return bookingLimiter
+            }
+            if (BATCH_BOOKING_POST_PATH.matches(request.requestURI)) {
+                return batchBookingLimiter
+            }
         }
         return generalLimiter
     }
+
+    companion object {
+        private val BOOKING_POST_PATH = Regex("^/api/bookings/?$")
+        private val BATCH_BOOKING_POST_PATH = Regex("^/api/bookings/batch/?$")
+    }
 }
@@ -0,0 +1,46 @@
+package com.pet.security
+
+/**
+ * 多節點共用的 token bucket 儲存
+ *
+ * bucket 以 GCRA 表示：每個 key 只保存「理論抵達時間」TAT（epoch 毫秒，各節點需校時），
+ * TAT 與現在的差距即為已用掉的 token，TAT 不晚於現在代表 bucket 已補滿
+ */
+interface RateLimitTokenStore {
+
+    /**
+     * 從共享 bucket 一次取出最多 permits 個 token（不足時取出剩下的全部）
+     *
+     * @param intervalMillis 補充一個 token 所需的時間
+     * @param capacityMillis bucket 全滿時 TAT 與現在的最大差距（intervalMillis * 容量）
+     */
+    fun acquire(key: String, permits: Int, intervalMillis: Long, capacityMillis: Long): TokenGrant
+
+    /**
+     * 移除已補滿的 bucket
+     * @return 移除數量
+     */
+    fun evictIdle(): Int
+
+    /**
+     * @param granted 實際取得的 token 數，0 表示 bucket 已用盡
+     * @param remaining 取出後共享 bucket 剩餘的 token 數
+     */
+    data class TokenGrant(val granted: Int, val remaining: Int)
+
+    companion object {
+        val EXHAUSTED = TokenGrant(0, 0)
+
+        /**
+         * 目前可取用的 token 數
+         */
+        fun available(tat: Long, now: Long, intervalMillis: Long, capacityMillis: Long): Int =
+            ((capacityMillis - (maxOf(tat, now) - now)) / intervalMillis).toInt()
+
+        /**
+         * 取出 granted 個 token 後的 TAT
+         */
+        fun advance(tat: Long, now: Long, intervalMillis: Long, granted: Int): Long =
+            maxOf(tat, now) + granted * intervalMillis
+    }
+}
@@ -1,64 +1,34 @@
 package com.pet.security
 
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.atomic.AtomicReference
-
 /**
- * Token Bucket 速率限制器
- * 使用 in-memory ConcurrentHashMap + CAS 實作，lock-free 且 thread-safe
+ * 速率限制器 SPI
+ *
+ * - [InMemoryRateLimiter]：單節點，bucket 保存在本機記憶體
+ * - [LeasedRateLimiter]：多節點，bucket 保存在共享儲存（[RateLimitTokenStore]），
+ *   各節點一次租用數個 token 在本機消耗，大部分請求不需要存取共享儲存
  */
-class RateLimiter(
-    val maxTokens: Int = 60,
-    private val refillRate: Double = 1.0,
-    private val cleanupIntervalMs: Long = 600_000
-) {
-
-    private data class TokenBucket(
-        val tokens: Double,
-        val lastRefillTimestamp: Long
-    )
+interface RateLimiter {
 
-    private val buckets = ConcurrentHashMap<String, AtomicReference<TokenBucket>>()
+    enum class KeyType { USER, IP }
 
-    @Volatile
-    private var lastCleanupTimestamp: Long = System.nanoTime()
+    /**
+     * bucket 容量（每個 key 可累積的 token 上限）
+     */
+    val maxTokens: Int
 
     /**
      * 嘗試消耗一個 token
-     * @return Pair(是否允許, 剩餘 token 數)
+     * @return 允許時回傳剩餘 token 數（>= 0），拒絕時回傳 [REJECTED]
      */
-    fun tryConsume(key: String): Pair<Boolean, Double> {
-        cleanupIfNeeded()
-
-        val bucketRef = buckets.computeIfAbsent(key) {
-            AtomicReference(TokenBucket(maxTokens.toDouble(), System.nanoTime()))
-        }
-
-        while (true) {
-            val current = bucketRef.get()
-            val now = System.nanoTime()
-            val elapsedSeconds = (now - current.lastRefillTimestamp) / 1_000_000_000.0
-            val refilled = (current.tokens + elapsedSeconds * refillRate).coerceAtMost(maxTokens.toDouble())
+    fun tryConsume(type: KeyType, key: String): Int
 
-            if (refilled < 1.0) {
-                return Pair(false, 0.0)
-            }
-
-            val updated = TokenBucket(refilled - 1.0, now)
-            if (bucketRef.compareAndSet(current, updated)) {
-                return Pair(true, updated.tokens)
-            }
-        }
-    }
-
-    private fun cleanupIfNeeded() {
-        val now = System.nanoTime()
-        if ((now - lastCleanupTimestamp) / 1_000_000 < cleanupIntervalMs) return
-        lastCleanupTimestamp = now
+    /**
+     * 移除閒置的 bucket / 租約，由背景排程呼叫
+     * @return 移除數量
+     */
+    fun evictIdle(): Int
 
-        val staleThresholdNs = cleanupIntervalMs * 1_000_000
-        buckets.entries.removeIf { (_, ref) ->
-            (now - ref.get().lastRefillTimestamp) > staleThresholdNs
-        }
+    companion object {
+        const val REJECTED = -1
     }
 }
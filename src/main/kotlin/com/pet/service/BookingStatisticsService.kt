@@ -1,16 +1,19 @@
 package com.pet.service
 
-import com.pet.domain.Booking
+import com.pet.domain.Booking.BookingStatus
 import com.pet.dto.response.*
 import com.pet.repository.BookingRepository
 import com.pet.repository.SitterRatingRepository
-import com.pet.util.DateTimeUtils
 import com.pet.util.DateTimeUtils.getEndOfCurrentMonth
 import com.pet.util.DateTimeUtils.getEndOfCurrentWeek
 import com.pet.util.DateTimeUtils.getRecentDates
 import com.pet.util.DateTimeUtils.getStartOfCurrentMonth
 import com.pet.util.DateTimeUtils.getStartOfCurrentWeek
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.data.domain.PageRequest
 import org.springframework.stereotype.Service
+import java.time.LocalDate
+import java.time.LocalTime
 import java.util.*
 
 /**
@@ -20,23 +23,39 @@ import java.util.*
  * 1. 預約統計（本月總數、待確認、已完成、拒絕/取消）
  * 2. 收入統計（本月收入、本週收入、每日趨勢）
  * 3. 評價統計（平均評分、五星比例、星級分布、最新評價）
+ *
+ * 預約與收入統計讀取 sitter_daily_stats 彙總（每天最多一列，由 SitterDailyStatsService 增量維護），
+ * 不掃描 booking；評價統計讀取同一張表的星級分布。
+ * booking.statistics.use-rollup=false 時改為直接彙總：本月各狀態數（GROUP BY status）、
+ * 每日已完成收入（GROUP BY 建立日期）與星級分布（GROUP BY overallRating）各一個查詢，都不載入實體
  */
 @Service
 class BookingStatisticsService(
+    private val sitterDailyStatsService: SitterDailyStatsService,
     private val bookingRepository: BookingRepository,
-    private val sitterRatingRepository: SitterRatingRepository
+    private val sitterRatingRepository: SitterRatingRepository,
+    private val sitterStatisticsCache: SitterStatisticsCache,
+    @Value("\${booking.statistics.use-rollup:true}") private val useRollup: Boolean
 ) {
 
     /**
      * 取得保母的完整統計資料
      *
+     * 本月、本週與最近 7 天的資料一次讀出；結果由 SitterStatisticsCache 快取，
+     * 預約或評價變更後可能先回傳舊值並在背景重新計算
+     *
      * @param sitterId 保母 ID
      * @return 包含預約、收入、評價的完整統計
      */
-    fun getStatistics(sitterId: UUID): BookingStatisticsResponse {
+    fun getStatistics(sitterId: UUID): BookingStatisticsResponse =
+        sitterStatisticsCache.get(sitterId) { computeStatistics(sitterId) }
+
+    private fun computeStatistics(sitterId: UUID): BookingStatisticsResponse {
+        val window = StatsWindow.current()
+        val data = loadData(sitterId, window)
         return BookingStatisticsResponse(
-            bookingStats = getBookingStats(sitterId),
-            revenueStats = getRevenueStats(sitterId),
+            bookingStats = BookingStats(currentMonth = data.month),
+            revenueStats = revenueStats(data, window),
             ratingStats = getRatingStats(sitterId)
         )
     }
@@ -48,22 +67,7 @@ class BookingStatisticsService(
      * @return 本月預約統計（總數、待確認、已完成、拒絕/取消）
      */
     fun getBookingStats(sitterId: UUID): BookingStats {
-        val start = getStartOfCurrentMonth()
-        val end = getEndOfCurrentMonth()
-
-        // 查詢本月所有的預約
-        val bookings = bookingRepository.findBySitterIdAndCreatedAtBetween(sitterId, start, end)
-
-        val monthlyStats = MonthlyBookingStats(
-            total = bookings.size.toLong(),
-            pending = bookings.count { it.getStatus() == Booking.BookingStatus.PENDING }.toLong(),
-            completed = bookings.count { it.getStatus() == Booking.BookingStatus.COMPLETED }.toLong(),
-            rejectedOrCancelled = bookings.count {
-                it.getStatus() == Booking.BookingStatus.REJECTED || it.getStatus() == Booking.BookingStatus.CANCELLED
-            }.toLong()
-        )
-
-        return BookingStats(currentMonth = monthlyStats)
+        return BookingStats(currentMonth = loadData(sitterId, StatsWindow.current()).month)
     }
 
     /**
@@ -73,45 +77,8 @@ class BookingStatisticsService(
      * @return 收入統計（本月收入、本週收入、每日趨勢）
      */
     fun getRevenueStats(sitterId: UUID): RevenueStats {
-        val monthlyRevenue = bookingRepository.sumRevenueByCompletedBookings(
-            sitterId,
-            getStartOfCurrentMonth(),
-            getEndOfCurrentMonth()
-        ) ?: 0.0
-
-        val weeklyRevenue = bookingRepository.sumRevenueByCompletedBookings(
-            sitterId,
-            getStartOfCurrentWeek(),
-            getEndOfCurrentWeek()
-        ) ?: 0.0
-
-        // 優化每日趨勢查詢：
-        // 1. 取得最近 7 天的日期列表
-        val recentDates = getRecentDates(7)
-        val startDate = DateTimeUtils.getStartOfDay(recentDates.first())
-        val endDate = DateTimeUtils.getEndOfDay(recentDates.last())
-
-        // 2. 一次性查詢這 7 天內所有的已完成預約，避免 N+1
-        val recentBookings = bookingRepository.findBySitterIdAndCreatedAtBetween(sitterId, startDate, endDate)
-            .filter { it.getStatus() == Booking.BookingStatus.COMPLETED }
-
-        // 3. 按日期分組統計
-        val bookingsByDate = recentBookings.groupBy { it.getCreatedAt().toLocalDate() }
-
-        val dailyTrend = recentDates.map { date ->
-            val dayBookings = bookingsByDate[date] ?: emptyList()
-            DailyRevenue(
-                date = date,
-                revenue = dayBookings.sumOf { it.getTotalPrice() ?: 0.0 },
-                bookingCount = dayBookings.size.toLong()
-            )
-        }
-
-        return RevenueStats(
-            monthlyRevenue = monthlyRevenue,
-            weeklyRevenue = weeklyRevenue,
-            dailyTrend = dailyTrend
-        )
+        val window = StatsWindow.current()
+        return revenueStats(loadData(sitterId, window), window)
     }
 
     /**
@@ -122,17 +89,14 @@ class BookingStatisticsService(
      * @return 評價統計（平均分、五星比例、星級分布、最新評價）
      */
     fun getRatingStats(sitterId: UUID, limit: Int = 5): RatingStats {
-        val averageRating = sitterRatingRepository.calculateAverageRating(sitterId) ?: 0.0
-        val totalRatings = sitterRatingRepository.countBySitter_Id(sitterId)
-
         // 星級分佈
-        val starCounts = sitterRatingRepository.countRatingsByStars(sitterId)
-        val starDistribution = mutableMapOf<Int, Long>()
-        (1..5).forEach { starDistribution[it] = 0L }
-        starCounts.forEach {
-            val star = it[0] as Int
-            val count = it[1] as Long
-            starDistribution[star] = count
+        val histogram = ratingHistogram(sitterId)
+        val starDistribution = (1..5).associateWith { histogram[it] }
+        val totalRatings = starDistribution.values.sum()
+        val averageRating = if (totalRatings > 0) {
+            starDistribution.entries.sumOf { (star, count) -> star * count }.toDouble() / totalRatings
+        } else {
+            0.0
         }
 
         // 五星比例
@@ -144,8 +108,7 @@ class BookingStatisticsService(
         }
 
         // 最新評價
-        val latestRatingsRaw = sitterRatingRepository.findBySitterIdOrderByCreatedAtDesc(sitterId)
-        val latestRatings = latestRatingsRaw.take(limit).map { rating ->
+        val latestRatings = sitterRatingRepository.findLatestBySitterId(sitterId, PageRequest.of(0, limit)).map { rating ->
             SimpleRatingDto(
                 id = rating.getId(),
                 overallRating = rating.getOverallRating(),
@@ -165,8 +128,111 @@ class BookingStatisticsService(
         )
     }
 
-    // ============================================
-    // 輔助方法（時間計算）- 委派給 DateTimeUtils
-    // ============================================
+    private fun loadData(sitterId: UUID, window: StatsWindow): StatsData =
+        if (useRollup) rollupData(sitterId, window) else aggregateData(sitterId, window)
+
+    /**
+     * 讀取 sitter_daily_stats 彙總（一個查詢，每天最多一列）
+     */
+    private fun rollupData(sitterId: UUID, window: StatsWindow): StatsData {
+        val rows = sitterDailyStatsService.findRange(sitterId, window.from, window.to)
+        val month = rows.filter { it.statDate in window.monthStart..window.monthEnd }
+        return StatsData(
+            month = MonthlyBookingStats(
+                total = month.sumOf { it.totalBookings.toLong() },
+                pending = month.sumOf { it.pendingCount.toLong() },
+                completed = month.sumOf { it.completedCount.toLong() },
+                rejectedOrCancelled = month.sumOf { (it.rejectedCount + it.cancelledCount).toLong() }
+            ),
+            completedByDate = rows.associate { it.statDate to DayRevenue(it.completedRevenue, it.completedCount.toLong()) }
+        )
+    }
 
+    /**
+     * 直接彙總 booking（兩個 GROUP BY 查詢，不載入實體）
+     */
+    private fun aggregateData(sitterId: UUID, window: StatsWindow): StatsData {
+        val byStatus = bookingRepository.summarizeBySitterAndStatus(
+            sitterId, window.monthStart.atStartOfDay(), window.monthEnd.atTime(LocalTime.MAX)
+        ).associate { row -> row[0] as BookingStatus to (row[1] as Number).toLong() }
+        val completedByDate = bookingRepository.summarizeBySitterAndDate(
+            sitterId, BookingStatus.COMPLETED, window.from.atStartOfDay(), window.to.atTime(LocalTime.MAX)
+        ).associate { row ->
+            row[0] as LocalDate to DayRevenue((row[2] as Number).toDouble(), (row[1] as Number).toLong())
+        }
+        return StatsData(
+            month = MonthlyBookingStats(
+                total = byStatus.values.sum(),
+                pending = byStatus[BookingStatus.PENDING] ?: 0L,
+                completed = byStatus[BookingStatus.COMPLETED] ?: 0L,
+                rejectedOrCancelled = (byStatus[BookingStatus.REJECTED] ?: 0L) + (byStatus[BookingStatus.CANCELLED] ?: 0L)
+            ),
+            completedByDate = completedByDate
+        )
+    }
+
+    private fun ratingHistogram(sitterId: UUID): LongArray {
+        if (useRollup) {
+            return sitterDailyStatsService.ratingHistogram(sitterId)
+        }
+        val histogram = LongArray(6)
+        sitterRatingRepository.countRatingsByStars(sitterId).forEach { row ->
+            val stars = (row[0] as Number).toInt()
+            if (stars in 1..5) {
+                histogram[stars] = (row[1] as Number).toLong()
+            }
+        }
+        return histogram
+    }
+
+    private fun revenueStats(data: StatsData, window: StatsWindow): RevenueStats {
+        return RevenueStats(
+            monthlyRevenue = data.completedByDate.filterKeys { it in window.monthStart..window.monthEnd }
+                .values.sumOf { it.revenue },
+            weeklyRevenue = data.completedByDate.filterKeys { it in window.weekStart..window.weekEnd }
+                .values.sumOf { it.revenue },
+            dailyTrend = window.recentDates.map { date ->
+                val day = data.completedByDate[date]
+                DailyRevenue(
+                    date = date,
+                    revenue = day?.revenue ?: 0.0,
+                    bookingCount = day?.count ?: 0L
+                )
+            }
+        )
+    }
+
+    /**
+     * 本月預約數與 [StatsWindow.from, StatsWindow.to] 內每天已完成預約的收入
+     */
+    private class StatsData(
+        val month: MonthlyBookingStats,
+        val completedByDate: Map<LocalDate, DayRevenue>
+    )
+
+    private class DayRevenue(val revenue: Double, val count: Long)
+
+    /**
+     * 統計使用的日期範圍（本月、本週、最近 7 天），[from, to] 涵蓋三者
+     */
+    private class StatsWindow(
+        val monthStart: LocalDate,
+        val monthEnd: LocalDate,
+        val weekStart: LocalDate,
+        val weekEnd: LocalDate,
+        val recentDates: List<LocalDate>
+    ) {
+        val from: LocalDate = minOf(monthStart, weekStart, recentDates.first())
+        val to: LocalDate = maxOf(monthEnd, weekEnd, recentDates.last())
+
+        companion object {
+            fun current() = StatsWindow(
+                monthStart = getStartOfCurrentMonth().toLocalDate(),
+                monthEnd = getEndOfCurrentMonth().toLocalDate(),
+                weekStart = getStartOfCurrentWeek().toLocalDate(),
+                weekEnd = getEndOfCurrentWeek().toLocalDate(),
+                recentDates = getRecentDates(7)
+            )
+        }
+    }
 }
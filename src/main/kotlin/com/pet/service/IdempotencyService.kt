@@ -1,33 +1,239 @@
 package com.pet.service
 
 import com.pet.domain.IdempotencyKey
+import com.pet.domain.IdempotencyKey.Status
 import com.pet.repository.IdempotencyKeyRepository
 import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.dao.DataIntegrityViolationException
 import org.springframework.scheduling.annotation.Scheduled
 import org.springframework.stereotype.Service
 import org.springframework.transaction.annotation.Transactional
+import java.security.MessageDigest
 import java.time.LocalDateTime
+import java.time.ZoneId
+import java.util.HexFormat
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
 
+/**
+ * 冪等性 key 管理：保留 → 執行 → 發布
+ *
+ * 1. [reserve]：先查本機 near-cache；未命中時以 INSERT 保留 key（主鍵衝突代表已被保留或已完成）
+ * 2. 取得保留的請求執行業務邏輯，成功後呼叫 [publish] 寫入原始回應位元組，失敗時呼叫 [release] 釋放
+ * 3. 同一個 key 的並行重送會等待執行中的請求完成後回放結果，而不是再執行一次：
+ *    同節點等待本機的 CompletableFuture，跨節點則輪詢 DB
+ *
+ * 保留逾時（inProgressTimeoutMs）未完成的 key 視為執行節點已當機，可由下一個請求接手
+ */
 @Service
 class IdempotencyService(
-    private val idempotencyKeyRepository: IdempotencyKeyRepository
+    private val idempotencyKeyRepository: IdempotencyKeyRepository,
+    @Value("\${idempotency.cache-max-size:10000}") private val cacheMaxSize: Int,
+    @Value("\${idempotency.wait-timeout-ms:5000}") private val waitTimeoutMillis: Long,
+    @Value("\${idempotency.in-progress-timeout-ms:30000}") private val inProgressTimeoutMillis: Long,
+    @Value("\${idempotency.poll-interval-ms:100}") private val pollIntervalMillis: Long
 ) {
     private val log = LoggerFactory.getLogger(IdempotencyService::class.java)
 
-    fun checkExisting(key: String): IdempotencyKey? {
-        return idempotencyKeyRepository.findById(key).orElse(null)
+    /**
+     * 已完成的回應（LRU，只在本節點）
+     */
+    private val completed = object : LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, StoredResponse>): Boolean =
+            size > cacheMaxSize
     }
 
-    @Transactional
-    fun save(key: String, responseBody: String, httpStatus: Int) {
-        val idempotencyKey = IdempotencyKey(
-            key = key,
-            responseBody = responseBody,
-            httpStatus = httpStatus
-        )
-        idempotencyKeyRepository.save(idempotencyKey)
+    /**
+     * 本節點正在執行的 key；完成時帶回應，釋放時帶 null
+     */
+    private val inFlight = ConcurrentHashMap<String, CompletableFuture<StoredResponse?>>()
+
+    /**
+     * 已完成請求的原始回應
+     */
+    class StoredResponse(
+        val requestHash: String?,
+        val httpStatus: Int,
+        val contentType: String?,
+        val body: ByteArray,
+        val expiresAtMillis: Long
+    )
+
+    /**
+     * [reserve] 的結果
+     *
+     * - ACQUIRED：取得保留，呼叫端必須執行後呼叫 [publish] 或 [release]
+     * - REPLAY：相同請求已完成，回放 [response]
+     * - MISMATCH：key 已被不同內容的請求使用
+     * - IN_PROGRESS：相同請求仍在其他節點執行中，等待逾時
+     */
+    class Reservation(val outcome: Outcome, val response: StoredResponse?) {
+        enum class Outcome { ACQUIRED, REPLAY, MISMATCH, IN_PROGRESS }
+    }
+
+    private sealed interface DbReservation {
+        object Acquired : DbReservation
+        object HeldElsewhere : DbReservation
+        class Completed(val response: StoredResponse) : DbReservation
+    }
+
+    /**
+     * 請求指紋：方法 + 路徑 + 內容的 SHA-256
+     */
+    fun fingerprint(method: String, path: String, body: ByteArray): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(method.toByteArray(Charsets.UTF_8))
+        digest.update(0)
+        digest.update(path.toByteArray(Charsets.UTF_8))
+        digest.update(0)
+        digest.update(body)
+        return HexFormat.of().formatHex(digest.digest())
+    }
+
+    /**
+     * 保留 key；相同請求執行中時最多等待 waitTimeoutMs
+     */
+    fun reserve(key: String, requestHash: String): Reservation {
+        val deadline = System.currentTimeMillis() + waitTimeoutMillis
+        while (true) {
+            cached(key)?.let { return replayOrMismatch(it, requestHash) }
+
+            val mine = CompletableFuture<StoredResponse?>()
+            val running = inFlight.putIfAbsent(key, mine)
+            if (running != null) {
+                // 本節點已有相同 key 的請求在執行，等待其結果
+                val result = try {
+                    running.get(remaining(deadline), TimeUnit.MILLISECONDS)
+                } catch (e: TimeoutException) {
+                    return Reservation(Reservation.Outcome.IN_PROGRESS, null)
+                }
+                if (result != null) {
+                    return replayOrMismatch(result, requestHash)
+                }
+                continue
+            }
+
+            val db = try {
+                reserveInDb(key, requestHash)
+            } catch (e: RuntimeException) {
+                finish(key, mine, null)
+                throw e
+            }
+            when (db) {
+                is DbReservation.Acquired -> return Reservation(Reservation.Outcome.ACQUIRED, null)
+                is DbReservation.Completed -> {
+                    remember(key, db.response)
+                    finish(key, mine, db.response)
+                    return replayOrMismatch(db.response, requestHash)
+                }
+                is DbReservation.HeldElsewhere -> {
+                    finish(key, mine, null)
+                    if (remaining(deadline) <= 0) {
+                        return Reservation(Reservation.Outcome.IN_PROGRESS, null)
+                    }
+                    Thread.sleep(minOf(pollIntervalMillis, remaining(deadline)))
+                }
+            }
+        }
+    }
+
+    /**
+     * 發布執行結果：寫入 DB 與本機快取，並喚醒等待中的重送請求
+     */
+    fun publish(key: String, requestHash: String, httpStatus: Int, contentType: String?, body: ByteArray) {
+        val expiresAt = LocalDateTime.now().plusHours(24)
+        val response = StoredResponse(requestHash, httpStatus, contentType, body, toMillis(expiresAt))
+        try {
+            idempotencyKeyRepository.complete(key, body, contentType, httpStatus, Status.COMPLETED)
+        } catch (e: RuntimeException) {
+            // 其他節點要等保留逾時後才能接手；本節點的重送仍可回放
+            log.error("寫入冪等性回應失敗: key={}, {}", key, e.message)
+        }
+        remember(key, response)
+        inFlight.remove(key)?.complete(response)
+    }
+
+    /**
+     * 執行失敗時釋放保留，讓重送的請求重新執行
+     */
+    fun release(key: String) {
+        try {
+            idempotencyKeyRepository.deleteByKeyAndStatus(key, Status.IN_PROGRESS)
+        } catch (e: RuntimeException) {
+            log.error("釋放冪等性 key 失敗: key={}, {}", key, e.message)
+        }
+        inFlight.remove(key)?.complete(null)
+    }
+
+    private fun reserveInDb(key: String, requestHash: String): DbReservation {
+        repeat(2) {
+            try {
+                idempotencyKeyRepository.saveAndFlush(IdempotencyKey(key = key, requestHash = requestHash))
+                return DbReservation.Acquired
+            } catch (e: DataIntegrityViolationException) {
+                // 主鍵衝突：已被保留或已完成
+            }
+
+            val existing = idempotencyKeyRepository.findById(key).orElse(null) ?: return@repeat
+            val now = LocalDateTime.now()
+            if (existing.expiresAt.isBefore(now)) {
+                idempotencyKeyRepository.deleteByKeyAndStatus(key, existing.status)
+                return@repeat
+            }
+            if (existing.status == Status.COMPLETED) {
+                return DbReservation.Completed(
+                    StoredResponse(
+                        existing.requestHash, existing.httpStatus, existing.contentType,
+                        existing.responseBody ?: ByteArray(0), toMillis(existing.expiresAt)
+                    )
+                )
+            }
+            val staleBefore = now.minusNanos(inProgressTimeoutMillis * 1_000_000)
+            if (existing.createdAt.isBefore(staleBefore) &&
+                idempotencyKeyRepository.takeOverStale(key, requestHash, Status.IN_PROGRESS, now, staleBefore) == 1
+            ) {
+                log.warn("接手逾時未完成的冪等性 key: {}", key)
+                return DbReservation.Acquired
+            }
+            return DbReservation.HeldElsewhere
+        }
+        return DbReservation.HeldElsewhere
     }
 
+    private fun replayOrMismatch(response: StoredResponse, requestHash: String): Reservation =
+        if (response.requestHash == null || response.requestHash == requestHash) {
+            Reservation(Reservation.Outcome.REPLAY, response)
+        } else {
+            Reservation(Reservation.Outcome.MISMATCH, null)
+        }
+
+    private fun cached(key: String): StoredResponse? = synchronized(completed) {
+        val response = completed[key] ?: return null
+        if (System.currentTimeMillis() >= response.expiresAtMillis) {
+            completed.remove(key)
+            return null
+        }
+        response
+    }
+
+    private fun remember(key: String, response: StoredResponse) {
+        if (cacheMaxSize > 0) {
+            synchronized(completed) { completed[key] = response }
+        }
+    }
+
+    private fun finish(key: String, future: CompletableFuture<StoredResponse?>, response: StoredResponse?) {
+        inFlight.remove(key, future)
+        future.complete(response)
+    }
+
+    private fun remaining(deadline: Long): Long = maxOf(0, deadline - System.currentTimeMillis())
+
+    private fun toMillis(time: LocalDateTime): Long = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+
     @Transactional
     @Scheduled(cron = "0 0 3 * * *")
     fun cleanupExpired() {
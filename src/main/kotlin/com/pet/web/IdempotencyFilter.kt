@@ -0,0 +1,266 @@
+package com.pet.web
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.pet.dto.response.ApiResponse
+import com.pet.exception.ErrorCode
+import com.pet.service.IdempotencyService
+import com.pet.service.IdempotencyService.Reservation.Outcome
+import com.pet.service.IdempotencyService.StoredResponse
+import jakarta.servlet.FilterChain
+import jakarta.servlet.ReadListener
+import jakarta.servlet.ServletInputStream
+import jakarta.servlet.ServletOutputStream
+import jakarta.servlet.WriteListener
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletRequestWrapper
+import jakarta.servlet.http.HttpServletResponse
+import jakarta.servlet.http.HttpServletResponseWrapper
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.security.core.context.SecurityContextHolder
+import org.springframework.stereotype.Component
+import org.springframework.web.filter.OncePerRequestFilter
+import org.springframework.web.method.HandlerMethod
+import org.springframework.web.servlet.HandlerMapping
+import org.springframework.web.util.ServletRequestPathUtils
+import java.io.BufferedReader
+import java.io.ByteArrayInputStream
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.io.PrintWriter
+import java.nio.charset.Charset
+
+/**
+ * Idempotency-Key 過濾器
+ *
+ * 只處理帶 Idempotency-Key header、且 handler 標註 [Idempotent] 的寫入請求：
+ * 1. 讀取並保留請求內容，計算請求指紋（方法 + 路徑 + 使用者 + 內容）
+ * 2. 透過 [IdempotencyService.reserve] 保留 key；已完成則直接回放保存的位元組，不進入 Controller
+ * 3. 取得保留時以池化緩衝區擷取回應，2xx 發布保存，其餘（含例外）釋放保留讓重送重新執行
+ *
+ * 在 Spring Security 之後執行，指紋中的使用者為已認證的身分，不同使用者撞到同一個 key 不會拿到別人的回應
+ */
+@Component
+class IdempotencyFilter(
+    private val idempotencyService: IdempotencyService,
+    private val objectMapper: ObjectMapper,
+    @Qualifier("requestMappingHandlerMapping") private val handlerMapping: ObjectProvider<HandlerMapping>,
+    @Value("\${idempotency.max-request-body-bytes:65536}") private val maxRequestBodyBytes: Int,
+    @Value("\${idempotency.capture-buffer.pool-size:32}") poolSize: Int,
+    @Value("\${idempotency.capture-buffer.initial-bytes:4096}") initialBytes: Int,
+    @Value("\${idempotency.capture-buffer.max-retained-bytes:65536}") maxRetainedBytes: Int
+) : OncePerRequestFilter() {
+
+    private val log = LoggerFactory.getLogger(IdempotencyFilter::class.java)
+
+    private val bufferPool = ResponseCaptureBufferPool(poolSize, initialBytes, maxRetainedBytes)
+
+    override fun shouldNotFilter(request: HttpServletRequest): Boolean =
+        request.getHeader(HEADER) == null || request.method in SAFE_METHODS
+
+    override fun doFilterInternal(
+        request: HttpServletRequest,
+        response: HttpServletResponse,
+        filterChain: FilterChain
+    ) {
+        if (!isIdempotentEndpoint(request)) {
+            filterChain.doFilter(request, response)
+            return
+        }
+        val key = request.getHeader(HEADER).trim()
+        if (key.isEmpty() || key.length > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key 長度須為 1 到 $MAX_KEY_LENGTH 個字元")
+            return
+        }
+        val body = readBody(request) ?: run {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "請求內容過大")
+            return
+        }
+
+        val requestHash = idempotencyService.fingerprint(request.method, requestTarget(request), body)
+        val reservation = idempotencyService.reserve(key, requestHash)
+        when (reservation.outcome) {
+            Outcome.REPLAY -> replay(response, reservation.response!!)
+            Outcome.MISMATCH -> writeError(
+                response, HttpStatus.UNPROCESSABLE_ENTITY, ErrorCode.IDEMPOTENCY_KEY_REUSED.message)
+            Outcome.IN_PROGRESS -> writeError(
+                response, HttpStatus.CONFLICT, ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS.message)
+            Outcome.ACQUIRED -> execute(key, requestHash, CachedBodyRequest(request, body), response, filterChain)
+        }
+    }
+
+    private fun execute(
+        key: String,
+        requestHash: String,
+        request: HttpServletRequest,
+        response: HttpServletResponse,
+        filterChain: FilterChain
+    ) {
+        val buffer = bufferPool.acquire()
+        var settled = false
+        try {
+            val capturing = CapturingResponse(response, buffer)
+            filterChain.doFilter(request, capturing)
+            capturing.flushWriter()
+
+            val status = capturing.status
+            if (status in 200..299) {
+                idempotencyService.publish(key, requestHash, status, capturing.contentType, buffer.toByteArray())
+            } else {
+                idempotencyService.release(key)
+            }
+            settled = true
+
+            if (buffer.size() > 0 && !response.isCommitted) {
+                response.setContentLength(buffer.size())
+                buffer.writeTo(response.outputStream)
+            }
+        } finally {
+            if (!settled) {
+                idempotencyService.release(key)
+            }
+            bufferPool.release(buffer)
+        }
+    }
+
+    private fun replay(response: HttpServletResponse, stored: StoredResponse) {
+        response.status = stored.httpStatus
+        response.contentType = stored.contentType ?: MediaType.APPLICATION_JSON_VALUE
+        response.setHeader(REPLAYED_HEADER, "true")
+        response.setContentLength(stored.body.size)
+        response.outputStream.write(stored.body)
+    }
+
+    private fun isIdempotentEndpoint(request: HttpServletRequest): Boolean {
+        val mapping = handlerMapping.getIfAvailable() ?: return false
+        val previousPath = request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE)
+        return try {
+            ServletRequestPathUtils.parseAndCache(request)
+            val handler = mapping.getHandler(request)?.handler
+            handler is HandlerMethod && handler.hasMethodAnnotation(Idempotent::class.java)
+        } catch (e: Exception) {
+            log.debug("無法解析 handler，略過冪等性處理: {} {}", request.method, request.requestURI)
+            false
+        } finally {
+            if (previousPath == null) {
+                ServletRequestPathUtils.clearParsedRequestPath(request)
+            } else {
+                request.setAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE, previousPath)
+            }
+        }
+    }
+
+    /**
+     * 讀取完整請求內容；超過 maxRequestBodyBytes 時回傳 null
+     */
+    private fun readBody(request: HttpServletRequest): ByteArray? {
+        if (request.contentLengthLong > maxRequestBodyBytes) {
+            return null
+        }
+        val body = request.inputStream.readNBytes(maxRequestBodyBytes + 1)
+        return if (body.size > maxRequestBodyBytes) null else body
+    }
+
+    private fun requestTarget(request: HttpServletRequest): String {
+        val auth = SecurityContextHolder.getContext().authentication
+        val user = if (auth != null && auth.isAuthenticated) auth.name else ""
+        val query = request.queryString
+        return if (query == null) "${request.requestURI}|$user" else "${request.requestURI}?$query|$user"
+    }
+
+    private fun writeError(response: HttpServletResponse, status: HttpStatus, message: String) {
+        response.status = status.value()
+        response.contentType = MediaType.APPLICATION_JSON_VALUE
+        response.characterEncoding = "UTF-8"
+        objectMapper.writeValue(response.outputStream, ApiResponse.error<Any>(message))
+    }
+
+    /**
+     * 已讀取內容的請求，讓 Controller 可以再讀一次
+     */
+    private class CachedBodyRequest(
+        request: HttpServletRequest,
+        private val body: ByteArray
+    ) : HttpServletRequestWrapper(request) {
+
+        override fun getInputStream(): ServletInputStream {
+            val input = ByteArrayInputStream(body)
+            return object : ServletInputStream() {
+                override fun read(): Int = input.read()
+                override fun read(b: ByteArray, off: Int, len: Int): Int = input.read(b, off, len)
+                override fun isFinished(): Boolean = input.available() == 0
+                override fun isReady(): Boolean = true
+                override fun setReadListener(listener: ReadListener) = throw UnsupportedOperationException()
+            }
+        }
+
+        override fun getReader(): BufferedReader =
+            BufferedReader(InputStreamReader(inputStream, characterEncoding ?: Charsets.UTF_8.name()))
+
+        override fun getContentLength(): Int = body.size
+
+        override fun getContentLengthLong(): Long = body.size.toLong()
+    }
+
+    /**
+     * 把回應內容寫進緩衝區的 response；狀態碼與 header 仍直接設定在原本的 response 上
+     */
+    private class CapturingResponse(
+        response: HttpServletResponse,
+        private val buffer: ResponseCaptureBufferPool.CaptureBuffer
+    ) : HttpServletResponseWrapper(response) {
+
+        private var outputStream: ServletOutputStream? = null
+        private var writer: PrintWriter? = null
+
+        override fun getOutputStream(): ServletOutputStream {
+            check(writer == null) { "getWriter() has already been called" }
+            return outputStream ?: object : ServletOutputStream() {
+                override fun write(b: Int) = buffer.write(b)
+                override fun write(b: ByteArray, off: Int, len: Int) = buffer.write(b, off, len)
+                override fun isReady(): Boolean = true
+                override fun setWriteListener(listener: WriteListener) = throw UnsupportedOperationException()
+            }.also { outputStream = it }
+        }
+
+        override fun getWriter(): PrintWriter {
+            check(outputStream == null) { "getOutputStream() has already been called" }
+            return writer ?: PrintWriter(OutputStreamWriter(buffer, Charset.forName(characterEncoding)))
+                .also { writer = it }
+        }
+
+        // 內容送出前可能還會被擷取後處理，不提早 commit 原本的 response
+        override fun flushBuffer() {
+            writer?.flush()
+        }
+
+        override fun setContentLength(len: Int) {}
+
+        override fun setContentLengthLong(len: Long) {}
+
+        override fun resetBuffer() {
+            buffer.reset()
+            super.resetBuffer()
+        }
+
+        override fun reset() {
+            buffer.reset()
+            super.reset()
+        }
+
+        fun flushWriter() {
+            writer?.flush()
+        }
+    }
+
+    companion object {
+        const val HEADER = "Idempotency-Key"
+        const val REPLAYED_HEADER = "Idempotent-Replayed"
+        private const val MAX_KEY_LENGTH = 64
+        private val SAFE_METHODS = setOf("GET", "HEAD", "OPTIONS", "TRACE")
+    }
+}
@@ -0,0 +1,16 @@
+package com.pet.web
+
+/**
+ * 標記支援 Idempotency-Key 的 API
+ *
+ * 請求帶 Idempotency-Key header 時由 [IdempotencyFilter] 處理：
+ * - 第一次請求正常執行，2xx 回應的原始位元組會被保存
+ * - 相同 key 與相同請求（方法、路徑、內容、使用者）的重送直接回放，不會進入 Controller
+ * - 第一次請求仍在執行中時，重送的請求等待其結果
+ *
+ * 只適用於同步回傳的 handler（不支援 CompletableFuture / DeferredResult）
+ */
+@Target(AnnotationTarget.FUNCTION)
+@Retention(AnnotationRetention.RUNTIME)
+@MustBeDocumented
+annotation class Idempotent
@@ -0,0 +1,36 @@
+package com.pet.web
+
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.ArrayBlockingQueue
+
+/**
+ * 擷取回應內容用的緩衝區池
+ *
+ * 每個冪等請求都要先把回應寫進記憶體再送出，重複使用緩衝區可避免每次重新配置與擴充陣列；
+ * 超過 maxRetainedBytes 的緩衝區用完即丟棄，避免一次大回應讓池長期佔用記憶體
+ */
+class ResponseCaptureBufferPool(
+    poolSize: Int,
+    private val initialBytes: Int,
+    private val maxRetainedBytes: Int
+) {
+    private val pool = ArrayBlockingQueue<CaptureBuffer>(maxOf(1, poolSize))
+
+    fun acquire(): CaptureBuffer = pool.poll() ?: CaptureBuffer(initialBytes)
+
+    fun release(buffer: CaptureBuffer) {
+        if (buffer.capacity() <= maxRetainedBytes) {
+            buffer.reset()
+            pool.offer(buffer)
+        }
+    }
+
+    fun available(): Int = pool.size
+
+    /**
+     * 可重複使用的位元組緩衝區
+     */
+    class CaptureBuffer(initialBytes: Int) : ByteArrayOutputStream(initialBytes) {
+        fun capacity(): Int = buf.size
+    }
+}
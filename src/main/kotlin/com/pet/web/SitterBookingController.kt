@@ -54,6 +54,7 @@ class SitterBookingController(
      * 保母確認預約
      * POST /api/sitter/{sitterId}/bookings/{bookingId}/confirm
      */
+    @Idempotent
     @PostMapping("/{sitterId}/bookings/{bookingId}/confirm")
     fun confirmBooking(
         @PathVariable sitterId: UUID,
@@ -76,6 +77,7 @@ class SitterBookingController(
      * POST /api/sitter/{sitterId}/bookings/{bookingId}/reject
      *
      */
+    @Idempotent
     @PostMapping("/{sitterId}/bookings/{bookingId}/reject")
     fun rejectBooking(
         @PathVariable sitterId: UUID,
@@ -112,6 +114,7 @@ class SitterBookingController(
      * 完成預約（保母標記服務完成）
      * POST /api/sitter/{sitterId}/bookings/{bookingId}/complete
      */
+    @Idempotent
     @PostMapping("/{sitterId}/bookings/{bookingId}/complete")
     fun completeBooking(
         @PathVariable sitterId: UUID,
@@ -131,6 +134,7 @@ class SitterBookingController(
      * 保母取消預約
      * POST /api/sitter/{sitterId}/bookings/{bookingId}/cancel
      */
+    @Idempotent
     @PostMapping("/{sitterId}/bookings/{bookingId}/cancel")
     fun cancelBooking(
         @PathVariable sitterId: UUID,
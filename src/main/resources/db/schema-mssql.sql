@@ -2,6 +2,12 @@
 -- This script is for initial setup only, not for every restart
 
 -- Drop tables in correct order (FK constraints)
+IF OBJECT_ID('sitter_rating_summary', 'U') IS NOT NULL DROP TABLE sitter_rating_summary;
+IF OBJECT_ID('sitter_daily_stats', 'U') IS NOT NULL DROP TABLE sitter_daily_stats;
+IF OBJECT_ID('idempotency_keys', 'U') IS NOT NULL DROP TABLE idempotency_keys;
+IF OBJECT_ID('oauth_state', 'U') IS NOT NULL DROP TABLE oauth_state;
+IF OBJECT_ID('rate_limit_bucket', 'U') IS NOT NULL DROP TABLE rate_limit_bucket;
+IF OBJECT_ID('booking_outbox', 'U') IS NOT NULL DROP TABLE booking_outbox;
 IF OBJECT_ID('sitter_rating', 'U') IS NOT NULL DROP TABLE sitter_rating;
 IF OBJECT_ID('booking', 'U') IS NOT NULL DROP TABLE booking;
 IF OBJECT_ID('sitter_availability', 'U') IS NOT NULL DROP TABLE sitter_availability;
@@ -185,6 +191,94 @@ CREATE TABLE booking (
 -- Booking indexes
 CREATE INDEX idx_booking_sitter_time ON booking(sitter_id, start_time, end_time);
 CREATE INDEX idx_booking_status ON booking(status);
+-- 管理員預約列表 keyset 分頁 / 匯出排序用
+CREATE INDEX idx_booking_created_at ON booking(created_at, id);
+
+-- Booking outbox table (預約副作用 outbox：Log DB 同步、LINE 通知)
+CREATE TABLE booking_outbox (
+    id UNIQUEIDENTIFIER DEFAULT NEWID() PRIMARY KEY,
+    booking_id UNIQUEIDENTIFIER NOT NULL,
+    event_type VARCHAR(30) NOT NULL,
+    booking_status VARCHAR(20),
+    payload NVARCHAR(4000),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME2 NOT NULL,
+    claim_token UNIQUEIDENTIFIER,
+    last_error NVARCHAR(500),
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    processed_at DATETIME2
+);
+
+CREATE INDEX idx_booking_outbox_due ON booking_outbox(status, next_attempt_at);
+CREATE INDEX idx_booking_outbox_claim ON booking_outbox(claim_token);
+
+-- Rate limit bucket table (多節點共用的 API 速率限制 bucket)
+CREATE TABLE rate_limit_bucket (
+    bucket_key VARCHAR(200) PRIMARY KEY,
+    tat_millis BIGINT NOT NULL
+);
+
+-- OAuth state table (多節點共用的 OAuth state，防 CSRF)
+CREATE TABLE oauth_state (
+    state VARCHAR(64) PRIMARY KEY,
+    expires_at_millis BIGINT NOT NULL
+);
+
+CREATE INDEX idx_oauth_state_expires ON oauth_state(expires_at_millis);
+
+-- IdempotencyKey table (冪等性 key：IN_PROGRESS 保留 / COMPLETED 回應位元組)
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(64) PRIMARY KEY,
+    request_hash VARCHAR(64),
+    status VARCHAR(20) NOT NULL,
+    response_body VARBINARY(MAX),
+    content_type VARCHAR(100),
+    http_status INT,
+    created_at DATETIME2,
+    expires_at DATETIME2
+);
+
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys(expires_at);
+
+-- SitterDailyStats table (保母每日統計彙總，依預約建立日期，與預約同交易增量更新)
+CREATE TABLE sitter_daily_stats (
+    sitter_id UNIQUEIDENTIFIER NOT NULL,
+    stat_date DATE NOT NULL,
+    total_bookings INT NOT NULL DEFAULT 0,
+    pending_count INT NOT NULL DEFAULT 0,
+    confirmed_count INT NOT NULL DEFAULT 0,
+    completed_count INT NOT NULL DEFAULT 0,
+    rejected_count INT NOT NULL DEFAULT 0,
+    cancelled_count INT NOT NULL DEFAULT 0,
+    expired_count INT NOT NULL DEFAULT 0,
+    completed_revenue FLOAT NOT NULL DEFAULT 0,
+    rating1_count INT NOT NULL DEFAULT 0,
+    rating2_count INT NOT NULL DEFAULT 0,
+    rating3_count INT NOT NULL DEFAULT 0,
+    rating4_count INT NOT NULL DEFAULT 0,
+    rating5_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (sitter_id, stat_date)
+);
+
+-- SitterRatingSummary table (保母評價彙總，評價建立時同交易增量更新，定期對帳)
+CREATE TABLE sitter_rating_summary (
+    sitter_id UNIQUEIDENTIFIER PRIMARY KEY,
+    rating_count INT NOT NULL DEFAULT 0,
+    overall_sum BIGINT NOT NULL DEFAULT 0,
+    professionalism_sum BIGINT NOT NULL DEFAULT 0,
+    professionalism_count INT NOT NULL DEFAULT 0,
+    communication_sum BIGINT NOT NULL DEFAULT 0,
+    communication_count INT NOT NULL DEFAULT 0,
+    punctuality_sum BIGINT NOT NULL DEFAULT 0,
+    punctuality_count INT NOT NULL DEFAULT 0,
+    weighted_sum FLOAT NOT NULL DEFAULT 0,
+    rating1_count INT NOT NULL DEFAULT 0,
+    rating2_count INT NOT NULL DEFAULT 0,
+    rating3_count INT NOT NULL DEFAULT 0,
+    rating4_count INT NOT NULL DEFAULT 0,
+    rating5_count INT NOT NULL DEFAULT 0
+);
 
 -- SitterRating table (保母評價)
 CREATE TABLE sitter_rating (
@@ -13,16 +13,19 @@ import com.pet.web.AuthController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -42,7 +45,6 @@ class AuthControllerLineOAuthTest {
     @Mock
     private LineLoginConfig lineLoginConfig;
 
-    @InjectMocks
     private AuthController authController;
 
     @Mock
@@ -52,6 +54,8 @@ class AuthControllerLineOAuthTest {
 
     @BeforeEach
     void setUp() {
+        authController = new AuthController(authenticationService, jwtProperties, lineOAuth2Service,
+                lineLoginConfig, Runnable::run);
         lenient().when(lineLoginConfig.getFrontendCallbackUrl()).thenReturn(FRONTEND_URL);
     }
 
@@ -73,7 +77,7 @@ class AuthControllerLineOAuthTest {
 
     @Test
     void shouldRedirectWithErrorWhenErrorParam() {
-        ResponseEntity<Void> response = authController.lineOAuthCallback(null, null, "access_denied", httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback(null, null, "access_denied").join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
@@ -84,7 +88,7 @@ class AuthControllerLineOAuthTest {
     void shouldRedirectWithErrorWhenInvalidState() {
         when(lineOAuth2Service.validateState("bad-state")).thenReturn(false);
 
-        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "bad-state", null, httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "bad-state", null).join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
@@ -93,7 +97,7 @@ class AuthControllerLineOAuthTest {
 
     @Test
     void shouldRedirectWithErrorWhenNullState() {
-        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", null, null, httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", null, null).join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
@@ -103,39 +107,39 @@ class AuthControllerLineOAuthTest {
     @Test
     void shouldRedirectWithTokenForExistingUser() throws Exception {
         when(lineOAuth2Service.validateState("valid-state")).thenReturn(true);
-        when(lineOAuth2Service.exchangeCodeForAccessToken("code123")).thenReturn("access-token");
-
         LineUserProfile profile = new LineUserProfile("U123", "TestUser", null, null);
-        when(lineOAuth2Service.getUserProfile("access-token")).thenReturn(profile);
+        when(lineOAuth2Service.fetchUserProfile("code123")).thenReturn(CompletableFuture.completedFuture(profile));
 
         Users existingUser = createTestUser();
         when(lineOAuth2Service.findExistingUser("U123")).thenReturn(Optional.of(existingUser));
 
         JwtAuthenticationResponse authResponse = JwtAuthenticationResponse.builder()
                 .accessToken("jwt-token")
+                .refreshToken("refresh-token")
                 .username("testuser")
                 .build();
         when(lineOAuth2Service.loginExistingUser(existingUser)).thenReturn(authResponse);
 
-        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null, httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null).join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
         assertTrue(location.contains("token=jwt-token"));
         assertFalse(location.contains("registration_token"));
+        // Refresh Token Cookie 放在回傳的 ResponseEntity，不從其他執行緒改動 HttpServletResponse
+        assertTrue(response.getHeaders().getFirst("Set-Cookie").startsWith("refreshToken=refresh-token"));
+        verifyNoInteractions(httpServletResponse);
     }
 
     @Test
     void shouldRedirectWithRegistrationTokenForNewUser() throws Exception {
         when(lineOAuth2Service.validateState("valid-state")).thenReturn(true);
-        when(lineOAuth2Service.exchangeCodeForAccessToken("code123")).thenReturn("access-token");
-
         LineUserProfile profile = new LineUserProfile("U999", "NewUser", null, null);
-        when(lineOAuth2Service.getUserProfile("access-token")).thenReturn(profile);
+        when(lineOAuth2Service.fetchUserProfile("code123")).thenReturn(CompletableFuture.completedFuture(profile));
         when(lineOAuth2Service.findExistingUser("U999")).thenReturn(Optional.empty());
         when(lineOAuth2Service.generatePendingRegistrationToken(profile)).thenReturn("reg-token");
 
-        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null, httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null).join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
@@ -146,16 +150,28 @@ class AuthControllerLineOAuthTest {
     @Test
     void shouldRedirectWithErrorOnException() throws Exception {
         when(lineOAuth2Service.validateState("valid-state")).thenReturn(true);
-        when(lineOAuth2Service.exchangeCodeForAccessToken("code123"))
-                .thenThrow(new RuntimeException("Token exchange failed"));
+        when(lineOAuth2Service.fetchUserProfile("code123"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Token exchange failed")));
 
-        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null, httpServletResponse);
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null).join();
 
         assertEquals(302, response.getStatusCode().value());
         String location = response.getHeaders().getFirst("Location");
         assertTrue(location.contains("error="));
     }
 
+    @Test
+    void shouldRedirectWithTimeoutErrorWhenLineIsSlow() {
+        when(lineOAuth2Service.validateState("valid-state")).thenReturn(true);
+        when(lineOAuth2Service.fetchUserProfile("code123"))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        ResponseEntity<Void> response = authController.lineOAuthCallback("code123", "valid-state", null).join();
+
+        String location = response.getHeaders().getFirst("Location");
+        assertTrue(location.contains("error=" + URLEncoder.encode("LINE 登入失敗：LINE 回應逾時，請重試", StandardCharsets.UTF_8)));
+    }
+
     // ==================== lineOAuthCompleteRegistration ====================
 
     @Test
@@ -45,7 +45,7 @@ class BookingControllerCalendarTest {
 
     @BeforeEach
     void setUp() {
-        bookingController = new BookingController(bookingService, calendarService, null, null);
+        bookingController = new BookingController(bookingService, calendarService, null);
         testBookingId = UUID.randomUUID();
     }
 
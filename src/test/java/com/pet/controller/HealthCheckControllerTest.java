@@ -15,6 +15,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,7 +33,7 @@ class HealthCheckControllerTest {
 
     @BeforeEach
     void setUp() {
-        healthCheckController = new HealthCheckController(dataSource);
+        healthCheckController = new HealthCheckController(dataSource, List.of());
         ReflectionTestUtils.setField(healthCheckController, "appVersion", "1.0.0-test");
     }
 
@@ -152,5 +153,27 @@ class HealthCheckControllerTest {
             assertThat(memoryMessage).contains("Memory usage");
             assertThat(memoryMessage).contains("MB");
         }
+
+        @Test
+        @DisplayName("其他元件回報 DOWN 時整體狀態應為 DOWN")
+        void shouldIncludeComponentHealthProviders() throws SQLException {
+            // given
+            Connection mockConnection = mock(Connection.class);
+            given(dataSource.getConnection()).willReturn(mockConnection);
+            given(mockConnection.isValid(5)).willReturn(true);
+
+            ComponentHealthProvider provider = mock(ComponentHealthProvider.class);
+            given(provider.componentName()).willReturn("bookingLogWriter");
+            given(provider.health()).willReturn(HealthCheckDto.ComponentHealth.down("Writer stopped"));
+            healthCheckController = new HealthCheckController(dataSource, List.of(provider));
+
+            // when
+            ResponseEntity<HealthCheckDto> response = healthCheckController.readiness();
+
+            // then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(response.getBody().components().get("bookingLogWriter").message())
+                    .isEqualTo("Writer stopped");
+        }
     }
 }
@@ -0,0 +1,181 @@
+package com.pet.log.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.log.domain.BookingLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingLogWriter 測試")
+class BookingLogWriterTest {
+
+    @Mock
+    private BookingLogService bookingLogService;
+
+    private BookingConfig bookingConfig;
+    private BookingLogWriter writer;
+
+    /** 每次 saveLogs 收到的批次大小 */
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    /** 回報為已寫入 / 失敗的事件 */
+    private final List<UUID> writtenIds = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Exception> failedIds = new ConcurrentHashMap<>();
+
+    private final BookingLogWriter.Completion completion = new BookingLogWriter.Completion() {
+        @Override
+        public void written(List<UUID> eventIds) {
+            writtenIds.addAll(eventIds);
+        }
+
+        @Override
+        public void failed(UUID eventId, Exception error) {
+            failedIds.put(eventId, error);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        bookingConfig = new BookingConfig();
+        bookingConfig.getLogWriter().setFlushSize(3);
+        bookingConfig.getLogWriter().setFlushIntervalMs(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    private BookingLogWriter.Entry entry() {
+        BookingLog log = new BookingLog();
+        log.setBookingId(UUID.randomUUID());
+        return new BookingLogWriter.Entry(UUID.randomUUID(), log);
+    }
+
+    private List<BookingLogWriter.Entry> entries(int count) {
+        return IntStream.range(0, count).mapToObj(i -> entry()).toList();
+    }
+
+    private void recordBatches(CountDownLatch latch) {
+        doAnswer(inv -> {
+            List<BookingLog> logs = inv.getArgument(0);
+            batchSizes.add(logs.size());
+            for (int i = 0; i < logs.size(); i++) {
+                latch.countDown();
+            }
+            return null;
+        }).when(bookingLogService).saveLogs(any());
+    }
+
+    private void startWriter() {
+        writer = new BookingLogWriter(bookingLogService, bookingConfig);
+        writer.start();
+    }
+
+    @Test
+    @DisplayName("應在背景以 flushSize 為上限批次寫入，並回報所有已寫入的事件")
+    void shouldWriteInBatches() throws InterruptedException {
+        // given
+        CountDownLatch latch = new CountDownLatch(7);
+        recordBatches(latch);
+        List<BookingLogWriter.Entry> entries = entries(7);
+        startWriter();
+
+        // when
+        writer.submitAll(entries, completion);
+
+        // then
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.shutdown();
+        assertThat(batchSizes).allMatch(size -> size <= 3);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(7);
+        assertThat(writtenIds).containsExactlyInAnyOrderElementsOf(
+                entries.stream().map(BookingLogWriter.Entry::eventId).toList());
+        assertThat(writer.metrics().enqueued()).isEqualTo(7);
+        assertThat(writer.metrics().callerWrites()).isZero();
+    }
+
+    @Test
+    @DisplayName("關閉時應把佇列剩餘資料寫完")
+    void shouldDrainQueueOnShutdown() {
+        // given：間隔拉長，確保資料仍在佇列中
+        bookingConfig.getLogWriter().setFlushSize(100);
+        bookingConfig.getLogWriter().setFlushIntervalMs(60_000);
+        CountDownLatch latch = new CountDownLatch(2);
+        recordBatches(latch);
+        startWriter();
+        writer.submitAll(entries(2), completion);
+
+        // when
+        writer.shutdown();
+
+        // then
+        assertThat(latch.getCount()).isZero();
+        assertThat(writtenIds).hasSize(2);
+        assertThat(writer.metrics().written()).isEqualTo(2);
+        assertThat(writer.metrics().queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("停用時應在呼叫端同步寫入並回報")
+    void shouldWriteOnCallerThreadWhenDisabled() {
+        // given
+        bookingConfig.getLogWriter().setEnabled(false);
+        CountDownLatch latch = new CountDownLatch(1);
+        recordBatches(latch);
+        BookingLogWriter.Entry entry = entry();
+        startWriter();
+
+        // when
+        writer.submitAll(List.of(entry), completion);
+
+        // then
+        assertThat(latch.getCount()).isZero();
+        assertThat(writtenIds).containsExactly(entry.eventId());
+        assertThat(writer.metrics().callerWrites()).isEqualTo(1);
+        assertThat(writer.health().status()).isEqualTo("UP");
+    }
+
+    @Test
+    @DisplayName("批次寫入失敗時應逐筆重試，只回報失敗的事件")
+    void shouldIsolateFailingEntry() {
+        // given
+        bookingConfig.getLogWriter().setEnabled(false);
+        BookingLogWriter.Entry good = entry();
+        BookingLogWriter.Entry bad = entry();
+        doThrow(new RuntimeException("log db error")).when(bookingLogService)
+                .saveLogs(argThat(logs -> logs.contains(bad.log())));
+        startWriter();
+
+        // when
+        writer.submitAll(List.of(good, bad), completion);
+
+        // then
+        assertThat(writtenIds).containsExactly(good.eventId());
+        assertThat(failedIds).containsOnlyKeys(bad.eventId());
+        assertThat(writer.metrics().failed()).isEqualTo(1);
+        assertThat(writer.metrics().written()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,174 @@
+package com.pet.scheduling;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.BookingOutboxEvent;
+import com.pet.domain.BookingOutboxEvent.EventType;
+import com.pet.log.domain.BookingLog;
+import com.pet.log.service.BookingLogService;
+import com.pet.log.service.BookingLogWriter;
+import com.pet.repository.BookingRepository;
+import com.pet.service.BookingOutboxService;
+import com.pet.service.LineMessagingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingOutboxRelay 測試")
+class BookingOutboxRelayTest {
+
+    @Mock
+    private BookingOutboxService bookingOutboxService;
+
+    @Mock
+    private BookingLogService bookingLogService;
+
+    @Mock
+    private LineMessagingService lineMessagingService;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        // 停用背景執行緒，Log 在 relay 執行緒上同步寫入，方便驗證
+        BookingConfig bookingConfig = new BookingConfig();
+        bookingConfig.getLogWriter().setEnabled(false);
+        BookingLogWriter bookingLogWriter = new BookingLogWriter(bookingLogService, bookingConfig);
+        bookingLogWriter.start();
+        relay = new BookingOutboxRelay(bookingOutboxService, bookingLogWriter, lineMessagingService, bookingRepository);
+    }
+
+    private BookingOutboxEvent event(EventType type, UUID bookingId, BookingStatus status) {
+        BookingOutboxEvent event = new BookingOutboxEvent();
+        event.setId(UUID.randomUUID());
+        event.setEventType(type);
+        event.setBookingId(bookingId);
+        event.setBookingStatus(status);
+        event.setClaimToken(UUID.randomUUID());
+        return event;
+    }
+
+    private BookingOutboxEvent logEvent() {
+        BookingOutboxEvent event = event(EventType.BOOKING_LOG, UUID.randomUUID(), BookingStatus.PENDING);
+        BookingLog log = new BookingLog();
+        log.setBookingId(event.getBookingId());
+        given(bookingOutboxService.readBookingLog(event)).willReturn(log);
+        return event;
+    }
+
+    @Test
+    @DisplayName("Log 事件應以單一批次寫入並標記為已投遞")
+    void shouldWriteLogsInOneBatch() {
+        // given
+        BookingOutboxEvent first = logEvent();
+        BookingOutboxEvent second = logEvent();
+
+        // when
+        relay.deliver(List.of(first, second));
+
+        // then
+        verify(bookingLogService, times(1)).saveLogs(anyList());
+        verify(bookingOutboxService).markProcessed(List.of(first, second));
+    }
+
+    @Test
+    @DisplayName("批次寫入失敗時應逐筆重試，只讓失敗的事件進入重試")
+    void shouldIsolateFailingLogEvent() {
+        // given
+        BookingOutboxEvent good = logEvent();
+        BookingOutboxEvent bad = logEvent();
+        doThrow(new RuntimeException("log db error")).when(bookingLogService)
+                .saveLogs(argThat(logs -> logs.stream().anyMatch(log -> bad.getBookingId().equals(log.getBookingId()))));
+
+        // when
+        relay.deliver(List.of(good, bad));
+
+        // then
+        verify(bookingOutboxService).markProcessed(List.of(good));
+        verify(bookingOutboxService).markFailed(eq(bad), any());
+    }
+
+    @Test
+    @DisplayName("應依事件發生時的狀態發送 LINE 通知，失敗則安排重試")
+    void shouldSendNotificationByRecordedStatus() {
+        // given
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setStatus(BookingStatus.COMPLETED); // 目前狀態已不同，仍應發送事件當時的通知
+        BookingOutboxEvent rejected = event(EventType.LINE_NOTIFICATION, booking.getId(), BookingStatus.REJECTED);
+        rejected.setPayload("時間不合");
+        BookingOutboxEvent confirmed = event(EventType.LINE_NOTIFICATION, booking.getId(), BookingStatus.CONFIRMED);
+
+        given(bookingRepository.findAllWithRelationsByIdIn(any())).willReturn(List.of(booking));
+        given(lineMessagingService.sendBookingRejectedNotification(booking, "時間不合")).willReturn(true);
+        given(lineMessagingService.sendBookingConfirmedNotification(booking)).willReturn(false);
+
+        // when
+        relay.deliver(List.of(rejected, confirmed));
+
+        // then
+        verify(bookingOutboxService).markProcessed(List.of(rejected));
+        verify(bookingOutboxService).markFailed(eq(confirmed), any());
+        verify(lineMessagingService, never()).sendBookingCompletedNotification(any());
+    }
+
+    @Test
+    @DisplayName("批次建立事件應發送一則合併通知")
+    void shouldSendBatchCreatedNotification() {
+        // given
+        Booking first = new Booking();
+        first.setId(UUID.randomUUID());
+        Booking second = new Booking();
+        second.setId(UUID.randomUUID());
+        BookingOutboxEvent batch = event(EventType.LINE_BATCH_CREATED, first.getId(), BookingStatus.PENDING);
+
+        given(bookingOutboxService.readBookingIds(batch)).willReturn(List.of(first.getId(), second.getId()));
+        given(bookingRepository.findAllWithRelationsByIdIn(any())).willReturn(List.of(second, first));
+        given(lineMessagingService.sendBookingBatchCreatedNotification(List.of(first, second))).willReturn(true);
+
+        // when
+        relay.deliver(List.of(batch));
+
+        // then
+        verify(bookingOutboxService).markProcessed(List.of(batch));
+    }
+
+    @Test
+    @DisplayName("輪詢時應持續領取直到沒有到期事件")
+    void shouldKeepClaimingUntilEmpty() {
+        // given
+        BookingOutboxEvent event = logEvent();
+        given(bookingOutboxService.claimDueEvents()).willReturn(List.of(event), List.of());
+        given(bookingOutboxService.markProcessed(List.of(event))).willReturn(1);
+
+        // when
+        relay.relay();
+
+        // then
+        verify(bookingOutboxService, times(2)).claimDueEvents();
+        verify(bookingOutboxService).markProcessed(List.of(event));
+        assertThat(relay.health().message()).contains("delivered=1");
+    }
+}
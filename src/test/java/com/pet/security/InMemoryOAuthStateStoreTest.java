@@ -0,0 +1,88 @@
+package com.pet.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("InMemoryOAuthStateStore 測試")
+class InMemoryOAuthStateStoreTest {
+
+    @Test
+    @DisplayName("state 只能使用一次")
+    void shouldConsumeStateOnce() {
+        // given
+        InMemoryOAuthStateStore store = new InMemoryOAuthStateStore(60_000, 100);
+        store.issue("state-1");
+
+        // when / then
+        assertThat(store.consume("state-1")).isTrue();
+        assertThat(store.consume("state-1")).isFalse();
+        assertThat(store.consume(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("過期的 state 應被拒絕並在登記新 state 時移除")
+    void shouldExpireStates() throws InterruptedException {
+        // given
+        InMemoryOAuthStateStore store = new InMemoryOAuthStateStore(20, 100);
+        store.issue("old-1");
+        store.issue("old-2");
+        Thread.sleep(40);
+
+        // when
+        store.issue("fresh");
+
+        // then
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.consume("old-1")).isFalse();
+        assertThat(store.consume("fresh")).isTrue();
+    }
+
+    @Test
+    @DisplayName("超過上限時應淘汰最舊的 state")
+    void shouldEvictOldestBeyondCap() {
+        // given
+        InMemoryOAuthStateStore store = new InMemoryOAuthStateStore(60_000, 3);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            store.issue("state-" + i);
+        }
+
+        // then
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.consume("state-0")).isFalse();
+        assertThat(store.consume("state-1")).isFalse();
+        assertThat(store.consume("state-4")).isTrue();
+    }
+
+    @Test
+    @DisplayName("大量並行登記時記憶體用量不應超過上限")
+    void shouldStayBoundedUnderConcurrentIssue() throws InterruptedException {
+        // given
+        InMemoryOAuthStateStore store = new InMemoryOAuthStateStore(60_000, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    store.issue(UUID.randomUUID().toString());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        store.issue("last");
+
+        // then
+        assertThat(store.size()).isLessThanOrEqualTo(1000);
+        assertThat(store.consume("last")).isTrue();
+    }
+}
@@ -0,0 +1,62 @@
+package com.pet.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JdbcOAuthStateStore 測試")
+class JdbcOAuthStateStoreTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("oauth-state-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE oauth_state (state VARCHAR(64) PRIMARY KEY, expires_at_millis BIGINT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("另一個節點登記的 state 應可在此節點使用一次")
+    void shouldConsumeStateIssuedByAnotherNode() {
+        // given
+        JdbcOAuthStateStore nodeA = new JdbcOAuthStateStore(jdbcTemplate, 60_000);
+        JdbcOAuthStateStore nodeB = new JdbcOAuthStateStore(jdbcTemplate, 60_000);
+        nodeA.issue("state-1");
+
+        // when / then
+        assertThat(nodeB.consume("state-1")).isTrue();
+        assertThat(nodeA.consume("state-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("過期的 state 應被拒絕並可清除")
+    void shouldRejectAndPurgeExpiredStates() {
+        // given
+        JdbcOAuthStateStore store = new JdbcOAuthStateStore(jdbcTemplate, -1);
+        store.issue("expired");
+
+        // when / then
+        assertThat(store.consume("expired")).isFalse();
+        assertThat(store.purgeExpired()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth_state", Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,167 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+import io.jsonwebtoken.MalformedJwtException;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JwtAuthenticationFilter 測試")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserStatusCache userStatusCache;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtProperties jwtProperties;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, jwtProperties, userStatusCache);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pets");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private VerifiedToken accessToken(String username, UserRole role) {
+        return new VerifiedToken(username, UUID.randomUUID(), role, "ACCESS", Instant.now().plusSeconds(60));
+    }
+
+    @Test
+    @DisplayName("無狀態模式應只解析一次 Token，並由 claims 建立 principal，不查詢使用者")
+    void shouldAuthenticateFromClaimsWithoutLoadingUser() throws Exception {
+        // given
+        VerifiedToken token = accessToken("alice", UserRole.SITTER);
+        given(jwtService.parseOnce("jwt")).willReturn(token);
+        given(userStatusCache.isCurrent(JwtPrincipal.from(token))).willReturn(true);
+        MockHttpServletRequest request = bearer("jwt");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(request, response, filterChain);
+
+        // then
+        verify(jwtService, times(1)).parseOnce("jwt");
+        verifyNoMoreInteractions(jwtService);
+        verifyNoInteractions(userDetailsService);
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(auth.getName()).isEqualTo("alice");
+        assertThat(auth.getPrincipal()).isEqualTo(JwtPrincipal.from(token));
+        assertThat(auth.getAuthorities()).extracting("authority").containsExactly("ROLE_SITTER");
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("使用者已刪除或角色已變更時不應設定認證")
+    void shouldRejectRevokedToken() throws Exception {
+        // given
+        VerifiedToken token = accessToken("alice", UserRole.ADMIN);
+        given(jwtService.parseOnce("jwt")).willReturn(token);
+        given(userStatusCache.isCurrent(JwtPrincipal.from(token))).willReturn(false);
+        MockHttpServletRequest request = bearer("jwt");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(request, response, filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("無狀態模式下 Refresh Token 不可用於認證")
+    void shouldNotAuthenticateWithRefreshToken() throws Exception {
+        // given
+        given(jwtService.parseOnce("refresh")).willReturn(new VerifiedToken(
+                "alice", UUID.randomUUID(), null, "REFRESH", Instant.now().plusSeconds(60)));
+        MockHttpServletRequest request = bearer("refresh");
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userStatusCache);
+    }
+
+    @Test
+    @DisplayName("關閉無狀態模式時應載入使用者詳情")
+    void shouldLoadUserDetailsWhenStatelessDisabled() throws Exception {
+        // given
+        jwtProperties.setStateless(false);
+        given(jwtService.parseOnce("jwt")).willReturn(accessToken("alice", UserRole.CUSTOMER));
+        given(userDetailsService.loadUserByUsername("alice"))
+                .willReturn(new User("alice", "", List.of()));
+
+        // when
+        filter.doFilter(bearer("jwt"), new MockHttpServletResponse(), filterChain);
+
+        // then
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(auth.getPrincipal()).isInstanceOf(User.class);
+        assertThat(auth.getAuthorities()).extracting("authority").containsExactly("ROLE_CUSTOMER");
+        verifyNoInteractions(userStatusCache);
+    }
+
+    @Test
+    @DisplayName("無效 Token 不應設定認證，但仍繼續 filter chain")
+    void shouldSkipAuthenticationForInvalidToken() throws Exception {
+        // given
+        given(jwtService.parseOnce("bad")).willThrow(new MalformedJwtException("bad token"));
+        MockHttpServletRequest request = bearer("bad");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(request, response, filterChain);
+
+        // then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+    }
+}
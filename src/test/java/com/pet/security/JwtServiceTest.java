@@ -22,7 +22,7 @@ class JwtServiceTest {
         jwtProperties.setAccessTokenExpiration(900000L);
         jwtProperties.setRefreshTokenExpiration(604800000L);
         jwtProperties.setIssuer("test-issuer");
-        jwtService = new JwtService(jwtProperties);
+        jwtService = new JwtService(jwtProperties, new VerifiedTokenCache(jwtProperties));
     }
 
     // ==================== generateAccessToken ====================
@@ -102,7 +102,7 @@ class JwtServiceTest {
     @Test
     void shouldRejectExpiredToken() {
         jwtProperties.setAccessTokenExpiration(0L);
-        JwtService shortLivedService = new JwtService(jwtProperties);
+        JwtService shortLivedService = new JwtService(jwtProperties, new VerifiedTokenCache(jwtProperties));
         Users user = createTestUser();
 
         String token = shortLivedService.generateAccessToken(user);
@@ -123,6 +123,63 @@ class JwtServiceTest {
         assertEquals("ROLE_CUSTOMER", authorities.iterator().next().getAuthority());
     }
 
+    // ==================== parseOnce ====================
+
+    @Test
+    void shouldParseAccessTokenOnce() {
+        Users user = createTestUser();
+        String token = jwtService.generateAccessToken(user);
+
+        VerifiedToken verified = jwtService.parseOnce(token);
+
+        assertEquals("testuser", verified.subject());
+        assertEquals(user.getId(), verified.userId());
+        assertEquals(UserRole.CUSTOMER, verified.role());
+        assertTrue(verified.isAccessToken());
+        assertFalse(verified.isRefreshToken());
+        assertEquals("ROLE_CUSTOMER", verified.authorities().get(0).getAuthority());
+    }
+
+    @Test
+    void shouldParseRegistrationTokenWithoutUserIdOrRole() {
+        String token = jwtService.generateRegistrationToken("U123456");
+
+        VerifiedToken verified = jwtService.parseOnce(token);
+
+        assertNull(verified.userId());
+        assertNull(verified.role());
+        assertTrue(verified.authorities().isEmpty());
+    }
+
+    @Test
+    void shouldThrowWhenParsingExpiredToken() {
+        jwtProperties.setAccessTokenExpiration(0L);
+        JwtService shortLivedService = new JwtService(jwtProperties, new VerifiedTokenCache(jwtProperties));
+        String token = shortLivedService.generateAccessToken(createTestUser());
+
+        assertThrows(ExpiredJwtException.class, () -> shortLivedService.parseOnce(token));
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherSecret() {
+        JwtProperties otherProperties = new JwtProperties();
+        otherProperties.setSecret("another-secret-key-that-is-long-enough-for-hmac-sha256-algorithm-minimum");
+        JwtService otherService = new JwtService(otherProperties, new VerifiedTokenCache(otherProperties));
+        String token = otherService.generateAccessToken(createTestUser());
+
+        assertFalse(jwtService.validateToken(token));
+    }
+
+    @Test
+    void shouldReturnCachedResultForRepeatedToken() {
+        String token = jwtService.generateAccessToken(createTestUser());
+
+        VerifiedToken first = jwtService.parseOnce(token);
+        VerifiedToken second = jwtService.parseOnce(token);
+
+        assertSame(first, second);
+    }
+
     // ==================== helper ====================
 
     private Users createTestUser() {
@@ -0,0 +1,212 @@
+package com.pet.security;
+
+import com.pet.domain.RefreshToken;
+import com.pet.domain.Users;
+import com.pet.exception.BusinessException;
+import com.pet.repository.RefreshTokenRepository;
+import com.pet.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService 測試")
+class RefreshTokenServiceTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JwtProperties jwtProperties;
+    private RefreshTokenRevocationIndex revocationIndex;
+    private RefreshTokenService refreshTokenService;
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+        revocationIndex = new RefreshTokenRevocationIndex(refreshTokenRepository, jwtProperties);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtProperties, userRepository, revocationIndex);
+        user = new Users();
+        user.setId(UUID.randomUUID());
+        user.setUsername("alice");
+    }
+
+    private static String sha256(String token) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private RefreshToken storedToken(boolean revoked) throws Exception {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(sha256(TOKEN));
+        refreshToken.setUser(user);
+        refreshToken.setRevoked(revoked);
+        refreshToken.setExpiryDate(LocalDateTime.now().plusDays(7));
+        return refreshToken;
+    }
+
+    @Test
+    @DisplayName("已知有效的 Token 再次刷新時不應讀取 refresh_tokens")
+    void shouldSkipTokenLookupForKnownValidToken() throws Exception {
+        // given
+        given(refreshTokenRepository.findByTokenHash(sha256(TOKEN))).willReturn(Optional.of(storedToken(false)));
+        given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+
+        // when
+        Users first = refreshTokenService.validateRefreshToken(TOKEN);
+        Users second = refreshTokenService.validateRefreshToken(TOKEN);
+
+        // then
+        assertThat(first).isSameAs(user);
+        assertThat(second).isSameAs(user);
+        verify(refreshTokenRepository, times(1)).findByTokenHash(anyString());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("撤銷後應回到 DB 判斷並拒絕")
+    void shouldRejectAfterRevocation() throws Exception {
+        // given
+        RefreshToken stored = storedToken(false);
+        given(refreshTokenRepository.findByTokenHash(sha256(TOKEN))).willReturn(Optional.of(stored));
+        refreshTokenService.validateRefreshToken(TOKEN);
+
+        // when
+        refreshTokenService.revokeRefreshToken(TOKEN);
+
+        // then
+        assertThat(revocationIndex.knownValidCount()).isZero();
+        assertThatThrownBy(() -> refreshTokenService.validateRefreshToken(TOKEN))
+                .isInstanceOf(BusinessException.class);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("其他節點的撤銷應在重建索引後生效")
+    void shouldApplyRemoteRevocationOnRebuild() throws Exception {
+        // given
+        given(refreshTokenRepository.findByTokenHash(sha256(TOKEN)))
+                .willReturn(Optional.of(storedToken(false)), Optional.of(storedToken(true)));
+        refreshTokenService.validateRefreshToken(TOKEN);
+        given(refreshTokenRepository.findRevokedTokenHashes(any())).willReturn(List.of(sha256(TOKEN)));
+
+        // when
+        revocationIndex.rebuild();
+
+        // then
+        assertThat(revocationIndex.isRevoked(sha256(TOKEN))).isTrue();
+        assertThatThrownBy(() -> refreshTokenService.validateRefreshToken(TOKEN))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    @DisplayName("同一設備沒有有效的舊 Token 時不應執行撤銷 UPDATE")
+    void shouldSkipDeviceRevocationWhenNothingActive() {
+        // given
+        given(refreshTokenRepository.findActiveTokenHashesByUserAndDevice(eq(user.getId()), eq("WEB"), any()))
+                .willReturn(List.of());
+        given(refreshTokenRepository.save(any(RefreshToken.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        refreshTokenService.createRefreshToken(TOKEN, user, "WEB", null, null);
+
+        // then
+        verify(refreshTokenRepository, never()).revokeUserDeviceTokens(any(), anyString(), anyBoolean());
+        assertThat(revocationIndex.knownValidCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("最後使用時間應合併後批次寫入")
+    void shouldCoalesceLastUsedUpdates() throws Exception {
+        // given
+        given(refreshTokenRepository.findByTokenHash(sha256(TOKEN))).willReturn(Optional.of(storedToken(false)));
+        given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+        for (int i = 0; i < 5; i++) {
+            refreshTokenService.validateRefreshToken(TOKEN);
+        }
+
+        // when
+        refreshTokenService.flushLastUsed();
+        refreshTokenService.flushLastUsed();
+
+        // then
+        verify(refreshTokenRepository, times(1)).updateLastUsed(eq(List.of(sha256(TOKEN))), any());
+    }
+
+    @Test
+    @DisplayName("停用快速路徑時每次刷新都應查詢 DB")
+    void shouldAlwaysQueryWhenIndexDisabled() throws Exception {
+        // given
+        jwtProperties.setRefreshTokenIndexEnabled(false);
+        revocationIndex = new RefreshTokenRevocationIndex(refreshTokenRepository, jwtProperties);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtProperties, userRepository, revocationIndex);
+        given(refreshTokenRepository.findByTokenHash(sha256(TOKEN))).willReturn(Optional.of(storedToken(false)));
+
+        // when
+        refreshTokenService.validateRefreshToken(TOKEN);
+        refreshTokenService.validateRefreshToken(TOKEN);
+
+        // then
+        verify(refreshTokenRepository, times(2)).findByTokenHash(anyString());
+        verify(refreshTokenRepository, never()).updateLastUsed(anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("清理時段應支援跨午夜")
+    void shouldHandleCleanupWindowAcrossMidnight() {
+        // given
+        jwtProperties.getCleanup().setWindowStart("22:00");
+        jwtProperties.getCleanup().setWindowEnd("04:00");
+
+        // when / then
+        assertThat(refreshTokenService.isWithinCleanupWindow(LocalTime.of(23, 30))).isTrue();
+        assertThat(refreshTokenService.isWithinCleanupWindow(LocalTime.of(3, 59))).isTrue();
+        assertThat(refreshTokenService.isWithinCleanupWindow(LocalTime.of(4, 0))).isFalse();
+        assertThat(refreshTokenService.isWithinCleanupWindow(LocalTime.of(12, 0))).isFalse();
+    }
+
+    @Test
+    @DisplayName("每批只刪除 chunkSize 筆")
+    void shouldDeleteExpiredTokensInBoundedChunks() {
+        // given
+        jwtProperties.getCleanup().setChunkSize(2);
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        given(refreshTokenRepository.findExpiredTokenIds(any(), eq(PageRequest.of(0, 2)))).willReturn(ids);
+        given(refreshTokenRepository.deleteByIdIn(ids)).willReturn(2);
+
+        // when
+        int deleted = refreshTokenService.deleteExpiredChunk(LocalDateTime.now());
+
+        // then
+        assertThat(deleted).isEqualTo(2);
+    }
+}
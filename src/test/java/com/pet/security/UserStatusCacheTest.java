@@ -0,0 +1,152 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+import com.pet.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserStatusCache 測試")
+class UserStatusCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JwtProperties jwtProperties;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+    }
+
+    private static UserRepository.AuthView view(String username, UserRole role) {
+        return new UserRepository.AuthView() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public UserRole getRole() {
+                return role;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("TTL 內同一使用者只查詢一次 DB")
+    void shouldQueryOncePerTtl() {
+        // given
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+        given(userRepository.findAuthViewById(userId)).willReturn(Optional.of(view("alice", UserRole.CUSTOMER)));
+        JwtPrincipal principal = new JwtPrincipal(userId, "alice", UserRole.CUSTOMER);
+
+        // when / then
+        assertThat(cache.isCurrent(principal)).isTrue();
+        assertThat(cache.isCurrent(principal)).isTrue();
+        verify(userRepository, times(1)).findAuthViewById(userId);
+    }
+
+    @Test
+    @DisplayName("已刪除的使用者或角色已變更應視為撤銷")
+    void shouldRejectDeletedOrChangedUser() {
+        // given
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+        UUID deletedId = UUID.randomUUID();
+        given(userRepository.findAuthViewById(deletedId)).willReturn(Optional.empty());
+        given(userRepository.findAuthViewById(userId)).willReturn(Optional.of(view("alice", UserRole.CUSTOMER)));
+
+        // when / then
+        assertThat(cache.isCurrent(new JwtPrincipal(deletedId, "bob", UserRole.CUSTOMER))).isFalse();
+        assertThat(cache.isCurrent(new JwtPrincipal(userId, "alice", UserRole.ADMIN))).isFalse();
+    }
+
+    @Test
+    @DisplayName("evict 後應重新查詢")
+    void shouldReloadAfterEvict() {
+        // given
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+        given(userRepository.findAuthViewById(userId))
+                .willReturn(Optional.of(view("alice", UserRole.CUSTOMER)))
+                .willReturn(Optional.empty());
+        JwtPrincipal principal = new JwtPrincipal(userId, "alice", UserRole.CUSTOMER);
+        assertThat(cache.isCurrent(principal)).isTrue();
+
+        // when
+        cache.evict(userId);
+
+        // then
+        assertThat(cache.isCurrent(principal)).isFalse();
+    }
+
+    @Test
+    @DisplayName("交易中的 evict 應等到 commit 後才清除")
+    void shouldEvictAfterCommit() {
+        // given
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+        given(userRepository.findAuthViewById(userId))
+                .willReturn(Optional.of(view("alice", UserRole.CUSTOMER)))
+                .willReturn(Optional.empty());
+        JwtPrincipal principal = new JwtPrincipal(userId, "alice", UserRole.CUSTOMER);
+        assertThat(cache.isCurrent(principal)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            cache.evictAfterCommit(userId);
+
+            // then：commit 前仍使用快取
+            assertThat(cache.isCurrent(principal)).isTrue();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cache.isCurrent(principal)).isFalse();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("筆數達上限時不應再快取新的使用者")
+    void shouldBoundCacheSize() {
+        // given
+        jwtProperties.setUserStatusCacheMaxSize(2);
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+        given(userRepository.findAuthViewById(any())).willReturn(Optional.of(view("u", UserRole.CUSTOMER)));
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            cache.isCurrent(new JwtPrincipal(UUID.randomUUID(), "u", UserRole.CUSTOMER));
+        }
+
+        // then
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("TTL 為 0 時不檢查使用者狀態")
+    void shouldSkipCheckWhenDisabled() {
+        // given
+        jwtProperties.setUserStatusCacheTtl(0);
+        UserStatusCache cache = new UserStatusCache(userRepository, jwtProperties);
+
+        // when / then
+        assertThat(cache.isCurrent(new JwtPrincipal(userId, "alice", UserRole.CUSTOMER))).isTrue();
+        verify(userRepository, never()).findAuthViewById(any());
+    }
+}
@@ -0,0 +1,90 @@
+package com.pet.security;
+
+import com.pet.domain.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("VerifiedTokenCache 測試")
+class VerifiedTokenCacheTest {
+
+    private JwtProperties jwtProperties;
+
+    @BeforeEach
+    void setUp() {
+        jwtProperties = new JwtProperties();
+    }
+
+    private VerifiedToken verified(Instant expiresAt) {
+        return new VerifiedToken("alice", UUID.randomUUID(), UserRole.CUSTOMER, "ACCESS", expiresAt);
+    }
+
+    @Test
+    @DisplayName("命中時應回傳已驗證的內容並計入命中率")
+    void shouldReturnCachedToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtProperties);
+        VerifiedToken token = verified(Instant.now().plusSeconds(60));
+
+        assertThat(cache.get("a.b.c")).isNull();
+        cache.put("a.b.c", token);
+
+        assertThat(cache.get("a.b.c")).isSameAs(token);
+        assertThat(cache.health().message()).contains("hitRatio=0.500", "hits=1", "misses=1");
+    }
+
+    @Test
+    @DisplayName("Token 過期後不應命中")
+    void shouldNotReturnExpiredToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtProperties);
+        cache.put("a.b.c", verified(Instant.now().minusSeconds(1)));
+
+        assertThat(cache.get("a.b.c")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.health().message()).contains("expirations=1");
+    }
+
+    @Test
+    @DisplayName("不同 Token 不應取得彼此的內容")
+    void shouldCompareFullToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtProperties);
+        cache.put("a.b.c", verified(Instant.now().plusSeconds(60)));
+
+        assertThat(cache.get("a.b.d")).isNull();
+    }
+
+    @Test
+    @DisplayName("超過容量時應淘汰最久未使用的項目")
+    void shouldEvictLeastRecentlyUsed() {
+        jwtProperties.setTokenCacheStripes(1);
+        jwtProperties.setTokenCacheMaxSize(2);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtProperties);
+        Instant exp = Instant.now().plusSeconds(60);
+
+        cache.put("first", verified(exp));
+        cache.put("second", verified(exp));
+        cache.get("first");
+        cache.put("third", verified(exp));
+
+        assertThat(cache.get("first")).isNotNull();
+        assertThat(cache.get("second")).isNull();
+        assertThat(cache.get("third")).isNotNull();
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("容量為 0 時停用快取")
+    void shouldBeDisabledWhenMaxSizeIsZero() {
+        jwtProperties.setTokenCacheMaxSize(0);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtProperties);
+
+        cache.put("a.b.c", verified(Instant.now().plusSeconds(60)));
+
+        assertThat(cache.get("a.b.c")).isNull();
+        assertThat(cache.health().message()).isEqualTo("disabled");
+    }
+}
@@ -1,6 +1,5 @@
 package com.pet.service;
 
-import com.pet.domain.RefreshToken;
 import com.pet.domain.UserRole;
 import com.pet.domain.Users;
 import com.pet.dto.JwtAuthenticationResponse;
@@ -138,10 +137,7 @@ class AuthenticationServiceTest {
             RefreshTokenRequest request = new RefreshTokenRequest();
             request.setRefreshToken("valid-refresh-token");
 
-            RefreshToken refreshToken = new RefreshToken();
-            refreshToken.setUser(testUser);
-
-            given(refreshTokenService.validateRefreshToken("valid-refresh-token")).willReturn(refreshToken);
+            given(refreshTokenService.validateRefreshToken("valid-refresh-token")).willReturn(testUser);
             given(jwtService.validateToken("valid-refresh-token")).willReturn(true);
             given(jwtService.isRefreshToken("valid-refresh-token")).willReturn(true);
             given(jwtService.generateAccessToken(testUser)).willReturn("new-access-token");
@@ -163,10 +159,7 @@ class AuthenticationServiceTest {
             RefreshTokenRequest request = new RefreshTokenRequest();
             request.setRefreshToken("invalid-token");
 
-            RefreshToken refreshToken = new RefreshToken();
-            refreshToken.setUser(testUser);
-
-            given(refreshTokenService.validateRefreshToken("invalid-token")).willReturn(refreshToken);
+            given(refreshTokenService.validateRefreshToken("invalid-token")).willReturn(testUser);
             given(jwtService.validateToken("invalid-token")).willReturn(false);
 
             // when & then
@@ -181,10 +174,7 @@ class AuthenticationServiceTest {
             RefreshTokenRequest request = new RefreshTokenRequest();
             request.setRefreshToken("access-token-not-refresh");
 
-            RefreshToken refreshToken = new RefreshToken();
-            refreshToken.setUser(testUser);
-
-            given(refreshTokenService.validateRefreshToken("access-token-not-refresh")).willReturn(refreshToken);
+            given(refreshTokenService.validateRefreshToken("access-token-not-refresh")).willReturn(testUser);
             given(jwtService.validateToken("access-token-not-refresh")).willReturn(true);
             given(jwtService.isRefreshToken("access-token-not-refresh")).willReturn(false);
 
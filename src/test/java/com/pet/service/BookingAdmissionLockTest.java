@@ -0,0 +1,151 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.exception.BusinessException;
+import com.pet.exception.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BookingAdmissionLock 測試")
+class BookingAdmissionLockTest {
+
+    private BookingConfig bookingConfig;
+
+    @BeforeEach
+    void setUp() {
+        bookingConfig = new BookingConfig();
+        bookingConfig.getAdmissionLock().setTimeoutMs(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * 在另一個執行緒模擬一個交易：取得鎖後立即結束交易
+     */
+    private CompletableFuture<Void> acquireInOtherTransaction(BookingAdmissionLock lock, UUID sitterId) {
+        return CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                lock.lockUntilTransactionEnds(sitterId);
+                completeTransaction();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+    }
+
+    private static void completeTransaction() {
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    @Test
+    @DisplayName("分段數量應進位到 2 的次方")
+    void shouldRoundStripesToPowerOfTwo() {
+        bookingConfig.getAdmissionLock().setStripes(100);
+        assertThat(new BookingAdmissionLock(bookingConfig).stripeCount()).isEqualTo(128);
+
+        bookingConfig.getAdmissionLock().setStripes(1);
+        assertThat(new BookingAdmissionLock(bookingConfig).stripeCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("同一保母的鎖應持有到交易結束，其他交易等待逾時")
+    void shouldHoldLockUntilTransactionCompletes() {
+        BookingAdmissionLock lock = new BookingAdmissionLock(bookingConfig);
+        UUID sitterId = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        lock.lockUntilTransactionEnds(sitterId);
+
+        assertThatThrownBy(() -> acquireInOtherTransaction(lock, sitterId).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(BusinessException.class)
+                .satisfies(e -> assertThat(((BusinessException) e.getCause()).getErrorCode())
+                        .isEqualTo(ErrorCode.BOOKING_SITTER_BUSY));
+
+        completeTransaction();
+
+        assertThat(acquireInOtherTransaction(lock, sitterId)).succeedsWithin(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("不同分段的保母不應互相阻塞")
+    void shouldNotBlockOtherStripes() {
+        BookingAdmissionLock lock = new BookingAdmissionLock(bookingConfig);
+        UUID sitterId = UUID.randomUUID();
+        UUID otherSitterId;
+        do {
+            otherSitterId = UUID.randomUUID();
+        } while (lock.stripeIndex(otherSitterId) == lock.stripeIndex(sitterId));
+
+        TransactionSynchronizationManager.initSynchronization();
+        lock.lockUntilTransactionEnds(sitterId);
+
+        assertThat(acquireInOtherTransaction(lock, otherSitterId)).succeedsWithin(5, TimeUnit.SECONDS);
+        completeTransaction();
+    }
+
+    @Test
+    @DisplayName("交易外執行時應持有鎖到 action 結束，逾時不執行 action")
+    void shouldHoldLockWhileExecutingOutsideTransaction() {
+        BookingAdmissionLock lock = new BookingAdmissionLock(bookingConfig);
+        UUID sitterId = UUID.randomUUID();
+        AtomicBoolean otherRan = new AtomicBoolean();
+
+        String result = lock.executeWithLocks(List.of(sitterId), () -> {
+            assertThatThrownBy(() -> CompletableFuture.runAsync(() -> lock.executeWithLocks(List.of(sitterId), () -> {
+                otherRan.set(true);
+                return null;
+            })).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(BusinessException.class);
+            return "created";
+        });
+
+        assertThat(result).isEqualTo("created");
+        assertThat(otherRan).isFalse();
+        assertThat(acquireInOtherTransaction(lock, sitterId)).succeedsWithin(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("action 失敗時也應釋放鎖")
+    void shouldReleaseLockWhenActionFails() {
+        BookingAdmissionLock lock = new BookingAdmissionLock(bookingConfig);
+        UUID sitterId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> lock.executeWithLocks(List.of(sitterId), () -> {
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(acquireInOtherTransaction(lock, sitterId)).succeedsWithin(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("沒有交易同步時不應上鎖")
+    void shouldSkipLockingOutsideTransaction() {
+        BookingAdmissionLock lock = new BookingAdmissionLock(bookingConfig);
+        UUID sitterId = UUID.randomUUID();
+
+        lock.lockUntilTransactionEnds(sitterId);
+
+        assertThat(acquireInOtherTransaction(lock, sitterId)).succeedsWithin(5, TimeUnit.SECONDS);
+    }
+}
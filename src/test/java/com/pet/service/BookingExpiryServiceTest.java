@@ -0,0 +1,133 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingExpiryService 測試")
+class BookingExpiryServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingOutboxService bookingOutboxService;
+
+    @Mock
+    private SitterDailyStatsService sitterDailyStatsService;
+
+    private BookingExpiryService expiryService;
+    private final LocalDateTime cutoff = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        BookingConfig bookingConfig = new BookingConfig();
+        bookingConfig.getExpiry().setChunkSize(3);
+        expiryService = new BookingExpiryService(bookingRepository, bookingOutboxService, sitterDailyStatsService, bookingConfig);
+    }
+
+    private Booking booking(BookingStatus status, LocalDateTime updatedAt) {
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setStatus(status);
+        booking.setUpdatedAt(updatedAt);
+        return booking;
+    }
+
+    @Test
+    @DisplayName("應以單一 UPDATE 過期一批預約，並只將實際更新的預約寫入 outbox")
+    @SuppressWarnings("unchecked")
+    void shouldExpireChunkAndRecordOnlyUpdatedRows() {
+        // given
+        Booking expired = booking(BookingStatus.EXPIRED, null);
+        Booking confirmedMeanwhile = booking(BookingStatus.CONFIRMED, LocalDateTime.now());
+        List<UUID> ids = List.of(expired.getId(), confirmedMeanwhile.getId());
+        given(bookingRepository.findOverduePendingIds(eq(cutoff), any(Pageable.class))).willReturn(ids);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        given(bookingRepository.expirePendingBookings(eq(ids), eq(cutoff), now.capture())).willReturn(1);
+        given(bookingRepository.findAllWithRelationsByIdIn(ids)).willAnswer(invocation -> {
+            expired.setUpdatedAt(now.getValue());
+            return List.of(expired, confirmedMeanwhile);
+        });
+
+        // when
+        BookingExpiryService.ChunkResult result = expiryService.expireChunk(cutoff);
+
+        // then
+        assertThat(result.candidates()).isEqualTo(2);
+        assertThat(result.expired()).containsExactly(expired);
+        ArgumentCaptor<List<Booking>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(bookingOutboxService).recordExpired(recorded.capture());
+        assertThat(recorded.getValue()).containsExactly(expired);
+        verify(sitterDailyStatsService).bookingsExpired(List.of(expired));
+    }
+
+    @Test
+    @DisplayName("查詢批次大小應使用設定的 chunkSize")
+    void shouldLimitCandidatesToChunkSize() {
+        // given
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        given(bookingRepository.findOverduePendingIds(eq(cutoff), pageable.capture())).willReturn(List.of());
+
+        // when
+        expiryService.expireChunk(cutoff);
+
+        // then
+        assertThat(pageable.getValue().getPageSize()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("沒有逾時預約時不應執行 UPDATE")
+    void shouldSkipUpdateWhenNothingIsOverdue() {
+        // given
+        given(bookingRepository.findOverduePendingIds(eq(cutoff), any(Pageable.class))).willReturn(List.of());
+
+        // when
+        BookingExpiryService.ChunkResult result = expiryService.expireChunk(cutoff);
+
+        // then
+        assertThat(result.candidates()).isZero();
+        verify(bookingRepository, never()).expirePendingBookings(anyCollection(), any(), any());
+        verify(bookingOutboxService, never()).recordExpired(anyList());
+    }
+
+    @Test
+    @DisplayName("候選預約都已被其他交易處理時不應寫入 outbox")
+    void shouldNotRecordWhenNoRowWasUpdated() {
+        // given
+        List<UUID> ids = List.of(UUID.randomUUID());
+        given(bookingRepository.findOverduePendingIds(eq(cutoff), any(Pageable.class))).willReturn(ids);
+        given(bookingRepository.expirePendingBookings(eq(ids), eq(cutoff), any())).willReturn(0);
+
+        // when
+        BookingExpiryService.ChunkResult result = expiryService.expireChunk(cutoff);
+
+        // then
+        assertThat(result.candidates()).isEqualTo(1);
+        assertThat(result.expired()).isEmpty();
+        verify(bookingOutboxService, never()).recordExpired(anyList());
+    }
+}
@@ -0,0 +1,165 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.repository.BookingRepository;
+import com.pet.service.BookingExpiryService.ChunkResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingExpiryTimer 測試")
+class BookingExpiryTimerTest {
+
+    @Mock
+    private BookingExpiryService bookingExpiryService;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingSlotIndex bookingSlotIndex;
+
+    private BookingConfig bookingConfig;
+    private BookingExpiryTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        bookingConfig = new BookingConfig();
+        lenient().when(bookingExpiryService.pendingTimeout()).thenReturn(Duration.ofHours(24));
+        lenient().when(bookingExpiryService.chunkSize()).thenReturn(500);
+        timer = new BookingExpiryTimer(bookingExpiryService, bookingRepository, bookingSlotIndex, bookingConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    private Booking booking(BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setStatus(status);
+        booking.setCreatedAt(LocalDateTime.now());
+        return booking;
+    }
+
+    @Test
+    @DisplayName("啟動時應從 DB 載入所有 PENDING 預約")
+    void shouldLoadPendingBookingsOnStart() {
+        // given
+        given(bookingRepository.findPendingCreatedTimes()).willReturn(List.of(
+                new Object[]{UUID.randomUUID(), LocalDateTime.now().minusHours(1)},
+                new Object[]{UUID.randomUUID(), LocalDateTime.now().minusHours(2)}));
+
+        // when
+        timer.start();
+
+        // then
+        assertThat(timer.trackedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("已逾期的預約應在啟動後立即過期並釋放時段")
+    void shouldExpireOverdueBookingsImmediately() {
+        // given
+        UUID bookingId = UUID.randomUUID();
+        Booking expired = booking(BookingStatus.EXPIRED);
+        given(bookingRepository.findPendingCreatedTimes()).willReturn(List.<Object[]>of(
+                new Object[]{bookingId, LocalDateTime.now().minusHours(25)}));
+        given(bookingExpiryService.expireBookings(List.of(bookingId)))
+                .willReturn(new ChunkResult(1, List.of(expired)));
+
+        // when
+        timer.start();
+
+        // then
+        verify(bookingSlotIndex, timeout(5000)).record(expired);
+        assertThat(timer.trackedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("應在到期時間觸發過期")
+    void shouldExpireAtDeadline() {
+        // given
+        UUID bookingId = UUID.randomUUID();
+        given(bookingRepository.findPendingCreatedTimes()).willReturn(List.of());
+        given(bookingExpiryService.expireBookings(List.of(bookingId)))
+                .willReturn(new ChunkResult(1, List.of()));
+        timer.start();
+
+        // when
+        timer.schedule(bookingId, System.currentTimeMillis() + 200);
+
+        // then
+        verify(bookingExpiryService, timeout(5000)).expireBookings(List.of(bookingId));
+    }
+
+    @Test
+    @DisplayName("預約離開 PENDING 後應取消計時")
+    void shouldCancelWhenBookingLeavesPending() {
+        // given
+        Booking booking = booking(BookingStatus.PENDING);
+        timer.track(booking);
+        assertThat(timer.trackedCount()).isEqualTo(1);
+
+        // when
+        booking.setStatus(BookingStatus.CONFIRMED);
+        timer.track(booking);
+        timer.expireDue(List.of(new BookingExpiryTimer.Deadline(booking.getId(), 0)));
+
+        // then
+        assertThat(timer.trackedCount()).isZero();
+        verify(bookingExpiryService, never()).expireBookings(anyCollection());
+    }
+
+    @Test
+    @DisplayName("過期失敗時不應中斷計時器")
+    void shouldSurviveExpiryFailure() {
+        // given
+        Booking booking = booking(BookingStatus.PENDING);
+        timer.schedule(booking.getId(), 0);
+        given(bookingExpiryService.expireBookings(List.of(booking.getId())))
+                .willThrow(new RuntimeException("DB error"));
+
+        // when
+        timer.expireDue(List.of(new BookingExpiryTimer.Deadline(booking.getId(), 0)));
+
+        // then
+        assertThat(timer.health().message()).contains("failures=1");
+    }
+
+    @Test
+    @DisplayName("停用時不應追蹤預約")
+    void shouldIgnoreBookingsWhenDisabled() {
+        // given
+        bookingConfig.getExpiry().setTimerEnabled(false);
+
+        // when
+        timer.start();
+        timer.track(booking(BookingStatus.PENDING));
+
+        // then
+        assertThat(timer.trackedCount()).isZero();
+        assertThat(timer.health().message()).isEqualTo("disabled");
+    }
+}
@@ -6,7 +6,6 @@ import com.pet.dto.BookingDto;
 import com.pet.dto.BookingStatusUpdateDto;
 import com.pet.exception.BusinessException;
 import com.pet.exception.ErrorCode;
-import com.pet.log.service.BookingLogService;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.PetRepository;
 import com.pet.repository.SitterRepository;
@@ -63,10 +62,22 @@ class BookingOptimisticLockTest {
     private UserRepository userRepository;
 
     @Mock
-    private BookingLogService bookingLogService;
+    private BookingOutboxService bookingOutboxService;
 
     @Mock
-    private LineMessagingService lineMessagingService;
+    private BookingSlotIndex bookingSlotIndex;
+
+    @Mock
+    private BookingAdmissionLock bookingAdmissionLock;
+
+    @Mock
+    private BookingExpiryTimer bookingExpiryTimer;
+
+    @Mock
+    private SitterDailyStatsService sitterDailyStatsService;
+
+    @Mock
+    private SitterRankingIndex sitterRankingIndex;
 
     @InjectMocks
     private BookingService bookingService;
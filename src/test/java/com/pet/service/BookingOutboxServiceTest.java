@@ -0,0 +1,243 @@
+package com.pet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.BookingOutboxEvent;
+import com.pet.domain.BookingOutboxEvent.EventType;
+import com.pet.domain.BookingOutboxEvent.Status;
+import com.pet.log.domain.BookingLog;
+import com.pet.log.service.BookingLogService;
+import com.pet.repository.BookingOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingOutboxService 測試")
+class BookingOutboxServiceTest {
+
+    @Mock
+    private BookingOutboxRepository bookingOutboxRepository;
+
+    @Mock
+    private BookingLogService bookingLogService;
+
+    private BookingConfig bookingConfig;
+    private BookingOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        bookingConfig = new BookingConfig();
+        bookingConfig.getOutbox().setRetryBaseDelayMs(1000);
+        bookingConfig.getOutbox().setRetryMaxDelayMs(10_000);
+        bookingConfig.getOutbox().setMaxAttempts(3);
+        outboxService = new BookingOutboxService(bookingOutboxRepository, bookingLogService,
+                new ObjectMapper().registerModule(new JavaTimeModule()), bookingConfig);
+    }
+
+    private Booking booking(BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setStatus(status);
+        BookingLog log = new BookingLog();
+        log.setBookingId(booking.getId());
+        log.setStatus(status.name());
+        log.setSyncTime(LocalDateTime.of(2026, 1, 1, 9, 0));
+        given(bookingLogService.convertToBookingLog(booking)).willReturn(log);
+        return booking;
+    }
+
+    @Test
+    @DisplayName("狀態變更應寫入 Log 快照與 LINE 通知兩筆事件")
+    @SuppressWarnings("unchecked")
+    void shouldRecordLogSnapshotAndNotification() {
+        // given
+        Booking booking = booking(BookingStatus.REJECTED);
+        ArgumentCaptor<List<BookingOutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        outboxService.recordStatusChanged(booking, "時間不合");
+
+        // then
+        verify(bookingOutboxRepository).saveAll(captor.capture());
+        List<BookingOutboxEvent> events = captor.getValue();
+        assertThat(events).extracting(BookingOutboxEvent::getEventType)
+                .containsExactly(EventType.BOOKING_LOG, EventType.LINE_NOTIFICATION);
+        assertThat(events.get(1).getBookingStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(events.get(1).getPayload()).isEqualTo("時間不合");
+
+        // Log 快照可還原成 BookingLog
+        BookingLog restored = outboxService.readBookingLog(events.get(0));
+        assertThat(restored.getBookingId()).isEqualTo(booking.getId());
+        assertThat(restored.getStatus()).isEqualTo("REJECTED");
+        assertThat(restored.getSyncTime()).isEqualTo(LocalDateTime.of(2026, 1, 1, 9, 0));
+    }
+
+    @Test
+    @DisplayName("批次建立應逐筆寫入 Log 事件，並只寫入一筆合併通知")
+    @SuppressWarnings("unchecked")
+    void shouldRecordBatchCreated() {
+        // given
+        Booking first = booking(BookingStatus.PENDING);
+        Booking second = booking(BookingStatus.PENDING);
+        ArgumentCaptor<List<BookingOutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        outboxService.recordBatchCreated(List.of(first, second));
+
+        // then
+        verify(bookingOutboxRepository).saveAll(captor.capture());
+        List<BookingOutboxEvent> events = captor.getValue();
+        assertThat(events).extracting(BookingOutboxEvent::getEventType)
+                .containsExactly(EventType.BOOKING_LOG, EventType.BOOKING_LOG, EventType.LINE_BATCH_CREATED);
+        assertThat(outboxService.readBookingIds(events.get(2))).containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    @DisplayName("批次過期應為每筆預約寫入 Log 快照與過期通知")
+    @SuppressWarnings("unchecked")
+    void shouldRecordExpired() {
+        // given
+        Booking first = booking(BookingStatus.EXPIRED);
+        Booking second = booking(BookingStatus.EXPIRED);
+        ArgumentCaptor<List<BookingOutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        outboxService.recordExpired(List.of(first, second));
+
+        // then
+        verify(bookingOutboxRepository).saveAll(captor.capture());
+        List<BookingOutboxEvent> events = captor.getValue();
+        assertThat(events).extracting(BookingOutboxEvent::getEventType)
+                .containsExactly(EventType.BOOKING_LOG, EventType.LINE_NOTIFICATION,
+                        EventType.BOOKING_LOG, EventType.LINE_NOTIFICATION);
+        assertThat(events.get(3).getBookingId()).isEqualTo(second.getId());
+        assertThat(events.get(3).getBookingStatus()).isEqualTo(BookingStatus.EXPIRED);
+    }
+
+    @Test
+    @DisplayName("沒有到期事件時不應嘗試領取")
+    void shouldSkipClaimWhenNothingDue() {
+        // given
+        given(bookingOutboxRepository.findDueIds(any(), any())).willReturn(List.of());
+
+        // when
+        List<BookingOutboxEvent> claimed = outboxService.claimDueEvents();
+
+        // then
+        assertThat(claimed).isEmpty();
+        verify(bookingOutboxRepository, never()).claim(anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("應只回傳本批次 claimToken 領到的事件")
+    void shouldReturnEventsClaimedByToken() {
+        // given
+        UUID id = UUID.randomUUID();
+        BookingOutboxEvent event = new BookingOutboxEvent();
+        event.setId(id);
+        given(bookingOutboxRepository.findDueIds(any(), any())).willReturn(List.of(id));
+        given(bookingOutboxRepository.claim(eq(List.of(id)), any(), any(), any())).willReturn(1);
+        given(bookingOutboxRepository.findByClaimToken(any())).willReturn(List.of(event));
+
+        // when
+        List<BookingOutboxEvent> claimed = outboxService.claimDueEvents();
+
+        // then
+        assertThat(claimed).containsExactly(event);
+    }
+
+    @Test
+    @DisplayName("重試間隔應指數成長並受上限限制")
+    void shouldBackOffExponentially() {
+        assertThat(outboxService.retryDelayMs(1)).isEqualTo(1000);
+        assertThat(outboxService.retryDelayMs(2)).isEqualTo(2000);
+        assertThat(outboxService.retryDelayMs(4)).isEqualTo(8000);
+        assertThat(outboxService.retryDelayMs(5)).isEqualTo(10_000);
+        assertThat(outboxService.retryDelayMs(64)).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("失敗時應以 claimToken 條件式更新安排重試，超過上限標記為 FAILED")
+    void shouldScheduleRetryThenGiveUp() {
+        // given
+        UUID token = UUID.randomUUID();
+        BookingOutboxEvent event = new BookingOutboxEvent();
+        event.setId(UUID.randomUUID());
+        event.setClaimToken(token);
+        event.setNextAttemptAt(LocalDateTime.now());
+        given(bookingOutboxRepository.markFailed(eq(event.getId()), eq(token), anyInt(), any(), any(), any()))
+                .willReturn(1);
+
+        // when
+        boolean gaveUp = outboxService.markFailed(event, "LINE push failed");
+
+        // then
+        assertThat(gaveUp).isFalse();
+        verify(bookingOutboxRepository).markFailed(eq(event.getId()), eq(token), eq(1), eq(Status.PENDING),
+                argThat(next -> next.isAfter(LocalDateTime.now())), eq("LINE push failed"));
+
+        event.setAttempts(2);
+        assertThat(outboxService.markFailed(event, "LINE push failed")).isTrue();
+        verify(bookingOutboxRepository).markFailed(eq(event.getId()), eq(token), eq(3), eq(Status.FAILED),
+                any(), eq("LINE push failed"));
+        verify(bookingOutboxRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("領取已失效時不應覆寫事件狀態")
+    void shouldIgnoreFailureWhenClaimLost() {
+        // given：租約到期後事件已被其他 relay 領取並標記為 PROCESSED
+        BookingOutboxEvent event = new BookingOutboxEvent();
+        event.setId(UUID.randomUUID());
+        event.setClaimToken(UUID.randomUUID());
+        event.setAttempts(2);
+        given(bookingOutboxRepository.markFailed(any(), any(), anyInt(), any(), any(), any())).willReturn(0);
+
+        // when & then
+        assertThat(outboxService.markFailed(event, "LINE push failed")).isFalse();
+    }
+
+    @Test
+    @DisplayName("標記已投遞時應依 claimToken 分組更新，並回傳實際更新筆數")
+    void shouldMarkProcessedPerClaimToken() {
+        // given
+        UUID firstToken = UUID.randomUUID();
+        UUID secondToken = UUID.randomUUID();
+        BookingOutboxEvent first = new BookingOutboxEvent();
+        first.setId(UUID.randomUUID());
+        first.setClaimToken(firstToken);
+        BookingOutboxEvent second = new BookingOutboxEvent();
+        second.setId(UUID.randomUUID());
+        second.setClaimToken(secondToken);
+        given(bookingOutboxRepository.markProcessed(eq(List.of(first.getId())), eq(firstToken), any())).willReturn(1);
+        given(bookingOutboxRepository.markProcessed(eq(List.of(second.getId())), eq(secondToken), any())).willReturn(0);
+
+        // when
+        int updated = outboxService.markProcessed(List.of(first, second));
+
+        // then
+        assertThat(updated).isEqualTo(1);
+    }
+}
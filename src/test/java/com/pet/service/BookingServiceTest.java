@@ -3,10 +3,10 @@ package com.pet.service;
 import com.pet.domain.*;
 import com.pet.domain.Booking.BookingStatus;
 import com.pet.dto.BookingDto;
+import com.pet.dto.BookingPageDto;
 import com.pet.dto.BookingStatusUpdateDto;
 import com.pet.exception.BusinessException;
 import com.pet.exception.ResourceNotFoundException;
-import com.pet.log.service.BookingLogService;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.PetRepository;
 import com.pet.repository.SitterRepository;
@@ -21,18 +21,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.never;
@@ -55,10 +62,25 @@ class BookingServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BookingLogService bookingLogService;
+    private BookingOutboxService bookingOutboxService;
 
     @Mock
-    private LineMessagingService lineMessagingService;
+    private BookingSlotIndex bookingSlotIndex;
+
+    @Mock
+    private BookingAdmissionLock bookingAdmissionLock;
+
+    @Mock
+    private BookingExpiryTimer bookingExpiryTimer;
+
+    @Mock
+    private SitterDailyStatsService sitterDailyStatsService;
+
+    @Mock
+    private SitterRankingIndex sitterRankingIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private BookingService bookingService;
@@ -75,7 +97,12 @@ class BookingServiceTest {
     private BookingDto testBookingDto;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        // 准入鎖直接執行傳入的交易內容
+        lenient().when(bookingAdmissionLock.executeWithLocks(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(1)).get());
+
         testUserId = UUID.randomUUID();
         testPetId = UUID.randomUUID();
         testSitterId = UUID.randomUUID();
@@ -319,6 +346,7 @@ class BookingServiceTest {
                 // then
                 assertThat(result.status()).isEqualTo(BookingStatus.COMPLETED);
                 verify(sitterRepository).save(any(Sitter.class));
+                verify(sitterRankingIndex).updateAfterCommit(testSitter);
                 assertThat(testSitter.getCompletedBookings()).isEqualTo(1);
             }
         }
@@ -382,8 +410,8 @@ class BookingServiceTest {
         @DisplayName("應該取得使用者的所有預約")
         void shouldGetBookingsByUser() {
             // given
-            given(bookingRepository.findByUserIdOrderByCreatedAtDesc(testUserId))
-                    .willReturn(List.of(testBooking));
+            given(bookingRepository.findDtosByUserId(testUserId))
+                    .willReturn(List.of(testBookingDto));
 
             // when
             List<BookingDto> result = bookingService.getBookingsByUser(testUserId);
@@ -397,8 +425,8 @@ class BookingServiceTest {
         @DisplayName("應該取得保母的所有預約")
         void shouldGetBookingsBySitter() {
             // given
-            given(bookingRepository.findBySitterIdOrderByStartTimeDesc(testSitterId))
-                    .willReturn(List.of(testBooking));
+            given(bookingRepository.findDtosBySitterId(testSitterId))
+                    .willReturn(List.of(testBookingDto));
 
             // when
             List<BookingDto> result = bookingService.getBookingsBySitter(testSitterId);
@@ -422,6 +450,80 @@ class BookingServiceTest {
             assertThat(result).hasSize(1);
             assertThat(result.get(0).status()).isEqualTo(BookingStatus.PENDING);
         }
+
+        private BookingDto listedBooking(LocalDateTime createdAt) {
+            return new BookingDto(UUID.randomUUID(), testPetId, "小黑", testSitterId, "王保母",
+                    testUserId, "testuser", createdAt.plusDays(1), createdAt.plusDays(1).plusHours(2),
+                    BookingStatus.PENDING, null, null, 1000.0, createdAt, createdAt);
+        }
+
+        @Test
+        @DisplayName("管理員列表應多取一筆判斷下一頁，並以最後一筆產生游標")
+        void shouldReturnNextCursorWhenMoreRowsExist() {
+            // given
+            LocalDateTime now = LocalDateTime.now();
+            BookingDto first = listedBooking(now);
+            BookingDto second = listedBooking(now.minusMinutes(1));
+            BookingDto extra = listedBooking(now.minusMinutes(2));
+            given(bookingRepository.findDtoPage(PageRequest.of(0, 3)))
+                    .willReturn(List.of(first, second, extra));
+
+            // when
+            BookingPageDto page = bookingService.getBookingsPage(null, 2);
+
+            // then
+            assertThat(page.items()).containsExactly(first, second);
+            assertThat(page.nextCursor()).isNotNull();
+
+            // 下一頁應從游標位置 (createdAt, id) 之後開始
+            given(bookingRepository.findDtoPageAfter(second.createdAt(), second.id(), PageRequest.of(0, 3)))
+                    .willReturn(List.of(extra));
+
+            BookingPageDto next = bookingService.getBookingsPage(page.nextCursor(), 2);
+
+            assertThat(next.items()).containsExactly(extra);
+            assertThat(next.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("每頁筆數應限制在上限內")
+        void shouldClampPageSize() {
+            // given
+            given(bookingRepository.findDtoPage(any())).willReturn(List.of());
+
+            // when
+            bookingService.getBookingsPage(null, 100_000);
+
+            // then
+            verify(bookingRepository).findDtoPage(PageRequest.of(0, BookingService.MAX_PAGE_SIZE + 1));
+        }
+
+        @Test
+        @DisplayName("游標格式錯誤應拋出 BusinessException")
+        void shouldRejectMalformedCursor() {
+            assertThatThrownBy(() -> bookingService.getBookingsPage("not-a-cursor", 20))
+                    .isInstanceOf(BusinessException.class);
+
+            verify(bookingRepository, never()).findDtoPageAfter(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("狀態統計應以 GROUP BY 結果填入，沒有預約的狀態為 0")
+        void shouldCountBookingsByStatus() {
+            // given
+            given(bookingRepository.countGroupByStatus()).willReturn(List.of(
+                    new Object[]{BookingStatus.PENDING, 3L},
+                    new Object[]{BookingStatus.COMPLETED, 7L}));
+
+            // when
+            Map<BookingStatus, Long> counts = bookingService.getStatusCounts();
+
+            // then
+            assertThat(counts).containsEntry(BookingStatus.PENDING, 3L)
+                    .containsEntry(BookingStatus.COMPLETED, 7L)
+                    .containsEntry(BookingStatus.CONFIRMED, 0L)
+                    .hasSize(BookingStatus.values().length);
+        }
     }
 
     @Nested
@@ -513,6 +615,78 @@ class BookingServiceTest {
             verify(bookingRepository, never()).save(any(Booking.class));
         }
 
+        @Test
+        @DisplayName("多節點部署時時段索引命中但 DB 沒有衝突，應建立預約並丟棄該保母的索引資料")
+        void createBookingShouldIgnoreStaleSlotIndexHit() {
+            try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
+                // given：其他節點已取消該時段的預約，本節點索引尚未重建
+                txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
+                given(bookingAdmissionLock.isDatabaseLockEnabled()).willReturn(true);
+                given(sitterRepository.findByIdWithLock(testSitterId)).willReturn(Optional.of(testSitter));
+                given(bookingSlotIndex.hasConflict(eq(testSitterId), any(), any(), any())).willReturn(true);
+                given(bookingRepository.countConflictingBookings(any(), any(), any())).willReturn(0L);
+                given(petRepository.findById(testPetId)).willReturn(Optional.of(testPet));
+                given(userRepository.findById(testUserId)).willReturn(Optional.of(testUser));
+                given(bookingRepository.save(any(Booking.class))).willReturn(testBooking);
+
+                // when
+                BookingDto result = bookingService.createBooking(testBookingDto, testUserId);
+
+                // then
+                assertThat(result).isNotNull();
+                verify(bookingSlotIndex).evictSitter(testSitterId);
+                verify(bookingRepository).save(any(Booking.class));
+            }
+        }
+
+        @Test
+        @DisplayName("單節點部署時時段索引命中應直接拒絕，不查詢 DB")
+        void createBookingShouldRejectOnSlotIndexHitWithoutDbQuery() {
+            // given
+            given(sitterRepository.findById(testSitterId)).willReturn(Optional.of(testSitter));
+            given(bookingSlotIndex.hasConflict(eq(testSitterId), any(), any(), any())).willReturn(true);
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBooking(testBookingDto, testUserId))
+                    .isInstanceOf(BusinessException.class);
+
+            verify(bookingRepository, never()).countConflictingBookings(any(), any(), any());
+            verify(bookingSlotIndex, never()).evictSitter(any());
+            verify(bookingRepository, never()).save(any(Booking.class));
+        }
+
+        @Test
+        @DisplayName("時段索引命中且 DB 確認衝突時應拒絕")
+        void createBookingShouldRejectWhenSlotIndexHitConfirmedByDb() {
+            // given
+            given(sitterRepository.findById(testSitterId)).willReturn(Optional.of(testSitter));
+            given(bookingRepository.countConflictingBookings(eq(testSitterId), any(), any())).willReturn(1L);
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBooking(testBookingDto, testUserId))
+                    .isInstanceOf(BusinessException.class);
+
+            verify(bookingSlotIndex, never()).evictSitter(any());
+            verify(bookingRepository, never()).save(any(Booking.class));
+        }
+
+        @Test
+        @DisplayName("啟用 DB 列鎖時應使用 findByIdWithLock 取得保母")
+        void createBookingShouldUseDatabaseLockWhenEnabled() {
+            // given
+            given(bookingAdmissionLock.isDatabaseLockEnabled()).willReturn(true);
+            given(sitterRepository.findByIdWithLock(testSitterId)).willReturn(Optional.of(testSitter));
+            given(bookingRepository.countConflictingBookings(any(), any(), any())).willReturn(1L);
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBooking(testBookingDto, testUserId))
+                    .isInstanceOf(BusinessException.class);
+
+            verify(bookingAdmissionLock).executeWithLocks(eq(List.of(testSitterId)), any());
+            verify(sitterRepository).findByIdWithLock(testSitterId);
+            verify(sitterRepository, never()).findById(any());
+        }
+
         @Test
         @DisplayName("createBooking 無衝突時應該成功建立預約")
         void createBookingShouldSucceedWhenNoConflict() {
@@ -629,12 +803,111 @@ class BookingServiceTest {
     }
 
     @Nested
-    @DisplayName("LINE 通知測試")
+    @DisplayName("批次建立預約測試")
+    class CreateBookingsTests {
+
+        private BookingDto slot(LocalDateTime start, int hours) {
+            return BookingDto.createRequest(testPetId, testSitterId, start, start.plusHours(hours), null);
+        }
+
+        @Test
+        @DisplayName("應以單次區間查詢檢查衝突並批次寫入")
+        void shouldCheckConflictsOnceAndSaveAll() {
+            try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
+                // given
+                txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
+                LocalDateTime monday = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0);
+                List<BookingDto> dtos = List.of(slot(monday, 2), slot(monday.plusWeeks(1), 2));
+
+                given(sitterRepository.findAllById(any())).willReturn(List.of(testSitter));
+                given(bookingRepository.findActiveSlotsInRange(any(), any(), any())).willReturn(List.of());
+                given(petRepository.findAllById(any())).willReturn(List.of(testPet));
+                given(userRepository.findById(testUserId)).willReturn(Optional.of(testUser));
+                given(bookingRepository.saveAll(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+                // when
+                List<BookingDto> result = bookingService.createBookings(dtos, testUserId);
+
+                // then
+                assertThat(result).hasSize(2);
+                assertThat(result).allMatch(dto -> dto.status() == BookingStatus.PENDING);
+                verify(bookingRepository, times(1)).findActiveSlotsInRange(any(), any(), any());
+                verify(bookingRepository, never()).countConflictingBookings(any(), any(), any());
+                verify(bookingRepository).saveAll(any());
+                verify(bookingAdmissionLock).executeWithLocks(eq(Set.of(testSitterId)), any());
+            }
+        }
+
+        @Test
+        @DisplayName("批次內同一保母時段重疊時應整批拒絕")
+        void shouldRejectOverlapWithinBatch() {
+            // given
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+            List<BookingDto> dtos = List.of(slot(start, 2), slot(start.plusHours(1), 2));
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBookings(dtos, testUserId))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("重疊");
+            verify(bookingRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("與 DB 既有預約衝突時應整批拒絕")
+        void shouldRejectWhenDbSlotOverlaps() {
+            // given
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+            List<BookingDto> dtos = List.of(slot(start, 2), slot(start.plusDays(1), 2));
+            List<Object[]> occupied = new ArrayList<>();
+            occupied.add(new Object[]{testSitterId, start.plusDays(1).plusHours(1), start.plusDays(1).plusHours(3)});
+
+            given(sitterRepository.findAllById(any())).willReturn(List.of(testSitter));
+            given(bookingRepository.findActiveSlotsInRange(any(), any(), any())).willReturn(occupied);
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBookings(dtos, testUserId))
+                    .isInstanceOf(BusinessException.class);
+            verify(bookingRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("單節點部署時任一筆命中時段索引應整批拒絕，不查詢 DB")
+        void shouldRejectOnSlotIndexHitWithoutDbQuery() {
+            // given
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+            List<BookingDto> dtos = List.of(slot(start, 2), slot(start.plusDays(1), 2));
+            given(sitterRepository.findAllById(any())).willReturn(List.of(testSitter));
+            given(bookingSlotIndex.hasConflict(eq(testSitterId), any(), any(), isNull()))
+                    .willAnswer(invocation -> start.plusDays(1).equals(invocation.getArgument(1)));
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBookings(dtos, testUserId))
+                    .isInstanceOf(BusinessException.class);
+            verify(bookingRepository, never()).findActiveSlotsInRange(any(), any(), any());
+            verify(bookingRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("保母不存在時應拋出例外")
+        void shouldThrowWhenSitterMissing() {
+            // given
+            given(sitterRepository.findAllById(any())).willReturn(List.of());
+
+            // when & then
+            assertThatThrownBy(() -> bookingService.createBookings(
+                    List.of(slot(LocalDateTime.now().plusDays(1), 2)), testUserId))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("保母");
+        }
+    }
+
+    @Nested
+    @DisplayName("LINE 通知（outbox）測試")
     class LineNotificationTests {
 
         @Test
-        @DisplayName("確認預約時應該註冊 LINE 通知 callback")
-        void shouldRegisterLineNotificationOnConfirm() {
+        @DisplayName("確認預約時應該將 LINE 通知寫入 outbox")
+        void shouldRecordLineNotificationOnConfirm() {
             try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
                 // given
                 txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
@@ -663,16 +936,17 @@ class BookingServiceTest {
                 bookingService.updateBookingStatus(testBookingId, updateDto);
 
                 // then
-                // 確認有註冊 TransactionSynchronization（應該有兩個：log sync 和 LINE 通知）
+                // LINE 通知與 Log 同步寫入 outbox（與預約同交易），afterCommit 只剩時段索引
+                verify(bookingOutboxService).recordStatusChanged(confirmedBooking, "確認");
                 txManager.verify(() ->
                         TransactionSynchronizationManager.registerSynchronization(syncCaptor.capture()),
-                        times(2));
+                        times(1));
             }
         }
 
         @Test
-        @DisplayName("取消預約時應該註冊 LINE 通知 callback")
-        void shouldRegisterLineNotificationOnCancel() {
+        @DisplayName("取消預約時應該將 LINE 通知寫入 outbox")
+        void shouldRecordLineNotificationOnCancel() {
             try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
                 // given
                 txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
@@ -697,16 +971,17 @@ class BookingServiceTest {
                 bookingService.cancelBooking(testBookingId, "臨時有事");
 
                 // then
-                // 確認有註冊 TransactionSynchronization
+                // LINE 通知與 Log 同步寫入 outbox（與預約同交易），afterCommit 只剩時段索引
+                verify(bookingOutboxService).recordStatusChanged(cancelledBooking, "臨時有事");
                 txManager.verify(() ->
                         TransactionSynchronizationManager.registerSynchronization(syncCaptor.capture()),
-                        times(2));
+                        times(1));
             }
         }
 
         @Test
-        @DisplayName("完成預約時應該註冊 LINE 通知 callback")
-        void shouldRegisterLineNotificationOnComplete() {
+        @DisplayName("完成預約時應該將 LINE 通知寫入 outbox")
+        void shouldRecordLineNotificationOnComplete() {
             try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
                 // given
                 txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
@@ -732,16 +1007,17 @@ class BookingServiceTest {
                 bookingService.completeBooking(testBookingId);
 
                 // then
-                // 確認有註冊 TransactionSynchronization
+                // LINE 通知與 Log 同步寫入 outbox（與預約同交易），afterCommit 只剩時段索引
+                verify(bookingOutboxService).recordStatusChanged(completedBooking, null);
                 txManager.verify(() ->
                         TransactionSynchronizationManager.registerSynchronization(syncCaptor.capture()),
-                        times(2));
+                        times(1));
             }
         }
 
         @Test
-        @DisplayName("拒絕預約時應該註冊 LINE 通知 callback")
-        void shouldRegisterLineNotificationOnReject() {
+        @DisplayName("拒絕預約時應該將 LINE 通知寫入 outbox")
+        void shouldRecordLineNotificationOnReject() {
             try (MockedStatic<TransactionSynchronizationManager> txManager = mockStatic(TransactionSynchronizationManager.class)) {
                 // given
                 txManager.when(TransactionSynchronizationManager::isSynchronizationActive).thenReturn(true);
@@ -766,10 +1042,11 @@ class BookingServiceTest {
                 bookingService.rejectBooking(testBookingId, "時間不合");
 
                 // then
-                // 確認有註冊 TransactionSynchronization
+                // LINE 通知與 Log 同步寫入 outbox（與預約同交易），afterCommit 只剩時段索引
+                verify(bookingOutboxService).recordStatusChanged(rejectedBooking, "時間不合");
                 txManager.verify(() ->
                         TransactionSynchronizationManager.registerSynchronization(syncCaptor.capture()),
-                        times(2));
+                        times(1));
             }
         }
     }
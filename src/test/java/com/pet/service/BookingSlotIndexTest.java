@@ -0,0 +1,152 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.Sitter;
+import com.pet.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookingSlotIndex 測試")
+class BookingSlotIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingConfig bookingConfig;
+    private BookingSlotIndex slotIndex;
+
+    private UUID sitterId;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        bookingConfig = new BookingConfig();
+        slotIndex = new BookingSlotIndex(bookingRepository, bookingConfig);
+        sitterId = UUID.randomUUID();
+        base = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    private Object[] row(UUID bookingId, LocalDateTime start, LocalDateTime end) {
+        return new Object[]{bookingId, sitterId, start, end};
+    }
+
+    private Booking booking(UUID id, BookingStatus status, LocalDateTime start, LocalDateTime end) {
+        Sitter sitter = new Sitter();
+        sitter.setId(sitterId);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setSitter(sitter);
+        booking.setStatus(status);
+        booking.setStartTime(start);
+        booking.setEndTime(end);
+        return booking;
+    }
+
+    @Test
+    @DisplayName("預熱前一律回傳無衝突，交由 DB 判斷")
+    void shouldReportNoConflictBeforeWarmUp() {
+        assertThat(slotIndex.isReady()).isFalse();
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(2), null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("預熱後應偵測重疊時段，相鄰時段不算衝突")
+    void shouldDetectOverlapAfterWarmUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(UUID.randomUUID(), base, base.plusHours(2)));
+        given(bookingRepository.findActiveSlots(any())).willReturn(rows);
+
+        slotIndex.warmUp();
+
+        assertThat(slotIndex.isReady()).isTrue();
+        assertThat(slotIndex.hasConflict(sitterId, base.plusHours(1), base.plusHours(3), null)).isTrue();
+        assertThat(slotIndex.hasConflict(sitterId, base.minusHours(1), base.plusMinutes(1), null)).isTrue();
+        assertThat(slotIndex.hasConflict(sitterId, base.plusHours(2), base.plusHours(3), null)).isFalse();
+        assertThat(slotIndex.hasConflict(sitterId, base.minusHours(2), base, null)).isFalse();
+        assertThat(slotIndex.hasConflict(UUID.randomUUID(), base, base.plusHours(2), null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("長時段完全包住查詢區間時也應偵測到衝突")
+    void shouldDetectEnclosingLongSlot() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(UUID.randomUUID(), base.minusDays(2), base.plusDays(2)));
+        rows.add(row(UUID.randomUUID(), base.plusHours(5), base.plusHours(6)));
+        given(bookingRepository.findActiveSlots(any())).willReturn(rows);
+
+        slotIndex.warmUp();
+
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(1), null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("排除自己時不應視為衝突")
+    void shouldIgnoreExcludedBooking() {
+        UUID bookingId = UUID.randomUUID();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(bookingId, base, base.plusHours(2)));
+        given(bookingRepository.findActiveSlots(any())).willReturn(rows);
+
+        slotIndex.warmUp();
+
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(2), bookingId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("record 應依狀態新增或移除時段")
+    void shouldAddAndRemoveSlotsByStatus() {
+        given(bookingRepository.findActiveSlots(any())).willReturn(new ArrayList<>());
+        slotIndex.warmUp();
+
+        UUID bookingId = UUID.randomUUID();
+        slotIndex.record(booking(bookingId, BookingStatus.PENDING, base, base.plusHours(2)));
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(1), null)).isTrue();
+
+        slotIndex.record(booking(bookingId, BookingStatus.CANCELLED, base, base.plusHours(2)));
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(1), null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("evictSitter 應丟棄該保母的所有時段，之後的異動仍會記錄")
+    void shouldEvictSitterSlots() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(UUID.randomUUID(), base, base.plusHours(2)));
+        given(bookingRepository.findActiveSlots(any())).willReturn(rows);
+        slotIndex.warmUp();
+
+        slotIndex.evictSitter(sitterId);
+        assertThat(slotIndex.hasConflict(sitterId, base, base.plusHours(1), null)).isFalse();
+
+        slotIndex.record(booking(UUID.randomUUID(), BookingStatus.PENDING, base.plusHours(3), base.plusHours(4)));
+        assertThat(slotIndex.hasConflict(sitterId, base.plusHours(3), base.plusHours(4), null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("停用時不應預熱索引")
+    void shouldNotWarmUpWhenDisabled() {
+        bookingConfig.getSlotIndex().setEnabled(false);
+
+        slotIndex.warmUp();
+
+        assertThat(slotIndex.isReady()).isFalse();
+        verify(bookingRepository, never()).findActiveSlots(any());
+    }
+}
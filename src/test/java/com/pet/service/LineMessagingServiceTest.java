@@ -16,6 +16,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.*;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
@@ -412,5 +414,32 @@ class LineMessagingServiceTest {
             // then
             verify(restTemplate).postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
         }
+
+        @Test
+        @DisplayName("暫時性失敗（網路異常 / 5xx / 429）應回傳 false 讓呼叫端重試")
+        void shouldReportRetryableFailures() {
+            given(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
+                    .willThrow(new RestClientException("Connection refused"))
+                    .willThrow(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway",
+                            HttpHeaders.EMPTY, null, null))
+                    .willThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                            HttpHeaders.EMPTY, null, null));
+
+            assertThat(lineMessagingService.sendBookingConfirmedNotification(testBooking)).isFalse();
+            assertThat(lineMessagingService.sendBookingConfirmedNotification(testBooking)).isFalse();
+            assertThat(lineMessagingService.sendBookingConfirmedNotification(testBooking)).isFalse();
+        }
+
+        @Test
+        @DisplayName("成功或重試也無法成功的 4xx 應回傳 true")
+        void shouldReportNonRetryableOutcomes() {
+            given(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
+                    .willReturn(ResponseEntity.ok("{}"))
+                    .willThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+                            HttpHeaders.EMPTY, null, null));
+
+            assertThat(lineMessagingService.sendBookingConfirmedNotification(testBooking)).isTrue();
+            assertThat(lineMessagingService.sendBookingConfirmedNotification(testBooking)).isTrue();
+        }
     }
 }
@@ -9,11 +9,15 @@ import com.pet.dto.LineUserProfile;
 import com.pet.repository.CustomerRepository;
 import com.pet.repository.SitterRepository;
 import com.pet.repository.UserRepository;
+import com.pet.security.InMemoryOAuthStateStore;
 import com.pet.security.JwtService;
+import com.pet.security.OAuthStateStore;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -22,9 +26,13 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -39,10 +47,17 @@ class LineOAuth2ServiceTest {
     @Mock private JwtService jwtService;
     @Mock private ObjectMapper objectMapper;
     @Mock private HttpClient httpClient;
+    @Spy private UpstreamCallMetrics upstreamCallMetrics = new UpstreamCallMetrics();
+    @Spy private OAuthStateStore oauthStateStore = new InMemoryOAuthStateStore(600_000, 1000);
 
     @InjectMocks
     private LineOAuth2Service lineOAuth2Service;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(lineLoginConfig.getHttp()).thenReturn(new LineLoginConfig.Http());
+    }
+
     // ==================== buildAuthorizationUrl ====================
 
     @Test
@@ -116,8 +131,8 @@ class LineOAuth2ServiceTest {
         HttpResponse<String> mockResponse = mock(HttpResponse.class);
         when(mockResponse.statusCode()).thenReturn(200);
         when(mockResponse.body()).thenReturn("{\"access_token\":\"test-token\"}");
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
-                .thenReturn(mockResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         JsonNode jsonNode = mock(JsonNode.class);
         JsonNode tokenNode = mock(JsonNode.class);
@@ -125,7 +140,7 @@ class LineOAuth2ServiceTest {
         when(jsonNode.get("access_token")).thenReturn(tokenNode);
         when(objectMapper.readTree("{\"access_token\":\"test-token\"}")).thenReturn(jsonNode);
 
-        String token = lineOAuth2Service.exchangeCodeForAccessToken("auth-code");
+        String token = lineOAuth2Service.exchangeCodeForAccessToken("auth-code").join();
 
         assertEquals("test-token", token);
     }
@@ -140,11 +155,11 @@ class LineOAuth2ServiceTest {
         HttpResponse<String> mockResponse = mock(HttpResponse.class);
         when(mockResponse.statusCode()).thenReturn(400);
         when(mockResponse.body()).thenReturn("error");
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
-                .thenReturn(mockResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         assertThrows(RuntimeException.class,
-                () -> lineOAuth2Service.exchangeCodeForAccessToken("bad-code"));
+                () -> lineOAuth2Service.exchangeCodeForAccessToken("bad-code").join());
     }
 
     // ==================== getUserProfile ====================
@@ -156,8 +171,8 @@ class LineOAuth2ServiceTest {
         when(mockResponse.statusCode()).thenReturn(200);
         String profileJson = "{\"userId\":\"U123\",\"displayName\":\"Test User\",\"pictureUrl\":\"http://pic.url\"}";
         when(mockResponse.body()).thenReturn(profileJson);
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
-                .thenReturn(mockResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         JsonNode jsonNode = mock(JsonNode.class);
         JsonNode userIdNode = mock(JsonNode.class);
@@ -177,7 +192,7 @@ class LineOAuth2ServiceTest {
         when(jsonNode.get("email")).thenReturn(emailNode);
         when(objectMapper.readTree(profileJson)).thenReturn(jsonNode);
 
-        LineUserProfile profile = lineOAuth2Service.getUserProfile("access-token");
+        LineUserProfile profile = lineOAuth2Service.getUserProfile("access-token").join();
 
         assertEquals("U123", profile.userId());
         assertEquals("Test User", profile.displayName());
@@ -191,11 +206,55 @@ class LineOAuth2ServiceTest {
         HttpResponse<String> mockResponse = mock(HttpResponse.class);
         when(mockResponse.statusCode()).thenReturn(401);
         when(mockResponse.body()).thenReturn("unauthorized");
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
-                .thenReturn(mockResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         assertThrows(RuntimeException.class,
-                () -> lineOAuth2Service.getUserProfile("bad-token"));
+                () -> lineOAuth2Service.getUserProfile("bad-token").join());
+    }
+
+    // ==================== fetchUserProfile ====================
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldRecordLatencyPerUpstreamCall() throws Exception {
+        when(lineLoginConfig.getCallbackUrl()).thenReturn("http://localhost:8080/callback");
+        when(lineLoginConfig.getChannelId()).thenReturn("12345");
+        when(lineLoginConfig.getChannelSecret()).thenReturn("secret");
+
+        HttpResponse<String> tokenResponse = mock(HttpResponse.class);
+        when(tokenResponse.statusCode()).thenReturn(200);
+        when(tokenResponse.body()).thenReturn("{\"access_token\":\"test-token\"}");
+        HttpResponse<String> profileResponse = mock(HttpResponse.class);
+        when(profileResponse.statusCode()).thenReturn(200);
+        when(profileResponse.body()).thenReturn("{\"userId\":\"U123\"}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(tokenResponse))
+                .thenReturn(CompletableFuture.completedFuture(profileResponse));
+        when(objectMapper.readTree(anyString())).thenAnswer(invocation -> new ObjectMapper().readTree((String) invocation.getArgument(0)));
+
+        LineUserProfile profile = lineOAuth2Service.fetchUserProfile("auth-code").join();
+
+        assertEquals("U123", profile.userId());
+        assertEquals(1, upstreamCallMetrics.count("line.token"));
+        assertEquals(1, upstreamCallMetrics.count("line.profile"));
+    }
+
+    @Test
+    void shouldTimeOutWhenLineDoesNotRespond() {
+        when(lineLoginConfig.getCallbackUrl()).thenReturn("http://localhost:8080/callback");
+        when(lineLoginConfig.getChannelId()).thenReturn("12345");
+        when(lineLoginConfig.getChannelSecret()).thenReturn("secret");
+        LineLoginConfig.Http http = new LineLoginConfig.Http();
+        http.setCallbackTimeoutMs(50);
+        when(lineLoginConfig.getHttp()).thenReturn(http);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> lineOAuth2Service.fetchUserProfile("auth-code").join());
+
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
     }
 
     // ==================== findExistingUser ====================
@@ -0,0 +1,97 @@
+package com.pet.service;
+
+import com.pet.domain.SitterDailyStats;
+import com.pet.dto.BookingDto;
+import com.pet.repository.BookingRepository;
+import com.pet.repository.PetRepository;
+import com.pet.repository.SitterDailyStatsRepository;
+import com.pet.repository.SitterRepository;
+import com.pet.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 以實際的 Spring context 與 H2 建立預約，驗證每日統計資料列的新增與增量更新
+ * 使用獨立的記憶體資料庫，不與其他 context 共用 ./data 下的檔案資料庫
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.primary.url=jdbc:h2:mem:sitter-daily-stats;DB_CLOSE_DELAY=-1",
+        "spring.datasource.log.url=jdbc:h2:mem:sitter-daily-stats-log;DB_CLOSE_DELAY=-1"
+})
+@Transactional
+@DisplayName("SitterDailyStats 整合測試")
+class SitterDailyStatsIntegrationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SitterDailyStatsRepository statsRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SitterRepository sitterRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("保母當天第一筆預約應新增統計資料列，之後的預約累加在同一列")
+    void shouldCreateRowForFirstBookingOfTheDay() {
+        // given：清除保母今天的統計，確保走新增資料列的路徑
+        UUID sitterId = sitterRepository.findAll().get(0).getId();
+        UUID petId = petRepository.findAll().get(0).getId();
+        UUID userId = userRepository.findAll().get(0).getId();
+        SitterDailyStats.Key key = new SitterDailyStats.Key(sitterId, LocalDate.now());
+        statsRepository.deleteById(key);
+        statsRepository.flush();
+        LocalDateTime start = LocalDateTime.now().plusYears(5).truncatedTo(ChronoUnit.HOURS);
+
+        // when
+        bookingService.createBooking(BookingDto.createRequest(petId, sitterId, start, start.plusHours(2), null), userId);
+        bookingService.createBooking(
+                BookingDto.createRequest(petId, sitterId, start.plusHours(3), start.plusHours(5), null), userId);
+
+        // then
+        SitterDailyStats stats = statsRepository.findById(key).orElseThrow();
+        assertThat(stats.getTotalBookings()).isEqualTo(2);
+        assertThat(stats.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("呼叫端沒有交易時，預約與統計應在准入鎖內開啟的交易中 commit")
+    void shouldCommitBookingOpenedInsideAdmissionLock() {
+        // given：使用另一位保母，避免與其他測試的統計互相影響
+        UUID sitterId = sitterRepository.findAll().get(1).getId();
+        UUID petId = petRepository.findAll().get(0).getId();
+        UUID userId = userRepository.findAll().get(0).getId();
+        SitterDailyStats.Key key = new SitterDailyStats.Key(sitterId, LocalDate.now());
+        int before = statsRepository.findById(key).map(SitterDailyStats::getTotalBookings).orElse(0);
+        LocalDateTime start = LocalDateTime.now().plusYears(6).truncatedTo(ChronoUnit.HOURS);
+
+        // when
+        BookingDto created = bookingService.createBooking(
+                BookingDto.createRequest(petId, sitterId, start, start.plusHours(2), null), userId);
+
+        // then
+        assertThat(bookingRepository.findById(created.id())).isPresent();
+        assertThat(statsRepository.findById(key).orElseThrow().getTotalBookings()).isEqualTo(before + 1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.pet.service;
+
+import com.pet.domain.Booking;
+import com.pet.domain.Booking.BookingStatus;
+import com.pet.domain.Sitter;
+import com.pet.domain.SitterDailyStats;
+import com.pet.domain.SitterRating;
+import com.pet.repository.BookingRepository;
+import com.pet.repository.SitterDailyStatsRepository;
+import com.pet.repository.SitterRatingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SitterDailyStatsService 測試")
+class SitterDailyStatsServiceTest {
+
+    @Mock
+    private SitterDailyStatsRepository statsRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private SitterRatingRepository ratingRepository;
+
+    @Mock
+    private SitterStatisticsCache statisticsCache;
+
+    @Mock
+    private DataSource dataSource;
+
+    private SitterDailyStatsService service;
+    private Sitter sitter;
+    private final LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 14, 30);
+
+    @BeforeEach
+    void setUp() {
+        service = new SitterDailyStatsService(statsRepository, bookingRepository, ratingRepository, statisticsCache,
+                dataSource);
+        sitter = new Sitter();
+        sitter.setId(UUID.randomUUID());
+    }
+
+    private Booking booking(BookingStatus status, double price) {
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setSitter(sitter);
+        booking.setStatus(status);
+        booking.setTotalPrice(price);
+        booking.setCreatedAt(createdAt);
+        return booking;
+    }
+
+    private int addDelta(int total, int pending, int confirmed, int completed, int rejected, int cancelled,
+                         int expired, double revenue, int r1, int r2, int r3, int r4, int r5) {
+        return statsRepository.addDelta(sitter.getId(), createdAt.toLocalDate(), total, pending, confirmed,
+                completed, rejected, cancelled, expired, revenue, r1, r2, r3, r4, r5);
+    }
+
+    @Test
+    @DisplayName("同一保母同一天的批次預約應合併為一次 UPDATE")
+    void shouldMergeBatchIntoSingleUpdate() {
+        // given
+        given(addDelta(2, 2, 0, 0, 0, 0, 0, 0.0, 0, 0, 0, 0, 0)).willReturn(1);
+
+        // when
+        service.bookingsCreated(List.of(booking(BookingStatus.PENDING, 500), booking(BookingStatus.PENDING, 300)));
+
+        // then
+        verify(statsRepository, times(1)).addDelta(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(),
+                anyInt(), anyInt(), anyDouble(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(statsRepository, never()).save(any());
+        verify(statisticsCache, times(1)).invalidate(sitter.getId());
+    }
+
+    @Test
+    @DisplayName("資料列不存在時應補上空資料列後再套用增量")
+    void shouldInsertRowWhenMissing() {
+        // given
+        given(addDelta(1, 1, 0, 0, 0, 0, 0, 0.0, 0, 0, 0, 0, 0)).willReturn(0, 1);
+
+        // when
+        service.bookingsCreated(List.of(booking(BookingStatus.PENDING, 500)));
+
+        // then
+        verify(statsRepository).insertIfAbsent(sitter.getId(), createdAt.toLocalDate());
+        verify(statsRepository, times(2)).addDelta(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(),
+                anyInt(), anyInt(), anyDouble(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(statsRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("完成預約應移動狀態計數並累加收入")
+    void shouldMoveCountsAndAddRevenueOnCompletion() {
+        // given
+        given(addDelta(0, 0, -1, 1, 0, 0, 0, 800.0, 0, 0, 0, 0, 0)).willReturn(1);
+
+        // when
+        service.statusChanged(booking(BookingStatus.COMPLETED, 800), BookingStatus.CONFIRMED);
+
+        // then
+        verify(statsRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("過期與評價應更新對應欄位")
+    void shouldRecordExpiryAndRating() {
+        // given
+        given(addDelta(0, -2, 0, 0, 0, 0, 2, 0.0, 0, 0, 0, 0, 0)).willReturn(1);
+        given(addDelta(0, 0, 0, 0, 0, 0, 0, 0.0, 0, 0, 0, 1, 0)).willReturn(1);
+        SitterRating rating = new SitterRating();
+        rating.setBooking(booking(BookingStatus.COMPLETED, 800));
+        rating.setOverallRating(4);
+
+        // when
+        service.bookingsExpired(List.of(booking(BookingStatus.EXPIRED, 100), booking(BookingStatus.EXPIRED, 100)));
+        service.ratingCreated(rating);
+
+        // then
+        verify(statsRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("重建應依保母與日期彙總預約與評價")
+    @SuppressWarnings("unchecked")
+    void shouldRebuildFromGroupedRows() {
+        // given
+        LocalDate date = createdAt.toLocalDate();
+        List<Object[]> bookingRows = new ArrayList<>();
+        bookingRows.add(new Object[]{sitter.getId(), date, BookingStatus.COMPLETED, 2L, 1500.0});
+        bookingRows.add(new Object[]{sitter.getId(), date, BookingStatus.PENDING, 1L, 400.0});
+        List<Object[]> ratingRows = new ArrayList<>();
+        ratingRows.add(new Object[]{sitter.getId(), date, 5, 2L});
+        given(bookingRepository.summarizeBySitterDateAndStatus()).willReturn(bookingRows);
+        given(ratingRepository.summarizeBySitterDateAndStars()).willReturn(ratingRows);
+
+        // when
+        service.rebuild();
+
+        // then
+        ArgumentCaptor<Collection<SitterDailyStats>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(statsRepository).deleteAllInBatch();
+        verify(statsRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).hasSize(1);
+        SitterDailyStats row = saved.getValue().iterator().next();
+        assertThat(row.getTotalBookings()).isEqualTo(3);
+        assertThat(row.getCompletedCount()).isEqualTo(2);
+        assertThat(row.getPendingCount()).isEqualTo(1);
+        assertThat(row.getCompletedRevenue()).isEqualTo(1500.0);
+        assertThat(row.getRating5Count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("星級分布查詢結果應轉為 1 到 5 星的陣列")
+    void shouldMapRatingHistogram() {
+        // given
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 0L, 2L, 3L, 4L});
+        given(statsRepository.sumRatingHistogram(eq(sitter.getId()))).willReturn(rows);
+
+        // when
+        long[] histogram = service.ratingHistogram(sitter.getId());
+
+        // then
+        assertThat(histogram).containsExactly(0L, 1L, 0L, 2L, 3L, 4L);
+    }
+}
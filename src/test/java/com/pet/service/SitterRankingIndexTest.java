@@ -0,0 +1,172 @@
+package com.pet.service;
+
+import com.pet.config.SitterConfig;
+import com.pet.domain.ExperienceLevel;
+import com.pet.domain.Sitter;
+import com.pet.domain.Users;
+import com.pet.dto.AvailableSitterDto;
+import com.pet.repository.SitterRepository;
+import com.pet.service.SitterRankingIndex.Sort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SitterRankingIndex 測試")
+class SitterRankingIndexTest {
+
+    @Mock
+    private SitterRepository sitterRepository;
+
+    private SitterRankingIndex rankingIndex;
+
+    private UUID veteran;
+    private UUID newcomer;
+    private UUID budget;
+
+    @BeforeEach
+    void setUp() {
+        rankingIndex = new SitterRankingIndex(sitterRepository, new SitterConfig());
+        veteran = UUID.randomUUID();
+        newcomer = UUID.randomUUID();
+        budget = UUID.randomUUID();
+    }
+
+    private static Object[] row(UUID id, String name, Double averageRating, int ratingCount, int completedBookings,
+                                double hourlyRate, ExperienceLevel level) {
+        return new Object[]{id, name, null, averageRating, ratingCount, completedBookings, hourlyRate, level};
+    }
+
+    /**
+     * 全站平均 = (4.6 × 20 + 5.0 × 1 + 3.8 × 9) / 30 = 4.37
+     */
+    private void warmUp() {
+        given(sitterRepository.findRankingRows()).willReturn(List.of(
+                row(veteran, "資深保母", 4.6, 20, 40, 300.0, ExperienceLevel.EXPERT),
+                row(newcomer, "新手保母", 5.0, 1, 1, 200.0, ExperienceLevel.STANDARD),
+                row(budget, "平價保母", 3.8, 9, 12, 150.0, ExperienceLevel.SENIOR)));
+        rankingIndex.warmUp();
+    }
+
+    private Sitter sitter(UUID id, double averageRating, int ratingCount, int completedBookings) {
+        Sitter sitter = new Sitter();
+        sitter.setId(id);
+        sitter.setUser(new Users());
+        sitter.setName("保母");
+        sitter.setAverageRating(averageRating);
+        sitter.setRatingCount(ratingCount);
+        sitter.setCompletedBookings(completedBookings);
+        return sitter;
+    }
+
+    private List<UUID> ids(Sort sort, int offset, int limit) {
+        return rankingIndex.page(sort, offset, limit).stream().map(AvailableSitterDto::id).toList();
+    }
+
+    @Test
+    @DisplayName("貝氏平均：評價數少時往全站平均靠攏，沒有評價時等於全站平均")
+    void shouldShrinkTowardsPriorMean() {
+        assertThat(SitterRankingIndex.bayesianScore(5.0, 1, 4.0, 5.0)).isCloseTo(25.0 / 6, within(1e-9));
+        assertThat(SitterRankingIndex.bayesianScore(4.5, 100, 4.0, 5.0)).isCloseTo(470.0 / 105, within(1e-9));
+        assertThat(SitterRankingIndex.bayesianScore(null, 0, 4.0, 5.0)).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("預熱前回傳 null，交由 DB 查詢")
+    void shouldReturnNullBeforeWarmUp() {
+        assertThat(rankingIndex.isReady()).isFalse();
+        assertThat(rankingIndex.page(Sort.RATING, 0, 10)).isNull();
+    }
+
+    @Test
+    @DisplayName("預熱後應依各排序方式分頁")
+    void shouldPageBySortKey() {
+        // when
+        warmUp();
+
+        // then
+        assertThat(ids(Sort.RATING, 0, 10)).containsExactly(veteran, newcomer, budget);
+        assertThat(ids(Sort.RATING, 1, 1)).containsExactly(newcomer);
+        assertThat(ids(Sort.PRICE_ASC, 0, 10)).containsExactly(budget, newcomer, veteran);
+        assertThat(ids(Sort.PRICE_DESC, 0, 2)).containsExactly(veteran, newcomer);
+        assertThat(ids(Sort.COMPLETED_BOOKINGS, 2, 10)).containsExactly(newcomer);
+        assertThat(ids(Sort.EXPERIENCE, 0, 10)).containsExactly(veteran, budget, newcomer);
+        assertThat(ids(Sort.RATING, 5, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("評價與完成訂單異動後應調整單一保母的位置")
+    void shouldRepositionUpdatedSitter() {
+        // given
+        warmUp();
+
+        // when：沒有交易時立即更新
+        rankingIndex.updateAfterCommit(sitter(budget, 4.9, 30, 50));
+
+        // then
+        assertThat(ids(Sort.RATING, 0, 10)).containsExactly(budget, veteran, newcomer);
+        assertThat(ids(Sort.COMPLETED_BOOKINGS, 0, 1)).containsExactly(budget);
+        assertThat(rankingIndex.page(Sort.RATING, 0, 1).get(0).ratingCount()).isEqualTo(30);
+        assertThat(rankingIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("新增、刪除與解除帳號綁定的保母應同步到索引")
+    void shouldAddAndRemoveSitters() {
+        // given
+        warmUp();
+        UUID added = UUID.randomUUID();
+
+        // when
+        rankingIndex.updateAfterCommit(sitter(added, 0.0, 0, 0));
+        rankingIndex.removeAfterCommit(veteran);
+        Sitter unbound = sitter(newcomer, 5.0, 1, 1);
+        unbound.setUser(null);
+        rankingIndex.updateAfterCommit(unbound);
+
+        // then
+        assertThat(ids(Sort.RATING, 0, 10)).containsExactly(added, budget);
+    }
+
+    @Test
+    @DisplayName("重建期間的異動應在重建完成後重播")
+    void shouldReplayUpdatesDuringRebuild() {
+        // given：讀取 DB 的期間另一個交易 commit 了新評價
+        given(sitterRepository.findRankingRows()).willAnswer(invocation -> {
+            rankingIndex.updateAfterCommit(sitter(budget, 4.9, 30, 50));
+            return List.<Object[]>of(
+                    row(veteran, "資深保母", 4.6, 20, 40, 300.0, ExperienceLevel.EXPERT),
+                    row(budget, "平價保母", 3.8, 9, 12, 150.0, ExperienceLevel.SENIOR));
+        });
+
+        // when
+        rankingIndex.rebuild();
+
+        // then
+        assertThat(ids(Sort.RATING, 0, 10)).containsExactly(budget, veteran);
+    }
+
+    @Test
+    @DisplayName("已篩選的保母列表應以相同規則排序")
+    void shouldSortFilteredSitters() {
+        // given
+        warmUp();
+
+        // when
+        List<AvailableSitterDto> result = rankingIndex.sort(
+                List.of(sitter(newcomer, 5.0, 1, 1), sitter(veteran, 4.6, 20, 40)), Sort.RATING);
+
+        // then
+        assertThat(result).extracting(AvailableSitterDto::id).containsExactly(veteran, newcomer);
+    }
+}
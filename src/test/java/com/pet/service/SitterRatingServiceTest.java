@@ -8,7 +8,7 @@ import com.pet.exception.BusinessException;
 import com.pet.exception.ResourceNotFoundException;
 import com.pet.repository.BookingRepository;
 import com.pet.repository.SitterRatingRepository;
-import com.pet.repository.SitterRepository;
+import com.pet.repository.SitterRatingSummaryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -44,7 +44,13 @@ class SitterRatingServiceTest {
     private BookingRepository bookingRepository;
 
     @Mock
-    private SitterRepository sitterRepository;
+    private SitterRatingSummaryRepository ratingSummaryRepository;
+
+    @Mock
+    private SitterDailyStatsService sitterDailyStatsService;
+
+    @Mock
+    private SitterRatingSummaryService ratingSummaryService;
 
     @InjectMocks
     private SitterRatingService ratingService;
@@ -132,9 +138,6 @@ class SitterRatingServiceTest {
             given(bookingRepository.findById(testBookingId)).willReturn(Optional.of(testBooking));
             given(ratingRepository.existsByBookingId(testBookingId)).willReturn(false);
             given(ratingRepository.save(any(SitterRating.class))).willReturn(testRating);
-            given(ratingRepository.calculateWeightedAverageRating(testSitterId)).willReturn(4.8);
-            given(ratingRepository.countBySitter_Id(testSitterId)).willReturn(11L);
-            given(sitterRepository.findById(testSitterId)).willReturn(Optional.of(testSitter));
 
             // when
             SitterRatingDto result = ratingService.createRating(testRatingDto, testUserId);
@@ -144,7 +147,8 @@ class SitterRatingServiceTest {
             assertThat(result.overallRating()).isEqualTo(5);
             assertThat(result.comment()).isEqualTo("非常好的保母！");
             verify(ratingRepository).save(any(SitterRating.class));
-            verify(sitterRepository).save(any(Sitter.class));
+            verify(ratingSummaryService).ratingAdded(testRating);
+            verify(sitterDailyStatsService).ratingCreated(testRating);
         }
 
         @Test
@@ -283,15 +287,15 @@ class SitterRatingServiceTest {
         @DisplayName("應該取得保母的評價統計")
         void shouldGetSitterRatingStats() {
             // given
-            given(sitterRepository.findById(testSitterId)).willReturn(Optional.of(testSitter));
-            given(ratingRepository.calculateDetailedAverages(testSitterId))
-                    .willReturn(new Object[]{4.8, 4.9, 4.7, 4.8});
-            given(ratingRepository.countRatingsByStars(testSitterId))
-                    .willReturn(List.of(
-                            new Object[]{5, 8L},
-                            new Object[]{4, 2L}
-                    ));
-            given(ratingRepository.countBySitter_Id(testSitterId)).willReturn(10L);
+            SitterRatingSummary summary = new SitterRatingSummary(testSitterId);
+            summary.setRatingCount(10);
+            summary.setOverallSum(48);
+            summary.setProfessionalismSum(49);
+            summary.setProfessionalismCount(10);
+            summary.setRating5Count(8);
+            summary.setRating4Count(2);
+            given(ratingSummaryRepository.findSitterWithSummary(testSitterId))
+                    .willReturn(List.<Object[]>of(new Object[]{testSitter, summary}));
 
             // when
             SitterRatingStatsDto result = ratingService.getSitterRatingStats(testSitterId);
@@ -303,6 +307,24 @@ class SitterRatingServiceTest {
             assertThat(result.totalRatings()).isEqualTo(10);
             assertThat(result.fiveStarCount()).isEqualTo(8);
             assertThat(result.fourStarCount()).isEqualTo(2);
+            assertThat(result.averageProfessionalism()).isEqualTo(4.9);
+            assertThat(result.averageCommunication()).isEqualTo(0.0);
+        }
+
+        @Test
+        @DisplayName("保母尚無評價時統計應為 0")
+        void shouldReturnZeroStatsWithoutSummary() {
+            // given
+            testSitter.setAverageRating(null);
+            given(ratingSummaryRepository.findSitterWithSummary(testSitterId))
+                    .willReturn(List.<Object[]>of(new Object[]{testSitter, null}));
+
+            // when
+            SitterRatingStatsDto result = ratingService.getSitterRatingStats(testSitterId);
+
+            // then
+            assertThat(result.totalRatings()).isZero();
+            assertThat(result.averageRating()).isEqualTo(0.0);
         }
 
         @Test
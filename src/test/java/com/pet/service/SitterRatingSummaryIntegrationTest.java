@@ -0,0 +1,62 @@
+package com.pet.service;
+
+import com.pet.domain.SitterRatingSummary;
+import com.pet.repository.SitterRatingSummaryRepository;
+import com.pet.repository.SitterRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 以實際的 H2 執行評價彙總的增量 UPDATE
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.primary.url=jdbc:h2:mem:sitter-rating-summary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.log.url=jdbc:h2:mem:sitter-rating-summary-log;DB_CLOSE_DELAY=-1"
+})
+@Transactional
+@DisplayName("SitterRatingSummary 整合測試")
+class SitterRatingSummaryIntegrationTest {
+
+    @Autowired
+    private SitterRatingSummaryRepository summaryRepository;
+
+    @Autowired
+    private SitterRepository sitterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("addRating 應在既有彙總列上累加評分與星等分布")
+    void shouldIncrementExistingSummary() {
+        // given
+        UUID sitterId = sitterRepository.findAll().get(0).getId();
+        summaryRepository.deleteById(sitterId);
+        SitterRatingSummary summary = new SitterRatingSummary();
+        summary.setSitterId(sitterId);
+        summaryRepository.saveAndFlush(summary);
+
+        // when
+        int updated = summaryRepository.addRating(sitterId, 4, 5, 1, 0, 0, 3, 1, 4.2, 0, 0, 0, 1, 0);
+        entityManager.clear();
+
+        // then
+        assertThat(updated).isEqualTo(1);
+        SitterRatingSummary stored = summaryRepository.findById(sitterId).orElseThrow();
+        assertThat(stored.getRatingCount()).isEqualTo(1);
+        assertThat(stored.getOverallSum()).isEqualTo(4);
+        assertThat(stored.getProfessionalismSum()).isEqualTo(5);
+        assertThat(stored.getCommunicationCount()).isZero();
+        assertThat(stored.getPunctualitySum()).isEqualTo(3);
+        assertThat(stored.getWeightedSum()).isEqualTo(4.2);
+        assertThat(stored.getRating4Count()).isEqualTo(1);
+    }
+}
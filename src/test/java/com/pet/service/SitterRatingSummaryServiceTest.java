@@ -0,0 +1,189 @@
+package com.pet.service;
+
+import com.pet.domain.Sitter;
+import com.pet.domain.SitterRating;
+import com.pet.domain.SitterRatingSummary;
+import com.pet.repository.SitterRatingRepository;
+import com.pet.repository.SitterRatingSummaryRepository;
+import com.pet.repository.SitterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SitterRatingSummaryService 測試")
+class SitterRatingSummaryServiceTest {
+
+    @Mock
+    private SitterRatingSummaryRepository summaryRepository;
+
+    @Mock
+    private SitterRatingRepository ratingRepository;
+
+    @Mock
+    private SitterRepository sitterRepository;
+
+    @Mock
+    private SitterRankingIndex sitterRankingIndex;
+
+    private SitterRatingSummaryService service;
+    private Sitter sitter;
+
+    @BeforeEach
+    void setUp() {
+        service = new SitterRatingSummaryService(summaryRepository, ratingRepository, sitterRepository,
+                sitterRankingIndex);
+        sitter = new Sitter();
+        sitter.setId(UUID.randomUUID());
+        sitter.setName("王保母");
+    }
+
+    private SitterRating rating(int overall, Integer professionalism) {
+        SitterRating rating = new SitterRating();
+        rating.setSitter(sitter);
+        rating.setOverallRating(overall);
+        rating.setProfessionalismRating(professionalism);
+        return rating;
+    }
+
+    private int addRating(long overall, long professionalism, int professionalismCount, double weighted,
+                          int rating4, int rating5) {
+        return summaryRepository.addRating(eq(sitter.getId()), eq(overall), eq(professionalism), eq(professionalismCount),
+                eq(0L), eq(0), eq(0L), eq(0), eq(weighted), eq(0), eq(0), eq(0), eq(rating4), eq(rating5));
+    }
+
+    private static Object[] row(UUID sitterId, long count, long overallSum, double weightedSum, long fiveStars) {
+        return new Object[]{sitterId, count, overallSum, 0L, 0L, 0L, 0L, 0L, 0L, weightedSum, 0L, 0L, 0L,
+                count - fiveStars, fiveStars};
+    }
+
+    @Test
+    @DisplayName("已有彙總列時應以一個增量 UPDATE 累加並更新保母平均評分")
+    void shouldIncrementExistingSummary() {
+        // given
+        given(addRating(4, 5, 1, 4.25, 1, 0)).willReturn(1);
+        SitterRatingSummary stored = new SitterRatingSummary(sitter.getId());
+        stored.setRatingCount(2);
+        stored.setWeightedSum(9.0);
+        given(summaryRepository.findById(sitter.getId())).willReturn(Optional.of(stored));
+
+        // when
+        service.ratingAdded(rating(4, 5));
+
+        // then
+        assertThat(sitter.getRatingCount()).isEqualTo(2);
+        assertThat(sitter.getAverageRating()).isEqualTo(4.5);
+        verify(sitterRankingIndex).updateAfterCommit(sitter);
+        verify(ratingRepository, never()).summarizeForSitter(any());
+        verify(sitterRepository, never()).findByIdWithLock(any());
+    }
+
+    @Test
+    @DisplayName("第一筆評價時應鎖定保母後由 sitter_rating 彙總新增")
+    void shouldCreateSummaryFromRatingsWhenMissing() {
+        // given
+        given(addRating(5, 0, 0, 5.0, 0, 1)).willReturn(0);
+        given(ratingRepository.summarizeForSitter(sitter.getId()))
+                .willReturn(List.<Object[]>of(row(sitter.getId(), 1, 5, 5.0, 1)));
+        given(summaryRepository.save(any(SitterRatingSummary.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        SitterRatingSummary summary = service.ratingAdded(rating(5, null));
+
+        // then
+        verify(sitterRepository).findByIdWithLock(sitter.getId());
+        assertThat(summary.getRatingCount()).isEqualTo(1);
+        assertThat(summary.starCount(5)).isEqualTo(1);
+        assertThat(sitter.getAverageRating()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("對帳應找出數量不符、缺少彙總列與多餘的彙總列")
+    void shouldFindDriftedSitters() {
+        // given
+        UUID consistent = UUID.randomUUID();
+        UUID drifted = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        UUID orphan = UUID.randomUUID();
+        given(ratingRepository.summarizeBySitter()).willReturn(List.of(
+                row(consistent, 2, 9, 9.0, 1),
+                row(drifted, 3, 12, 12.0, 0),
+                row(missing, 1, 5, 5.0, 1)));
+        SitterRatingSummary consistentRow = new SitterRatingSummary(consistent);
+        consistentRow.setRatingCount(2);
+        consistentRow.setOverallSum(9);
+        consistentRow.setWeightedSum(9.0);
+        consistentRow.setRating4Count(1);
+        consistentRow.setRating5Count(1);
+        SitterRatingSummary driftedRow = new SitterRatingSummary(drifted);
+        driftedRow.setRatingCount(2);
+        SitterRatingSummary orphanRow = new SitterRatingSummary(orphan);
+        orphanRow.setRatingCount(1);
+        given(summaryRepository.findAll()).willReturn(List.of(consistentRow, driftedRow, orphanRow));
+
+        // when
+        List<UUID> result = service.findDriftedSitterIds();
+
+        // then
+        assertThat(result).containsExactlyInAnyOrder(drifted, missing, orphan);
+    }
+
+    @Test
+    @DisplayName("對帳應鎖定彙總列後覆寫並同步保母平均評分")
+    void shouldReconcileLockedSummary() {
+        // given
+        SitterRatingSummary stored = new SitterRatingSummary(sitter.getId());
+        stored.setRatingCount(5);
+        given(summaryRepository.findByIdForUpdate(sitter.getId())).willReturn(Optional.of(stored));
+        given(ratingRepository.summarizeForSitter(sitter.getId()))
+                .willReturn(List.<Object[]>of(row(sitter.getId(), 2, 8, 8.0, 0)));
+        given(sitterRepository.findById(sitter.getId())).willReturn(Optional.of(sitter));
+
+        // when
+        boolean fixed = service.reconcile(sitter.getId());
+
+        // then
+        assertThat(fixed).isTrue();
+        ArgumentCaptor<SitterRatingSummary> saved = ArgumentCaptor.forClass(SitterRatingSummary.class);
+        verify(summaryRepository).save(saved.capture());
+        assertThat(saved.getValue().getRatingCount()).isEqualTo(2);
+        assertThat(sitter.getRatingCount()).isEqualTo(2);
+        assertThat(sitter.getAverageRating()).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("彙總一致時對帳不應寫入")
+    void shouldSkipConsistentSummary() {
+        // given
+        SitterRatingSummary stored = new SitterRatingSummary(sitter.getId());
+        given(summaryRepository.findByIdForUpdate(sitter.getId())).willReturn(Optional.of(stored));
+        given(ratingRepository.summarizeForSitter(sitter.getId())).willReturn(List.of());
+
+        // when
+        boolean fixed = service.reconcile(sitter.getId());
+
+        // then
+        assertThat(fixed).isFalse();
+        verify(summaryRepository, never()).addRating(any(), anyLong(), anyLong(), anyInt(), anyLong(), anyInt(),
+                anyLong(), anyInt(), anyDouble(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(summaryRepository, never()).save(any());
+    }
+}
@@ -1,5 +1,6 @@
 package com.pet.service;
 
+import com.pet.config.SitterConfig;
 import com.pet.domain.Sitter;
 import com.pet.dto.AvailableSitterDto;
 import com.pet.dto.SitterDto;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.DayOfWeek;
@@ -42,6 +44,12 @@ class SitterServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    /**
+     * 未預熱的排名索引：列表改查 DB 後以相同規則排序
+     */
+    @Spy
+    private SitterRankingIndex sitterRankingIndex = new SitterRankingIndex(null, new SitterConfig());
+
     @InjectMocks
     private SitterService sitterService;
 
@@ -273,6 +281,27 @@ class SitterServiceTest {
             assertThat(result.get(0).ratingCount()).isEqualTo(10);
             assertThat(result.get(0).completedBookings()).isEqualTo(15);
         }
+
+        @Test
+        @DisplayName("索引未預熱時應查 DB 後依貝氏平均排序並分頁")
+        void shouldSortAndPageSittersWhenIndexNotReady() {
+            // given：一筆 5 星的新保母不應排在 10 筆 4.5 星的保母前面
+            Sitter newcomer = new Sitter();
+            newcomer.setId(UUID.randomUUID());
+            newcomer.setName("李保母");
+            newcomer.setAverageRating(5.0);
+            newcomer.setRatingCount(1);
+            newcomer.setHourlyRate(150.0);
+            given(sitterRepository.findAllWithUser()).willReturn(List.of(newcomer, testSitter));
+
+            // when
+            List<AvailableSitterDto> byRating = sitterService.getAllSittersWithRating(SitterRankingIndex.Sort.RATING, 0, null);
+            List<AvailableSitterDto> secondByPrice = sitterService.getAllSittersWithRating(SitterRankingIndex.Sort.PRICE_ASC, 1, 1);
+
+            // then
+            assertThat(byRating).extracting(AvailableSitterDto::id).containsExactly(testSitterId, newcomer.getId());
+            assertThat(secondByPrice).extracting(AvailableSitterDto::id).containsExactly(testSitterId);
+        }
     }
 
     @Nested
@@ -0,0 +1,138 @@
+package com.pet.service;
+
+import com.pet.config.BookingConfig;
+import com.pet.dto.response.BookingStatisticsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("SitterStatisticsCache 測試")
+class SitterStatisticsCacheTest {
+
+    private final UUID sitterId = UUID.randomUUID();
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private BookingConfig.Statistics config;
+    private SitterStatisticsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new BookingConfig.Statistics();
+        cache = new SitterStatisticsCache(config, refreshTasks::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Supplier<BookingStatisticsResponse> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return mock(BookingStatisticsResponse.class);
+        };
+    }
+
+    @Test
+    @DisplayName("新鮮時間內應直接回傳快取")
+    void shouldServeFreshEntryWithoutLoading() {
+        // when
+        BookingStatisticsResponse first = cache.get(sitterId, loader());
+        BookingStatisticsResponse second = cache.get(sitterId, loader());
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.health().message()).contains("hits=1", "misses=1");
+    }
+
+    @Test
+    @DisplayName("失效後應先回傳舊值並在背景重新計算")
+    void shouldServeStaleValueWhileRevalidating() {
+        // given
+        BookingStatisticsResponse stale = cache.get(sitterId, loader());
+        cache.invalidate(sitterId);
+
+        // when
+        BookingStatisticsResponse served = cache.get(sitterId, loader());
+        cache.get(sitterId, loader());
+
+        // then
+        assertThat(served).isSameAs(stale);
+        assertThat(loads).hasValue(1);
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.get(0).run();
+        BookingStatisticsResponse refreshed = cache.get(sitterId, loader());
+        assertThat(refreshed).isNotSameAs(stale);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("交易中的失效應在 commit 後才生效")
+    void shouldInvalidateOnlyAfterCommit() {
+        // given
+        BookingStatisticsResponse cached = cache.get(sitterId, loader());
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        cache.invalidate(sitterId);
+
+        // then
+        assertThat(cache.get(sitterId, loader())).isSameAs(cached);
+        assertThat(refreshTasks).isEmpty();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cache.get(sitterId, loader());
+        assertThat(refreshTasks).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("計算期間失效的結果不應寫回快取")
+    void shouldDiscardResultLoadedBeforeInvalidation() {
+        // given
+        Supplier<BookingStatisticsResponse> racingLoader = () -> {
+            loads.incrementAndGet();
+            cache.invalidate(sitterId);
+            return mock(BookingStatisticsResponse.class);
+        };
+
+        // when
+        cache.get(sitterId, racingLoader);
+        cache.get(sitterId, loader());
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("TTL 為 0 時應停用快取")
+    void shouldBypassWhenDisabled() {
+        // given
+        config.setCacheTtlMs(0);
+        cache = new SitterStatisticsCache(config, refreshTasks::add);
+
+        // when
+        cache.get(sitterId, loader());
+        cache.get(sitterId, loader());
+
+        // then
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -5,6 +5,7 @@ import com.pet.domain.Users;
 import com.pet.dto.UserDto;
 import com.pet.exception.ResourceNotFoundException;
 import com.pet.repository.UserRepository;
+import com.pet.security.UserStatusCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -36,6 +37,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserStatusCache userStatusCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -198,6 +202,7 @@ class UserServiceTest {
 
             // then
             verify(userRepository).deleteById(testUserId);
+            verify(userStatusCache).evictAfterCommit(testUserId);
         }
 
         @Test
@@ -10,12 +10,12 @@ class IdempotencyKeyTest {
     fun `should create IdempotencyKey with all fields`() {
         val key = IdempotencyKey(
             key = "test-key-123",
-            responseBody = """{"result":"ok"}""",
+            responseBody = """{"result":"ok"}""".toByteArray(),
             httpStatus = 201
         )
 
         assertEquals("test-key-123", key.key)
-        assertEquals("""{"result":"ok"}""", key.responseBody)
+        assertArrayEquals("""{"result":"ok"}""".toByteArray(), key.responseBody)
         assertEquals(201, key.httpStatus)
         assertNotNull(key.createdAt)
         assertNotNull(key.expiresAt)
@@ -50,10 +50,20 @@ class IdempotencyKeyTest {
     fun `should allow mutable responseBody and httpStatus`() {
         val key = IdempotencyKey(key = "mutable-test", httpStatus = 200)
 
-        key.responseBody = """{"updated":true}"""
+        key.responseBody = """{"updated":true}""".toByteArray()
         key.httpStatus = 500
 
-        assertEquals("""{"updated":true}""", key.responseBody)
+        assertArrayEquals("""{"updated":true}""".toByteArray(), key.responseBody)
         assertEquals(500, key.httpStatus)
     }
+
+    @Test
+    fun `should start as new IN_PROGRESS reservation`() {
+        val key = IdempotencyKey(key = "reserve", requestHash = "abc")
+
+        assertEquals(IdempotencyKey.Status.IN_PROGRESS, key.status)
+        assertTrue(key.isNew)
+        key.markPersisted()
+        assertFalse(key.isNew)
+    }
 }
@@ -5,9 +5,11 @@ import com.pet.domain.Booking.BookingStatus
 import com.pet.domain.Dog
 import com.pet.domain.Sitter
 import com.pet.domain.Users
-import com.pet.repository.BookingRepository
-import com.pet.service.LineMessagingService
+import com.pet.service.BookingExpiryService
+import com.pet.service.BookingExpiryService.ChunkResult
+import com.pet.service.BookingSlotIndex
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.extension.ExtendWith
@@ -23,20 +25,23 @@ class BookingExpirySchedulerTest {
     private lateinit var scheduler: BookingExpiryScheduler
 
     @Mock
-    private lateinit var bookingRepository: BookingRepository
+    private lateinit var bookingExpiryService: BookingExpiryService
 
     @Mock
-    private lateinit var lineMessagingService: LineMessagingService
+    private lateinit var bookingSlotIndex: BookingSlotIndex
 
     @BeforeEach
     fun setUp() {
-        scheduler = BookingExpiryScheduler(bookingRepository, lineMessagingService)
+        scheduler = BookingExpiryScheduler(bookingExpiryService, bookingSlotIndex)
+        lenient().`when`(bookingExpiryService.cutoffTime()).thenReturn(LocalDateTime.now().minusHours(24))
+        lenient().`when`(bookingExpiryService.chunkSize()).thenReturn(2)
+        lenient().`when`(bookingExpiryService.maxChunksPerRun()).thenReturn(10)
     }
 
     private fun createTestBooking(): Booking {
         val booking = Booking()
         booking.id = UUID.randomUUID()
-        booking.status = BookingStatus.PENDING
+        booking.status = BookingStatus.EXPIRED
         booking.createdAt = LocalDateTime.now().minusHours(25)
         booking.startTime = LocalDateTime.of(2026, 2, 1, 10, 0)
         booking.endTime = LocalDateTime.of(2026, 2, 1, 14, 0)
@@ -58,53 +63,70 @@ class BookingExpirySchedulerTest {
     }
 
     @Test
-    fun `should expire pending bookings older than 24 hours`() {
-        val booking = createTestBooking()
-        doReturn(listOf(booking))
-            .`when`(bookingRepository)
-            .findByStatusAndCreatedAtBefore(any(BookingStatus::class.java), any(LocalDateTime::class.java))
+    fun `should expire chunks until a partial chunk is returned`() {
+        val booking1 = createTestBooking()
+        val booking2 = createTestBooking()
+        val booking3 = createTestBooking()
+        `when`(bookingExpiryService.expireChunk(any(LocalDateTime::class.java)))
+            .thenReturn(ChunkResult(2, listOf(booking1, booking2)))
+            .thenReturn(ChunkResult(1, listOf(booking3)))
 
         scheduler.expireOverdueBookings()
 
-        assertEquals(BookingStatus.EXPIRED, booking.status)
-        verify(bookingRepository).save(booking)
+        verify(bookingExpiryService, times(2)).expireChunk(any(LocalDateTime::class.java))
+        verify(bookingSlotIndex).record(booking1)
+        verify(bookingSlotIndex).record(booking2)
+        verify(bookingSlotIndex).record(booking3)
+        assertTrue(scheduler.health().message().contains("chunks=2, expired=3"))
     }
 
     @Test
-    fun `should not expire recent pending bookings`() {
-        doReturn(emptyList<Booking>())
-            .`when`(bookingRepository)
-            .findByStatusAndCreatedAtBefore(any(BookingStatus::class.java), any(LocalDateTime::class.java))
+    fun `should stop when no overdue bookings remain`() {
+        `when`(bookingExpiryService.expireChunk(any(LocalDateTime::class.java)))
+            .thenReturn(ChunkResult(0, emptyList()))
 
         scheduler.expireOverdueBookings()
 
-        verify(bookingRepository, never()).save(any())
+        verify(bookingExpiryService, times(1)).expireChunk(any(LocalDateTime::class.java))
+        verify(bookingSlotIndex, never()).record(any())
     }
 
     @Test
-    fun `should send LINE notification for expired bookings`() {
-        val booking = createTestBooking()
-        doReturn(listOf(booking))
-            .`when`(bookingRepository)
-            .findByStatusAndCreatedAtBefore(any(BookingStatus::class.java), any(LocalDateTime::class.java))
+    fun `should use the same cutoff for every chunk`() {
+        val cutoff = LocalDateTime.now().minusHours(24)
+        `when`(bookingExpiryService.cutoffTime()).thenReturn(cutoff)
+        `when`(bookingExpiryService.expireChunk(cutoff))
+            .thenReturn(ChunkResult(2, listOf(createTestBooking(), createTestBooking())))
+            .thenReturn(ChunkResult(0, emptyList()))
 
         scheduler.expireOverdueBookings()
 
-        verify(lineMessagingService).sendBookingExpiredNotification(booking)
+        verify(bookingExpiryService, times(2)).expireChunk(cutoff)
     }
 
     @Test
-    fun `should continue processing other bookings when one fails`() {
-        val booking1 = createTestBooking()
-        val booking2 = createTestBooking()
+    fun `should stop at the per-run chunk limit`() {
+        `when`(bookingExpiryService.maxChunksPerRun()).thenReturn(3)
+        `when`(bookingExpiryService.expireChunk(any(LocalDateTime::class.java)))
+            .thenAnswer { ChunkResult(2, listOf(createTestBooking(), createTestBooking())) }
 
-        doReturn(listOf(booking1, booking2))
-            .`when`(bookingRepository)
-            .findByStatusAndCreatedAtBefore(any(BookingStatus::class.java), any(LocalDateTime::class.java))
-        `when`(bookingRepository.save(booking1)).thenThrow(RuntimeException("DB error"))
+        scheduler.expireOverdueBookings()
+
+        verify(bookingExpiryService, times(3)).expireChunk(any(LocalDateTime::class.java))
+        verify(bookingSlotIndex, times(6)).record(any())
+    }
+
+    @Test
+    fun `should stop the run when a chunk fails`() {
+        val booking = createTestBooking()
+        `when`(bookingExpiryService.expireChunk(any(LocalDateTime::class.java)))
+            .thenReturn(ChunkResult(2, listOf(booking, createTestBooking())))
+            .thenThrow(RuntimeException("DB error"))
 
         scheduler.expireOverdueBookings()
 
-        verify(bookingRepository).save(booking2)
+        verify(bookingExpiryService, times(2)).expireChunk(any(LocalDateTime::class.java))
+        verify(bookingSlotIndex).record(booking)
+        assertEquals("UP", scheduler.health().status())
     }
 }
@@ -0,0 +1,114 @@
+package com.pet.scheduling
+
+import com.pet.security.RefreshTokenService
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import org.mockito.Mock
+import org.mockito.Mockito.*
+import org.mockito.junit.jupiter.MockitoExtension
+import java.time.LocalDateTime
+import java.time.LocalTime
+
+@ExtendWith(MockitoExtension::class)
+class RefreshTokenCleanupSchedulerTest {
+
+    private lateinit var scheduler: RefreshTokenCleanupScheduler
+
+    @Mock
+    private lateinit var refreshTokenService: RefreshTokenService
+
+    @BeforeEach
+    fun setUp() {
+        scheduler = RefreshTokenCleanupScheduler(refreshTokenService)
+        lenient().`when`(refreshTokenService.isCleanupEnabled).thenReturn(true)
+        lenient().`when`(refreshTokenService.isWithinCleanupWindow(any(LocalTime::class.java))).thenReturn(true)
+        lenient().`when`(refreshTokenService.cleanupChunkSize()).thenReturn(2)
+        lenient().`when`(refreshTokenService.cleanupMaxChunksPerRun()).thenReturn(10)
+    }
+
+    /**
+     * 開始一輪清理，並模擬排程 tick 直到本輪結束
+     */
+    private fun runCleanup() {
+        scheduler.cleanupExpiredTokens()
+        repeat(20) { scheduler.processChunk() }
+    }
+
+    @Test
+    fun `should delete chunks until a partial chunk is returned`() {
+        `when`(refreshTokenService.deleteExpiredChunk(any(LocalDateTime::class.java)))
+            .thenReturn(2)
+            .thenReturn(2)
+            .thenReturn(1)
+
+        runCleanup()
+
+        verify(refreshTokenService, times(3)).deleteExpiredChunk(any(LocalDateTime::class.java))
+        assertTrue(scheduler.health().message().contains("chunks=3, deleted=5"))
+    }
+
+    @Test
+    fun `should not run outside the cleanup window`() {
+        `when`(refreshTokenService.isWithinCleanupWindow(any(LocalTime::class.java))).thenReturn(false)
+
+        runCleanup()
+
+        verify(refreshTokenService, never()).deleteExpiredChunk(any(LocalDateTime::class.java))
+        assertTrue(scheduler.health().message().contains("lastRun=never"))
+    }
+
+    @Test
+    fun `should stop when the window closes between chunks`() {
+        `when`(refreshTokenService.isWithinCleanupWindow(any(LocalTime::class.java)))
+            .thenReturn(true)
+            .thenReturn(false)
+        `when`(refreshTokenService.deleteExpiredChunk(any(LocalDateTime::class.java))).thenReturn(2)
+
+        runCleanup()
+
+        verify(refreshTokenService, times(1)).deleteExpiredChunk(any(LocalDateTime::class.java))
+    }
+
+    @Test
+    fun `should stop at the per-run chunk limit`() {
+        `when`(refreshTokenService.cleanupMaxChunksPerRun()).thenReturn(3)
+        `when`(refreshTokenService.deleteExpiredChunk(any(LocalDateTime::class.java))).thenReturn(2)
+
+        runCleanup()
+
+        verify(refreshTokenService, times(3)).deleteExpiredChunk(any(LocalDateTime::class.java))
+    }
+
+    @Test
+    fun `should stop the run when a chunk fails`() {
+        `when`(refreshTokenService.deleteExpiredChunk(any(LocalDateTime::class.java)))
+            .thenReturn(2)
+            .thenThrow(RuntimeException("DB error"))
+
+        runCleanup()
+
+        verify(refreshTokenService, times(2)).deleteExpiredChunk(any(LocalDateTime::class.java))
+        assertTrue(scheduler.health().message().contains("deleted=2"))
+    }
+
+    @Test
+    fun `should process one chunk per tick`() {
+        `when`(refreshTokenService.deleteExpiredChunk(any(LocalDateTime::class.java))).thenReturn(2)
+
+        scheduler.cleanupExpiredTokens()
+        scheduler.processChunk()
+        scheduler.processChunk()
+
+        verify(refreshTokenService, times(2)).deleteExpiredChunk(any(LocalDateTime::class.java))
+        assertTrue(scheduler.health().message().contains("lastRun=never"))
+    }
+
+    @Test
+    fun `should not tick without an active run`() {
+        scheduler.processChunk()
+
+        verify(refreshTokenService, never()).deleteExpiredChunk(any(LocalDateTime::class.java))
+    }
+}
@@ -0,0 +1,113 @@
+package com.pet.security
+
+import com.pet.security.RateLimiter.KeyType
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class InMemoryRateLimiterTest {
+
+    private lateinit var rateLimiter: InMemoryRateLimiter
+
+    @BeforeEach
+    fun setUp() {
+        rateLimiter = InMemoryRateLimiter(maxTokens = 5, refillRate = 10.0)
+    }
+
+    @Test
+    fun `should allow requests within limit`() {
+        repeat(5) { i ->
+            val remaining = rateLimiter.tryConsume(KeyType.IP, "test-key")
+            assertTrue(remaining >= 0, "Request $i should be allowed")
+        }
+    }
+
+    @Test
+    fun `should reject requests exceeding limit`() {
+        repeat(5) {
+            rateLimiter.tryConsume(KeyType.IP, "test-key")
+        }
+        val remaining = rateLimiter.tryConsume(KeyType.IP, "test-key")
+        assertEquals(RateLimiter.REJECTED, remaining, "6th request should be rejected")
+    }
+
+    @Test
+    fun `should refill tokens over time`() {
+        repeat(5) {
+            rateLimiter.tryConsume(KeyType.IP, "test-key")
+        }
+        // With refillRate=10.0 tokens/sec, sleeping 200ms should refill ~2 tokens
+        Thread.sleep(200)
+        val remaining = rateLimiter.tryConsume(KeyType.IP, "test-key")
+        assertTrue(remaining >= 0, "Should allow after refill")
+    }
+
+    @Test
+    fun `should track different keys independently`() {
+        repeat(5) {
+            rateLimiter.tryConsume(KeyType.IP, "key1")
+        }
+        assertEquals(RateLimiter.REJECTED, rateLimiter.tryConsume(KeyType.IP, "key1"), "key1 should be exhausted")
+        assertTrue(rateLimiter.tryConsume(KeyType.IP, "key2") >= 0, "key2 should still work")
+    }
+
+    @Test
+    fun `should track users and IPs separately`() {
+        repeat(5) {
+            rateLimiter.tryConsume(KeyType.IP, "same")
+        }
+        assertEquals(RateLimiter.REJECTED, rateLimiter.tryConsume(KeyType.IP, "same"))
+        assertTrue(rateLimiter.tryConsume(KeyType.USER, "same") >= 0, "user key should not share the IP bucket")
+    }
+
+    @Test
+    fun `should return remaining tokens count`() {
+        assertEquals(4, rateLimiter.tryConsume(KeyType.IP, "test-key"))
+        assertEquals(3, rateLimiter.tryConsume(KeyType.IP, "test-key"))
+    }
+
+    @Test
+    fun `should evict only fully refilled buckets`() {
+        rateLimiter.tryConsume(KeyType.IP, "old-key")
+        repeat(5) { rateLimiter.tryConsume(KeyType.USER, "busy-key") }
+
+        // old-key 只用掉 1 個 token，100ms 補滿；busy-key 需要 500ms
+        Thread.sleep(150)
+
+        assertEquals(1, rateLimiter.evictIdle())
+        assertEquals(1, rateLimiter.size())
+        assertEquals(4, rateLimiter.tryConsume(KeyType.IP, "old-key"))
+    }
+
+    @Test
+    fun `should not over-admit under contention`() {
+        val limiter = InMemoryRateLimiter(maxTokens = 100, refillRate = 0.001)
+        val threads = 8
+        val allowed = AtomicInteger()
+        val start = CountDownLatch(1)
+        val pool = Executors.newFixedThreadPool(threads)
+        try {
+            repeat(threads) {
+                pool.execute {
+                    start.await()
+                    repeat(1_000) {
+                        if (limiter.tryConsume(KeyType.USER, "hot-key") >= 0) {
+                            allowed.incrementAndGet()
+                        }
+                    }
+                }
+            }
+            start.countDown()
+            pool.shutdown()
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS))
+        } finally {
+            pool.shutdownNow()
+        }
+
+        assertEquals(100, allowed.get())
+    }
+}
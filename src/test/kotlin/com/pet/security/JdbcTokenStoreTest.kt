@@ -0,0 +1,90 @@
+package com.pet.security
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType
+import java.util.UUID
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class JdbcTokenStoreTest {
+
+    private lateinit var database: EmbeddedDatabase
+    private lateinit var jdbcTemplate: JdbcTemplate
+    private lateinit var store: JdbcTokenStore
+
+    @BeforeEach
+    fun setUp() {
+        database = EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .setName("rate-limit-${UUID.randomUUID()}")
+            .build()
+        jdbcTemplate = JdbcTemplate(database)
+        jdbcTemplate.execute(
+            "CREATE TABLE rate_limit_bucket (bucket_key VARCHAR(200) PRIMARY KEY, tat_millis BIGINT NOT NULL)"
+        )
+        store = JdbcTokenStore(jdbcTemplate)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        database.shutdown()
+    }
+
+    @Test
+    fun `should grant up to the requested permits`() {
+        val grant = store.acquire("general:IP:1.2.3.4", 5, 1000, 10_000)
+
+        assertEquals(5, grant.granted)
+        assertEquals(5, grant.remaining)
+    }
+
+    @Test
+    fun `should grant only what is left and then exhaust`() {
+        store.acquire("k", 8, 60_000, 600_000)
+
+        val partial = store.acquire("k", 5, 60_000, 600_000)
+        assertEquals(2, partial.granted)
+        assertEquals(0, partial.remaining)
+
+        assertEquals(0, store.acquire("k", 1, 60_000, 600_000).granted)
+    }
+
+    @Test
+    fun `should not over-grant under concurrent acquisition`() {
+        val granted = AtomicInteger()
+        val pool = Executors.newFixedThreadPool(4)
+        try {
+            repeat(4) {
+                pool.execute {
+                    repeat(20) {
+                        granted.addAndGet(store.acquire("hot", 1, 60_000, 600_000).granted)
+                    }
+                }
+            }
+            pool.shutdown()
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS))
+        } finally {
+            pool.shutdownNow()
+        }
+
+        assertTrue(granted.get() <= 10, "granted ${granted.get()} tokens from a bucket of 10")
+    }
+
+    @Test
+    fun `should evict fully refilled buckets`() {
+        store.acquire("idle", 1, 1, 10)
+        store.acquire("busy", 1, 60_000, 600_000)
+
+        Thread.sleep(20)
+
+        assertEquals(1, store.evictIdle())
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_bucket", Int::class.java))
+    }
+}
@@ -0,0 +1,116 @@
+package com.pet.security
+
+import com.pet.security.RateLimiter.KeyType
+import com.pet.security.RateLimitTokenStore.TokenGrant
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+class LeasedRateLimiterTest {
+
+    /**
+     * 計算共享儲存被存取的次數
+     */
+    private class CountingStore(private val delegate: RateLimitTokenStore) : RateLimitTokenStore {
+        val calls = AtomicInteger()
+
+        override fun acquire(key: String, permits: Int, intervalMillis: Long, capacityMillis: Long): TokenGrant {
+            calls.incrementAndGet()
+            return delegate.acquire(key, permits, intervalMillis, capacityMillis)
+        }
+
+        override fun evictIdle(): Int = delegate.evictIdle()
+    }
+
+    private lateinit var store: CountingStore
+
+    @BeforeEach
+    fun setUp() {
+        store = CountingStore(InMemoryTokenStore())
+    }
+
+    private fun node(leaseSize: Int, maxTokens: Int = 60) =
+        LeasedRateLimiter("general", maxTokens, 0.001, leaseSize, 60_000, store)
+
+    @Test
+    fun `should share quota across nodes`() {
+        val node1 = node(leaseSize = 5)
+        val node2 = node(leaseSize = 5)
+
+        var allowed = 0
+        repeat(100) {
+            if (node1.tryConsume(KeyType.IP, "1.2.3.4") >= 0) allowed++
+            if (node2.tryConsume(KeyType.IP, "1.2.3.4") >= 0) allowed++
+        }
+
+        assertEquals(60, allowed, "two nodes together must not exceed the shared bucket")
+    }
+
+    @Test
+    fun `should serve most requests from the local lease`() {
+        val node = node(leaseSize = 10)
+
+        repeat(30) {
+            assertTrue(node.tryConsume(KeyType.USER, "alice") >= 0)
+        }
+
+        assertEquals(3, store.calls.get())
+    }
+
+    @Test
+    fun `should report remaining shared and leased tokens`() {
+        val node = node(leaseSize = 5)
+
+        assertEquals(59, node.tryConsume(KeyType.USER, "alice"))
+        assertEquals(58, node.tryConsume(KeyType.USER, "alice"))
+    }
+
+    @Test
+    fun `should reject locally until the next token is due`() {
+        val node = node(leaseSize = 1, maxTokens = 2)
+
+        assertTrue(node.tryConsume(KeyType.IP, "scalper") >= 0)
+        assertTrue(node.tryConsume(KeyType.IP, "scalper") >= 0)
+        repeat(10) {
+            assertEquals(RateLimiter.REJECTED, node.tryConsume(KeyType.IP, "scalper"))
+        }
+
+        // 兩次成功 + 第一次被拒絕各存取一次，之後的拒絕不再打到共享儲存
+        assertEquals(3, store.calls.get())
+    }
+
+    @Test
+    fun `should keep limiters with different names separate`() {
+        val general = node(leaseSize = 1, maxTokens = 1)
+        val booking = LeasedRateLimiter("booking", 1, 0.001, 1, 60_000, store)
+
+        assertTrue(general.tryConsume(KeyType.USER, "alice") >= 0)
+        assertTrue(booking.tryConsume(KeyType.USER, "alice") >= 0)
+    }
+
+    @Test
+    fun `should fall back to local limiter when store fails`() {
+        val failing = object : RateLimitTokenStore {
+            override fun acquire(key: String, permits: Int, intervalMillis: Long, capacityMillis: Long): TokenGrant =
+                throw IllegalStateException("store down")
+
+            override fun evictIdle(): Int = 0
+        }
+        val node = LeasedRateLimiter("general", 2, 0.001, 1, 60_000, failing)
+
+        assertTrue(node.tryConsume(KeyType.IP, "1.2.3.4") >= 0)
+        assertTrue(node.tryConsume(KeyType.IP, "1.2.3.4") >= 0)
+        assertEquals(RateLimiter.REJECTED, node.tryConsume(KeyType.IP, "1.2.3.4"))
+    }
+
+    @Test
+    fun `should evict expired leases`() {
+        val node = LeasedRateLimiter("general", 60, 1.0, 5, 1, store)
+        node.tryConsume(KeyType.IP, "1.2.3.4")
+
+        Thread.sleep(20)
+
+        assertEquals(1, node.evictIdle())
+    }
+}
@@ -22,7 +22,11 @@ class RateLimitFilterTest {
     @BeforeEach
     fun setUp() {
         MockitoAnnotations.openMocks(this)
-        filter = RateLimitFilter()
+        filter = RateLimitFilter(
+            InMemoryRateLimiter(maxTokens = 60, refillRate = 1.0),
+            InMemoryRateLimiter(maxTokens = 10, refillRate = 10.0 / 60.0),
+            InMemoryRateLimiter(maxTokens = 2, refillRate = 1.0 / 60.0)
+        )
         SecurityContextHolder.clearContext()
     }
 
@@ -76,6 +80,32 @@ class RateLimitFilterTest {
         assertEquals(429, response.status)
     }
 
+    @Test
+    fun `should use separate stricter limit for POST batch booking endpoint`() {
+        val uniqueIp = "10.66.66.${System.nanoTime() % 256}"
+        repeat(2) {
+            val req = MockHttpServletRequest("POST", "/api/bookings/batch")
+            req.remoteAddr = uniqueIp
+            filter.doFilter(req, MockHttpServletResponse(), filterChain)
+        }
+
+        val batch = MockHttpServletRequest("POST", "/api/bookings/batch")
+        batch.remoteAddr = uniqueIp
+        val batchResponse = MockHttpServletResponse()
+        filter.doFilter(batch, batchResponse, filterChain)
+
+        // 批次額度用盡不影響單筆建立預約的額度
+        val single = MockHttpServletRequest("POST", "/api/bookings")
+        single.remoteAddr = uniqueIp
+        val singleResponse = MockHttpServletResponse()
+        filter.doFilter(single, singleResponse, filterChain)
+
+        assertEquals(429, batchResponse.status)
+        assertEquals("2", batchResponse.getHeader("X-RateLimit-Limit"))
+        assertEquals(200, singleResponse.status)
+        assertEquals("9", singleResponse.getHeader("X-RateLimit-Remaining"))
+    }
+
     @Test
     fun `should use userId as key when authenticated`() {
         val auth = UsernamePasswordAuthenticationToken("testuser123", null, emptyList())
@@ -1,6 +1,7 @@
 package com.pet.service
 
-import com.pet.domain.Booking
+import com.pet.domain.Booking.BookingStatus
+import com.pet.domain.SitterDailyStats
 import com.pet.dto.response.BookingStatisticsResponse
 import com.pet.repository.BookingRepository
 import com.pet.repository.SitterRatingRepository
@@ -8,40 +9,82 @@ import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mock
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
 import org.mockito.Mockito.`when`
 import org.mockito.MockitoAnnotations
+import org.springframework.data.domain.PageRequest
+import java.time.LocalDate
 import java.time.LocalDateTime
 import java.util.*
+import java.util.function.Supplier
 
 class BookingStatisticsServiceTest {
 
     private lateinit var bookingStatisticsService: BookingStatisticsService
 
+    @Mock
+    private lateinit var sitterDailyStatsService: SitterDailyStatsService
+
     @Mock
     private lateinit var bookingRepository: BookingRepository
 
     @Mock
     private lateinit var sitterRatingRepository: SitterRatingRepository
 
+    @Mock
+    private lateinit var sitterStatisticsCache: SitterStatisticsCache
+
     private val sitterId = UUID.randomUUID()
 
     @BeforeEach
     fun setUp() {
         MockitoAnnotations.openMocks(this)
-        bookingStatisticsService = BookingStatisticsService(bookingRepository, sitterRatingRepository)
+        bookingStatisticsService = BookingStatisticsService(sitterDailyStatsService, bookingRepository, sitterRatingRepository, sitterStatisticsCache, true)
+        `when`(sitterDailyStatsService.ratingHistogram(sitterId)).thenReturn(LongArray(6))
+        `when`(sitterStatisticsCache.get(eq(sitterId) ?: sitterId, any())).thenAnswer { invocation ->
+            invocation.getArgument<Supplier<BookingStatisticsResponse>>(1).get()
+        }
+    }
+
+    private fun row(
+        date: LocalDate,
+        total: Int = 0,
+        pending: Int = 0,
+        completed: Int = 0,
+        rejected: Int = 0,
+        cancelled: Int = 0,
+        revenue: Double = 0.0
+    ): SitterDailyStats {
+        val row = mock(SitterDailyStats::class.java)
+        `when`(row.statDate).thenReturn(date)
+        `when`(row.totalBookings).thenReturn(total)
+        `when`(row.pendingCount).thenReturn(pending)
+        `when`(row.completedCount).thenReturn(completed)
+        `when`(row.rejectedCount).thenReturn(rejected)
+        `when`(row.cancelledCount).thenReturn(cancelled)
+        `when`(row.completedRevenue).thenReturn(revenue)
+        return row
+    }
+
+    private fun stubRows(vararg rows: SitterDailyStats) {
+        `when`(sitterDailyStatsService.findRange(eq(sitterId) ?: sitterId, any() ?: LocalDate.MIN, any() ?: LocalDate.MAX))
+            .thenReturn(rows.toList())
     }
 
     @Test
     fun `getBookingStats should calculate monthly stats correctly`() {
         // Arrange
-        val now = LocalDateTime.now()
-        val booking1 = Booking().apply { status = Booking.BookingStatus.COMPLETED }
-        val booking2 = Booking().apply { status = Booking.BookingStatus.PENDING }
-        val booking3 = Booking().apply { status = Booking.BookingStatus.CANCELLED }
-        
-        `when`(bookingRepository.findBySitterIdAndCreatedAtBetween(any(), any(), any()))
-            .thenReturn(listOf(booking1, booking2, booking3))
+        val today = LocalDate.now()
+        stubRows(
+            row(today.withDayOfMonth(1), total = 2, completed = 1, cancelled = 1),
+            row(today, total = 1, pending = 1),
+            row(today.withDayOfMonth(1).minusDays(1), total = 5, pending = 5)
+        )
 
         // Act
         val stats = bookingStatisticsService.getBookingStats(sitterId)
@@ -56,38 +99,52 @@ class BookingStatisticsServiceTest {
     @Test
     fun `getRevenueStats should calculate revenue and trend correctly`() {
         // Arrange
-        `when`(bookingRepository.sumRevenueByCompletedBookings(any(), any(), any()))
-            .thenReturn(1000.0)
-
-        val now = LocalDateTime.now()
-        val booking1 = Booking().apply { 
-            status = Booking.BookingStatus.COMPLETED
-            totalPrice = 500.0
-            createdAt = now
-        }
-        
-        `when`(bookingRepository.findBySitterIdAndCreatedAtBetween(any(), any(), any()))
-            .thenReturn(listOf(booking1))
+        val today = LocalDate.now()
+        stubRows(row(today, total = 1, completed = 1, revenue = 500.0))
 
         // Act
         val stats = bookingStatisticsService.getRevenueStats(sitterId)
 
         // Assert
-        assertEquals(1000.0, stats.monthlyRevenue)
-        assertTrue(stats.dailyTrend.isNotEmpty())
-        val todayTrend = stats.dailyTrend.find { it.date == now.toLocalDate() }
+        assertEquals(500.0, stats.monthlyRevenue)
+        assertEquals(500.0, stats.weeklyRevenue)
+        assertEquals(7, stats.dailyTrend.size)
+        val todayTrend = stats.dailyTrend.find { it.date == today }
         assertNotNull(todayTrend)
         assertEquals(500.0, todayTrend?.revenue)
         assertEquals(1L, todayTrend?.bookingCount)
+        assertEquals(0.0, stats.dailyTrend.first().revenue)
+    }
+
+    @Test
+    fun `getStatistics should read rollup rows once`() {
+        stubRows(row(LocalDate.now(), total = 1, pending = 1))
+        `when`(sitterRatingRepository.findLatestBySitterId(sitterId, PageRequest.of(0, 5))).thenReturn(emptyList())
+
+        val statistics = bookingStatisticsService.getStatistics(sitterId)
+
+        assertEquals(1, statistics.bookingStats.currentMonth.total)
+        verify(sitterDailyStatsService, times(1))
+            .findRange(eq(sitterId) ?: sitterId, any() ?: LocalDate.MIN, any() ?: LocalDate.MAX)
+    }
+
+    @Test
+    fun `getRatingStats should derive average and distribution from histogram`() {
+        `when`(sitterDailyStatsService.ratingHistogram(sitterId)).thenReturn(longArrayOf(0, 0, 0, 1, 1, 2))
+        `when`(sitterRatingRepository.findLatestBySitterId(sitterId, PageRequest.of(0, 5))).thenReturn(emptyList())
+
+        val stats = bookingStatisticsService.getRatingStats(sitterId)
+
+        assertEquals(4L, stats.totalRatings)
+        assertEquals(4.25, stats.averageRating, 1e-9)
+        assertEquals(50.0, stats.fiveStarPercentage, 1e-9)
+        assertEquals(2L, stats.starDistribution[5])
     }
 
     @Test
     fun `getRatingStats should handle empty ratings correctly`() {
         // Arrange
-        `when`(sitterRatingRepository.calculateAverageRating(sitterId)).thenReturn(null)
-        `when`(sitterRatingRepository.`countBySitter_Id`(sitterId)).thenReturn(0L)
-        `when`(sitterRatingRepository.countRatingsByStars(sitterId)).thenReturn(emptyList())
-        `when`(sitterRatingRepository.findBySitterIdOrderByCreatedAtDesc(sitterId)).thenReturn(emptyList())
+        `when`(sitterRatingRepository.findLatestBySitterId(sitterId, PageRequest.of(0, 5))).thenReturn(emptyList())
 
         // Act
         val stats = bookingStatisticsService.getRatingStats(sitterId)
@@ -99,4 +156,47 @@ class BookingStatisticsServiceTest {
         assertEquals(0L, stats.starDistribution[5])
         assertTrue(stats.latestRatings.isEmpty())
     }
+
+    @Test
+    fun `getStatistics without rollup should use three grouped queries`() {
+        // Arrange
+        val service = BookingStatisticsService(sitterDailyStatsService, bookingRepository, sitterRatingRepository, sitterStatisticsCache, false)
+        val today = LocalDate.now()
+        `when`(bookingRepository.summarizeBySitterAndStatus(eq(sitterId) ?: sitterId, anyTime(), anyTime()))
+            .thenReturn(
+                listOf(
+                    arrayOf<Any>(BookingStatus.PENDING, 2L),
+                    arrayOf<Any>(BookingStatus.COMPLETED, 3L),
+                    arrayOf<Any>(BookingStatus.REJECTED, 1L),
+                    arrayOf<Any>(BookingStatus.CANCELLED, 1L)
+                )
+            )
+        `when`(
+            bookingRepository.summarizeBySitterAndDate(
+                eq(sitterId) ?: sitterId, eq(BookingStatus.COMPLETED) ?: BookingStatus.COMPLETED, anyTime(), anyTime()
+            )
+        ).thenReturn(listOf(arrayOf<Any>(today, 3L, 900.0)))
+        `when`(sitterRatingRepository.countRatingsByStars(sitterId))
+            .thenReturn(listOf(arrayOf<Any>(5, 3L), arrayOf<Any>(3, 1L)))
+        `when`(sitterRatingRepository.findLatestBySitterId(sitterId, PageRequest.of(0, 5))).thenReturn(emptyList())
+
+        // Act
+        val statistics = service.getStatistics(sitterId)
+
+        // Assert
+        assertEquals(7, statistics.bookingStats.currentMonth.total)
+        assertEquals(2, statistics.bookingStats.currentMonth.pending)
+        assertEquals(3, statistics.bookingStats.currentMonth.completed)
+        assertEquals(2, statistics.bookingStats.currentMonth.rejectedOrCancelled)
+        assertEquals(900.0, statistics.revenueStats.monthlyRevenue)
+        assertEquals(3L, statistics.revenueStats.dailyTrend.last().bookingCount)
+        assertEquals(4L, statistics.ratingStats.totalRatings)
+        assertEquals(4.5, statistics.ratingStats.averageRating, 1e-9)
+        verify(bookingRepository, times(1)).summarizeBySitterAndStatus(eq(sitterId) ?: sitterId, anyTime(), anyTime())
+        verify(sitterDailyStatsService, never())
+            .findRange(eq(sitterId) ?: sitterId, any() ?: LocalDate.MIN, any() ?: LocalDate.MAX)
+        verify(sitterDailyStatsService, never()).ratingHistogram(sitterId)
+    }
+
+    private fun anyTime(): LocalDateTime = any() ?: LocalDateTime.MIN
 }
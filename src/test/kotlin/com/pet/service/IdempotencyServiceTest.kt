@@ -2,6 +2,7 @@ package com.pet.service
 
 import com.pet.domain.IdempotencyKey
 import com.pet.repository.IdempotencyKeyRepository
+import com.pet.service.IdempotencyService.Reservation.Outcome
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
@@ -10,8 +11,11 @@ import org.mockito.ArgumentMatchers.any
 import org.mockito.Mock
 import org.mockito.Mockito.*
 import org.mockito.junit.jupiter.MockitoExtension
+import org.springframework.dao.DataIntegrityViolationException
 import java.time.LocalDateTime
 import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
 
 @ExtendWith(MockitoExtension::class)
 class IdempotencyServiceTest {
@@ -21,40 +25,138 @@ class IdempotencyServiceTest {
     @Mock
     private lateinit var idempotencyKeyRepository: IdempotencyKeyRepository
 
+    private val body = """{"success":true}""".toByteArray()
+
     @BeforeEach
     fun setUp() {
-        idempotencyService = IdempotencyService(idempotencyKeyRepository)
+        idempotencyService = IdempotencyService(idempotencyKeyRepository, 100, 2000, 30000, 10)
+    }
+
+    private fun anyKey(): IdempotencyKey = any(IdempotencyKey::class.java) ?: IdempotencyKey(key = "")
+
+    private fun stubInsertSucceeds() {
+        doAnswer { it.getArgument<IdempotencyKey>(0) }.`when`(idempotencyKeyRepository).saveAndFlush(anyKey())
+    }
+
+    private fun stubInsertConflicts(existing: IdempotencyKey) {
+        doThrow(DataIntegrityViolationException("duplicate key")).`when`(idempotencyKeyRepository).saveAndFlush(anyKey())
+        `when`(idempotencyKeyRepository.findById(existing.key)).thenReturn(Optional.of(existing))
+    }
+
+    @Test
+    fun `should acquire new key`() {
+        stubInsertSucceeds()
+
+        val result = idempotencyService.reserve("new-key", "hash-a")
+
+        assertEquals(Outcome.ACQUIRED, result.outcome)
+        assertNull(result.response)
+    }
+
+    @Test
+    fun `should replay published response from near cache without touching DB`() {
+        stubInsertSucceeds()
+        idempotencyService.reserve("key", "hash-a")
+        idempotencyService.publish("key", "hash-a", 201, "application/json", body)
+
+        val result = idempotencyService.reserve("key", "hash-a")
+
+        assertEquals(Outcome.REPLAY, result.outcome)
+        assertEquals(201, result.response!!.httpStatus)
+        assertArrayEquals(body, result.response!!.body)
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(anyKey())
+        verify(idempotencyKeyRepository, never()).findById(anyString())
+    }
+
+    @Test
+    fun `should reject key reused with different request`() {
+        stubInsertSucceeds()
+        idempotencyService.reserve("key", "hash-a")
+        idempotencyService.publish("key", "hash-a", 201, "application/json", body)
+
+        val result = idempotencyService.reserve("key", "hash-b")
+
+        assertEquals(Outcome.MISMATCH, result.outcome)
     }
 
     @Test
-    fun `should return null for non-existing key`() {
-        `when`(idempotencyKeyRepository.findById("non-existing")).thenReturn(Optional.empty())
+    fun `should replay response completed by another node`() {
+        stubInsertConflicts(IdempotencyKey(
+            key = "key", requestHash = "hash-a", status = IdempotencyKey.Status.COMPLETED,
+            responseBody = body, contentType = "application/json", httpStatus = 201
+        ))
+
+        val first = idempotencyService.reserve("key", "hash-a")
+        val second = idempotencyService.reserve("key", "hash-a")
+
+        assertEquals(Outcome.REPLAY, first.outcome)
+        assertArrayEquals(body, first.response!!.body)
+        assertEquals(Outcome.REPLAY, second.outcome)
+        verify(idempotencyKeyRepository, times(1)).findById("key")
+    }
+
+    @Test
+    fun `should take over stale reservation`() {
+        stubInsertConflicts(IdempotencyKey(key = "key", requestHash = "hash-a",
+            createdAt = LocalDateTime.now().minusMinutes(5)))
+        doReturn(1).`when`(idempotencyKeyRepository).takeOverStale(
+            anyString(), anyString(), any(IdempotencyKey.Status::class.java) ?: IdempotencyKey.Status.IN_PROGRESS,
+            any(LocalDateTime::class.java) ?: LocalDateTime.now(), any(LocalDateTime::class.java) ?: LocalDateTime.now()
+        )
 
-        val result = idempotencyService.checkExisting("non-existing")
+        val result = idempotencyService.reserve("key", "hash-a")
 
-        assertNull(result)
+        assertEquals(Outcome.ACQUIRED, result.outcome)
+    }
+
+    @Test
+    fun `should give up when another node keeps the key in progress`() {
+        idempotencyService = IdempotencyService(idempotencyKeyRepository, 100, 50, 30000, 10)
+        stubInsertConflicts(IdempotencyKey(key = "key", requestHash = "hash-a"))
+
+        val result = idempotencyService.reserve("key", "hash-a")
+
+        assertEquals(Outcome.IN_PROGRESS, result.outcome)
+        verify(idempotencyKeyRepository, atLeast(2)).findById("key")
+    }
+
+    @Test
+    fun `concurrent duplicate should wait for first request and replay its response`() {
+        stubInsertSucceeds()
+        assertEquals(Outcome.ACQUIRED, idempotencyService.reserve("key", "hash-a").outcome)
+
+        val duplicate = CompletableFuture.supplyAsync { idempotencyService.reserve("key", "hash-a") }
+        Thread.sleep(50)
+        assertFalse(duplicate.isDone)
+        idempotencyService.publish("key", "hash-a", 201, "application/json", body)
+
+        val result = duplicate.get(2, TimeUnit.SECONDS)
+        assertEquals(Outcome.REPLAY, result.outcome)
+        assertArrayEquals(body, result.response!!.body)
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(anyKey())
     }
 
     @Test
-    fun `should return existing key`() {
-        val existing = IdempotencyKey(key = "existing-key", responseBody = """{"id":1}""", httpStatus = 200)
-        `when`(idempotencyKeyRepository.findById("existing-key")).thenReturn(Optional.of(existing))
+    fun `should allow retry after release`() {
+        stubInsertSucceeds()
+        idempotencyService.reserve("key", "hash-a")
 
-        val result = idempotencyService.checkExisting("existing-key")
+        idempotencyService.release("key")
+        val retry = idempotencyService.reserve("key", "hash-a")
 
-        assertNotNull(result)
-        assertEquals("existing-key", result!!.key)
-        assertEquals(200, result.httpStatus)
-        assertEquals("""{"id":1}""", result.responseBody)
+        assertEquals(Outcome.ACQUIRED, retry.outcome)
+        verify(idempotencyKeyRepository).deleteByKeyAndStatus("key", IdempotencyKey.Status.IN_PROGRESS)
+        verify(idempotencyKeyRepository, times(2)).saveAndFlush(anyKey())
     }
 
     @Test
-    fun `should save new key`() {
-        idempotencyService.save("new-key", """{"success":true}""", 201)
+    fun `fingerprint should depend on method path and body`() {
+        val base = idempotencyService.fingerprint("POST", "/api/bookings", body)
 
-        verify(idempotencyKeyRepository).save(argThat<IdempotencyKey> { key ->
-            key.key == "new-key" && key.httpStatus == 201 && key.responseBody == """{"success":true}"""
-        })
+        assertEquals(64, base.length)
+        assertEquals(base, idempotencyService.fingerprint("POST", "/api/bookings", body.copyOf()))
+        assertNotEquals(base, idempotencyService.fingerprint("PUT", "/api/bookings", body))
+        assertNotEquals(base, idempotencyService.fingerprint("POST", "/api/bookings", "{}".toByteArray()))
     }
 
     @Test
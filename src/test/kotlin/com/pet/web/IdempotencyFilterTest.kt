@@ -0,0 +1,158 @@
+package com.pet.web
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.pet.domain.IdempotencyKey
+import com.pet.repository.IdempotencyKeyRepository
+import com.pet.service.IdempotencyService
+import jakarta.servlet.FilterChain
+import jakarta.servlet.http.HttpServletResponse
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.*
+import org.springframework.beans.factory.support.DefaultListableBeanFactory
+import org.springframework.http.MediaType
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.web.method.HandlerMethod
+import org.springframework.web.servlet.HandlerExecutionChain
+import org.springframework.web.servlet.HandlerMapping
+
+class IdempotencyFilterTest {
+
+    private lateinit var repository: IdempotencyKeyRepository
+    private lateinit var mapping: HandlerMapping
+    private lateinit var filter: IdempotencyFilter
+
+    private var invocations = 0
+    private var responseStatus = 200
+
+    private val chain = FilterChain { request, response ->
+        invocations++
+        val body = request.inputStream.readAllBytes()
+        response as HttpServletResponse
+        response.status = responseStatus
+        response.contentType = MediaType.APPLICATION_JSON_VALUE
+        response.outputStream.write("""{"call":$invocations,"echo":${String(body)}}""".toByteArray())
+    }
+
+    @Suppress("unused")
+    class Endpoints {
+        @Idempotent
+        fun confirm() {}
+
+        fun plain() {}
+    }
+
+    @BeforeEach
+    fun setUp() {
+        repository = mock(IdempotencyKeyRepository::class.java)
+        doAnswer { it.getArgument<IdempotencyKey>(0) }.`when`(repository)
+            .saveAndFlush(any(IdempotencyKey::class.java) ?: IdempotencyKey(key = ""))
+        mapping = mock(HandlerMapping::class.java)
+        routeTo("confirm")
+
+        val beanFactory = DefaultListableBeanFactory()
+        beanFactory.registerSingleton("requestMappingHandlerMapping", mapping)
+        filter = IdempotencyFilter(
+            IdempotencyService(repository, 100, 1000, 30000, 10),
+            ObjectMapper(),
+            beanFactory.getBeanProvider(HandlerMapping::class.java),
+            1024, 2, 256, 4096
+        )
+    }
+
+    private fun routeTo(method: String) {
+        `when`(mapping.getHandler(any())).thenReturn(HandlerExecutionChain(HandlerMethod(Endpoints(), method)))
+    }
+
+    private fun post(key: String?, body: String = """{"response":"ok"}"""): MockHttpServletResponse {
+        val request = MockHttpServletRequest("POST", "/api/bookings/1/confirm")
+        key?.let { request.addHeader(IdempotencyFilter.HEADER, it) }
+        request.contentType = MediaType.APPLICATION_JSON_VALUE
+        request.setContent(body.toByteArray())
+        val response = MockHttpServletResponse()
+        filter.doFilter(request, response, chain)
+        return response
+    }
+
+    @Test
+    fun `should replay stored bytes without invoking controller`() {
+        val first = post("key-1")
+        val second = post("key-1")
+
+        assertEquals(1, invocations)
+        assertEquals(200, first.status)
+        assertEquals("""{"call":1,"echo":{"response":"ok"}}""", first.contentAsString)
+        assertEquals(first.contentAsString, second.contentAsString)
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, second.contentType)
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER))
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER))
+    }
+
+    @Test
+    fun `should reject same key with different body`() {
+        post("key-1")
+        val second = post("key-1", """{"response":"changed"}""")
+
+        assertEquals(1, invocations)
+        assertEquals(422, second.status)
+    }
+
+    @Test
+    fun `should release key when request fails so retry runs again`() {
+        responseStatus = 500
+        post("key-1")
+        responseStatus = 200
+        val retry = post("key-1")
+
+        assertEquals(2, invocations)
+        assertEquals(200, retry.status)
+        verify(repository).deleteByKeyAndStatus("key-1", IdempotencyKey.Status.IN_PROGRESS)
+    }
+
+    @Test
+    fun `should pass through endpoints without annotation`() {
+        routeTo("plain")
+
+        post("key-1")
+        post("key-1")
+
+        assertEquals(2, invocations)
+        verifyNoInteractions(repository)
+    }
+
+    @Test
+    fun `should pass through requests without key`() {
+        post(null)
+        post(null)
+
+        assertEquals(2, invocations)
+        verifyNoInteractions(repository)
+        verifyNoInteractions(mapping)
+    }
+
+    @Test
+    fun `should reject oversized key and body`() {
+        assertEquals(400, post("k".repeat(65)).status)
+        assertEquals(413, post("key-1", "x".repeat(2048)).status)
+        assertEquals(0, invocations)
+    }
+
+    @Test
+    fun `buffer pool should reuse small buffers and drop large ones`() {
+        val pool = ResponseCaptureBufferPool(2, 16, 64)
+        val small = pool.acquire()
+        small.write(ByteArray(10))
+        pool.release(small)
+
+        val reused = pool.acquire()
+        assertSame(small, reused)
+        assertEquals(0, reused.size())
+
+        reused.write(ByteArray(1000))
+        pool.release(reused)
+        assertEquals(0, pool.available())
+    }
+}